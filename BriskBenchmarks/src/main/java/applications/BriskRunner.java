@@ -11,6 +11,7 @@ import brisk.topology.TopologySubmitter;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
 import constants.*;
+import machine.Calibration;
 import machine.HP_Machine;
 import machine.HUAWEI_Machine;
 import machine.Platform;
@@ -155,6 +156,14 @@ public class BriskRunner extends abstractRunner {
                 default:
                     this.p = new RTM_Machine();
             }
+            if (!config.getString("platform", "").isEmpty()) {//calibrated profile of this machine.
+                try {
+                    this.p = Calibration.profile(config.getString("platform"), config.getInt("num_socket"));
+                    config.put("num_socket", p.num_socket);
+                } catch (IOException e) {
+                    LOG.info("Platform profile " + config.getString("platform") + " unusable (" + e.getMessage() + "), use machine:" + config.getInt("machine"));
+                }
+            }
 
             if (simulation) {
                 LOG.info("Simulation: use machine:" + config.getInt("machine")
@@ -186,6 +195,7 @@ public class BriskRunner extends abstractRunner {
                         config.put(BaseConstants.BaseConf.PARSER_THREADS, threads);//insignificant
                         config.put(WordCountConstants.Conf.SPLITTER_THREADS, threads);//2
                         config.put(WordCountConstants.Conf.COUNTER_THREADS, threads);
+                        config.put(WordCountConstants.Conf.AGG_THREADS, threads);//used with --skew only.
                     }
                     max_hz = WordCountConstants.max_hz;
                     break;
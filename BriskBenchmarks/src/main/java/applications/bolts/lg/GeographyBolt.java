@@ -5,6 +5,8 @@ import brisk.execution.ExecutionGraph;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.metrics.Metrics;
+import model.geoip.CachedIPLocation;
 import model.geoip.IPLocation;
 import model.geoip.IPLocationFactory;
 import model.geoip.Location;
@@ -35,6 +37,10 @@ public class GeographyBolt extends MapBolt {
         super.initialize(thread_Id, thisTaskId, graph);
         String ipResolver = config.getString(BaseConf.GEOIP_INSTANCE);
         resolver = IPLocationFactory.create(ipResolver, config);
+        if (resolver instanceof CachedIPLocation && config.getBoolean("metrics", false)) {
+            Metrics.register(getContext().getThisComponentId() + "." + thisTaskId, "geoip_hit_rate",
+                    ((CachedIPLocation) resolver)::getHitRate);
+        }
         LOG.info(Thread.currentThread().getName());
     }
 
@@ -78,6 +84,10 @@ public class GeographyBolt extends MapBolt {
         }
     }
 
+    @Override
+    public void display() {
+        LOG.info("IP resolver: " + resolver);//hit rate of the per-executor cache.
+    }
 
     @Override
     public Fields getDefaultFields() {
@@ -21,7 +21,7 @@ package applications.bolts.lr;
 
 import applications.datatype.AbstractLRBTuple;
 import applications.datatype.DailyExpenditureRequest;
-import applications.datatype.toll.MemoryTollDataStore;
+import applications.datatype.toll.MappedTollDataStore;
 import applications.datatype.toll.TollDataStore;
 import applications.datatype.util.Constants;
 import applications.datatype.util.LRTopologyControl;
@@ -40,8 +40,10 @@ import util.events.HistoryEvent;
 import util.lr.Helper;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
 import java.sql.Statement;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -62,7 +64,10 @@ public class DailyExpenditureBolt extends filterBolt {
     private static final long serialVersionUID = 1L;
     private static final Logger LOG = LoggerFactory.getLogger(DailyExpenditureBolt.class);
     private LinkedList<HistoryEvent> historyEvtList;
+    private static final Map<String, TollDataStore> STORES = new HashMap<>();
+    private static final Map<String, Integer> USERS = new HashMap<>();
     private transient TollDataStore dataStore;
+    private transient String historyFile;
 
     /**
      *
@@ -95,15 +100,6 @@ public class DailyExpenditureBolt extends filterBolt {
         super.prepare(conf, context, collector);
         @SuppressWarnings("unchecked")
 
-        String tollDataStoreClass = MemoryTollDataStore.class.getName();//(String) conf.get(Helper.TOLL_DATA_STORE_CONF_KEY);
-        try {
-            this.dataStore = (TollDataStore) Class.forName(tollDataStoreClass).newInstance();
-        } catch (InstantiationException | IllegalAccessException | ClassNotFoundException ex) {
-            throw new RuntimeException(String.format("The data Store instance '%s' could not be initialized (see "
-                    + "nested exception for details)", this.dataStore), ex);
-        }
-
-
         //historyEvtList = new LinkedList<HistoryEvent>();
         String OS_prefix = null;
         if (OsUtils.isWindows()) {
@@ -119,8 +115,23 @@ public class DailyExpenditureBolt extends filterBolt {
             historyFile = System.getProperty("user.home").concat("/Documents/data/app/").concat((String) conf.get(OS_prefix.concat("linear-history-file")));
         }
 
-
-        loadHistoricalInfo(historyFile, conf, OS_prefix);
+        //the history is read-only after loading, so all executors in this JVM share one store (and one mapped file).
+        synchronized (STORES) {
+            this.dataStore = STORES.get(historyFile);
+            if (this.dataStore == null) {
+                String tollDataStoreClass = MappedTollDataStore.class.getName();//(String) conf.get(Helper.TOLL_DATA_STORE_CONF_KEY);
+                try {
+                    this.dataStore = (TollDataStore) Class.forName(tollDataStoreClass).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException ex) {
+                    throw new RuntimeException(String.format("The data Store instance '%s' could not be initialized (see "
+                            + "nested exception for details)", this.dataStore), ex);
+                }
+                loadHistoricalInfo(historyFile, conf, OS_prefix);
+                STORES.put(historyFile, this.dataStore);
+            }
+            USERS.merge(historyFile, 1, Integer::sum);
+            this.historyFile = historyFile;
+        }
         Configuration config = Configuration.fromMap(conf);
 
     }
@@ -212,6 +223,27 @@ public class DailyExpenditureBolt extends filterBolt {
         }
     }
 
+    /**
+     * The last executor sharing the store closes it, which unmaps its file.
+     */
+    @Override
+    public void cleanup() {
+        super.cleanup();
+        synchronized (STORES) {
+            if (historyFile == null || USERS.merge(historyFile, -1, Integer::sum) > 0) {
+                return;
+            }
+            USERS.remove(historyFile);
+            final TollDataStore store = STORES.remove(historyFile);
+            if (store instanceof Closeable) {
+                try {
+                    ((Closeable) store).close();
+                } catch (IOException e) {
+                    LOG.warn("Could not close the toll store of " + historyFile, e);
+                }
+            }
+        }
+    }
 
     @Override
     public void declareOutputFields(OutputFieldsDeclarer declarer) {
@@ -26,12 +26,15 @@ import brisk.execution.ExecutionGraph;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
 import brisk.execution.runtime.tuple.impl.Tuple;
+import helper.parser.SchemaParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 
 import static applications.datatype.util.LRTopologyControl.POSITION_REPORTS_STREAM_ID;
+import static helper.parser.SchemaParser.Type.INT;
+import static helper.parser.SchemaParser.Type.SHORT;
 
 
 /**
@@ -53,6 +56,9 @@ public class DispatcherBolt extends filterBolt {
     private static final long serialVersionUID = 6908631355830501961L;
     private static final Logger LOG = LoggerFactory.getLogger(DispatcherBolt.class);
 
+    //Type, Time, VID, Spd, XWay, Lane, Dir, Seg, Pos, QID; the remaining columns are not used.
+    private final SchemaParser parser = new SchemaParser(' ', false, SHORT, INT, INT, INT, INT, SHORT, SHORT, SHORT, INT, INT);
+    private final SchemaParser.Row token = parser.newRow();
     long cnt = 0, de = 0, pr = 0, ab = 0;
     //     10215332
 //    private double pr = 98.85696197046802%, ab = 0.57618584512478315%, de = 0.11689623684645518%;
@@ -74,30 +80,29 @@ public class DispatcherBolt extends filterBolt {
 
     @Override
     public void execute(Tuple in) throws InterruptedException {
-        String raw = null;
-
-        raw = in.getString(0);
-
-        String[] token = raw.split(" ");
+        final char[] raw = in.getCharArray(0);
+        if (!parser.parse(raw, token)) {
+            LOG.error("Error in line: {}", new String(raw));
+            return;
+        }
 
-        short type = Short.parseShort(token[0]);
-        Integer time = Integer.parseInt(token[1]);
-        Integer vid = Integer.parseInt(token[2]);
-        assert (time.shortValue() == Short.parseShort(token[1]));
+        short type = token.getShort(0);
+        int time = token.getInt(1);
+        int vid = token.getInt(2);
 
         if (type == AbstractLRBTuple.position_report) {
             this.collector.force_emit(POSITION_REPORTS_STREAM_ID,
                     -1, new PositionReport(//
                             time,//
                             vid,//
-                            Integer.parseInt(token[3]), // speed
-                            Integer.parseInt(token[4]), // xway
-                            Short.parseShort(token[5]), // lane
-                            Short.parseShort(token[6]), // direction
-                            Short.parseShort(token[7]), // segment
-                            Integer.parseInt(token[8]))); // position
+                            token.getInt(3), // speed
+                            token.getInt(4), // xway
+                            token.getShort(5), // lane
+                            token.getShort(6), // direction
+                            token.getShort(7), // segment
+                            token.getInt(8))); // position
         } else {
-            Integer qid = Integer.parseInt(token[9]);
+            int qid = token.getInt(9);
             switch (type) {
                 case AbstractLRBTuple.account_balance_request:
 
@@ -123,16 +128,16 @@ public class DispatcherBolt extends filterBolt {
 //		long pre_pr = pr;
 //		cnt += bound;
         for (int i = 0; i < bound; i++) {
-            String raw = null;
 //			try {
-            raw = in.getString(0, i);
-            //raw = raw.substring(3, raw.length() - 2);
-            String[] token = raw.split(" ");
+            final char[] raw = in.getCharArray(0, i);
+            if (!parser.parse(raw, token)) {
+                LOG.error("Error in line: {}", new String(raw));
+                continue;
+            }
             // common attributes of all in tuples
-            short type = Short.parseShort(token[0]);
-            Integer time = Integer.parseInt(token[1]);
-            Integer vid = Integer.parseInt(token[2]);
-            assert (time.shortValue() == Short.parseShort(token[1]));
+            short type = token.getShort(0);
+            int time = token.getInt(1);
+            int vid = token.getInt(2);
 
             if (type == AbstractLRBTuple.position_report) {
 
@@ -143,17 +148,17 @@ public class DispatcherBolt extends filterBolt {
                         new PositionReport(//
                                 time,//
                                 vid,//
-                                Integer.parseInt(token[3]), // speed
-                                Integer.parseInt(token[4]), // xway
-                                Short.parseShort(token[5]), // lane
-                                Short.parseShort(token[6]), // direction
-                                Short.parseShort(token[7]), // segment
-                                Integer.parseInt(token[8]))); // position
+                                token.getInt(3), // speed
+                                token.getInt(4), // xway
+                                token.getShort(5), // lane
+                                token.getShort(6), // direction
+                                token.getShort(7), // segment
+                                token.getInt(8))); // position
 
 //				pr++;
             } else {
                 // common attribute of all requests
-                Integer qid = Integer.parseInt(token[9]);
+                int qid = token.getInt(9);
                 switch (type) {
                     case AbstractLRBTuple.account_balance_request:
 
@@ -187,6 +187,11 @@ public class TimestampMerger extends MapBolt {
     }
 
 
+    @Override
+    public boolean retainsInput() {
+        return true;//tuples are buffered in the merger.
+    }
+
     @Override
     public void cleanup() {
         this.wrappedBolt.cleanup();
@@ -7,14 +7,12 @@ import brisk.execution.runtime.collector.OutputCollector;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.execution.runtime.tuple.impl.Tuple;
-import brisk.util.SlidingWindow;
+import brisk.util.OrderStatisticWindow;
 import constants.streamingAnalysisConstants.Field;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.datatypes.StreamValues;
 
-import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.Map;
 
 public class WindowMedian extends MapBolt {
@@ -22,7 +20,7 @@ public class WindowMedian extends MapBolt {
     private static final Logger LOG = LoggerFactory.getLogger(WindowMedian.class);
     private static final long serialVersionUID = 3686241835639674759L;
     private final int window_size;
-    private SlidingWindow<String> map;
+    private OrderStatisticWindow map;
 
     private WindowMedian(int window) {
         super(LOG);
@@ -34,7 +32,7 @@ public class WindowMedian extends MapBolt {
     @Override
     public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
         super.initialize(thread_Id, thisTaskId, graph);
-        map = new SlidingWindow<>(window_size);
+        map = new OrderStatisticWindow(window_size);
     }
 
 
@@ -49,35 +47,39 @@ public class WindowMedian extends MapBolt {
     }
 
     /**
-     * Assume sliding window based.
+     * Assume sliding window based. Values are parsed once, on arrival.
      *
      * @param time  // /number of item/ based, this time is not needed.
      * @param value
      */
     private void update_window(Long time, String value) {
-        map.put(value);
+        map.put(parse(value));
     }
 
-    private double get_median() {
-        LinkedList<Double> number_list = new LinkedList<>();
-
-        for (int i = 0; i < window_size; i++) {
-            final String item = map.get(i);
-            String[] split = item.split(split_expression);
-            for (String e : split) {
-                number_list.add(Double.parseDouble(e));
-            }
+    static double[] parse(String value) {
+        int length = value.length();
+        while (length > 0 && value.startsWith(split_expression, length - 1)) {//trailing separators, as String.split.
+            length--;
         }
-        Object[] numArray = number_list.toArray();
-        Arrays.sort(numArray);
-        double median;
-        if (numArray.length % 2 == 0) {
-            median = ((double) numArray[numArray.length / 2] + (double) numArray[numArray.length / 2 - 1]) / 2;
-        } else {
-            median = (double) numArray[numArray.length / 2];
+        int n = 1;
+        for (int i = value.indexOf(split_expression); i >= 0 && i < length; i = value.indexOf(split_expression, i + 1)) {
+            n++;
         }
+        final double[] numbers = new double[n];
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            int end = value.indexOf(split_expression, start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            numbers[i] = Double.parseDouble(value.substring(start, end));
+            start = end + 1;
+        }
+        return numbers;
+    }
 
-        return median;
+    private double get_median() {
+        return map.median();
     }
 
 
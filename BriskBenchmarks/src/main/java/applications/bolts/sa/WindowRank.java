@@ -7,26 +7,25 @@ import brisk.execution.runtime.collector.OutputCollector;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.execution.runtime.tuple.impl.Tuple;
-import brisk.util.SlidingWindow;
+import brisk.util.OrderStatisticWindow;
 import constants.streamingAnalysisConstants.Field;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.datatypes.StreamValues;
 
-import java.util.*;
+import java.util.Map;
 
 public class WindowRank extends filterBolt {
     private static final String split_expression = ",";
     private static final Logger LOG = LoggerFactory.getLogger(WindowRank.class);
     private static final long serialVersionUID = -5810383996336191119L;
-    private static final boolean DESC = false;
     public static boolean ASC = true;
     private final int size_tuple;
     private final int window_size;
-    private final Map<String, Double> unsortMap = new HashMap<>();
     double cnt = 0;
     double cnt1 = 0;
-    private SlidingWindow<String> map;
+    private OrderStatisticWindow map;//sum of each item.
+    private String[] items;//item of each slot.
 
     private WindowRank(int size_tuple, int window) {
         super();//the branch selectivity is changing by the ``key".
@@ -35,33 +34,6 @@ public class WindowRank extends filterBolt {
         this.window_size = window;
     }
 
-    private static Map<String, Double> sortByComparator(Map<String, Double> unsortMap) {
-
-        // long start = System.nanoTime();
-        List<Map.Entry<String, Double>> list = new LinkedList<>(unsortMap.entrySet());
-
-        // Sorting the list based on values
-        list.sort((o1, o2) -> {
-            if (WindowRank.DESC) {
-                return o1.getValue().compareTo(o2.getValue());
-            } else {
-                return o2.getValue().compareTo(o1.getValue());
-
-            }
-        });
-
-        //long end = System.nanoTime();
-        //LOG.info("Operational time in rank:" + (end - start));
-
-        // Maintaining insertion order with the help of LinkedList
-        Map<String, Double> sortedMap = new LinkedHashMap<>();
-        for (Map.Entry<String, Double> entry : list) {
-            sortedMap.put(entry.getKey(), entry.getValue());
-        }
-
-        return sortedMap;
-    }
-
     public static void printMap(Map<String, Integer> map) {
         for (Map.Entry<String, Integer> entry : map.entrySet()) {
             System.out.println("Key : " + entry.getKey() + " Value : " + entry.getValue());
@@ -71,7 +43,8 @@ public class WindowRank extends filterBolt {
     @Override
     public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
 
-        map = new SlidingWindow<>(this.window_size);
+        map = new OrderStatisticWindow(this.window_size);
+        items = new String[this.window_size];
     }
 
     public void prepare(Map conf, TopologyContext context, OutputCollector collector) {
@@ -90,7 +63,7 @@ public class WindowRank extends filterBolt {
      * @param value
      */
     private void update_window(Long time, String value) {
-        map.put(value);
+        items[map.put(sumInValue(value))] = value;
     }
 
     private double sumInValue(String value) {
@@ -104,17 +77,8 @@ public class WindowRank extends filterBolt {
 
     //report top-N by sum of values.
     //currently top-1 only.
-    private Map.Entry<String, Double> rank() {
-
-        for (int i = 0; i < this.window_size; i++) {
-            final String value = map.get(i);
-            unsortMap.put(value, sumInValue(value));
-        }
-
-
-        Map<String, Double> sortedMapDesc = sortByComparator(unsortMap);
-        unsortMap.clear();
-        return sortedMapDesc.entrySet().iterator().next();
+    private String rank() {
+        return items[map.slot(map.size() - 1)];
     }
 
     @Override
@@ -129,7 +93,7 @@ public class WindowRank extends filterBolt {
 //            if (stat != null) stat.start_measure();
             update_window(time, value);
             if (map.build()) {
-                String rank = rank().getKey();
+                String rank = rank();
                 final StreamValues objects =
                         new StreamValues(time, key, rank);
                 //StableValues.create(time, key, rank);//a memory write happens here (could be in cache..)
@@ -153,7 +117,7 @@ public class WindowRank extends filterBolt {
             if (Integer.parseInt(key) <= size_tuple * branch_selectivity) {
                 update_window(time, value);
                 if (map.build()) {
-                    String rank = rank().getKey();
+                    String rank = rank();
                     final StreamValues objects =
                             new StreamValues(time, key, rank);
 
@@ -113,6 +113,6 @@ public class MovingAverageBolt extends MapBolt {
 
     @Override
     public Fields getDefaultFields() {
-        return new Fields(SpikeDetectionConstants.Field.DEVICE_ID, SpikeDetectionConstants.Field.MOVING_AVG, SpikeDetectionConstants.Field.VALUE);
+        return new Fields(new Class<?>[]{int.class, double.class, double.class}, SpikeDetectionConstants.Field.DEVICE_ID, SpikeDetectionConstants.Field.MOVING_AVG, SpikeDetectionConstants.Field.VALUE);
     }
 }
\ No newline at end of file
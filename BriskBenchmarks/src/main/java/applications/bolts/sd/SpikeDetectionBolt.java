@@ -3,6 +3,7 @@ package applications.bolts.sd;
 import applications.Constants;
 import brisk.components.operators.base.filterBolt;
 import brisk.execution.ExecutionGraph;
+import brisk.execution.runtime.tuple.ColumnarTransferTuple;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.execution.runtime.tuple.impl.Tuple;
@@ -60,6 +61,17 @@ public class SpikeDetectionBolt extends filterBolt {
     @Override
     public void execute(TransferTuple in) throws InterruptedException {
         int bounds = in.length;
+        if (in instanceof ColumnarTransferTuple) {//scan the columns directly.
+            final ColumnarTransferTuple batch = (ColumnarTransferTuple) in;
+            final double[] movingAverage = batch.getDoubleColumn(1);
+            final double[] value = batch.getDoubleColumn(2);
+            for (int i = 0; i < bounds; i++) {
+                double movingAverageInstant = batch.isColumnar(i) ? movingAverage[i] : in.getDouble(1, i);
+                double nextDouble = batch.isColumnar(i) ? value[i] : in.getDouble(2, i);
+                collector.emit(0, (Math.abs(nextDouble - movingAverageInstant) > spikeThreshold * movingAverageInstant));//a workaround.
+            }
+            return;
+        }
 //		final long bid = in.getBID();
         for (int i = 0; i < bounds; i++) {
 //			int deviceID = in.getInt(0, i);
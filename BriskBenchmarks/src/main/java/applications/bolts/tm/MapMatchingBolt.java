@@ -2,11 +2,11 @@ package applications.bolts.tm;
 
 import brisk.components.operators.base.filterBolt;
 import brisk.execution.ExecutionGraph;
+import brisk.execution.runtime.tuple.FieldAccessor;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.execution.runtime.tuple.impl.Tuple;
 import constants.BaseConstants;
-import model.gis.GPSRecord;
 import model.gis.RoadGridList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +29,7 @@ public class MapMatchingBolt extends filterBolt {
     int loop;
     private RoadGridList sectors;
     private double cnt1 = 0;
+    private FieldAccessor latitudeField, longitudeField;
 
     public MapMatchingBolt() {
         super(LOG, new HashMap<>());//TODO: the output_selectivity here is pre-measured. It shall be profiled.
@@ -52,13 +53,14 @@ public class MapMatchingBolt extends filterBolt {
         double lonMax = config.getDouble(Conf.MAP_MATCHER_LON_MAX);
 
         try {
-            sectors = new RoadGridList(config, shapeFile);
+            sectors = RoadGridList.shared(config, shapeFile);
         } catch (SQLException | IOException ex) {
             LOG.error("Error while loading shape file", ex);
             throw new RuntimeException("Error while loading shape file");
         }
+        latitudeField = accessor(Field.LATITUDE);
+        longitudeField = accessor(Field.LONGITUDE);
         double cnt = 0;
-        loops = 5000;//this bolt is too slow, use smaller loops for it.
     }
 
     @Override
@@ -71,18 +73,10 @@ public class MapMatchingBolt extends filterBolt {
         int bound = in.length;
         final long bid = in.getBID();
         for (int i = 0; i < bound; i++) {
-            int speed = in.getIntegerByField(Field.SPEED, i);
-            int bearing = in.getIntegerByField(Field.BEARING, i);
-            double latitude = in.getDoubleByField(Field.LATITUDE, i);
-            double longitude = in.getDoubleByField(Field.LONGITUDE, i);
-
-            GPSRecord record = new GPSRecord(longitude, latitude, speed, bearing);
-            int roadID = -1;
-            try {
-                roadID = sectors.fetchRoadID(record);
-            } catch (SQLException ex) {
-                LOG.error("Unable to fetch road ID", ex);
-            }
+            double latitude = latitudeField.getDouble(in, i);
+            double longitude = longitudeField.getDouble(in, i);
+
+            int roadID = sectors.fetchRoadID(longitude, latitude);
 
             if (roadID != -1) {
                 Object[] values = new Object[]{in.getMsg(i), roadID};
@@ -6,6 +6,7 @@ import brisk.execution.ExecutionGraph;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.util.map.CharArrayLongMap;
 import constants.WordCountConstants.Field;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,9 +14,6 @@ import util.Configuration;
 import util.OsUtils;
 import util.datatypes.StreamValues;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 
 
 public class WordCountBolt extends MapBolt {
@@ -25,7 +23,7 @@ public class WordCountBolt extends MapBolt {
 //    private static final String splitregex = " ";
 //    private static LinkedList<String> logger = new LinkedList<String>();
 //	private final Map<String, MutableLong> counts = new HashMap<>();
-    private final Map<Integer, Long> counts = new HashMap<>();//what if memory is not enough to hold counts?
+    private CharArrayLongMap counts;//exact words, in one flat table (off-heap with --state_offheap).
 
     public WordCountBolt() {
         super(LOG);
@@ -45,6 +43,7 @@ public class WordCountBolt extends MapBolt {
     public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
         long pid = OsUtils.getPID(TopologyContext.HPCMonotor);
 //		LOG.info("PID  = " + pid);
+        counts = keyed_state(CharArrayLongMap::new);
 
     }
 
@@ -56,16 +55,7 @@ public class WordCountBolt extends MapBolt {
     @Override
     public void execute(Tuple input) throws InterruptedException {
         char[] word = input.getCharArray(0);
-        int key = Arrays.hashCode(word);
-        long v = counts.getOrDefault(key, 0L);
-        if (v == 0) {
-            counts.put(key, 1L);
-            collector.force_emit(0, new StreamValues(word, 1L));
-        } else {
-            long value = v + 1L;
-            counts.put(key, value);
-            collector.force_emit(0, new StreamValues(word, value));
-        }
+        collector.force_emit(0, new StreamValues(word, counts.add(word, 1L)));
     }
 
     /**
@@ -77,16 +67,7 @@ public class WordCountBolt extends MapBolt {
         int bound = input.length;
         for (int i = 0; i < bound; i++) {
             char[] word = input.getCharArray(0, i);
-            int key = Arrays.hashCode(word);
-            long v = counts.getOrDefault(key, 0L);
-            if (v == 0) {
-                counts.put(key, 1L);
-                collector.emit(word, 1L);
-            } else {
-                long value = v + 1L;
-                counts.put(key, value);
-                collector.emit(word, value);
-            }
+            collector.emit(word, counts.add(word, 1L));
         }
     }
 
@@ -95,16 +76,7 @@ public class WordCountBolt extends MapBolt {
         int bound = in.length;
         for (int i = 0; i < bound; i++) {
             char[] word = in.getCharArray(0, i);
-            int key = Arrays.hashCode(word);
-            long v = counts.getOrDefault(key, 0L);
-            if (v == 0) {
-                counts.put(key, 1L);
-                collector.emit_nowait(word, 1L);
-            } else {
-                long value = v + 1L;
-                counts.put(key, value);
-                collector.emit_nowait(word, value);
-            }
+            collector.emit_nowait(word, counts.add(word, 1L));
         }
     }
 
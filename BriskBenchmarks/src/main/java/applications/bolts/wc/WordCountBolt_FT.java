@@ -8,7 +8,7 @@ import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.execution.runtime.tuple.impl.Marker;
 import brisk.execution.runtime.tuple.impl.Tuple;
-import brisk.faulttolerance.impl.ValueState;
+import brisk.faulttolerance.impl.KeyedState;
 import constants.WordCountConstants.Field;
 import org.apache.commons.lang.mutable.MutableLong;
 import org.slf4j.Logger;
@@ -17,22 +17,17 @@ import util.Configuration;
 import util.OsUtils;
 import util.datatypes.StreamValues;
 
-import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
-
-
 public class WordCountBolt_FT extends MapBolt implements Checkpointable {
     private static final Logger LOG = LoggerFactory.getLogger(WordCountBolt_FT.class);
     private static final long serialVersionUID = 8264005289694109091L;
     //private int total_thread=context.getThisTaskId();
 //    private static final String splitregex = " ";
 //    private static LinkedList<String> logger = new LinkedList<String>();
-    private final Map<String, MutableLong> counts = new HashMap<>();
+    private final KeyedState<String, MutableLong> counts = new KeyedState<>(count -> new MutableLong(count.longValue()));//only changed words are checkpointed.
 
     public WordCountBolt_FT() {
         super(LOG);
-        state = new ValueState();
+        state = counts;
     }
 
     public Integer default_scale(Configuration conf) {
@@ -48,7 +43,7 @@ public class WordCountBolt_FT extends MapBolt implements Checkpointable {
     public void execute(Tuple in) throws InterruptedException {
         final long bid = in.getBID();
         String word = in.getStringByField(Field.WORD);
-        MutableLong count = counts.computeIfAbsent(word, k -> new MutableLong(0));
+        MutableLong count = count(word);
         count.increment();
         StreamValues value = new StreamValues(word, count.longValue());
         collector.emit(bid, value);
@@ -67,13 +62,23 @@ public class WordCountBolt_FT extends MapBolt implements Checkpointable {
             }
 
             String word = in.getString(0, i);
-            MutableLong count = counts.computeIfAbsent(word, k -> new MutableLong(0));
+            MutableLong count = count(word);
             count.increment();
             StreamValues value = new StreamValues(word, count.longValue());
             collector.emit(bid, value);
         }
     }
 
+    private MutableLong count(String word) {
+        MutableLong count = counts.get(word);
+        if (count == null) {
+            count = new MutableLong(0);
+            counts.put(word, count);
+        } else {
+            counts.markDirty(word);//incremented in place.
+        }
+        return count;
+    }
 
     @Override
     public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
@@ -84,7 +89,7 @@ public class WordCountBolt_FT extends MapBolt implements Checkpointable {
     @Override
     public void forward_checkpoint(int sourceId, long bid, Marker marker) throws InterruptedException {
         //(Serializable) counts checkpoint_forward(sourceId);
-        final boolean check = checkpoint_store((Serializable) counts, sourceId, marker);//call forward_checkpoint.
+        final boolean check = checkpoint_store(counts.value(), sourceId, marker);//call forward_checkpoint.
         if (check) {
             this.collector.broadcast_marker(bid, marker);//bolt needs to broadcast_marker
             //LOG.DEBUG(this.getContext().getThisComponentId() + this.getContext().getThisTaskId() + " broadcast marker with id:" + marker.msgId + "@" + DateTime.now());
@@ -0,0 +1,116 @@
+package applications.bolts.wc;
+
+import brisk.components.operators.base.MapBolt;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.util.map.CharArrayLongMap;
+import constants.WordCountConstants.Component;
+import constants.WordCountConstants.Field;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.datatypes.StreamValues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Merges the partial counts of words split over several counters by a skew-aware grouping.
+ * A word the grouping never split is counted by its home counter alone, whose running count is exact: it is passed
+ * straight through, without state. Each counter emits its running count of a split word (see
+ * {@link ExecutionGraph#getSplitKeys(String)}), so the exact count is the sum of the latest count of every
+ * counter: for split words only, it keeps the latest count per counter and word, and emits the new sum once the home
+ * counter has reported the word since it was split.
+ *
+ * @see brisk.controller.output.partition.SkewAwarePartitionController
+ */
+public class WordCountMergeBolt extends MapBolt {
+    private static final Logger LOG = LoggerFactory.getLogger(WordCountMergeBolt.class);
+    private static final long serialVersionUID = 4416018851092934186L;
+    private transient Map<Integer, Integer> split;//home counter of each split word, by hash code.
+    private CharArrayLongMap totals;//sum of the latest counts of each split word.
+    private CharArrayLongMap homes;//home counter of each split word seen.
+    private CharArrayLongMap[] partials;//latest count of each counter, by executor ID of the counter.
+    private int first;//executor ID of the first counter.
+
+    public WordCountMergeBolt() {
+        super(LOG);
+        this.setStateful();
+    }
+
+    @Override
+    public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
+        final ArrayList<Integer> counters = graph.topology.getRecord(Component.COUNTER).getExecutorIDList();
+        first = Collections.min(counters);
+        split = graph.getSplitKeys(Component.COUNTER);
+        totals = keyed_state(CharArrayLongMap::new);
+        homes = keyed_state(CharArrayLongMap::new);
+        partials = new CharArrayLongMap[Collections.max(counters) - first + 1];
+        for (int i = 0; i < partials.length; i++) {
+            partials[i] = keyed_state(CharArrayLongMap::new);
+        }
+    }
+
+    @Override
+    public Fields getDefaultFields() {
+        return new Fields(Field.WORD, Field.COUNT);
+    }
+
+    /**
+     * @return the exact count of the word, -1 while the home counter of a split word has not reported it since the split.
+     */
+    private long merge(int counter, char[] word, long count) {
+        long home = homes.get(word, -1L);
+        if (home < 0) {
+            final Integer registered = split.isEmpty() ? null : split.get(Arrays.hashCode(word));
+            if (registered == null) {
+                return count;//cold, its home counter sees all of it.
+            }
+            home = registered;
+            homes.put(word, home);
+        }
+        final CharArrayLongMap partial = partials[counter - first];
+        final long delta = count - partial.get(word, 0L);
+        partial.put(word, count);
+        final long total = totals.add(word, delta);
+        return partials[(int) home - first].containsKey(word) ? total : -1;
+    }
+
+    @Override
+    public void execute(Tuple input) throws InterruptedException {
+        char[] word = input.getCharArray(0);
+        final long count = merge(input.getSourceTask(), word, input.getLong(1));
+        if (count >= 0) {
+            collector.force_emit(0, new StreamValues(word, count));
+        }
+    }
+
+    @Override
+    public void execute(TransferTuple input) throws InterruptedException {
+        int bound = input.length;
+        final int counter = input.getSourceTask();
+        for (int i = 0; i < bound; i++) {
+            char[] word = input.getCharArray(0, i);
+            final long count = merge(counter, word, input.getLong(1, i));
+            if (count >= 0) {
+                collector.emit(word, count);
+            }
+        }
+    }
+
+    @Override
+    public void profile_execute(TransferTuple in) {
+        int bound = in.length;
+        final int counter = in.getSourceTask();
+        for (int i = 0; i < bound; i++) {
+            char[] word = in.getCharArray(0, i);
+            final long count = merge(counter, word, in.getLong(1, i));
+            if (count >= 0) {
+                collector.emit_nowait(word, count);
+            }
+        }
+    }
+}
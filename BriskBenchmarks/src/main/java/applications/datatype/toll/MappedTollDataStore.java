@@ -0,0 +1,424 @@
+/*
+ * #!
+ * %
+ * Copyright (C) 2014 - 2015 Humboldt-Universität zu Berlin
+ * %
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #_
+ */
+package applications.datatype.toll;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link TollDataStore} keeping the tolls as fixed-size records ({@code xWay, day, vid, toll}, four ints) in a
+ * memory-mapped file, so the historical data lives off-heap in the page cache instead of as boxed map entries.
+ * <br />
+ * Writes only ever append: an update appends a newer record and a removal appends a tombstone (a record whose toll is
+ * {@link #REMOVED}). The index is an open-addressing table of record numbers on the heap, rebuilt by replaying the
+ * records when an existing file is opened, where the last record of a key wins.
+ * <br />
+ * The file is mapped in fixed-size segments: growing maps one more segment and never remaps the ones in use, and record
+ * numbers and offsets are longs, so the store is not bound by the 2 GB limit of a single mapping. When the log runs out
+ * of room while more than half of it is superseded records and tombstones, it is compacted in place instead of grown.
+ * <br />
+ * <br />
+ * This implementation is not thread-safe for writes. Once no more writes happen (e.g. after loading the history),
+ * {@link #retrieveToll} may be called from several threads.
+ */
+public class MappedTollDataStore implements TollDataStore, Closeable {
+    /**
+     * Toll value marking a removal in the file, it can not be stored.
+     */
+    public static final int REMOVED = Integer.MIN_VALUE;
+    private static final Logger LOG = LoggerFactory.getLogger(MappedTollDataStore.class);
+    private static final int MAGIC = 0x544F4C4C;//"TOLL"
+    private static final int HEADER = 16;//magic, unused, record count (long).
+    private static final int RECORD = 16;
+    private static final int SEGMENT_RECORDS = 1 << 22;//64 MB per mapping.
+    private static final long EMPTY = -1;
+    private final File file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final int shift;//log2 of the records per segment.
+    private final long mask;
+    private long records;
+    private long[] slots;//record number of each live key, EMPTY if free.
+    private int[] hashes;
+    private int size;
+
+    /**
+     * Creates a {@code MappedTollDataStore} backed by a temporary file, deleted on exit.
+     *
+     * @throws IOException if the creation of the temporary file fails
+     */
+    public MappedTollDataStore() throws IOException {
+        this(temporary());
+    }
+
+    /**
+     * Creates a {@code MappedTollDataStore} backed by {@code file}, indexing the records it already holds.
+     *
+     * @param file
+     * @throws IOException if the file can not be mapped or is not a toll store
+     */
+    public MappedTollDataStore(File file) throws IOException {
+        this(file, SEGMENT_RECORDS);
+    }
+
+    /**
+     * @param segmentRecords records per mapped segment, a power of two.
+     */
+    MappedTollDataStore(File file, int segmentRecords) throws IOException {
+        if (Integer.bitCount(segmentRecords) != 1) {
+            throw new IllegalArgumentException("segment of " + segmentRecords + " records is not a power of two");
+        }
+        this.file = file;
+        this.shift = Integer.numberOfTrailingZeros(segmentRecords);
+        this.mask = segmentRecords - 1;
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        final long length = channel.size();
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+        if (length == 0) {
+            header.putInt(0, MAGIC);
+            header.putLong(8, 0);
+        } else if (header.getInt(0) != MAGIC) {
+            release();
+            throw new IOException(file + " is not a toll store");
+        }
+        final long stored = header.getLong(8);
+        do {
+            grow();
+        } while (capacity() < stored);
+        this.slots = new long[table_size(stored)];
+        this.hashes = new int[slots.length];
+        Arrays.fill(slots, EMPTY);
+        for (long r = 0; r < stored; r++) {
+            replay(r);
+        }
+        this.records = stored;
+        if (stored > 0) {
+            LOG.info("Indexed " + size + " tolls from " + records + " records of " + file);
+        }
+    }
+
+    private static File temporary() throws IOException {
+        final File file = File.createTempFile("brisk-lrb", ".tolls");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static int table_size(long entries) {
+        int n = 1024;
+        while (n < entries * 2) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    private static int hash(int xWay, int day, int vehicleIdentifier) {
+        int h = xWay * 0x9E3779B9;
+        h = (h ^ day) * 0x85EBCA6B;
+        h = (h ^ vehicleIdentifier) * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Releases a mapping now instead of whenever the buffer gets collected, which would keep the old pages (and, on
+     * some platforms, the file) pinned. Uses the buffer's cleaner on Java 8 and {@code Unsafe.invokeCleaner} after.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            final Method cleaner = buffer.getClass().getMethod("cleaner");
+            cleaner.setAccessible(true);
+            final Object c = cleaner.invoke(buffer);
+            if (c != null) {
+                c.getClass().getMethod("clean").invoke(c);
+            }
+        } catch (ReflectiveOperationException | RuntimeException java8) {
+            try {
+                final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                final Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOG.warn("Could not unmap a toll store segment, it is released when collected", e);
+            }
+        }
+    }
+
+    private long capacity() {
+        return (long) segments.size() << shift;
+    }
+
+    private void grow() throws IOException {
+        final long bytes = (long) RECORD << shift;
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, HEADER + segments.size() * bytes, bytes));
+    }
+
+    private MappedByteBuffer segment(long record) {
+        return segments.get((int) (record >>> shift));
+    }
+
+    private int offset(long record) {
+        return (int) (record & mask) * RECORD;
+    }
+
+    private boolean matches(long record, int xWay, int day, int vehicleIdentifier) {
+        final MappedByteBuffer b = segment(record);
+        final int o = offset(record);
+        return b.getInt(o + 8) == vehicleIdentifier && b.getInt(o + 4) == day && b.getInt(o) == xWay;
+    }
+
+    private int toll(long record) {
+        return segment(record).getInt(offset(record) + 12);
+    }
+
+    /**
+     * @return the index slot of the key, or of the free slot ending its probe sequence.
+     */
+    private int find(int h, int xWay, int day, int vehicleIdentifier) {
+        final int mask = slots.length - 1;
+        int s = h & mask;
+        while (slots[s] != EMPTY && (hashes[s] != h || !matches(slots[s], xWay, day, vehicleIdentifier))) {
+            s = (s + 1) & mask;
+        }
+        return s;
+    }
+
+    /**
+     * @return the index slot of the key of {@code record}.
+     */
+    private int find(long record) {
+        final MappedByteBuffer b = segment(record);
+        final int o = offset(record);
+        final int xWay = b.getInt(o);
+        final int day = b.getInt(o + 4);
+        final int vehicleIdentifier = b.getInt(o + 8);
+        return find(hash(xWay, day, vehicleIdentifier), xWay, day, vehicleIdentifier);
+    }
+
+    private void replay(long record) {
+        final MappedByteBuffer b = segment(record);
+        final int o = offset(record);
+        final int h = hash(b.getInt(o), b.getInt(o + 4), b.getInt(o + 8));
+        final int s = find(h, b.getInt(o), b.getInt(o + 4), b.getInt(o + 8));
+        if (b.getInt(o + 12) == REMOVED) {
+            if (slots[s] != EMPTY) {
+                delete(s);
+            }
+        } else {
+            index(s, h, record);
+        }
+    }
+
+    private void index(int s, int h, long record) {
+        if (slots[s] == EMPTY) {
+            slots[s] = record;
+            hashes[s] = h;
+            if (++size * 2 > slots.length) {
+                rehash();
+            }
+        } else {
+            slots[s] = record;
+        }
+    }
+
+    private void rehash() {
+        final long[] oldSlots = slots;
+        final int[] oldHashes = hashes;
+        slots = new long[oldSlots.length * 2];
+        hashes = new int[slots.length];
+        Arrays.fill(slots, EMPTY);
+        final int mask = slots.length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != EMPTY) {
+                int s = oldHashes[i] & mask;
+                while (slots[s] != EMPTY) {
+                    s = (s + 1) & mask;
+                }
+                slots[s] = oldSlots[i];
+                hashes[s] = oldHashes[i];
+            }
+        }
+    }
+
+    /**
+     * Backward-shift deletion, so lookups never need tombstones in the index.
+     */
+    private void delete(int s) {
+        final int mask = slots.length - 1;
+        int hole = s;
+        int i = s;
+        while (true) {
+            i = (i + 1) & mask;
+            if (slots[i] == EMPTY) {
+                break;
+            }
+            final int home = hashes[i] & mask;
+            //move i into the hole unless its home lies cyclically in (hole, i].
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                slots[hole] = slots[i];
+                hashes[hole] = hashes[i];
+                hole = i;
+            }
+        }
+        slots[hole] = EMPTY;
+        size--;
+    }
+
+    /**
+     * Slides the live records down over the dead ones, in record order, then drops the segments no longer needed. A
+     * record only ever moves to a lower position than any record not yet read, so the file replays to the same tolls
+     * if the compaction is interrupted before the record count is updated.
+     */
+    void compact() throws IOException {
+        long w = 0;
+        for (long r = 0; r < records; r++) {
+            final int s = find(r);
+            if (slots[s] != r) {
+                continue;//superseded or tombstone.
+            }
+            if (w != r) {
+                final MappedByteBuffer from = segment(r);
+                final MappedByteBuffer to = segment(w);
+                final int o = offset(r);
+                final int t = offset(w);
+                for (int i = 0; i < RECORD; i += 4) {
+                    to.putInt(t + i, from.getInt(o + i));
+                }
+                slots[s] = w;
+            }
+            w++;
+        }
+        LOG.info("Compacted " + file + " from " + records + " to " + w + " records");
+        records = w;
+        header.putLong(8, records);
+        header.force();
+        final int keep = Math.max(1, (int) ((records + mask) >>> shift));
+        while (segments.size() > keep) {
+            final MappedByteBuffer last = segments.remove(segments.size() - 1);
+            last.force();
+            unmap(last);
+        }
+        channel.truncate(HEADER + capacity() * RECORD);
+    }
+
+    private long append(int xWay, int day, int vehicleIdentifier, int toll) {
+        if (records == capacity()) {
+            try {
+                if (records - size > size) {
+                    compact();
+                }
+                if (records == capacity()) {
+                    grow();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("could not grow the toll store", e);
+            }
+        }
+        final long record = records++;
+        final MappedByteBuffer b = segment(record);
+        final int o = offset(record);
+        b.putInt(o, xWay);
+        b.putInt(o + 4, day);
+        b.putInt(o + 8, vehicleIdentifier);
+        b.putInt(o + 12, toll);
+        header.putLong(8, records);
+        return record;
+    }
+
+    @Override
+    public Integer retrieveToll(int xWay, int day, int vehicleIdentifier) {
+        final int s = find(hash(xWay, day, vehicleIdentifier), xWay, day, vehicleIdentifier);
+        if (slots[s] == EMPTY) {
+            return null;
+        }
+        return toll(slots[s]);
+    }
+
+    @Override
+    public void storeToll(int xWay, int day, int vehicleIdentifier, int toll) {
+        if (toll == REMOVED) {
+            throw new IllegalArgumentException("toll " + REMOVED + " is reserved");
+        }
+        final long record = append(xWay, day, vehicleIdentifier, toll);
+        final int h = hash(xWay, day, vehicleIdentifier);
+        //probe after appending, a compaction in between moves the records.
+        index(find(h, xWay, day, vehicleIdentifier), h, record);
+    }
+
+    @Override
+    public Integer removeEntry(int xWay, int day, int vehicleIdentifier) {
+        final int s = find(hash(xWay, day, vehicleIdentifier), xWay, day, vehicleIdentifier);
+        if (slots[s] == EMPTY) {
+            return null;
+        }
+        final int toll = toll(slots[s]);
+        append(xWay, day, vehicleIdentifier, REMOVED);
+        delete(find(hash(xWay, day, vehicleIdentifier), xWay, day, vehicleIdentifier));
+        return toll;
+    }
+
+    /**
+     * @return number of tolls currently stored.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of records in the file, live or not.
+     */
+    public long records() {
+        return records;
+    }
+
+    private void release() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            unmap(segment);
+        }
+        segments.clear();
+        unmap(header);
+        channel.close();
+    }
+
+    /**
+     * Flushes the records to the file, unmaps it and releases it.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+        release();
+    }
+}
@@ -1,6 +1,8 @@
 package applications.sink;
 
 import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.util.Latencies;
+import brisk.util.LatencyHistogram;
 import org.slf4j.Logger;
 import util.OsUtils;
 
@@ -11,20 +13,12 @@ public class MeasureSink_Txn_latency extends MeasureSink_latency {
     @Override
     public void execute(Tuple input) {
         double results = helper.execute(input.getBID());
+        if (sampled()) {
+            final long end = System.nanoTime();
+            final long start = input.getLong(0);
+            latency.record(end - start);//ns
+        }
         if (isSINK) {// && cnt % 1E3 == 0
-            long msgId = input.getBID();
-            if (msgId < max_num_msg) {
-                final long end = System.nanoTime();
-                final long start = input.getLong(0);
-                final long process_latency = end - start;//ns
-//				final Long stored_process_latency = latency_map.getOrDefault(msgId, 0L);
-//				if (process_latency > stored_process_latency)//pick the worst.
-//				{
-                LOG.debug("msgID:" + msgId + " is at:\t" + process_latency / 1E6 + "\tms");
-                latency_map[(int) msgId] = process_latency;
-//				}
-                num_msg++;
-            }
             if (results != 0) {
                 this.setResults(results);
                 LOG.info("Sink finished:" + results);
@@ -38,11 +32,7 @@ public class MeasureSink_Txn_latency extends MeasureSink_latency {
      */
     protected void check() {
         if (!profile) {
-
-            for (int key = 0; key < max_num_msg; key++) {
-//                LOG.info("=====Process latency of msg====");
-                latency.addValue(latency_map[key]);
-            }
+            final LatencyHistogram merged = Latencies.merge(Latencies.END_TO_END);//of all sink executors.
             try {
 //                Collections.sort(col_value);
 
@@ -50,14 +40,7 @@ public class MeasureSink_Txn_latency extends MeasureSink_latency {
 
                 f = new FileWriter(new File(metric_path + OsUtils.OS_wrapper("latency")));
 
-                Writer w = new BufferedWriter(f);
-
-                for (double percentile = 0.5; percentile <= 100.0; percentile += 0.5) {
-                    w.write(String.valueOf(latency.getPercentile(percentile) + "\n"));
-                }
-                w.write("=======Details=======");
-                w.write(latency.toString() + "\n");
-                w.close();
+                write(f, merged, 1);
                 f.close();
 
             } catch (IOException e) {
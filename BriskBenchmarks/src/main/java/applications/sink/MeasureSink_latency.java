@@ -5,8 +5,9 @@ import applications.datatype.util.LRTopologyControl;
 import brisk.execution.ExecutionGraph;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.util.Latencies;
+import brisk.util.LatencyHistogram;
 import helper.stable_sink_helper;
-import org.apache.commons.math.stat.descriptive.DescriptiveStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.Configuration;
@@ -19,19 +20,16 @@ import static applications.Constants.System_Plan_Path;
 
 public class MeasureSink_latency extends BaseSink {
     protected static final Logger LOG = LoggerFactory.getLogger(MeasureSink_latency.class);
-    protected static final DescriptiveStatistics latency = new DescriptiveStatistics();
-    //	private static final HashMap<Long, Long> latency_map = new HashMap<>();
-    protected static final int max_num_msg = (int) 1E5;
-    protected static final int skip_msg = 0;
-    protected static final long[] latency_map = new long[max_num_msg];
     private static final long serialVersionUID = 6249684803036342603L;
-    protected static int num_msg = 0;
     protected static String directory;
     protected static String metric_path;
     protected static String algorithm;
     protected static boolean profile = false;
     protected stable_sink_helper helper;
     protected int cnt = 0;
+    protected LatencyHistogram latency;//end-to-end latency of the tuples received by this executor.
+    protected int sample;//record one tuple out of every sample.
+    private int skipped;
     int sink_ID;
 
 
@@ -93,6 +91,8 @@ public class MeasureSink_latency extends BaseSink {
 //		store = new ArrayDeque<>((int) 1E11);
 
         sink_ID = graph.getSink().getExecutorID();
+        latency = Latencies.of(Latencies.END_TO_END, thisTaskId);
+        sample = Math.max(1, config.getInt("latency_sample", 1));
 
         if (thisTaskId == sink_ID) {
             isSINK = true;
@@ -121,19 +121,13 @@ public class MeasureSink_latency extends BaseSink {
 //			dummy_execute();
             double results = helper.execute(input.getBID());
 
-            if (isSINK && cnt % 1E3 == 0) {
-                long msgId = input.getLong(0, i);
-                if (msgId != -1) {
-                    final long end = System.nanoTime();
-                    final long start = input.getLong(1, i);
-                    final long process_latency = end - start;//ns
-//				final Long stored_process_latency = latency_map.getOrDefault(msgId, 0L);
-//				if (process_latency > stored_process_latency)//pick the worst.
-//				{
-                    //LOG.DEBUG("msgID:" + msgId + " is at:\t" + process_latency / 1E6 + "\tms");
-                    latency_map[(int) msgId] = process_latency;
-//				}
-                }
+            long msgId = input.getLong(0, i);
+            if (msgId != -1 && sampled()) {
+                final long end = System.nanoTime();
+                final long start = input.getLong(1, i);
+                latency.record(end - start);//ns
+            }
+            if (isSINK) {
                 if (results != 0) {
                     this.setResults(results);
                     LOG.info("Sink finished:" + results);
@@ -143,16 +137,26 @@ public class MeasureSink_latency extends BaseSink {
         }
     }
 
+    /**
+     * Recording costs a System.nanoTime and a bucket update per tuple, which shows at high rates: with
+     * latency_sample > 1 only one tuple out of every latency_sample is recorded.
+     *
+     * @return whether the latency of this tuple is to be recorded.
+     */
+    protected boolean sampled() {
+        if (++skipped < sample) {
+            return false;
+        }
+        skipped = 0;
+        return true;
+    }
+
     /**
      * Only one sink will do the measure_end.
      */
     protected void check() {
         if (!profile) {
-
-            for (int key = 0; key < num_msg; key++) {
-//                LOG.info("=====Process latency of msg====");
-                latency.addValue((latency_map[key] / 1E6));
-            }
+            final LatencyHistogram merged = Latencies.merge(Latencies.END_TO_END);//of all sink executors.
             try {
 //                Collections.sort(col_value);
 
@@ -184,14 +188,7 @@ public class MeasureSink_latency extends BaseSink {
 
                 }
 
-                Writer w = new BufferedWriter(f);
-
-                for (double percentile = 0.5; percentile <= 100.0; percentile += 0.5) {
-                    w.write(String.valueOf(latency.getPercentile(percentile) + "\n"));
-                }
-                w.write("=======Details=======");
-                w.write(latency.toString() + "\n");
-                w.close();
+                write(f, merged, 1E6);
                 f.close();
 
             } catch (IOException e) {
@@ -217,6 +214,22 @@ public class MeasureSink_latency extends BaseSink {
         }
     }
 
+    /**
+     * Percentiles from 0.5 to 100 by 0.5, then a summary.
+     *
+     * @param unit ns per unit written.
+     */
+    protected void write(FileWriter f, LatencyHistogram merged, double unit) throws IOException {
+        Writer w = new BufferedWriter(f);
+
+        for (double percentile = 0.5; percentile <= 100.0; percentile += 0.5) {
+            w.write(String.valueOf(merged.percentile(percentile) / unit + "\n"));
+        }
+        w.write("=======Details=======");
+        w.write(merged.toString() + "\n");
+        w.close();
+    }
+
     @Override
     protected Logger getLogger() {
         return LOG;
@@ -3,6 +3,7 @@ package applications.spout;
 import brisk.components.context.TopologyContext;
 import brisk.components.operators.api.AbstractSpout;
 import brisk.execution.ExecutionGraph;
+import brisk.faulttolerance.Replayable;
 import constants.BaseConstants;
 import helper.wrapper.StringStatesWrapper;
 import org.slf4j.Logger;
@@ -16,7 +17,7 @@ import java.lang.management.RuntimeMXBean;
 import java.util.ArrayList;
 import java.util.Scanner;
 
-public class MemFileSpout extends AbstractSpout {
+public class MemFileSpout extends AbstractSpout implements Replayable {
     private static final Logger LOG = LoggerFactory.getLogger(MemFileSpout.class);
     private static final long serialVersionUID = -2394340130331865581L;
     protected ArrayList<char[]> array;
@@ -27,6 +28,8 @@ public class MemFileSpout extends AbstractSpout {
     private transient BufferedWriter writer;
     private int cnt;
     private int taskId;
+    private long replay_offset = 0;//set by a recovery.
+    private LineTimestamp timestamps;//event time of a line, null if the lines have none.
 
 
     public MemFileSpout() {
@@ -34,6 +37,44 @@ public class MemFileSpout extends AbstractSpout {
         this.scalable = false;
     }
 
+    /**
+     * Report the event time of each line emitted, so that the watermarks of this spout advance with the stream.
+     *
+     * @param timestamps e.g. {@link #column(int)}.
+     */
+    public MemFileSpout withEventTime(LineTimestamp timestamps) {
+        this.timestamps = timestamps;
+        return this;
+    }
+
+    /**
+     * @param index of the comma separated column holding the timestamp of a line, in ms.
+     */
+    public static LineTimestamp column(int index) {
+        return line -> {
+            int i = 0;
+            for (int c = 0; c < index && i < line.length; i++) {
+                if (line[i] == ',') {
+                    c++;
+                }
+            }
+            final boolean negative = i < line.length && line[i] == '-';
+            if (negative) {
+                i++;
+            }
+            long timestamp = 0;
+            for (; i < line.length && line[i] >= '0' && line[i] <= '9'; i++) {
+                timestamp = timestamp * 10 + (line[i] - '0');
+            }
+            return negative ? -timestamp : timestamp;
+        };
+    }
+
+    @Override
+    public boolean isEventTime() {
+        return timestamps != null;
+    }
+
     @Override
     public Integer default_scale(Configuration conf) {
 
@@ -191,7 +232,7 @@ public class MemFileSpout extends AbstractSpout {
         }
 
         array_array = array.toArray(new char[array.size()][]);
-        counter = 0;
+        counter = (int) (replay_offset % array_array.length);
 
 //		int bound = 0;
 ////		if (OsUtils.isMac()) {
@@ -261,6 +302,9 @@ public class MemFileSpout extends AbstractSpout {
 //
 //		emit = array[timestamp_counter]+"";
 //		if (control > 0) {
+        if (timestamps != null) {
+            event_time(timestamps.of(array_array[counter]));
+        }
         collector.emit(array_array[counter]);//Arrays.copyOf(array_array[timestamp_counter], array_array[timestamp_counter].length) a workaround to ensure char array instead of string is used in transmission.
 //		collector.emit_nowait(new StreamValues(array[timestamp_counter]));
         counter++;
@@ -275,6 +319,9 @@ public class MemFileSpout extends AbstractSpout {
     public void nextTuple_nonblocking() throws InterruptedException {
 
 //		collector.emit(array[timestamp_counter]);//Arrays.copyOf(array[timestamp_counter], array[timestamp_counter].length) a workaround to ensure char array instead of string is used in transmission.
+        if (timestamps != null) {
+            event_time(timestamps.of(array_array[counter]));
+        }
         collector.emit_nowait(array_array[counter]);
         counter++;
         if (counter == array_array.length) {
@@ -283,8 +330,26 @@ public class MemFileSpout extends AbstractSpout {
 
     }
 
+    @Override
+    public long offset() {
+        return counter;
+    }
+
+    @Override
+    public void rewind(long offset) {
+        replay_offset = offset;
+    }
+
     public void display() {
         LOG.info("timestamp_counter:" + counter);
     }
 
+    public interface LineTimestamp extends Serializable {
+        /**
+         * @param line as emitted.
+         * @return its event time, in ms.
+         */
+        long of(char[] line);
+    }
+
 }
\ No newline at end of file
@@ -44,7 +44,7 @@ public class SpikeDetection extends BasicTopology {
             spout.setFields(new Fields(Field.TEXT));
             builder.setSpout(Component.SPOUT, spout, spoutThreads);
 
-            builder.setBolt(Component.PARSER, new SensorParserBolt(parser, new Fields(Field.DEVICE_ID, Field.VALUE))
+            builder.setBolt(Component.PARSER, new SensorParserBolt(parser, new Fields(new Class<?>[]{int.class, double.class}, Field.DEVICE_ID, Field.VALUE))
                     , config.getInt(SpikeDetectionConstants.Conf.PARSER_THREADS, 1)
                     , new ShuffleGrouping(Component.SPOUT));
 
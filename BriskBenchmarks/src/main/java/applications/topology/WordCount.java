@@ -3,10 +3,12 @@ package applications.topology;
 import applications.bolts.comm.StringParserBolt;
 import applications.bolts.wc.SplitSentenceBolt;
 import applications.bolts.wc.WordCountBolt;
+import applications.bolts.wc.WordCountMergeBolt;
 import brisk.components.Topology;
 import brisk.components.exception.InvalidIDException;
 import brisk.components.grouping.FieldsGrouping;
 import brisk.components.grouping.ShuffleGrouping;
+import brisk.components.grouping.SkewAwareGrouping;
 import brisk.controller.input.scheduler.SequentialScheduler;
 import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.topology.BasicTopology;
@@ -54,14 +56,28 @@ public class WordCount extends BasicTopology {
                     , config.getInt(WordCountConstants.Conf.SPLITTER_THREADS, 1)
                     , new ShuffleGrouping(Component.PARSER));
 
-            builder.setBolt(Component.COUNTER, new WordCountBolt()
-                    , config.getInt(WordCountConstants.Conf.COUNTER_THREADS, 1)
-                    , new FieldsGrouping(Component.SPLITTER, new Fields(Field.WORD))
-//					, new ShuffleGrouping(Component.SPOUT)//workaround to ensure balanced scheduling.
-            );
-
-            builder.setSink(Component.SINK, sink, sinkThreads
-                    , new ShuffleGrouping(Component.COUNTER));
+            if (config.getBoolean("skew", false)) {
+                //hot words are split over several counters, their partial counts are merged by word.
+                builder.setBolt(Component.COUNTER, new WordCountBolt()
+                        , config.getInt(WordCountConstants.Conf.COUNTER_THREADS, 1)
+                        , new SkewAwareGrouping(Component.SPLITTER, new Fields(Field.WORD)));
+
+                builder.setBolt(Component.AGG, new WordCountMergeBolt()
+                        , config.getInt(WordCountConstants.Conf.AGG_THREADS, 1)
+                        , new FieldsGrouping(Component.COUNTER, new Fields(Field.WORD)));
+
+                builder.setSink(Component.SINK, sink, sinkThreads
+                        , new ShuffleGrouping(Component.AGG));
+            } else {
+                builder.setBolt(Component.COUNTER, new WordCountBolt()
+                        , config.getInt(WordCountConstants.Conf.COUNTER_THREADS, 1)
+                        , new FieldsGrouping(Component.SPLITTER, new Fields(Field.WORD))
+//					    , new ShuffleGrouping(Component.SPOUT)//workaround to ensure balanced scheduling.
+                );
+
+                builder.setSink(Component.SINK, sink, sinkThreads
+                        , new ShuffleGrouping(Component.COUNTER));
+            }
 //                    , new ShuffleGrouping(Component.SPOUT));
 
         } catch (InvalidIDException e) {
@@ -66,6 +66,10 @@ public abstract class Grouping implements Serializable {
         return this instanceof PartialKeyGrouping;
     }
 
+    public boolean isSkewAware() {
+        return this instanceof SkewAwareGrouping;
+    }
+
     public boolean isGlobal() {
         return this instanceof GlobalGrouping;
     }
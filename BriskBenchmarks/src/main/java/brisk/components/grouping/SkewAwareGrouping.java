@@ -0,0 +1,35 @@
+package brisk.components.grouping;
+
+import brisk.execution.runtime.tuple.impl.Fields;
+
+/**
+ * Fields grouping that spreads heavy hitters over several executors (see SkewAwarePartitionController).
+ * A key may then have partial results on several executors, so the operator is followed by a merge of its partial results.
+ */
+public class SkewAwareGrouping extends Grouping {
+
+    private static final long serialVersionUID = -1830917408613227437L;
+    /**
+     * The fields maintained in FieldsGrouping are "keys"...
+     */
+    private Fields fields;
+
+
+    public SkewAwareGrouping(String componentId, String streamID, Fields fields) {
+        super(componentId, streamID);
+        this.fields = fields;
+    }
+
+    public SkewAwareGrouping(String componentId, Fields fields) {
+        super(componentId);
+        this.fields = fields;
+    }
+
+    public Fields getFields() {
+        return fields;
+    }
+
+    public void setFields(Fields fields) {
+        this.fields = fields;
+    }
+}
@@ -1,5 +1,8 @@
 package brisk.components.operators.api;
 
+import brisk.components.TopologyComponent;
+import brisk.components.grouping.Grouping;
+import brisk.execution.runtime.tuple.FieldAccessor;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Marker;
 import brisk.execution.runtime.tuple.impl.Tuple;
@@ -7,6 +10,7 @@ import org.slf4j.Logger;
 
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BrokenBarrierException;
 
 /**
@@ -36,7 +40,7 @@ public abstract class AbstractBolt extends Operator {
     public void execute(TransferTuple in) throws InterruptedException, BrokenBarrierException {
         int bound = in.length;
         for (int i = 0; i < bound; i++) {
-            execute(new Tuple(in.getBID(), in.getSourceTask(), in.getContext(), in.msg[i]));
+            execute(new Tuple(in.getBID(), in.getSourceTask(), in.getContext(), in.getMsg(i)));
         }
     }
 
@@ -46,6 +50,44 @@ public abstract class AbstractBolt extends Operator {
         state = null;
     }
 
+    /**
+     * Resolve an input field once, typically in {@code initialize}, instead of calling the *ByField accessors per tuple.
+     *
+     * @param sourceComponent
+     * @param streamId
+     * @param field
+     * @return
+     */
+    protected FieldAccessor accessor(String sourceComponent, String streamId, String field) {
+        return FieldAccessor.of(context.getComponentOutputFields(sourceComponent, streamId), field);
+    }
+
+    /**
+     * Resolve an input field against all subscribed (source component, stream) pairs.
+     * It requires the field to be at the same position in all of them.
+     *
+     * @param field
+     * @return
+     */
+    protected FieldAccessor accessor(String field) {
+        FieldAccessor accessor = null;
+        for (Map.Entry<String, Map<TopologyComponent, Grouping>> stream : context.getThisSources().entrySet()) {
+            final Set<TopologyComponent> sources = stream.getValue().keySet();
+            for (TopologyComponent source : sources) {
+                final FieldAccessor candidate = FieldAccessor.of(source.get_output_fields(stream.getKey()), field);
+                if (accessor != null && accessor.getIndex() != candidate.getIndex()) {
+                    throw new IllegalArgumentException("field " + field + " is at different positions in the input streams, " +
+                            "use accessor(sourceComponent, streamId, field) instead");
+                }
+                accessor = candidate;
+            }
+        }
+        if (accessor == null) {
+            throw new IllegalArgumentException(field + " does not exist");
+        }
+        return accessor;
+    }
+
     /**
      * When all my consumers callback_bolt, I force synchronize
      *
@@ -95,4 +137,14 @@ public abstract class AbstractBolt extends Operator {
     public void profile_execute(TransferTuple in) throws InterruptedException, BrokenBarrierException {
         execute(in);
     }
+
+    /**
+     * Bolts that keep references to input tuples after execute returns (e.g., buffering for merge) must return true,
+     * so that their input batches are never handed back to the producer for recycling.
+     *
+     * @return
+     */
+    public boolean retainsInput() {
+        return false;
+    }
 }
@@ -1,8 +1,11 @@
 package brisk.components.operators.api;
 
 import brisk.execution.runtime.tuple.impl.Marker;
+import brisk.faulttolerance.Replayable;
 import org.slf4j.Logger;
 
+import java.util.concurrent.ConcurrentSkipListMap;
+
 /**
  * Abstract AbstractSpout is a special partition-pass Operator.
  */
@@ -13,8 +16,13 @@ public abstract class AbstractSpout extends Operator {
 
     //the following are used for checkpoint
     protected int myiteration = 0;//start from 1st iteration.
-    protected boolean success = true;
+    protected volatile boolean success = true;//the last marker is acknowledged, set by consumer threads.
     protected long boardcast_time;
+    private transient ConcurrentSkipListMap<Long, Long> offsets;//offset of a replayable spout at each marker not yet acknowledged, the acks come from consumer threads.
+    private long event_time = Long.MIN_VALUE;//largest timestamp of the tuples emitted so far.
+    private long watermark = Long.MIN_VALUE;//last one broadcast.
+    private long progress = Long.MIN_VALUE;//BID that the batches emitted from now on are not below.
+    private long published = Long.MIN_VALUE;//last progress broadcast.
 
 
     protected AbstractSpout(Logger log) {
@@ -32,6 +40,87 @@ public abstract class AbstractSpout extends Operator {
     }
 
 
+    /**
+     * Start the next checkpoint, see "checkpoint_interval". Its marker id is the number of checkpoints this spout has
+     * started, so that the n-th markers of all spouts belong to the same checkpoint.
+     * It is skipped while the previous marker is not acknowledged: the acks of the consumers are not told apart by marker.
+     *
+     * @throws InterruptedException
+     */
+    public void checkpoint() throws InterruptedException {
+        if (success) {
+            boardcast_marker(myiteration + 1);
+        }
+    }
+
+    /**
+     * Start a new checkpoint. The marker id is the bid.
+     *
+     * @param bid
+     * @throws InterruptedException
+     */
+    protected void boardcast_marker(long bid) throws InterruptedException {
+        if (this instanceof Replayable) {
+            if (offsets == null) {
+                offsets = new ConcurrentSkipListMap<>();
+            }
+            offsets.put(bid, ((Replayable) this).offset());
+        }
+        boardcast_time = System.nanoTime();
+        myiteration++;
+        success = false;
+        collector.create_marker_boardcast(boardcast_time, bid, myiteration);
+    }
+
+    /**
+     * @return true if the spout reports the event time of the tuples it emits, see {@link #event_time(long)}.
+     * Windows fired by watermarks require it of every spout upstream, the watermarks of the others never advance.
+     */
+    public boolean isEventTime() {
+        return false;
+    }
+
+    /**
+     * Spouts of event time streams report the timestamp of the tuples they emit, their watermarks follow the largest one.
+     *
+     * @param timestamp in ms.
+     */
+    protected void event_time(long timestamp) {
+        if (timestamp > event_time) {
+            event_time = timestamp;
+        }
+    }
+
+    /**
+     * Report that the batches this spout emits from now on have a BID of at least bid. It is published with the
+     * watermarks, so that ordered consumers do not wait for this spout while it emits nothing.
+     *
+     * @param bid
+     */
+    protected void progress(long bid) {
+        if (bid > progress) {
+            progress = bid;
+        }
+    }
+
+    /**
+     * Broadcast the watermark of the tuples emitted so far, if it or the reported BID progress advanced since the
+     * last one. No watermark is sent before the spout reports an event time.
+     *
+     * @param lag ms that the emitted tuples may be out of order by.
+     * @throws InterruptedException
+     */
+    public void emit_watermark(long lag) throws InterruptedException {
+        final boolean advanced = event_time != Long.MIN_VALUE && event_time - lag > watermark;
+        if (advanced) {
+            watermark = event_time - lag;
+        }
+        if (advanced || progress > published) {
+            published = progress;
+            collector.broadcast_watermark(watermark, progress);
+        }
+    }
+
     /**
      * When all my consumers callback_bolt, I can  delete source message.
      *
@@ -39,6 +128,12 @@ public abstract class AbstractSpout extends Operator {
      * @param marker
      */
     public void callback(int callee, Marker marker) {
-        state.callback_spout(callee, marker, executor);
+        final Long offset = offsets == null ? null : offsets.get(marker.msgId);
+        if (state.callback_spout(callee, marker, executor, offset == null ? -1 : offset)) {
+            if (offsets != null) {
+                offsets.headMap(marker.msgId, true).clear();
+            }
+            success = true;
+        }
     }
 }
@@ -0,0 +1,53 @@
+package brisk.components.operators.api;
+
+import brisk.components.windowing.TupleWindow;
+import brisk.components.windowing.WindowAggregate;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import org.slf4j.Logger;
+
+import java.util.Map;
+
+/**
+ * A windowed bolt that receives the aggregate of each window instead of its tuples.
+ * Tuples are aggregated as they arrive into panes (see {@link brisk.components.windowing.PaneWindow}),
+ * so that the cost of a window depends on its slide rather than its length, and no tuple is retained.
+ *
+ * @param <A> partial aggregate of the aggregate function.
+ */
+public abstract class BaseAggregateWindowedBolt<A> extends BaseWindowedBolt {
+    private static final long serialVersionUID = -1837604465296731952L;
+    private WindowAggregate<Tuple, A> aggregate;
+
+    protected BaseAggregateWindowedBolt(double w) {
+        super(w);
+    }
+
+    public BaseAggregateWindowedBolt(Logger log, Map<String, Double> input_selectivity, Map<String, Double> output_selectivity, double branch_selectivity, double read_selectivity, boolean byP, double event_frequency, double w) {
+        super(log, input_selectivity, output_selectivity, branch_selectivity, read_selectivity, byP, event_frequency, w);
+    }
+
+    /**
+     * @param aggregate associative function computed over each window, see
+     *                  {@link brisk.components.windowing.WindowAggregates} for common ones.
+     */
+    public BaseAggregateWindowedBolt<A> withAggregate(WindowAggregate<Tuple, A> aggregate) {
+        this.aggregate = aggregate;
+        return this;
+    }
+
+    public WindowAggregate<Tuple, A> getAggregate() {
+        return aggregate;
+    }
+
+    /**
+     * @param aggregate of the window, it must not be modified.
+     * @param start     of the window: tuple count or timestamp (ms).
+     * @param end       of the window, exclusive.
+     */
+    public abstract void execute(A aggregate, long start, long end);
+
+    @Override
+    public final void execute(TupleWindow in) {
+        throw new UnsupportedOperationException("Aggregated windows do not keep their tuples.");
+    }
+}
@@ -2,17 +2,21 @@ package brisk.components.operators.api;
 
 import brisk.components.windowing.TimestampExtractor;
 import brisk.components.windowing.TupleFieldTimestampExtractor;
+import brisk.components.windowing.TupleWindow;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.util.OrderStatisticTree;
 import org.slf4j.Logger;
 import util.Configuration;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
 
 public abstract class BaseWindowedBolt extends AbstractWindowedBolt {
 
     private static final long serialVersionUID = 8521068118350597004L;
-    private final transient Map<String, Object> windowConfiguration;
+    private final HashMap<String, Object> windowConfiguration;
     private TimestampExtractor timestampExtractor;
 
     protected BaseWindowedBolt(double w) {
@@ -161,6 +165,30 @@ public abstract class BaseWindowedBolt extends AbstractWindowedBolt {
         return timestampExtractor;
     }
 
+    /**
+     * @return the window of this bolt, which overrides the one of the topology configuration.
+     */
+    public Map<String, Object> getWindowConfiguration() {
+        return windowConfiguration;
+    }
+
+    /**
+     * Keep the order statistics (median, rank, k-th value) of a window in step with it:
+     * only the tuples that arrived or expired since the last activation are applied, in O(log w) each.
+     *
+     * @param statistics of the window so far
+     * @param window     the activated window
+     * @param value      the value of a tuple
+     */
+    protected static void slide(OrderStatisticTree statistics, TupleWindow window, ToDoubleFunction<Tuple> value) {
+        for (Tuple expired : window.getExpired()) {
+            statistics.remove(value.applyAsDouble(expired));
+        }
+        for (Tuple arrived : window.getNew()) {
+            statistics.insert(value.applyAsDouble(arrived));
+        }
+    }
+
     /**
      * Specify a stream id on which late tuples are going to be emitted. They are going to be accessible via the
      * {@link org.apache.storm.topology.WindowedBoltExecutor#LATE_TUPLE_FIELD} field.
@@ -176,7 +204,8 @@ public abstract class BaseWindowedBolt extends AbstractWindowedBolt {
 
     /**
      * Specify the maximum time lag of the tuple timestamp in milliseconds. It means that the tuple timestamps
-     * cannot be out of order by more than this amount.
+     * cannot be out of order by more than this amount. With watermarks, windows are fired once the watermark
+     * passes their end by this lag, and older tuples are sent to the late tuple stream.
      *
      * @param duration the max lag duration
      */
@@ -9,6 +9,8 @@ import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.execution.runtime.tuple.impl.Marker;
 import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
 import brisk.faulttolerance.State;
+import brisk.faulttolerance.impl.PrimitiveKeyedState;
+import brisk.util.map.PrimitiveMap;
 import constants.BaseConstants;
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
@@ -240,7 +242,7 @@ public abstract class Operator implements IOperator {
             LogManager.getLogger(LOG.getName()).setLevel(Level.INFO);
         }
 
-        if (this instanceof Checkpointable) {
+        if (this instanceof Checkpointable || this instanceof AbstractSpout && state != null) {//spouts commit the checkpoints they start.
 
             if (state == null) {
                 LOG.info("The operator" + executor.getOP() + " is declared as checkpointable " +
@@ -286,10 +288,36 @@ public abstract class Operator implements IOperator {
      * @param marker
      */
     public boolean checkpoint_store(Serializable value, int sourceId, Marker marker) {
-        return state.share_store(value, sourceId, marker, executor, context.getThisComponentId() + context.getThisTaskId());
+        //the separator keeps the snapshots of an executor apart from those shared by an operator, named by its id alone.
+        final String path = context.getThisComponentId() + "." + context.getThisTaskId();
+        if (config.getBoolean("async_checkpoint", false)) {
+            return state.async_store(value, sourceId, marker, executor, path);
+        }
+        return state.share_store(value, sourceId, marker, executor, path);
     }
 
 
+    /**
+     * Keyed state in a primitive map of the requested key and value types, e.g. {@code keyed_state(IntLongMap::new)},
+     * sized by "state_capacity" and kept off-heap if "state_offheap" is set.
+     * The maps are registered with a {@link PrimitiveKeyedState} in the order they are requested, so request the same maps
+     * in the same order (e.g. in initialize) for a checkpoint to be restored. A checkpointable operator sets
+     * {@code state = new PrimitiveKeyedState()} in its constructor, for the writer and recovery to find it.
+     *
+     * @param factory
+     * @return
+     */
+    protected <M extends PrimitiveMap> M keyed_state(PrimitiveMap.Factory<M> factory) {
+        if (state == null) {
+            state = new PrimitiveKeyedState();
+        } else if (!(state instanceof PrimitiveKeyedState)) {
+            throw new IllegalStateException("The operator " + getContext().getThisComponentId() + " already has a "
+                    + state.getClass().getSimpleName());
+        }
+        return ((PrimitiveKeyedState) state).register(factory.create(config.getInt("state_capacity", 1024)
+                , config.getBoolean("state_offheap", false)));
+    }
+
     /**
      * Simple forward the marker
      *
@@ -46,5 +46,10 @@ public class BasicBoltBatchExecutor extends BoltExecutor {
         _op.profile_execute(in);
     }
 
+    @Override
+    public boolean retainsInput() {
+        return _op.retainsInput();
+    }
+
 
 }
@@ -106,6 +106,18 @@ public class BasicSpoutBatchExecutor extends SpoutExecutor {
         }
     }
 
+    public boolean isEventTime() {
+        return _op.isEventTime();
+    }
+
+    public void emit_watermark(long lag) throws InterruptedException {
+        _op.emit_watermark(lag);
+    }
+
+    public void checkpoint() throws InterruptedException {
+        _op.checkpoint();
+    }
+
     public void setExecutionNode(ExecutionNode executionNode) {
         _op.setExecutionNode(executionNode);
     }
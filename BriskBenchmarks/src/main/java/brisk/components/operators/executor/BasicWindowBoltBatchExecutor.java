@@ -1,7 +1,10 @@
 package brisk.components.operators.executor;
 
+import brisk.components.TopologyComponent;
 import brisk.components.context.TopologyContext;
+import brisk.components.grouping.Grouping;
 import brisk.components.operators.api.AbstractWindowedBolt;
+import brisk.components.operators.api.BaseAggregateWindowedBolt;
 import brisk.components.operators.api.BaseWindowedBolt;
 import brisk.components.windowing.*;
 import brisk.execution.runtime.collector.OutputCollector;
@@ -11,8 +14,11 @@ import brisk.execution.runtime.tuple.impl.Tuple;
 import util.Configuration;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -22,6 +28,15 @@ public class BasicWindowBoltBatchExecutor extends BoltExecutor {
     AbstractWindowedBolt _op;
     private transient WindowManager<Tuple> windowManager;
     private transient BaseWindowedBolt.Duration windowLengthDuration;
+    private transient PaneWindow<Tuple, Object> panes;//instead of the window manager, for aggregated windows.
+    private transient boolean countWindow;
+    private transient long position;//tuples so far, for count windows.
+    private transient TimestampExtractor timestamps;
+    private transient boolean watermarked;//event time windows fired by the watermarks, rather than by the inputs or the clock.
+    private transient long lateness;//ms a tuple may be late by, past the watermark.
+    private transient long watermark = Long.MIN_VALUE;//minus the lateness: windows ending before it are fired.
+    private transient String lateStream;//of the tuples dropped for being late, null if they are just dropped.
+    private transient OutputCollector collector;
 
     public BasicWindowBoltBatchExecutor(AbstractWindowedBolt op) {
         super(op);
@@ -54,8 +69,8 @@ public class BasicWindowBoltBatchExecutor extends BoltExecutor {
             // default is a sliding window of count 1
             slidingIntervalCount = new BaseWindowedBolt.Count(1);
         }
-        if (topoConf.containsKey(Configuration.TOPOLOGY_BOLTS_LATE_TUPLE_STREAM)) {
-            throw new IllegalArgumentException("Late tuple stream can be defined only when specifying a timestamp field");
+        if (lateStream != null && !watermarked) {
+            throw new IllegalArgumentException("Late tuple stream can be defined only when specifying a timestamp field, with spouts sending watermarks");
         }
 
         // validate
@@ -67,6 +82,9 @@ public class BasicWindowBoltBatchExecutor extends BoltExecutor {
                 manager, evictionPolicy);
         manager.setEvictionPolicy(evictionPolicy);
         manager.setTriggerPolicy(triggerPolicy);
+        if (watermarked) {
+            manager.start();
+        }
         return manager;
     }
 
@@ -75,6 +93,8 @@ public class BasicWindowBoltBatchExecutor extends BoltExecutor {
             , WindowManager<Tuple> manager, EvictionPolicy<Tuple, ?> evictionPolicy) {
         if (slidingIntervalCount != null) {
             return new CountTriggerPolicy(slidingIntervalCount.value, manager, evictionPolicy);
+        } else if (watermarked) {
+            return new WatermarkTimeTriggerPolicy<>(slidingIntervalDuration.value, manager, evictionPolicy, manager);
         } else {
             return new TimeTriggerPolicy(slidingIntervalDuration.value, manager, evictionPolicy);
         }
@@ -85,6 +105,10 @@ public class BasicWindowBoltBatchExecutor extends BoltExecutor {
 
             return new CountEvictionPolicy<>(windowLengthCount.value);
 
+        } else if (watermarked) {
+
+            return new WatermarkTimeEvictionPolicy<>(windowLengthDuration.value, (int) lateness);
+
         } else {
 
             return new TimeEvictionPolicy<>(windowLengthDuration.value);
@@ -134,11 +158,83 @@ public class BasicWindowBoltBatchExecutor extends BoltExecutor {
 
     }
 
+    /**
+     * Aggregated windows are cut into panes of gcd(length, slide), both counts or both durations.
+     */
+    @SuppressWarnings("unchecked")
+    private PaneWindow<Tuple, Object> initPaneWindow(BaseAggregateWindowedBolt<Object> bolt, Map<String, Object> topoConf) {
+        if (bolt.getAggregate() == null) {
+            throw new IllegalArgumentException("Window aggregate is not specified");
+        }
+        final Number length;
+        final Number slide;
+        if (topoConf.containsKey(Configuration.TOPOLOGY_BOLTS_WINDOW_LENGTH_COUNT)) {
+            countWindow = true;
+            length = (Number) topoConf.get(Configuration.TOPOLOGY_BOLTS_WINDOW_LENGTH_COUNT);
+            slide = (Number) topoConf.getOrDefault(Configuration.TOPOLOGY_BOLTS_SLIDING_INTERVAL_COUNT, 1);
+        } else if (topoConf.containsKey(Configuration.TOPOLOGY_BOLTS_WINDOW_LENGTH_DURATION_MS)) {
+            length = (Number) topoConf.get(Configuration.TOPOLOGY_BOLTS_WINDOW_LENGTH_DURATION_MS);
+            slide = (Number) topoConf.get(Configuration.TOPOLOGY_BOLTS_SLIDING_INTERVAL_DURATION_MS);
+        } else {
+            throw new IllegalArgumentException("Window length is not specified");
+        }
+        if (slide == null || (countWindow && topoConf.containsKey(Configuration.TOPOLOGY_BOLTS_SLIDING_INTERVAL_DURATION_MS))) {
+            throw new IllegalArgumentException("Aggregated windows slide by the same unit as their length");
+        }
+        return new PaneWindow<>(bolt.getAggregate(), length.longValue(), slide.longValue(), bolt::execute, watermarked);
+    }
+
+    @SuppressWarnings("unchecked")
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
         super.prepare(stormConf, context, collector);
+        this.collector = collector;
+        final Map<String, Object> windowConf = new HashMap<>(stormConf);
+        if (_op instanceof BaseWindowedBolt) {
+            windowConf.putAll(((BaseWindowedBolt) _op).getWindowConfiguration());
+            timestamps = ((BaseWindowedBolt) _op).getTimestampExtractor();
+        }
+        //event time windows are fired by watermarks when the spouts send them, they do not while profiling.
+        watermarked = timestamps != null && !windowConf.containsKey(Configuration.TOPOLOGY_BOLTS_WINDOW_LENGTH_COUNT)
+                && !windowConf.containsKey(Configuration.TOPOLOGY_BOLTS_SLIDING_INTERVAL_COUNT)
+                && ((Number) windowConf.getOrDefault("watermark_interval", 0)).intValue() > 0
+                && !Boolean.TRUE.equals(windowConf.get("profile"));
+        if (watermarked) {
+            check_watermarks(context.getThisComponent(), new HashSet<>());
+        }
+        lateness = ((Number) windowConf.getOrDefault(Configuration.TOPOLOGY_BOLTS_TUPLE_TIMESTAMP_MAX_LAG_MS, 0)).longValue();
+        lateStream = (String) windowConf.get(Configuration.TOPOLOGY_BOLTS_LATE_TUPLE_STREAM);
+        if (_op instanceof BaseAggregateWindowedBolt) {
+            this.panes = initPaneWindow((BaseAggregateWindowedBolt<Object>) _op, windowConf);
+            return;
+        }
         WindowLifecycleListener<Tuple> listener = newWindowLifecycleListener();
-        this.windowManager = initWindowManager(listener, stormConf, context, new ConcurrentLinkedQueue<>());
+        this.windowManager = initWindowManager(listener, windowConf, context, new ConcurrentLinkedQueue<>());
+
+    }
 
+    /**
+     * The watermark of a bolt is the minimum over its inputs: windows fired by watermarks would silently never fire
+     * if a spout upstream did not report the event time of its tuples, since its watermarks never advance.
+     *
+     * @param component whose spouts upstream are checked.
+     * @param visited   components.
+     */
+    private static void check_watermarks(TopologyComponent component, Set<String> visited) {
+        for (Map<TopologyComponent, Grouping> parents : component.getParents().values()) {
+            for (TopologyComponent parent : parents.keySet()) {
+                if (!visited.add(parent.getId())) {
+                    continue;
+                }
+                if (parent.getOp() instanceof BasicSpoutBatchExecutor) {
+                    if (!((BasicSpoutBatchExecutor) parent.getOp()).isEventTime()) {
+                        throw new IllegalArgumentException("Windows of " + component.getId() + " are fired by watermarks, but spout "
+                                + parent.getId() + " upstream does not report the event time of its tuples");
+                    }
+                } else {
+                    check_watermarks(parent, visited);
+                }
+            }
+        }
     }
 
     private WindowLifecycleListener<Tuple> newWindowLifecycleListener() {
@@ -163,12 +259,79 @@ public class BasicWindowBoltBatchExecutor extends BoltExecutor {
     }
 
     public void execute(TransferTuple in) throws InterruptedException {
+        if (panes != null) {
+            aggregate(in);
+            return;
+        }
+        if (watermarked) {
+            for (int i = 0; i < in.length; i++) {
+                final Tuple input = in.getTuple(i);
+                final long ts = timestamps.extractTimestamp(input);
+                if (ts < watermark) {
+                    late(input);
+                } else {
+                    windowManager.add(input, ts);
+                }
+            }
+            return;
+        }
         for (int i = 0; i < in.length; i++) {
             final Tuple input = in.getTuple(i);
             windowManager.add(input);
         }
     }
 
+    /**
+     * Event time windows ending at or before the watermark minus the allowed lateness are fired,
+     * and the consumers are given that watermark, since the results that follow may still end after it.
+     */
+    @Override
+    protected void onWatermark(long watermark) throws InterruptedException {
+        if (!watermarked) {
+            super.onWatermark(watermark);
+            return;
+        }
+        this.watermark = watermark - lateness;
+        if (panes != null) {
+            panes.advance(this.watermark);
+        } else {
+            windowManager.add(new WaterMarkEvent<>(this.watermark));
+        }
+        super.onWatermark(this.watermark);
+    }
+
+    private void late(Tuple input) throws InterruptedException {
+        if (lateStream != null) {
+            collector.emit(lateStream, input.getBID(), (Object) input);
+        }
+    }
+
+    /**
+     * Count windows close a pane every gcd(length, slide) tuples. Time windows use the timestamp of the tuples if the
+     * bolt has a timestamp field, the arrival time of the batch otherwise.
+     */
+    private void aggregate(TransferTuple in) throws InterruptedException {
+        if (countWindow) {
+            for (int i = 0; i < in.length; i++) {
+                panes.add(in.getTuple(i), position++);
+                panes.advance(position);
+            }
+        } else if (timestamps != null) {
+            for (int i = 0; i < in.length; i++) {
+                final Tuple input = in.getTuple(i);
+                if (!panes.add(input, timestamps.extractTimestamp(input))) {
+                    late(input);
+                }
+            }
+        } else {
+            final long now = System.currentTimeMillis();
+            panes.advance(now);
+            for (int i = 0; i < in.length; i++) {
+                panes.add(in.getTuple(i), now);
+            }
+        }
+    }
+
     @Override
     public void execute(Tuple in) throws InterruptedException {
         //not supported yet.
@@ -179,6 +342,11 @@ public class BasicWindowBoltBatchExecutor extends BoltExecutor {
         //not suppported yet.
     }
 
+    @Override
+    public boolean retainsInput() {
+        return !(_op instanceof BaseAggregateWindowedBolt);//tuples are kept in the window, unless only their aggregate is.
+    }
+
     private Long getWindowStartTs(Long endTs) {
         Long res = null;
         if (endTs != null && windowLengthDuration != null) {
@@ -192,7 +360,9 @@ public class BasicWindowBoltBatchExecutor extends BoltExecutor {
 //		if (waterMarkEventGenerator != null) {
 //			waterMarkEventGenerator.shutdown();
 //		}
-        windowManager.shutdown();
+        if (windowManager != null) {
+            windowManager.shutdown();
+        }
         _op.cleanup();
     }
 
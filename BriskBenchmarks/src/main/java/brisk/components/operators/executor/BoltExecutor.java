@@ -3,15 +3,24 @@ package brisk.components.operators.executor;
 import brisk.components.context.TopologyContext;
 import brisk.components.operators.api.Checkpointable;
 import brisk.components.operators.api.Operator;
+import brisk.components.windowing.WatermarkTracker;
+import brisk.controller.input.InputStreamController;
+import brisk.controller.input.scheduler.OrderedScheduler;
+import brisk.controller.output.partition.impl.KeyGroups;
 import brisk.execution.Clock;
+import brisk.execution.ExecutionGraph;
 import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.collector.OutputCollector;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Marker;
 import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.faulttolerance.State;
 import brisk.faulttolerance.Writer;
 import util.Configuration;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BrokenBarrierException;
 
@@ -19,6 +28,11 @@ public abstract class BoltExecutor implements IExecutor {
 
     private static final long serialVersionUID = 8641360612751721276L;
     private final Operator op;
+    private transient ExecutionNode executionNode;
+    private transient OutputCollector collector;
+    private transient WatermarkTracker watermarks;//created with the first watermark received.
+    private long forwarded = Long.MIN_VALUE;//last watermark sent to the consumers.
+    private long progress = Long.MIN_VALUE;//last BID progress sent to the consumers.
 
     BoltExecutor(Operator op) {
         this.op = op;
@@ -32,9 +46,77 @@ public abstract class BoltExecutor implements IExecutor {
 
     @Override
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
+        this.collector = collector;
         op.prepare(stormConf, context, collector);
     }
 
+    /**
+     * A watermark received from an upstream executor. The watermark of this executor is the minimum over its
+     * upstream executors, only the executor it is chained to if it is chained. Upstream executors parked by a rescale
+     * (they own no key group) are left out.
+     *
+     * @param source    upstream executor id.
+     * @param watermark in ms.
+     */
+    public void watermark(int source, long watermark) throws InterruptedException {
+        if (watermarks == null) {
+            final List<Integer> sources = new ArrayList<>();
+            final Map<Integer, KeyGroups> routing = new HashMap<>();//upstream executor id -> key groups of its operator.
+            if (executionNode.isChained()) {
+                sources.add(executionNode.getChainHost().getExecutorID());
+            } else {
+                final ExecutionGraph graph = op.getContext().getGraph();
+                for (List<ExecutionNode> parents : executionNode.getParents().values()) {
+                    for (ExecutionNode parent : parents) {
+                        sources.add(parent.getExecutorID());
+                        final KeyGroups groups = graph.getKeyGroups(parent.operator.getId());
+                        if (groups != null) {
+                            routing.put(parent.getExecutorID(), groups);
+                        }
+                    }
+                }
+            }
+            watermarks = new WatermarkTracker(sources, upstream -> {
+                final KeyGroups groups = routing.get(upstream);
+                return groups == null || groups.isActive(upstream);
+            });
+        }
+        if (watermarks.update(source, watermark)) {
+            onWatermark(watermarks.current());
+        } else if (progress() > progress) {
+            forward(forwarded);
+        }
+    }
+
+    /**
+     * The watermark of this executor advanced: by default, it is forwarded to the consumers.
+     *
+     * @param watermark in ms.
+     */
+    protected void onWatermark(long watermark) throws InterruptedException {
+        forward(watermark);
+    }
+
+    /**
+     * Send the watermark to the consumers, with the BID progress of an ordered input: an ordered bolt emits under the
+     * BIDs of its input, so its consumers need not wait for it below the BIDs it will not take any more.
+     *
+     * @param watermark in ms.
+     */
+    protected final void forward(long watermark) throws InterruptedException {
+        forwarded = watermark;
+        progress = progress();
+        collector.broadcast_watermark(watermark, progress);
+    }
+
+    /**
+     * @return the BID below which the input of this executor delivers nothing more, Long.MIN_VALUE if it is not ordered.
+     */
+    private long progress() {
+        final InputStreamController input = executionNode.getInputStreamController();
+        return input instanceof OrderedScheduler ? ((OrderedScheduler) input).progress() : Long.MIN_VALUE;
+    }
+
     @Override
     public int getID() {
         return op.getId();
@@ -96,6 +178,7 @@ public abstract class BoltExecutor implements IExecutor {
     }
 
     public void setExecutionNode(ExecutionNode e) {
+        this.executionNode = e;
 
         op.setExecutionNode(e);
     }
@@ -106,6 +189,14 @@ public abstract class BoltExecutor implements IExecutor {
         }
     }
 
+    public State getState() {
+        return op.state;
+    }
+
+    public void rewind(long offset) {
+        //bolts are restored from their state only.
+    }
+
 
     @Override
     public void earlier_clean_state(Marker marker) {
@@ -138,4 +229,9 @@ public abstract class BoltExecutor implements IExecutor {
         return 0;
     }
 
+    /**
+     * @return true if input batches are still referenced after execute, so they must not be recycled.
+     */
+    public abstract boolean retainsInput();
+
 }
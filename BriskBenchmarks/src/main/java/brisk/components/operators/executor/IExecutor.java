@@ -4,6 +4,7 @@ import brisk.components.context.TopologyContext;
 import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.collector.OutputCollector;
 import brisk.execution.runtime.tuple.impl.Marker;
+import brisk.faulttolerance.State;
 import brisk.faulttolerance.Writer;
 import util.Configuration;
 
@@ -51,6 +52,18 @@ public interface IExecutor extends Serializable {
 
     void configureWriter(Writer writer);
 
+    /**
+     * @return the state of a checkpointable operator, null if it has none.
+     */
+    State getState();
+
+    /**
+     * Restart a replayable spout from the given offset (see {@link brisk.faulttolerance.Replayable}).
+     *
+     * @param offset
+     */
+    void rewind(long offset);
+
 
     void clean_state(Marker marker);
 
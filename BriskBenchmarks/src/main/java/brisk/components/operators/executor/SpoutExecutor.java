@@ -5,7 +5,10 @@ import brisk.components.operators.api.Operator;
 import brisk.execution.Clock;
 import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.tuple.impl.Marker;
+import brisk.faulttolerance.Replayable;
+import brisk.faulttolerance.State;
 import brisk.faulttolerance.Writer;
+import brisk.faulttolerance.impl.ValueState;
 
 public abstract class SpoutExecutor implements IExecutor {
     private static final long serialVersionUID = -6394372792803974178L;
@@ -20,9 +23,29 @@ public abstract class SpoutExecutor implements IExecutor {
         op.setExecutionNode(e);
     }
 
+    /**
+     * A spout without state of its own still commits the checkpoints it starts, through an empty state.
+     *
+     * @param writer
+     */
     public void configureWriter(Writer writer) {
-        if (op.state != null) {
-            op.state.writer = writer;
+        if (op.state == null) {
+            op.state = new ValueState<>();
+        }
+        op.state.writer = writer;
+    }
+
+    public State getState() {
+        return op.state;
+    }
+
+    public boolean isReplayable() {
+        return op instanceof Replayable;
+    }
+
+    public void rewind(long offset) {
+        if (op instanceof Replayable) {
+            ((Replayable) op).rewind(offset);
         }
     }
 
@@ -32,12 +55,16 @@ public abstract class SpoutExecutor implements IExecutor {
 
     @Override
     public void clean_state(Marker marker) {
-        ((Checkpointable) op).ack_checkpoint(marker);
+        if (op instanceof Checkpointable) {
+            ((Checkpointable) op).ack_checkpoint(marker);
+        }
     }
 
     @Override
     public void earlier_clean_state(Marker marker) {
-        ((Checkpointable) op).earlier_ack_checkpoint(marker);
+        if (op instanceof Checkpointable) {
+            ((Checkpointable) op).earlier_ack_checkpoint(marker);
+        }
     }
 
     public boolean IsStateful() {
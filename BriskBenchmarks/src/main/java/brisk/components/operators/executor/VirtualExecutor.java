@@ -5,6 +5,7 @@ import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.collector.OutputCollector;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Marker;
+import brisk.faulttolerance.State;
 import brisk.faulttolerance.Writer;
 import brisk.topology.TopologyBuilder;
 import org.slf4j.Logger;
@@ -94,6 +95,16 @@ public class VirtualExecutor implements IExecutor {
 
     }
 
+    @Override
+    public State getState() {
+        return null;
+    }
+
+    @Override
+    public void rewind(long offset) {
+
+    }
+
 
     @Override
     public void clean_state(Marker marker) {
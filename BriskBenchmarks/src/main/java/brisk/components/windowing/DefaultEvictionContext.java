@@ -10,7 +10,7 @@ public class DefaultEvictionContext implements EvictionContext {
         this(referenceTime, null);
     }
 
-    private DefaultEvictionContext(Long referenceTime, Long currentCount) {
+    public DefaultEvictionContext(Long referenceTime, Long currentCount) {
         this(referenceTime, currentCount, null);
     }
 
@@ -0,0 +1,20 @@
+package brisk.components.windowing;
+
+/**
+ * A {@link WindowAggregate} that can take out the oldest pane of an aggregate, such as a sum or a count.
+ * The window then keeps a running aggregate, updated in O(1) per pane, instead of combining panes.
+ *
+ * @param <T> input
+ * @param <A> partial aggregate
+ */
+public interface InvertibleWindowAggregate<T, A> extends WindowAggregate<T, A> {
+
+    /**
+     * Must not modify its arguments.
+     *
+     * @param total   aggregate of a sequence of panes, the oldest first.
+     * @param expired the oldest of these panes.
+     * @return the aggregate of the other panes.
+     */
+    A remove(A total, A expired);
+}
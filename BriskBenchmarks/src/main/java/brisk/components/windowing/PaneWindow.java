@@ -0,0 +1,322 @@
+package brisk.components.windowing;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Incremental sliding window aggregation over non-overlapping panes.
+ * <p>
+ * A window of length l sliding by s is cut into panes of gcd(l, s): an input is accumulated into the partial aggregate
+ * of its pane, and only the partial aggregates of the last l / gcd(l, s) panes are kept, not the inputs. Panes are combined
+ * with two stacks, which costs O(1) amortized combines per pane, or, for an {@link InvertibleWindowAggregate},
+ * with a running aggregate the oldest pane is removed from. The cost of a slide so depends on the slide, not on the length.
+ * <p>
+ * Positions are tuple counts for count windows, timestamps in ms for time windows. Windows end at multiples of s,
+ * empty windows are not reported. Inputs older than the open pane are late: they are dropped and counted.
+ * <p>
+ * By default an input of a later pane closes the panes before it. Driven by watermarks instead, inputs may come out of
+ * order: every pane after the last closed one stays open, and panes are only closed by {@link #advance(long)}.
+ * Not thread safe, it is driven by the executor that owns it.
+ *
+ * @param <T> input
+ * @param <A> partial aggregate
+ */
+public class PaneWindow<T, A> {
+    private final WindowAggregate<T, A> aggregate;
+    private final Listener<A> listener;
+    private final long length;
+    private final long slide;
+    private final long pane;
+    private final int panes;//per window.
+    private final Panes<A> window;
+    private final long[] counts;//inputs of each pane in the window, by pane index modulo panes.
+    private final A empty;
+    private final TreeMap<Long, Pending<A>> pending;//open panes by index when driven by watermarks, null otherwise.
+    private long count;//inputs in the window.
+    private long open = Long.MIN_VALUE;//index of the open pane, from position / pane.
+    private A partial;//of the open pane, null until it gets an input.
+    private long openCount;
+    private long late;
+
+    /**
+     * @param aggregate
+     * @param length    of a window, in positions.
+     * @param slide     of a window, in positions.
+     * @param listener  called with the aggregate of each window.
+     */
+    public PaneWindow(WindowAggregate<T, A> aggregate, long length, long slide, Listener<A> listener) {
+        this(aggregate, length, slide, listener, false);
+    }
+
+    /**
+     * @param aggregate
+     * @param length      of a window, in positions.
+     * @param slide       of a window, in positions.
+     * @param listener    called with the aggregate of each window.
+     * @param watermarked if panes are only closed by {@link #advance(long)}.
+     */
+    public PaneWindow(WindowAggregate<T, A> aggregate, long length, long slide, Listener<A> listener, boolean watermarked) {
+        if (length <= 0 || slide <= 0) {
+            throw new IllegalArgumentException("Window length and slide must be positive: " + length + ", " + slide);
+        }
+        this.aggregate = aggregate;
+        this.listener = listener;
+        this.length = length;
+        this.slide = slide;
+        this.pane = gcd(length, slide);
+        this.panes = (int) (length / pane);
+        this.window = aggregate instanceof InvertibleWindowAggregate
+                ? new RunningPanes<>((InvertibleWindowAggregate<T, A>) aggregate, panes)
+                : new TwoStacks<>(aggregate, panes);
+        this.counts = new long[panes];
+        this.empty = aggregate.create();
+        this.pending = watermarked ? new TreeMap<>() : null;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            final long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * @param input
+     * @param position of the input: its index for count windows, its timestamp for time windows.
+     * @return false if the input is late, and dropped.
+     */
+    public boolean add(T input, long position) {
+        final long index = Math.floorDiv(position, pane);
+        if (pending != null) {
+            if (index < open) {
+                late++;
+                return false;
+            }
+            final Pending<A> p = pending.computeIfAbsent(index, k -> new Pending<>());
+            p.partial = aggregate.accumulate(p.partial == null ? aggregate.create() : p.partial, input);
+            p.count++;
+            return true;
+        }
+        if (open == Long.MIN_VALUE) {
+            open = index;
+        } else if (index < open) {
+            late++;
+            return false;
+        } else if (index > open) {
+            advance(index * pane);
+        }
+        if (partial == null) {
+            partial = aggregate.create();
+        }
+        partial = aggregate.accumulate(partial, input);
+        openCount++;
+        return true;
+    }
+
+    /**
+     * Close the panes that end at or before the position, and report the windows they complete.
+     *
+     * @param position exclusive: inputs at this position are still to come.
+     */
+    public void advance(long position) {
+        final long target = Math.floorDiv(position, pane);
+        if (open == Long.MIN_VALUE) {
+            if (pending == null || pending.isEmpty()) {
+                open = target;
+                return;
+            }
+            open = Math.min(pending.firstKey(), target);
+        }
+        while (open < target) {
+            final long next = pending == null || pending.isEmpty() ? target : Math.min(pending.firstKey(), target);
+            if (count == 0 && partial == null && next - open > panes) {
+                window.clear();//only empty panes until the next input, no window to report.
+                open = next;
+                continue;
+            }
+            close();
+        }
+    }
+
+    private void close() {
+        if (pending != null) {
+            final Pending<A> p = pending.remove(open);
+            if (p != null) {
+                partial = p.partial;
+                openCount = p.count;
+            }
+        }
+        if (window.size() == panes) {
+            window.evict();
+            count -= counts[(int) Math.floorMod(open - panes, (long) panes)];
+        }
+        window.push(partial == null ? empty : partial);
+        counts[(int) Math.floorMod(open, (long) panes)] = openCount;
+        count += openCount;
+        partial = null;
+        openCount = 0;
+        open++;
+        final long end = open * pane;
+        if (Math.floorMod(end, slide) == 0 && count > 0) {
+            listener.onWindow(window.query(), end - length, end);
+        }
+    }
+
+    /**
+     * @return inputs dropped because their pane was already closed.
+     */
+    public long getLate() {
+        return late;
+    }
+
+    /**
+     * @return the pane length, in positions.
+     */
+    public long getPane() {
+        return pane;
+    }
+
+    private static final class Pending<A> {
+        A partial;
+        long count;
+    }
+
+    public interface Listener<A> {
+        /**
+         * @param aggregate of the inputs in [start, end).
+         * @param start     position.
+         * @param end       position, exclusive.
+         */
+        void onWindow(A aggregate, long start, long end);
+    }
+
+    /**
+     * The partial aggregates of the panes in the window, oldest first.
+     */
+    private interface Panes<A> {
+        void push(A partial);
+
+        void evict();
+
+        A query();
+
+        int size();
+
+        void clear();
+    }
+
+    /**
+     * Two stacks: panes are pushed on the back stack, whose aggregate is maintained, and evicted from the front
+     * stack, where each element holds the aggregate of itself and the newer panes below it. When the front stack is
+     * empty, the back stack is flipped onto it. Each pane is combined twice at most.
+     */
+    private static final class TwoStacks<T, A> implements Panes<A> {
+        private final WindowAggregate<T, A> aggregate;
+        private final Object[] front;
+        private final Object[] back;
+        private int fronts;
+        private int backs;
+        private A backAggregate;
+
+        TwoStacks(WindowAggregate<T, A> aggregate, int capacity) {
+            this.aggregate = aggregate;
+            front = new Object[capacity];
+            back = new Object[capacity];
+        }
+
+        @Override
+        public void push(A partial) {
+            back[backs++] = partial;
+            backAggregate = backs == 1 ? partial : aggregate.combine(backAggregate, partial);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void evict() {
+            if (fronts == 0) {
+                for (int i = backs - 1; i >= 0; i--) {
+                    front[fronts] = fronts == 0 ? back[i] : aggregate.combine((A) back[i], (A) front[fronts - 1]);
+                    back[i] = null;
+                    fronts++;
+                }
+                backs = 0;
+                backAggregate = null;
+            }
+            front[--fronts] = null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public A query() {
+            if (fronts == 0) {
+                return backAggregate;
+            }
+            final A older = (A) front[fronts - 1];
+            return backs == 0 ? older : aggregate.combine(older, backAggregate);
+        }
+
+        @Override
+        public int size() {
+            return fronts + backs;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(front, null);
+            Arrays.fill(back, null);
+            fronts = 0;
+            backs = 0;
+            backAggregate = null;
+        }
+    }
+
+    /**
+     * A ring of the panes and their running aggregate, the oldest pane is removed from it when evicted.
+     */
+    private static final class RunningPanes<T, A> implements Panes<A> {
+        private final InvertibleWindowAggregate<T, A> aggregate;
+        private final Object[] ring;
+        private int oldest;
+        private int size;
+        private A total;
+
+        RunningPanes(InvertibleWindowAggregate<T, A> aggregate, int capacity) {
+            this.aggregate = aggregate;
+            ring = new Object[capacity];
+        }
+
+        @Override
+        public void push(A partial) {
+            ring[(oldest + size++) % ring.length] = partial;
+            total = total == null ? partial : aggregate.combine(total, partial);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void evict() {
+            total = --size == 0 ? null : aggregate.remove(total, (A) ring[oldest]);
+            ring[oldest] = null;
+            oldest = (oldest + 1) % ring.length;
+        }
+
+        @Override
+        public A query() {
+            return total;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(ring, null);
+            oldest = 0;
+            size = 0;
+            total = null;
+        }
+    }
+}
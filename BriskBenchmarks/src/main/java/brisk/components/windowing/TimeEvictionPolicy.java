@@ -10,7 +10,7 @@ public class TimeEvictionPolicy<T> implements EvictionPolicy<T, EvictionContext>
     private static final Logger LOG = LoggerFactory.getLogger(org.apache.storm.windowing.TimeEvictionPolicy.class);
 
     private final int windowLength;
-    private volatile EvictionContext evictionContext;
+    protected volatile EvictionContext evictionContext;
     private long delta;
 
     /**
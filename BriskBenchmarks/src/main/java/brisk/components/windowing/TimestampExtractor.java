@@ -2,6 +2,8 @@ package brisk.components.windowing;
 
 import brisk.execution.runtime.tuple.impl.Tuple;
 
-public interface TimestampExtractor {
+import java.io.Serializable;
+
+public interface TimestampExtractor extends Serializable {
     long extractTimestamp(Tuple tuple);
 }
@@ -0,0 +1,50 @@
+package brisk.components.windowing;
+
+/**
+ * An eviction policy that evicts events based on time duration, taking the watermark time
+ * of the window being evaluated as the reference time instead of the wall clock.
+ */
+public class WatermarkTimeEvictionPolicy<T> extends TimeEvictionPolicy<T> {
+    private final int lag;
+
+    /**
+     * Constructs a WatermarkTimeEvictionPolicy that evicts events older than the given window length in millis.
+     *
+     * @param windowLength the window length in milliseconds
+     * @param lag          the max event lag in milliseconds, events within the lag of the reference time are kept
+     */
+    public WatermarkTimeEvictionPolicy(int windowLength, int lag) {
+        super(windowLength);
+        this.lag = lag;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Keeps events with future ts in the queue for processing in the next
+     * window. If the ts difference is more than the lag, stops scanning
+     * the queue for the current window.
+     */
+    @Override
+    public Action evict(Event<T> event) {
+        if (evictionContext == null) {//no watermark yet.
+            return Action.KEEP;
+        }
+        long referenceTime = evictionContext.getReferenceTime() != null ? evictionContext.getReferenceTime() : 0L;
+        long diff = referenceTime - event.getTimestamp();
+        if (diff < -lag) {
+            return Action.STOP;
+        } else if (diff < 0) {
+            return Action.KEEP;
+        } else {
+            return super.evict(event);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WatermarkTimeEvictionPolicy{" +
+                "lag=" + lag +
+                "} " + super.toString();
+    }
+}
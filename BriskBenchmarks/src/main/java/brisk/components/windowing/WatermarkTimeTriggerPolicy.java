@@ -0,0 +1,113 @@
+package brisk.components.windowing;
+
+/**
+ * Handles watermark events and triggers {@link TriggerHandler#onTrigger()} for each window interval
+ * that has events to be processed up to the watermark ts. Windows end at multiples of the sliding interval,
+ * so that the windows fired only depend on the event timestamps, not on when the watermarks arrive.
+ */
+public class WatermarkTimeTriggerPolicy<T> implements TriggerPolicy<T, Long> {
+    private final long slidingIntervalMs;
+    private final TriggerHandler handler;
+    private final EvictionPolicy<T, ?> evictionPolicy;
+    private final WindowManager<T> windowManager;
+    private long nextWindowEndTs;
+    private boolean started;
+
+    public WatermarkTimeTriggerPolicy(long slidingIntervalMs, TriggerHandler handler, EvictionPolicy<T, ?> evictionPolicy,
+                                      WindowManager<T> windowManager) {
+        this.slidingIntervalMs = slidingIntervalMs;
+        this.handler = handler;
+        this.evictionPolicy = evictionPolicy;
+        this.windowManager = windowManager;
+        this.started = false;
+    }
+
+    @Override
+    public void track(Event<T> event) {
+        if (started && event.isWatermark()) {
+            handleWaterMarkEvent(event);
+        }
+    }
+
+    @Override
+    public void reset() {
+        // NOOP
+    }
+
+    @Override
+    public void start() {
+        started = true;
+    }
+
+    @Override
+    public void shutdown() {
+        // NOOP
+    }
+
+    /**
+     * Invokes the trigger all pending windows up to the
+     * watermark timestamp. The end ts of the window is set
+     * in the eviction policy context so that the events falling
+     * within that window can be processed.
+     */
+    private void handleWaterMarkEvent(Event<T> event) {
+        long watermarkTs = event.getTimestamp();
+        long windowEndTs = nextWindowEndTs;
+        while (windowEndTs <= watermarkTs) {
+            long currentCount = windowManager.getEventCount(windowEndTs);
+            evictionPolicy.setContext(new DefaultEvictionContext(windowEndTs, currentCount));
+            if (handler.onTrigger()) {
+                windowEndTs += slidingIntervalMs;
+            } else {
+                /*
+                 * No events were found in the previous window interval.
+                 * Scan through the events in the queue to find the next
+                 * window intervals based on event ts.
+                 */
+                long ts = getNextAlignedWindowTs(windowEndTs, watermarkTs);
+                if (ts == Long.MAX_VALUE) {
+                    break;
+                }
+                windowEndTs = ts;
+            }
+        }
+        nextWindowEndTs = windowEndTs;
+    }
+
+    /**
+     * Computes the next window by scanning the events in the window and
+     * finds the next aligned window between the startTs and endTs. Return the end ts
+     * of the next aligned window, i.e. the ts when the window should fire.
+     *
+     * @param startTs the start timestamp (excluding)
+     * @param endTs   the end timestamp (including)
+     * @return the aligned window end ts for the next window or Long.MAX_VALUE if there
+     * are no more events to be processed.
+     */
+    private long getNextAlignedWindowTs(long startTs, long endTs) {
+        long nextTs = windowManager.getEarliestEventTs(startTs, endTs);
+        if (nextTs == Long.MAX_VALUE || (nextTs % slidingIntervalMs == 0)) {
+            return nextTs;
+        }
+        return nextTs + (slidingIntervalMs - (nextTs % slidingIntervalMs));
+    }
+
+    @Override
+    public Long getState() {
+        return nextWindowEndTs;
+    }
+
+    @Override
+    public void restoreState(Long state) {
+        nextWindowEndTs = state;
+    }
+
+    @Override
+    public String toString() {
+        return "WatermarkTimeTriggerPolicy{" +
+                "slidingIntervalMs=" + slidingIntervalMs +
+                ", nextWindowEndTs=" + nextWindowEndTs +
+                ", started=" + started +
+                '}';
+    }
+}
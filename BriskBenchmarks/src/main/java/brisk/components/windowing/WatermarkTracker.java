@@ -0,0 +1,77 @@
+package brisk.components.windowing;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Watermark of an executor: the minimum over its input channels (one per upstream executor) of the last watermark
+ * received on each. It only starts to advance once every channel has sent one.
+ * <p>
+ * An upstream executor parked by a rescale sends nothing, not even watermarks: its channel is left out of the minimum
+ * while it is parked, instead of freezing it. Once resumed, its channel holds the watermark back only after catching
+ * up with it, a watermark never goes back.
+ * Not thread safe, it is driven by the executor that owns it.
+ */
+public class WatermarkTracker {
+    private final Map<Integer, Integer> channels = new HashMap<>();//upstream executor id -> index.
+    private final long[] watermarks;
+    private final int[] sources;//index -> upstream executor id.
+    private final IntPredicate active;
+    private long current = Long.MIN_VALUE;
+
+    /**
+     * @param sources upstream executor ids.
+     */
+    public WatermarkTracker(Collection<Integer> sources) {
+        this(sources, source -> true);
+    }
+
+    /**
+     * @param sources upstream executor ids.
+     * @param active  if an upstream executor is running, false while it is parked.
+     */
+    public WatermarkTracker(Collection<Integer> sources, IntPredicate active) {
+        this.active = active;
+        for (int source : sources) {
+            channels.putIfAbsent(source, channels.size());
+        }
+        watermarks = new long[channels.size()];
+        Arrays.fill(watermarks, Long.MIN_VALUE);
+        this.sources = new int[channels.size()];
+        channels.forEach((source, channel) -> this.sources[channel] = source);
+    }
+
+    /**
+     * @param source    upstream executor id.
+     * @param watermark received from it.
+     * @return true if the watermark of the executor advanced.
+     */
+    public boolean update(int source, long watermark) {
+        final Integer channel = channels.get(source);
+        if (channel == null || watermark <= watermarks[channel]) {
+            return false;
+        }
+        watermarks[channel] = watermark;
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < watermarks.length; i++) {
+            if (i == channel || active.test(sources[i])) {//a parked executor may still have sent this one.
+                min = Math.min(min, watermarks[i]);
+            }
+        }
+        if (min > current) {
+            current = min;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the watermark of the executor, Long.MIN_VALUE until every channel has sent one.
+     */
+    public long current() {
+        return current;
+    }
+}
@@ -0,0 +1,35 @@
+package brisk.components.windowing;
+
+import java.io.Serializable;
+
+/**
+ * An associative aggregate function over the inputs of a window, computed incrementally by {@link PaneWindow}:
+ * inputs are accumulated into the partial aggregate of their pane, and the partial aggregates of the panes of
+ * a window are combined in order.
+ *
+ * @param <T> input
+ * @param <A> partial aggregate
+ */
+public interface WindowAggregate<T, A> extends Serializable {
+
+    /**
+     * @return a new empty partial aggregate.
+     */
+    A create();
+
+    /**
+     * @param partial of the open pane, owned by the caller: it can be updated in place and returned.
+     * @param input
+     * @return the partial aggregate with the input.
+     */
+    A accumulate(A partial, T input);
+
+    /**
+     * Must be associative, and must not modify its arguments, which stay in use.
+     *
+     * @param older
+     * @param newer
+     * @return the aggregate of older followed by newer.
+     */
+    A combine(A older, A newer);
+}
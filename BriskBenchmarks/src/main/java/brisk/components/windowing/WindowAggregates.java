@@ -0,0 +1,96 @@
+package brisk.components.windowing;
+
+import brisk.execution.runtime.tuple.impl.Tuple;
+
+import java.io.Serializable;
+
+/**
+ * Common window aggregates over a numeric value of the tuples. Partial aggregates are a double[1],
+ * updated in place within a pane so that no object is allocated per tuple.
+ */
+public final class WindowAggregates {
+
+    private WindowAggregates() {
+    }
+
+    public static InvertibleWindowAggregate<Tuple, double[]> count() {
+        return new Sum(tuple -> 1);
+    }
+
+    public static InvertibleWindowAggregate<Tuple, double[]> sum(Value value) {
+        return new Sum(value);
+    }
+
+    public static WindowAggregate<Tuple, double[]> max(Value value) {
+        return new Extreme(value, true);
+    }
+
+    public static WindowAggregate<Tuple, double[]> min(Value value) {
+        return new Extreme(value, false);
+    }
+
+    /**
+     * Numeric value of a tuple, serializable so that it is cloned with its operator.
+     */
+    public interface Value extends Serializable {
+        double of(Tuple tuple);
+    }
+
+    private static final class Sum implements InvertibleWindowAggregate<Tuple, double[]> {
+        private static final long serialVersionUID = 4633157962313467502L;
+        private final Value value;
+
+        Sum(Value value) {
+            this.value = value;
+        }
+
+        @Override
+        public double[] create() {
+            return new double[1];
+        }
+
+        @Override
+        public double[] accumulate(double[] partial, Tuple input) {
+            partial[0] += value.of(input);
+            return partial;
+        }
+
+        @Override
+        public double[] combine(double[] older, double[] newer) {
+            return new double[]{older[0] + newer[0]};
+        }
+
+        @Override
+        public double[] remove(double[] total, double[] expired) {
+            return new double[]{total[0] - expired[0]};
+        }
+    }
+
+    private static final class Extreme implements WindowAggregate<Tuple, double[]> {
+        private static final long serialVersionUID = -2380962180745405379L;
+        private final Value value;
+        private final boolean max;
+
+        Extreme(Value value, boolean max) {
+            this.value = value;
+            this.max = max;
+        }
+
+        @Override
+        public double[] create() {
+            return new double[]{max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY};
+        }
+
+        @Override
+        public double[] accumulate(double[] partial, Tuple input) {
+            final double v = value.of(input);
+            partial[0] = max ? Math.max(partial[0], v) : Math.min(partial[0], v);
+            return partial;
+        }
+
+        @Override
+        public double[] combine(double[] older, double[] newer) {
+            return new double[]{max ? Math.max(older[0], newer[0]) : Math.min(older[0], newer[0])};
+        }
+    }
+}
@@ -95,7 +95,7 @@ public class WindowManager<T> implements TriggerHandler {
      * @param event the event to track
      * @param ts    the timestamp
      */
-    private void add(T event, long ts) {
+    public void add(T event, long ts) {
         add(new BasicEvent<T>(event, ts));
     }
 
@@ -104,7 +104,7 @@ public class WindowManager<T> implements TriggerHandler {
      *
      * @param windowEvent the window event to track
      */
-    private void add(Event<T> windowEvent) {
+    public void add(Event<T> windowEvent) {
         // watermark events are not added to the queue.
         if (!windowEvent.isWatermark()) {
             queue.add(windowEvent);
@@ -177,10 +177,45 @@ public class WindowManager<T> implements TriggerHandler {
         return eventsToProcess;
     }
 
+    /**
+     * Scans the event queue and returns the next earliest event ts
+     * between the startTs and endTs
+     *
+     * @param startTs the start ts (exclusive)
+     * @param endTs   the end ts (inclusive)
+     * @return the earliest event ts between startTs and endTs
+     */
+    public long getEarliestEventTs(long startTs, long endTs) {
+        long minTs = Long.MAX_VALUE;
+        for (Event<T> event : queue) {
+            if (event.getTimestamp() > startTs && event.getTimestamp() <= endTs) {
+                minTs = Math.min(minTs, event.getTimestamp());
+            }
+        }
+        return minTs;
+    }
+
+    /**
+     * Scans the event queue and returns number of events having
+     * timestamp less than or equal to the reference time.
+     *
+     * @param referenceTime the reference timestamp in millis
+     * @return the count of events with timestamp less than or equal to referenceTime
+     */
+    public int getEventCount(long referenceTime) {
+        int count = 0;
+        for (Event<T> event : queue) {
+            if (event.getTimestamp() <= referenceTime) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
     /**
      * Start the trigger policy and waterMarkEventGenerator if set
      */
-    protected void start() {
+    public void start() {
 //		if (waterMarkEventGenerator != null) {
 //			//LOG.DEBUG("Starting waterMarkEventGenerator");
 //			waterMarkEventGenerator.start();
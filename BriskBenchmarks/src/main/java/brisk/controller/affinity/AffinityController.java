@@ -1,5 +1,6 @@
 package brisk.controller.affinity;
 
+import brisk.queue.NumaAllocator;
 import machine.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,7 +20,7 @@ public class AffinityController {
     //(socket, core pointer)
     private final ArrayList<Integer>[] mapping_node;
     private final Map<Integer, Integer> cpu_pnt = new HashMap<>();
-    private final int cores;
+    private final int cores;//CPUs of the smallest socket of the profile.
     private final int sockets;
     int offset = 0;
 
@@ -34,16 +35,19 @@ public class AffinityController {
 //            this.cores = numCPUs() / num_socket;
 //        }
         OsUtils.configLOG(LOG);
-        this.sockets = conf.getInt("num_socket", 8);
-        this.cores = conf.getInt("num_cpu", 35);
-        mapping_node = Platform.getNodes(conf.getInt("machine"));
+        mapping_node = p.nodes(conf.getInt("machine"));
+        this.sockets = mapping_node.length;
+        int cores = Integer.MAX_VALUE;
+        final int[] node_ids = new int[sockets];//differs from the socket when there are memory-only nodes.
+        for (int i = 0; i < sockets; i++) {
+            cores = Math.min(cores, mapping_node[i].size());
+            node_ids[i] = p.node(i);
+        }
+        this.cores = cores;
+        NumaAllocator.setNodes(node_ids);
 //		Integer[] sockets_usage = new Integer[8];
 
-        cpu_pnt.put(0, 1);
-        for (int i = 1; i < 8; i++) {
-            cpu_pnt.put(i, 0);
-//			sockets_usage[i] = 0;
-        }
+        clear();
         //LOG.info("NUM of Sockets:" + sockets + "\tNUM of Cores:" + cores);
     }
 
@@ -51,7 +55,7 @@ public class AffinityController {
 
     public void clear() {
         cpu_pnt.put(0, 1);
-        for (int i = 1; i < 8; i++) {
+        for (int i = 1; i < sockets; i++) {
             cpu_pnt.put(i, 0);
         }
     }
@@ -81,7 +85,7 @@ public class AffinityController {
             return require();
         } else {
 
-            int num_cpu = conf.getInt("num_cpu", 8);
+            int num_cpu = Math.min(conf.getInt("num_cpu", 8), cores);
             LOG.info("num_cpu:" + num_cpu);
             if (node >= sockets) {
                 node = sockets - 1;//make sure less than maximum num_socket.
@@ -163,8 +167,8 @@ public class AffinityController {
     //depends on the server..
     private long[] require() {
 
-        int num_node = conf.getInt("num_socket", 1);
-        int num_cpu = conf.getInt("num_cpu", 1);
+        int num_node = Math.min(conf.getInt("num_socket", 1), sockets);
+        int num_cpu = Math.min(conf.getInt("num_cpu", 1), cores);
 
         long[] cpus = new long[num_cpu * num_node];
 
@@ -4,6 +4,9 @@ import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Tuple;
 import brisk.optimization.model.STAT;
+import brisk.queue.impl.wait.BusySpinWaitStrategy;
+import brisk.queue.impl.wait.WaitStrategy;
+import brisk.util.LatencyHistogram;
 
 import java.util.HashMap;
 import java.util.Queue;
@@ -27,6 +30,8 @@ public abstract class InputStreamController implements IISC {
     protected Set<String> keySet;
     //    Deserializer _kryo;
     TreeSet<TransferTuple> tuples = new TreeSet<>();//temporarily holds all retrieved tuples.
+    private WaitStrategy waitStrategy = new BusySpinWaitStrategy();//shared with the producers of all receive queues.
+    private LatencyHistogram residence;//queue residence of the fetched batches, null if not measured.
 
     protected InputStreamController() {
 //        _kryo = new Deserializer();
@@ -87,8 +92,9 @@ public abstract class InputStreamController implements IISC {
         TransferTuple tuple;
         tuple = (TransferTuple) queue.poll();
         if (tuple != null) {
-            synchronized (queue) {
-                queue.notify();
+            waitStrategy.signalAllWhenBlocking();
+            if (residence != null && tuple.getOffered() != 0) {
+                residence.record(System.nanoTime() - tuple.getOffered());
             }
             return tuple;
         }
@@ -146,6 +152,35 @@ public abstract class InputStreamController implements IISC {
 //	}
 
 
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Record how long each fetched batch waited in its queue, the producers must stamp them.
+     */
+    public void setResidence(LatencyHistogram residence) {
+        this.residence = residence;
+    }
+
+    /**
+     * Called by the consumer after a fetch that returned nothing.
+     *
+     * @param counter the value returned by the previous call, {@link #spinTries()} after a successful fetch.
+     * @return the counter for the next call.
+     */
+    public int idle(int counter) {
+        return waitStrategy.idle(counter);
+    }
+
+    public int spinTries() {
+        return waitStrategy.spinTries();
+    }
+
     public HashMap<String, HashMap<Integer, Queue>> getRQ() {
         return RQ;
     }
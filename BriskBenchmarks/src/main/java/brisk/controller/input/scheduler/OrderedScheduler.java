@@ -0,0 +1,147 @@
+package brisk.controller.input.scheduler;
+
+import brisk.controller.input.InputStreamController;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.optimization.model.STAT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Ordered input: the batches of all receive queues are consumed in ascending BID order, each queue being in order already.
+ * <p>
+ * A loser tree over the queues (a leaf per producer and stream) gives the next batch in O(log k) comparisons,
+ * and nothing is buffered beyond the head batch of each queue. The key of a queue without a head batch is its
+ * low watermark: the BID of the last batch taken from it, which the next one cannot be below. A batch is returned
+ * as soon as its BID is at most the low watermark of every queue without a head batch, so its order is proven;
+ * while one of them may still deliver an earlier batch, nothing is returned and the consumer backs off.
+ * <p>
+ * Watermark batches are control messages, they are returned as they reach the head of their queue,
+ * which keeps them behind the batches of their producer. Their BID is the progress the producer publishes
+ * (see {@link brisk.execution.runtime.tuple.impl.Watermark}): its next batches are not below it, so it raises the
+ * low watermark of the queue. An idle or slow producer holds the merge only until it publishes its progress, which
+ * spouts and ordered bolts do with their watermarks (see --watermark_interval).
+ */
+public class OrderedScheduler extends InputStreamController {
+    private static final long serialVersionUID = -2640190358811342277L;
+    private Queue[] channels;
+    private TransferTuple[] heads;
+    private long[] keys;//BID of the head batch, or the low watermark of the channel while it has none.
+    private int[] tree;//tree[0] the winner, tree[1..k-1] the loser of the match at each internal node.
+    private int k;
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        final List<Queue> queues = new ArrayList<>();
+        for (String streamId : keySet) {
+            queues.addAll(getRQ().get(streamId).values());
+        }
+        k = queues.size();
+        channels = queues.toArray(new Queue[k]);
+        heads = new TransferTuple[k];
+        keys = new long[k];
+        Arrays.fill(keys, Long.MIN_VALUE);
+        tree = new int[Math.max(k, 1)];
+        Arrays.fill(tree, -1);
+        for (int c = k - 1; c >= 0; c--) {
+            replay(c);
+        }
+    }
+
+    /**
+     * @return true if channel a goes before channel b: a smaller key, then a head batch before a low watermark.
+     */
+    private boolean before(int a, int b) {
+        if (keys[a] != keys[b]) {
+            return keys[a] < keys[b];
+        }
+        if ((heads[a] == null) != (heads[b] == null)) {
+            return heads[a] != null;
+        }
+        return a < b;
+    }
+
+    /**
+     * Replay the matches from the leaf of the channel to the root, after its key changed.
+     * Leaves are at k..2k-1 of an implicit tree, the parent of node n is n / 2.
+     */
+    private void replay(int channel) {
+        int winner = channel;
+        for (int node = (channel + k) >> 1; node > 0; node >>= 1) {
+            final int loser = tree[node];
+            if (loser == -1) {//building: the other side of this node is not played yet.
+                tree[node] = winner;
+                return;
+            }
+            if (before(loser, winner)) {
+                tree[node] = winner;
+                winner = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    private TransferTuple merge() {
+        while (k > 0) {
+            final int c = tree[0];
+            final TransferTuple head = heads[c];
+            if (head != null) {
+                heads[c] = null;//its key stays, as the low watermark of the channel.
+                replay(c);
+                return head;
+            }
+            final TransferTuple next = fetchFromqueue(channels[c]);
+            if (next == null) {
+                return null;//the next batch may still come from this channel.
+            }
+            if (next.getWatermark() != null) {
+                if (next.getBID() > keys[c]) {
+                    keys[c] = next.getBID();
+                    replay(c);
+                }
+                return next;
+            }
+            heads[c] = next;
+            keys[c] = next.getBID();
+            replay(c);
+        }
+        return null;
+    }
+
+    /**
+     * @return the BID below which no batch is returned any more: the smallest key, Long.MIN_VALUE until every channel
+     * delivered or published its progress.
+     */
+    public long progress() {
+        return k == 0 ? Long.MIN_VALUE : keys[tree[0]];
+    }
+
+    @Override
+    public TransferTuple fetchResults_inorder() {
+        return merge();
+    }
+
+    @Override
+    public TransferTuple fetchResults() {
+        return merge();
+    }
+
+    @Override
+    public Tuple fetchResults_single() {
+        throw new UnsupportedOperationException("Ordered input is merged by batch, fetch it with fetchResults()");
+    }
+
+    @Override
+    public TransferTuple fetchResults(STAT stat, int batch) {
+        stat.start_measure();
+        final TransferTuple tuple = merge();
+        if (tuple != null) {
+            stat.end_measure_inFetch(batch);
+        }
+        return tuple;
+    }
+}
@@ -74,5 +74,7 @@ public interface IPartitionController extends Serializable {
     int marker_boardcast(Meta meta, String streamId, long bid, Marker marker) throws InterruptedException;
 
     int create_marker_boardcast(Meta meta, String streamId, long timestamp, long bid, int myiteration) throws InterruptedException;
+
+    int watermark_boardcast(Meta meta, String streamId, long watermark, long progress) throws InterruptedException;
 //    int emit(TupleImpl output, TupleImpl input);
 }
@@ -432,6 +432,17 @@ public class MultiStreamOutputContoller extends OutputController {
         }
     }
 
+    @Override
+    public void watermark_boardcast(MetaGroup MetaGroup, long watermark, long progress) {
+        for (String streamId : PClist.keySet()) {
+            PartitionController[] it = collections.get(streamId);
+            for (int i = 0; i < it.length; i++) {
+                PartitionController p = it[i];
+                p.watermark_boardcast(MetaGroup.get(p.childOP), streamId, watermark, progress);
+            }
+        }
+    }
+
     @Override
     public void setContext(int executorID, TopologyContext context) {
         for (String stream : PClist.keySet()) {
@@ -161,6 +161,15 @@ public abstract class OutputController implements Serializable {
 
     public abstract void marker_boardcast(MetaGroup MetaGroup, String streamId, long bid, Marker marker) throws InterruptedException;
 
+    /**
+     * Send the watermark on every output stream.
+     *
+     * @param MetaGroup
+     * @param watermark event time, in ms.
+     * @param progress  BID that the batches emitted after the watermark are not below, see {@link brisk.execution.runtime.tuple.impl.Watermark}.
+     */
+    public abstract void watermark_boardcast(MetaGroup MetaGroup, long watermark, long progress) throws InterruptedException;
+
     public abstract void setContext(int executorID, TopologyContext context);
 
 //	public abstract void try_fill_gap(String streamId);
@@ -2,21 +2,33 @@ package brisk.controller.output;
 
 import brisk.components.TopologyComponent;
 import brisk.components.context.TopologyContext;
+import brisk.components.operators.executor.BoltExecutor;
 import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.collector.impl.BIDGenerator;
 import brisk.execution.runtime.collector.impl.Meta;
+import brisk.execution.runtime.tuple.ColumnarTransferTuple;
 import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Fields;
 import brisk.execution.runtime.tuple.impl.Marker;
 import brisk.execution.runtime.tuple.impl.Message;
 import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.execution.runtime.tuple.impl.Watermark;
 import brisk.execution.runtime.tuple.impl.msgs.GeneralMsg;
 import brisk.execution.runtime.tuple.impl.msgs.IntDoubleDoubleMsg;
 import brisk.execution.runtime.tuple.impl.msgs.StringLongMsg;
 import brisk.execution.runtime.tuple.impl.msgs.StringMsg;
+import brisk.optimization.ExecutionPlan;
+import brisk.metrics.Metrics;
+import brisk.queue.BroadcastController;
 import brisk.queue.MPSCController;
+import brisk.queue.NumaAllocator;
+import brisk.queue.Placement;
 import brisk.queue.QueueController;
 import brisk.queue.SPSCController;
+import brisk.queue.impl.P1CnRing;
+import brisk.queue.impl.wait.WaitStrategy;
 import org.jctools.queues.MpscArrayQueue;
+import org.jctools.queues.SpscArrayQueue;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import util.Configuration;
@@ -25,13 +37,16 @@ import util.datatypes.StreamValues;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Created by shuhaozhang on 11/7/16.
  */
 public abstract class PartitionController implements IPartitionController, Serializable {
     private static final long serialVersionUID = 28L;
-    private static final int SPIN_TRIES = 100;
+    private static final int RECYCLE_RING_SIZE = 1024;//max number of drained batches parked per producer/consumer pair.
+    private static final int PLACED_BATCHES = RECYCLE_RING_SIZE / 4;//empty batches allocated with a placed queue.
     private static boolean profile;
     protected final int batch;
     /**
@@ -48,11 +63,21 @@ public abstract class PartitionController implements IPartitionController, Seria
     protected final ArrayList<Integer> extendedTargetId = new ArrayList<>();// This may be shared by multiple producers too
     protected final TopologyContext[] context;//this may be shared by multiple producers.
     final TopologyComponent childOP;
+    private final TopologyComponent operator;
     private final ExecutionNode executionNode;
     private final Logger LOG;
     private final QueueController controller;
     private final Collections[] collections;//this may be shared by multiple producers.
+    private final Placement placement;
+    private final boolean stamp;//stamp batches for the queue residence histograms.
+    private final LongAdder emitted;//tuples offered, null if metrics are disabled.
+    private final LongAdder waited;//ns spent waiting for a full queue, null if metrics are disabled.
+    private final boolean recycle;
+    private final boolean broadcast;//one ring shared by all consumers, see BroadcastController.
+    private ExecutionNode chained;//consumer executed in place of offering to its queue, null if not chained.
+    private boolean recycle_chained;
     protected Integer[] targetTasks;
+    protected Integer[] broadcastTasks;//consumers a broadcast is offered to: all of them, or the first one only with a shared ring.
     int threashold;
     private int firt_executor_Id;
 
@@ -70,7 +95,19 @@ public abstract class PartitionController implements IPartitionController, Seria
     protected PartitionController(TopologyComponent operator,
                                   TopologyComponent childOP, HashMap<Integer, ExecutionNode> downExecutor_list
             , int batch_size, ExecutionNode executionNode, boolean common, Logger log, boolean profile, Configuration conf) {
+        this(operator, childOP, downExecutor_list, batch_size, executionNode, common, log, profile, conf, false);
+    }
+
+    /**
+     * @param broadcast if every batch goes to all consumers, through one ring they share. Only for a PC unique to an
+     *                  executor with several consumers, it is ignored otherwise.
+     */
+    protected PartitionController(TopologyComponent operator,
+                                  TopologyComponent childOP, HashMap<Integer, ExecutionNode> downExecutor_list
+            , int batch_size, ExecutionNode executionNode, boolean common, Logger log, boolean profile, Configuration conf
+            , boolean broadcast) {
         this.childOP = childOP;
+        this.operator = operator;
         this.downExecutor_list = downExecutor_list;
         this.batch = batch_size;
         this.executionNode = executionNode;
@@ -93,15 +130,25 @@ public abstract class PartitionController implements IPartitionController, Seria
         targetTasks = setID.toArray(new Integer[setID.size()]);
         updateExtendedTargetId();
         downTaskSize = targetTasks.length;
+        this.broadcast = broadcast && executionNode != null && downTaskSize > 1;
+        broadcastTasks = this.broadcast ? new Integer[]{targetTasks[0]} : targetTasks;
         final ExecutionNode first = operator.getExecutorList().get(0);
         firt_executor_Id = first.getExecutorID();
+        //opt-in: reuse drained batches and their message slots instead of allocating new ones.
+        recycle = conf.getBoolean("recycle", false);
+        //opt-in: ship streams declared with a typed schema as primitive columns.
+        final boolean columnar = conf.getBoolean("columnar", false);
+        placement = Placement.resolve(conf, operator.getId(), childOP.getId());
+        stamp = conf.getBoolean("latency_histograms", false);
+        emitted = conf.getBoolean("metrics", false) ? new LongAdder() : null;
+        waited = emitted == null ? null : new LongAdder();
         if (executionNode == null) {//shared.
 //			//LOG.DEBUG("MPSC controller is used.");
             collections = new Collections[operator.getExecutorList().size()];
             context = new TopologyContext[operator.getExecutorList().size()];
 
             for (ExecutionNode src : operator.getExecutorList()) {
-                collections[(src.getExecutorID() - firt_executor_Id)] = new Collections(src.getExecutorID(), downExecutor_list, batch_size);
+                collections[(src.getExecutorID() - firt_executor_Id)] = new Collections(src.getExecutorID(), downExecutor_list, batch_size, recycle, columnar);
             }
 
             //			if (common) {
@@ -116,13 +163,19 @@ public abstract class PartitionController implements IPartitionController, Seria
             firt_executor_Id = executionNode.getExecutorID();
             collections = new Collections[1];
             context = new TopologyContext[1];
-            collections[0] = new Collections(firt_executor_Id, downExecutor_list, batch_size);
+            //a shared batch is read by every consumer: it can not be handed back by the first one done with it.
+            collections[0] = new Collections(firt_executor_Id, downExecutor_list, batch_size, recycle && !this.broadcast, columnar);
 //			if (common) {
 //				LOG.info("SPMC implementation -- Queue is shared among multiple consumers");
 //				controller = new SPMCController(downExecutor_list);
 //			} else {
-            LOG.trace("SPSC implementation -- Queue is unique to each producer and consumer");
-            controller = new SPSCController(downExecutor_list);
+            if (this.broadcast) {
+                LOG.trace("Broadcast implementation -- Ring is shared among the consumers of the producer");
+                controller = new BroadcastController(downExecutor_list);
+            } else {
+                LOG.trace("SPSC implementation -- Queue is unique to each producer and consumer");
+                controller = new SPSCController(downExecutor_list);
+            }
 
         }
 
@@ -195,23 +248,25 @@ public abstract class PartitionController implements IPartitionController, Seria
     }
 
 
+    /**
+     * Forward the marker to every consumer, behind the partial batch still buffered for it, as a watermark:
+     * the tuples emitted before the marker are in the snapshots it triggers downstream.
+     */
     @Override
     public int marker_boardcast(Meta meta, String streamId, long bid, Marker marker) {
-        for (int target : targetTasks) {
-            offer_marker(meta.src_id, target, streamId, bid, marker);
+        for (int target : broadcastTasks) {
+            offer_marker(meta.src_id, target, streamId, bid, package_marker(streamId, marker));
         }
         return targetTasks.length;
     }
 
     @Override
     public int create_marker_boardcast(Meta meta, String streamId, long timestamp, long bid, int myiteration) {
-
-
-        Tuple marker = create_marker(meta.src_id, streamId, timestamp, bid, package_marker(streamId, timestamp, bid, myiteration));
+        final Marker marker = package_marker(streamId, timestamp, bid, myiteration);
 
 //        long start_offer_watermark = System.nanoTime();
-        for (int target : targetTasks) {
-            offer_create_marker(marker, target);
+        for (int target : broadcastTasks) {
+            offer_marker(meta.src_id, target, streamId, bid, marker);
         }
 //        long end = System.nanoTime();
 //        LOG.info("water_mark offer gaps:" + (end - start_offer_watermark) + " for bid:" + bid);
@@ -219,9 +274,81 @@ public abstract class PartitionController implements IPartitionController, Seria
         return targetTasks.length;
     }
 
+    /**
+     * Send the watermark to every consumer, behind the partial batch still buffered for it:
+     * the tuples emitted before the watermark are delivered before it. Its batch has the progress as BID.
+     */
+    @Override
+    public int watermark_boardcast(Meta meta, String streamId, long watermark, long progress) {
+        final int index = meta.src_id - firt_executor_Id;
+        final Watermark mark = new Watermark(streamId, watermark);
+        for (int target : broadcastTasks) {
+            final TransferTuple partial = collections[index].flush(target);
+            if (partial != null) {
+                _offer(partial, target);
+            }
+            _offer_marker(new TransferTuple(meta.src_id, progress, 1, context[index], mark), target);
+        }
+        return targetTasks.length;
+    }
+
+
+    /**
+     * Offer the partial batches the producer still buffers, e.g. before it pauses for a rescale: the tuples it emitted
+     * so far then reach their consumers under the current routing, instead of staying behind the cut.
+     *
+     * @param srcId the producer, whose buffers are only touched by its own thread.
+     * @return number of tuples flushed.
+     */
+    public int flush(int srcId) {
+        final int index = srcId - firt_executor_Id;
+        int flushed = 0;
+        for (int target : broadcastTasks) {
+            final TransferTuple partial = collections[index].flush(target);
+            if (partial != null) {
+                flushed += partial.length;
+                _offer(partial, target);
+            }
+        }
+        return flushed;
+    }
 
     public void allocate_queue(boolean linked, int desired_elements_epoch_per_core) {
+        final HashMap<Integer, Integer> nodes = nodes();
+        controller.setNodes(nodes);
         controller.allocate_queue(linked, desired_elements_epoch_per_core);
+        if (nodes != null && executionNode != null) {//batches of a shared PC are allocated by each producer.
+            collections[0].place(nodes);
+        }
+    }
+
+    /**
+     * @return true if the queues of this edge follow the nodes of the executors, rather than being allocated locally.
+     */
+    public boolean isPlaced() {
+        return placement != Placement.LOCAL;
+    }
+
+    /**
+     * Resolve the placement of this edge under the current plan.
+     *
+     * @return socket of the queue to each consumer, null to allocate locally.
+     */
+    private HashMap<Integer, Integer> nodes() {
+        final ExecutionPlan plan = TopologyContext.plan;
+        if (placement == Placement.LOCAL || plan == null) {
+            return null;
+        }
+        final HashMap<Integer, Integer> nodes = new HashMap<>();
+        final int producer = plan.toSocket(firt_executor_Id);
+        final int sockets = NumaAllocator.sockets();
+        int index = 0;
+        for (int consumer : targetTasks) {
+            final Placement p = placement == Placement.PLAN ? plan.placement(firt_executor_Id, consumer) : placement;
+            nodes.put(consumer, p.node(producer, plan.toSocket(consumer), index++, sockets));
+        }
+        LOG.info("Queues from " + operator.getId() + " to " + childOP.getId() + " placed on nodes " + nodes.values());
+        return nodes;
     }
 
 
@@ -233,9 +360,106 @@ public abstract class PartitionController implements IPartitionController, Seria
         return controller.get_queue(executorID);
     }
 
+    /**
+     * Register the metrics of this edge: tuples offered, batches waiting in the queues, and time spent waiting
+     * for a full queue. Only with "metrics" enabled, the counters do not exist otherwise.
+     *
+     * @param producer operator id.
+     * @param instance producer executor id, or "shared".
+     */
+    public void register_metrics(String producer, String instance) {
+        if (emitted == null) {
+            return;
+        }
+        final String group = producer + "->" + childOP.getId() + "." + instance;
+        Metrics.register(group, "tuples_out", emitted::sum);
+        Metrics.register(group, "backlog", () -> {
+            long sum = 0;
+            for (int consumer : downExecutor_list.keySet()) {
+                final Queue queue = controller.get_queue(consumer);
+                if (queue != null) {
+                    sum += queue.size();
+                }
+            }
+            return sum;
+        });
+        Metrics.register(group, "wait_ms", () -> waited.sum() / 1E6);
+    }
+
     public void updateExtendedTargetId() {
     }
 
+    /**
+     * Chain the edge to one consumer: every batch goes to it, and is executed by the producer thread right away
+     * instead of being offered to its queue. Only for an edge of a single producer executor.
+     *
+     * @param consumer
+     */
+    public void chain(ExecutionNode consumer) {
+        chained = consumer;
+        recycle_chained = recycle && !((BoltExecutor) consumer.op).retainsInput();
+        for (int e : downExecutor_list.keySet()) {
+            partition_ratio.put(e, e == consumer.getExecutorID() ? 1.0 : 0.0);
+        }
+        targetTasks = new Integer[]{consumer.getExecutorID()};
+        broadcastTasks = targetTasks;
+        extendedTargetId.clear();
+        extendedTargetId.add(consumer.getExecutorID());
+    }
+
+    /**
+     * Back to queues, with the default equal partition.
+     */
+    public void unchain() {
+        if (chained == null) {
+            return;
+        }
+        chained = null;
+        int sumweight = 0;
+        for (ExecutionNode consumer : downExecutor_list.values()) {
+            sumweight += consumer.compressRatio;
+        }
+        for (Map.Entry<Integer, ExecutionNode> e : downExecutor_list.entrySet()) {
+            partition_ratio.put(e.getKey(), (e.getValue().compressRatio / (double) sumweight));
+        }
+        Set<Integer> setID = downExecutor_list.keySet();
+        targetTasks = setID.toArray(new Integer[setID.size()]);
+        broadcastTasks = broadcast ? new Integer[]{targetTasks[0]} : targetTasks;
+        extendedTargetId.clear();
+        updateExtendedTargetId();
+    }
+
+    public ExecutionNode getChained() {
+        return chained;
+    }
+
+    /**
+     * Execute a batch, or a single tuple, by the chained consumer in the calling thread.
+     */
+    private boolean execute_chained(Object tuple) {
+        final BoltExecutor bolt = (BoltExecutor) chained.op;
+        try {
+            if (tuple instanceof TransferTuple) {
+                final TransferTuple batch = (TransferTuple) tuple;
+                final Watermark watermark = batch.getWatermark();
+                if (watermark != null) {
+                    bolt.watermark(batch.getSourceTask(), watermark.timestamp);
+                    return true;
+                }
+                bolt.execute(batch);
+                if (recycle_chained) {
+                    batch.recycle();
+                }
+            } else {
+                bolt.execute((Tuple) tuple);
+            }
+        } catch (InterruptedException | BrokenBarrierException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
     public Double getPartition_ratio(int executorID) {
         return partition_ratio.get(executorID);
     }
@@ -246,58 +470,46 @@ public abstract class PartitionController implements IPartitionController, Seria
     }
 
 
-    private int applyWaitMethod(int counter) {
-
-        if (0 == counter) {
-            Thread.yield();
-//			Thread.sleep(0,1);
-        } else {
-            --counter;
-        }
-
-        return counter;
+    /**
+     * Both ends of a channel share the wait strategy chosen by the consuming executor.
+     */
+    private WaitStrategy get_wait(int targetId) {
+        return downExecutor_list.get(targetId).getInputStreamController().getWaitStrategy();
     }
 
-    private boolean offer_marker(Queue queue, final Object e) {
-
+    private boolean offer_marker(Queue queue, final Object e, WaitStrategy wait) {
+        int counter = wait.spinTries();
         do {
             if (queue.offer(e)) {// it should always success
+                wait.signalAllWhenBlocking();
                 return true;
             }
-            int timestamp_counter = SPIN_TRIES;
-            applyWaitMethod(timestamp_counter);
+            counter = wait.idle(counter);
 
         } while (!Thread.interrupted()); //clear interrupted flag
-//		throw new InterruptedException();
-
-//        while (!queue.offer(e)) {
-//			//LOG.DEBUG("queue full.. wait...");
-//            synchronized (queue) {
-//                queue.wait(1);
-//            }
-//        }
         return true;
 //		throw new InterruptedException();
     }
 
-    private boolean bounded_offer(Queue queue, final Object e) {
-
+    private boolean bounded_offer(Queue queue, final Object e, WaitStrategy wait) {
+        int counter = wait.spinTries();
+        long blocked = 0;//when the queue was first found full, measured only with metrics.
         do {
-            if (((MpscArrayQueue) queue).offerIfBelowThreshold(e, threashold)) {
+            if (queue instanceof P1CnRing
+                    ? ((P1CnRing) queue).offerIfBelowThreshold(e, threashold)
+                    : ((MpscArrayQueue) queue).offerIfBelowThreshold(e, threashold)) {
+                wait.signalAllWhenBlocking();
+                if (blocked != 0) {
+                    waited.add(System.nanoTime() - blocked);
+                }
                 return true;
             }
-            int timestamp_counter = SPIN_TRIES;
-            applyWaitMethod(timestamp_counter);
+            if (blocked == 0 && waited != null) {
+                blocked = System.nanoTime();
+            }
+            counter = wait.idle(counter);
 
         } while (!Thread.interrupted()); //clear interrupted flag
-//		throw new InterruptedException();
-
-//        while (!queue.offer(e)) {
-//			//LOG.DEBUG("queue full.. wait...");
-//            synchronized (queue) {
-//                queue.wait(1);
-//            }
-//        }
         return true;
 //		throw new InterruptedException();
     }
@@ -325,8 +537,7 @@ public abstract class PartitionController implements IPartitionController, Seria
     protected boolean try_offer(int srcId, int targetId, String streamId, Object... output) {
         TransferTuple tuple = collections[srcId - firt_executor_Id].add(targetId, streamId, 0, context[srcId - firt_executor_Id], output);//does not care order. set bid to 0.
         if (tuple != null) {
-            Queue queue = get_queue(targetId);
-            return nonbounded_offer(queue, tuple);
+            return _try_offer(tuple, targetId);
         }
         return false;
     }
@@ -593,7 +804,21 @@ public abstract class PartitionController implements IPartitionController, Seria
 
 
     private boolean _try_offer(Object tuple, int targetId) {
-        Queue queue = get_queue(targetId);
+        if (emitted != null) {
+            emitted.add((tuple instanceof TransferTuple ? ((TransferTuple) tuple).length : 1) * fanout());
+        }
+        if (chained != null) {
+            return execute_chained(tuple);
+        }
+        Queue queue = outbound(targetId);
+        if (stamp && tuple instanceof TransferTuple) {
+            ((TransferTuple) tuple).stamp();
+        }
+        if (broadcast) {
+            final boolean offered = nonbounded_offer(queue, tuple);
+            signal_broadcast();
+            return offered;
+        }
 //		if (profile) {
         return nonbounded_offer(queue, tuple);
 //		} else {
@@ -602,24 +827,69 @@ public abstract class PartitionController implements IPartitionController, Seria
     }
 
     private boolean _offer(Object tuple, int targetId) {
-        Queue queue = get_queue(targetId);
+        if (emitted != null) {
+            emitted.add((tuple instanceof TransferTuple ? ((TransferTuple) tuple).length : 1) * fanout());
+        }
+        if (chained != null) {
+            return execute_chained(tuple);
+        }
+        Queue queue = outbound(targetId);
+        if (stamp && tuple instanceof TransferTuple) {
+            ((TransferTuple) tuple).stamp();
+        }
+        if (broadcast) {
+            final boolean offered = bounded_offer(queue, tuple, get_wait(targetId));
+            signal_broadcast();
+            return offered;
+        }
 //		if (profile) {
 //			return nonbounded_offer(queue, tuple);
 //		} else {
-        return bounded_offer(queue, tuple);
+        return bounded_offer(queue, tuple, get_wait(targetId));
 //		}
     }
 
 
     private boolean _offer_marker(Object tuple, int targetId) {
-        Queue queue = get_queue(targetId);
+        if (chained != null) {
+            return execute_chained(tuple);
+        }
+        Queue queue = outbound(targetId);
+        if (broadcast) {
+            final boolean offered = offer_marker(queue, tuple, get_wait(targetId));
+            signal_broadcast();
+            return offered;
+        }
 //		if (profile) {
 //			return nonbounded_offer(queue, tuple);
 //		} else {
-        return offer_marker(queue, tuple);
+        return offer_marker(queue, tuple, get_wait(targetId));
 //		}
     }
 
+    /**
+     * @return the queue to the consumer, or the ring of all consumers with a shared broadcast.
+     */
+    private Queue outbound(int targetId) {
+        return broadcast ? ((BroadcastController) controller).getRing() : get_queue(targetId);
+    }
+
+    /**
+     * @return the consumers reached by one offer.
+     */
+    private int fanout() {
+        return broadcast && chained == null ? downTaskSize : 1;
+    }
+
+    /**
+     * A batch published to the ring is for every consumer, wake up all of them, not only the one it was offered to.
+     */
+    private void signal_broadcast() {
+        for (int target : targetTasks) {
+            get_wait(target).signalAllWhenBlocking();
+        }
+    }
+
 
     /**
      * TODO: implement sequential emit in future.
@@ -644,15 +914,16 @@ public abstract class PartitionController implements IPartitionController, Seria
     }
 
 
+    /**
+     * The marker travels in a batch of its own, as the checkpointable operators look for it in the batches they receive.
+     */
     protected boolean offer_marker(int srcId, int targetId, String streamId, long bid, Marker marker) {
-//		TransferTuple tuple = collections[srcId - firt_executor_Id].add_marker(targetId, streamId, bid, marker, context[srcId - firt_executor_Id]);
-//		if (tuple != null) {
-//			Queue queue = get_queue(targetId);
-//			return bounded_offer(queue, tuple);
-//		}
-//		return false;
-        Tuple marker_tuple = (new Tuple(bid, srcId, context[srcId - firt_executor_Id], marker));
-        return _offer_marker(marker_tuple, targetId);
+        final int index = srcId - firt_executor_Id;
+        final TransferTuple partial = collections[index].flush(targetId);
+        if (partial != null) {
+            _offer(partial, targetId);
+        }
+        return _offer_marker(new TransferTuple(srcId, bid, 1, context[index], marker), targetId);
     }
 
     protected Tuple create_marker(int srcId, String streamId, long timestamp, long bid, Marker marker) {
@@ -700,12 +971,19 @@ public abstract class PartitionController implements IPartitionController, Seria
         final int batch_size;
         final int src_Id;
         final int[] pointer;
+        final boolean recycle;
+        final boolean columnar;
         private volatile TransferTuple[] buffers;//maintains a list of TransferTuple for each consumer
+        private transient Queue<TransferTuple>[] returns;//drained batches handed back by each consumer, created lazily.
         private int base = Integer.MAX_VALUE;
+        private transient String schema_stream;//stream of the cached schema.
+        private transient Fields schema;
 
-        Collections(int src_Id, HashMap<Integer, ExecutionNode> DownExecutor_list, int batch_size) {
+        Collections(int src_Id, HashMap<Integer, ExecutionNode> DownExecutor_list, int batch_size, boolean recycle, boolean columnar) {
 
             this.batch_size = batch_size;
+            this.recycle = recycle;
+            this.columnar = columnar;
             pointer = new int[DownExecutor_list.size()];
             buffers = new TransferTuple[DownExecutor_list.size()];
 
@@ -722,6 +1000,104 @@ public abstract class PartitionController implements IPartitionController, Seria
         }
 
 
+        /**
+         * Obtain an empty batch for the given consumer.
+         * With recycling enabled, a batch drained by the consumer is reused before allocating a new one.
+         *
+         * @param index
+         * @param streamId
+         * @param bid
+         * @param context
+         * @return
+         */
+        @SuppressWarnings("unchecked")
+        private TransferTuple newBatch(final int index, String streamId, long bid, TopologyContext context) {
+            if (!recycle) {
+                return allocate(streamId, bid, context);
+            }
+            if (returns == null) {
+                returns = new Queue[pointer.length];
+            }
+            Queue<TransferTuple> ring = returns[index];
+            if (ring == null) {
+                ring = new SpscArrayQueue<>(RECYCLE_RING_SIZE);
+                returns[index] = ring;
+            }
+            TransferTuple tuple = ring.poll();
+            if (tuple != null) {
+                tuple.reset(bid);
+                return tuple;
+            }
+            tuple = allocate(streamId, bid, context);
+            tuple.setRecycler(ring);
+            return tuple;
+        }
+
+        /**
+         * Re-create the recycling ring of each consumer with empty batches, on the node of the queue to that consumer,
+         * so that the batches the consumer reads are where the queue is. Columnar batches depend on the stream and are
+         * still allocated on demand.
+         *
+         * @param nodes
+         */
+        @SuppressWarnings("unchecked")
+        void place(HashMap<Integer, Integer> nodes) {
+            if (!recycle || columnar) {
+                return;
+            }
+            final TopologyContext context = PartitionController.this.context[src_Id - firt_executor_Id];
+            final Queue<TransferTuple>[] rings = new Queue[pointer.length];
+            for (Map.Entry<Integer, Integer> e : nodes.entrySet()) {
+                rings[e.getKey() - base] = NumaAllocator.on(e.getValue(), () -> {
+                    final Queue<TransferTuple> ring = new SpscArrayQueue<>(RECYCLE_RING_SIZE);
+                    for (int i = 0; i < PLACED_BATCHES; i++) {
+                        final TransferTuple tuple = new TransferTuple(src_Id, 0, batch_size, context);
+                        tuple.setRecycler(ring);
+                        ring.offer(tuple);
+                    }
+                    return ring;
+                });
+            }
+            returns = rings;
+        }
+
+        private TransferTuple allocate(String streamId, long bid, TopologyContext context) {
+            if (columnar) {
+                if (streamId != schema_stream) {
+                    schema = operator.get_output_fields(streamId);
+                    schema_stream = streamId;
+                }
+                if (schema.isTyped()) {
+                    return new ColumnarTransferTuple(src_Id, bid, batch_size, context, streamId, schema);
+                }
+            }
+            return new TransferTuple(src_Id, bid, batch_size, context);
+        }
+
+        private Message reuse_message(Message slot, String streamId, char[] value) {
+            if (recycle && slot instanceof StringMsg && slot.streamId == streamId) {
+                ((StringMsg) slot).set(value);
+                return slot;
+            }
+            return package_message(streamId, value);
+        }
+
+        private Message reuse_message(Message slot, String streamId, char[] key, long value) {
+            if (recycle && slot instanceof StringLongMsg && slot.streamId == streamId) {
+                ((StringLongMsg) slot).set(key, value);
+                return slot;
+            }
+            return package_message(streamId, key, value);
+        }
+
+        private Message reuse_message(Message slot, String streamId, int deviceID, double nextDouble, double movingAvergeInstant) {
+            if (recycle && slot instanceof IntDoubleDoubleMsg && slot.streamId == streamId) {
+                ((IntDoubleDoubleMsg) slot).set(deviceID, nextDouble, movingAvergeInstant);
+                return slot;
+            }
+            return package_message(streamId, deviceID, nextDouble, movingAvergeInstant);
+        }
+
         private TransferTuple getTuple(final int p, final int index) {
             if (p + 1 == batch_size) {//batch is full
                 pointer[index] = 0;
@@ -732,6 +1108,24 @@ public abstract class PartitionController implements IPartitionController, Seria
             }
         }
 
+        /**
+         * Hand out the batch being filled for the consumer, cut to the tuples added so far.
+         *
+         * @param targetId
+         * @return null if no tuple is buffered for it.
+         */
+        TransferTuple flush(int targetId) {
+            final int index = targetId - base;
+            final int p = pointer[index];
+            if (p == 0) {
+                return null;
+            }
+            final TransferTuple batch = buffers[index];
+            batch.length = p;
+            pointer[index] = 0;
+            return batch;
+        }
+
         private TransferTuple getTuple_single(final int index) {
 
 
@@ -771,11 +1165,16 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
 
             if (p == 0) {//first tuple comes.
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 //				buffers[index] = tuple;
             }
 
-            buffers[index].add(p, package_message(streamId, value));
+            final TransferTuple batch = buffers[index];
+            if (batch instanceof ColumnarTransferTuple) {
+                ((ColumnarTransferTuple) batch).set(p, value);
+            } else {
+                batch.add(p, package_message(streamId, value));
+            }
 
             return getTuple(p, index);
         }
@@ -786,10 +1185,15 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
 
             if (p == 0) {//first tuple comes.
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 //				buffers[index] = tuple;
             }
-            buffers[index].add(p, package_message(streamId, value));
+            final TransferTuple batch = buffers[index];
+            if (batch instanceof ColumnarTransferTuple) {
+                ((ColumnarTransferTuple) batch).set(p, value);
+            } else {
+                batch.add(p, reuse_message(batch.msg[p], streamId, value));
+            }
             return getTuple(p, index);
         }
 
@@ -800,7 +1204,7 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
 
             if (p == 0) {//first tuple comes.
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 //				buffers[index] = tuple;
             }
 
@@ -816,7 +1220,7 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
 
             if (p == 0) {//first tuple comes.
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 //				buffers[index] = tuple;
             }
 
@@ -831,10 +1235,15 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
 
             if (p == 0) {//first tuple comes.
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 //				buffers[index] = tuple;
             }
-            buffers[index].add(p, package_message(streamId, deviceID, nextDouble, movingAvergeInstant));
+            final TransferTuple batch = buffers[index];
+            if (batch instanceof ColumnarTransferTuple) {
+                ((ColumnarTransferTuple) batch).set(p, deviceID, nextDouble, movingAvergeInstant);
+            } else {
+                batch.add(p, reuse_message(batch.msg[p], streamId, deviceID, nextDouble, movingAvergeInstant));
+            }
             return getTuple(p, index);
         }
 
@@ -845,11 +1254,16 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
 
             if (p == 0) {//first tuple comes.
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 //				buffers[index] = tuple;
             }
 
-            buffers[index].add(p, package_message(streamId, key, value));
+            final TransferTuple batch = buffers[index];
+            if (batch instanceof ColumnarTransferTuple) {
+                ((ColumnarTransferTuple) batch).set(p, key, value);
+            } else {
+                batch.add(p, reuse_message(batch.msg[p], streamId, key, value));
+            }
             return getTuple(p, index);
         }
 
@@ -859,7 +1273,7 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
 
             if (pointer[index] == 0) {//first tuple comes.
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 //				buffers[index] = tuple;
             } else {
                 long cbid = buffers[index].getBID();
@@ -867,7 +1281,7 @@ public abstract class PartitionController implements IPartitionController, Seria
                     buffers[index].length = pointer[index];
 //				TransferTuple transferTuple = new TransferTuple(buffers[index]);
                     _inorder_offer(buffers[index], cbid, gap, targetId);//enforce emit a partial-complete tuple. It is guaranteed that this tuple will have smaller batch id
-                    buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                    buffers[index] = newBatch(index, streamId, bid, context);
                     pointer[index] = 0;
 
                 }
@@ -889,7 +1303,7 @@ public abstract class PartitionController implements IPartitionController, Seria
             final int index = targetId - base;
 
             if (pointer[index] == 0) {//first tuple comes.
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 
             } else {
                 long cbid = buffers[index].getBID();
@@ -897,7 +1311,7 @@ public abstract class PartitionController implements IPartitionController, Seria
                     buffers[index].length = pointer[index];
 
                     _inorder_offer(buffers[index], cbid, gap, targetId);//enforce emit a partial-complete tuple. It is guaranteed that this tuple will have smaller batch id
-                    buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                    buffers[index] = newBatch(index, streamId, bid, context);
                     pointer[index] = 0;
 
                 }
@@ -921,14 +1335,14 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
 
             if (p == 0) {//first tuple comes.
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 //				buffers[index] = tuple;
             } else {
                 long cbid = buffers[index].getBID();
                 if (bid != cbid) {//different bid comes.
                     buffers[index].length = pointer[index];
                     _inorder_offer(buffers[index], cbid, gap, targetId);//enforce emit a partial-complete tuple. It is guaranteed that this tuple will have smaller batch id
-                    buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                    buffers[index] = newBatch(index, streamId, bid, context);
                     pointer[index] = 0;
                 }
             }
@@ -943,7 +1357,7 @@ public abstract class PartitionController implements IPartitionController, Seria
             final int index = targetId - base;
 
 //			Tuple tuple = buffers[index];
-            buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+            buffers[index] = newBatch(index, streamId, bid, context);
 //				buffers[index] = tuple;
             buffers[index].length = 1;
             buffers[index].add(0, package_message(streamId, value));
@@ -965,7 +1379,7 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
             if (p == 0) {
                 long bid = BIDGenerator.getInstance().getAndIncrement();
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
                 LOG.info("A tuple with bid: " + bid + " created @ " + DateTime.now());
             }
             buffers[index].add(p, package_message(streamId, value));
@@ -983,7 +1397,7 @@ public abstract class PartitionController implements IPartitionController, Seria
             final int p = pointer[index];
 //			Tuple tuple = buffers[index];
             if (p == 0) {
-                buffers[index] = new TransferTuple(src_Id, BIDGenerator.getInstance().getAndIncrement(), batch_size, context);
+                buffers[index] = newBatch(index, streamId, BIDGenerator.getInstance().getAndIncrement(), context);
             }
             buffers[index].add(p, package_message(streamId, value));
             if (p + 1 == batch_size) {
@@ -1001,7 +1415,7 @@ public abstract class PartitionController implements IPartitionController, Seria
 //			Tuple tuple = buffers[index];
             if (p == 0) {
                 long bid = BIDGenerator.getInstance().getAndIncrement();
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
 //				LOG.info("A tuple with bid: " + bid + " created @ " + DateTime.now());
             }
             buffers[index].add(p, package_message(streamId, value));
@@ -1019,7 +1433,7 @@ public abstract class PartitionController implements IPartitionController, Seria
             final int index = targetId - base;
             final int p = pointer[index];
             if (p == 0) {
-                buffers[index] = new TransferTuple(src_Id, BIDGenerator.getInstance().getAndIncrement(), batch_size, context);
+                buffers[index] = newBatch(index, streamId, BIDGenerator.getInstance().getAndIncrement(), context);
             }
             buffers[index].add(p, package_marker(streamId, timestamp, bid, myiteration));
             buffers[index].length = p + 1;
@@ -1031,7 +1445,7 @@ public abstract class PartitionController implements IPartitionController, Seria
             final int index = targetId - base;
             final int p = pointer[index];
             if (p == 0) {
-                buffers[index] = new TransferTuple(src_Id, bid, batch_size, context);
+                buffers[index] = newBatch(index, streamId, bid, context);
             }
             buffers[index].add(p, package_marker(streamId, marker));
             buffers[index].length = p + 1;
@@ -16,6 +16,9 @@ import java.util.Set;
 
 /**
  * Created by shuhaozhang on 12/7/16.
+ * Every tuple goes to all consumers. By default each consumer gets a batch of its own; with "shared_broadcast", or per
+ * edge "producer.consumer.shared_broadcast", the producer fills one batch and publishes it once into a ring read by all
+ * consumers, see {@link brisk.queue.BroadcastController}.
  */
 public class AllPartitionController extends PartitionController {
     private static final long serialVersionUID = 245951208021313536L;
@@ -25,7 +28,8 @@ public class AllPartitionController extends PartitionController {
 
     public AllPartitionController(TopologyComponent operator, TopologyComponent childOP, HashMap<Integer, ExecutionNode> executionNodeHashMap
             , int batch, ExecutionNode executor, boolean common, boolean profile, Configuration conf) {
-        super(operator, childOP, executionNodeHashMap, batch, executor, common, LOG, profile, conf);
+        super(operator, childOP, executionNodeHashMap, batch, executor, common, LOG, profile, conf,
+                conf.getBoolean(operator.getId() + "." + childOP.getId() + ".shared_broadcast", conf.getBoolean("shared_broadcast", false)));
         Set<Integer> setID = super.getDownExecutor_list().keySet();
         downExecutor_size = setID.size();
         targetTasks = setID.toArray(new Integer[setID.size()]);
@@ -34,7 +38,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_bid(Meta meta, String streamId, Object... output) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer_bid(meta.src_id, target, streamId, output);
         }
         return downExecutor_size;
@@ -42,7 +46,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_bid(Meta meta, String streamId, StreamValues output) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer_bid(meta.src_id, target, streamId, output);
         }
         return downExecutor_size;
@@ -51,7 +55,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_bid(Meta meta, String streamId, char[] output) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer_bid(meta.src_id, target, streamId, output);
         }
         return downExecutor_size;
@@ -59,7 +63,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit(Meta meta, String streamId, long bid, Object... output) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer(meta.src_id, target, streamId, bid, output);
         }
         return downExecutor_size;
@@ -67,7 +71,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit(Meta meta, String streamId, long bid, Object output) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer(meta.src_id, target, streamId, bid, output);
         }
         return downExecutor_size;
@@ -75,7 +79,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int force_emit(Meta meta, String streamId, long bid, Object... output) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             force_offer(meta.src_id, target, streamId, bid, output);
         }
         return downExecutor_size;
@@ -83,7 +87,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int force_emit(Meta meta, String streamId, long[] bid, long msg_id, Object... output) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             force_offer(meta.src_id, target, streamId, msg_id, bid, output);
         }
         return downExecutor_size;
@@ -102,7 +106,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit(Meta meta, String streamId, long bid, StreamValues output) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer(meta.src_id, target, streamId, bid, output);
         }
         return downExecutor_size;
@@ -111,7 +115,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit(Meta meta, String streamId, long bid, int deviceID, double nextDouble, double movingAvergeInstant) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer(meta.src_id, target, streamId, bid, deviceID, nextDouble, movingAvergeInstant);
         }
         return downExecutor_size;
@@ -119,7 +123,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit(Meta meta, String streamId, long bid, char[] output) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer(meta.src_id, target, streamId, bid, output);
         }
         return downExecutor_size;
@@ -128,7 +132,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit(Meta meta, String streamId, long bid, char[] key, long value) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer(meta.src_id, target, streamId, bid, key, value);
         }
         return downExecutor_size;
@@ -136,7 +140,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit(Meta meta, String streamId, char[] key, long value) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer(meta.src_id, target, streamId, key, value);
         }
         return downExecutor_size;
@@ -144,7 +148,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit(Meta meta, String streamId, char[] key, long value, long bid, long TimeStamp) throws InterruptedException {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer(meta.src_id, target, streamId, key, value, bid, TimeStamp);
         }
         return downExecutor_size;
@@ -153,7 +157,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_inorder(Meta meta, String streamId, long bid, LinkedList<Long> gap, Object... output) {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer_inorder(meta.src_id, target, streamId, bid, gap, output);
         }
         return downExecutor_size;
@@ -161,7 +165,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_inorder(Meta meta, String streamId, long bid, LinkedList<Long> gap, char[] output) {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer_inorder(meta.src_id, target, streamId, bid, gap, output);
         }
         return downExecutor_size;
@@ -169,7 +173,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_inorder(Meta meta, String streamId, long bid, LinkedList<Long> gap, StreamValues tuple) {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer_inorder(meta.src_id, target, streamId, bid, gap, tuple);
         }
         return downExecutor_size;
@@ -177,7 +181,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_inorder_single(Meta meta, String streamId, long bid, LinkedList<Long> gap, StreamValues tuple) {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             offer_inorder_single(meta.src_id, target, streamId, bid, gap, tuple);
         }
         return downExecutor_size;
@@ -185,7 +189,7 @@ public class AllPartitionController extends PartitionController {
 
 //    @Override
 //    public int emit_marked(String streamId, Object... output, long timestamp, long msgID) {
-//        for (int target : targetTasks) {
+//        for (int target : broadcastTasks) {
 //            offer_marked(target, streamId, output, timestamp, msgID);
 //        }
 //        return downExecutor_size;
@@ -193,7 +197,7 @@ public class AllPartitionController extends PartitionController {
 //
 //    @Override
 //    public int emit_marked(String streamId, Object... output, Marker marker) {
-//        for (int target : targetTasks) {
+//        for (int target : broadcastTasks) {
 //            offer_marked(target, streamId, output, marker.timeStampNano, marker.msgId);
 //        }
 //        return downExecutor_size;
@@ -202,7 +206,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_nowait(Meta meta, String streamId, Object... output) {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             try_offer(meta.src_id, target, streamId, output);
         }
         //int target = targetTasks[hashcode % downExecutor_size];
@@ -212,7 +216,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_nowait(Meta meta, String streamId, char[] key, long value) {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             try_offer(meta.src_id, target, streamId, key, value);
         }
         //int target = targetTasks[hashcode % downExecutor_size];
@@ -223,7 +227,7 @@ public class AllPartitionController extends PartitionController {
 
     @Override
     public int emit_nowait(Meta meta, String streamId, char[] output) {
-        for (int target : targetTasks) {
+        for (int target : broadcastTasks) {
             try_offer(meta.src_id, target, streamId, output);
         }
         //int target = targetTasks[hashcode % downExecutor_size];
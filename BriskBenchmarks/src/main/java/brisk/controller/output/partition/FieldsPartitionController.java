@@ -2,6 +2,7 @@ package brisk.controller.output.partition;
 
 import brisk.components.TopologyComponent;
 import brisk.controller.output.PartitionController;
+import brisk.controller.output.partition.impl.KeyGroups;
 import brisk.controller.output.partition.impl.TupleUtils;
 import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.collector.impl.Meta;
@@ -14,6 +15,7 @@ import util.datatypes.StreamValues;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -25,37 +27,58 @@ public class FieldsPartitionController extends PartitionController {
     protected final Fields input_fields;
     final Fields output_fields;
     private final int targetTasksize;
+    private final KeyGroups key_groups;//null: hash modulo the number of executors.
 
     public FieldsPartitionController(TopologyComponent operator, TopologyComponent childOP, HashMap<Integer, ExecutionNode> executionNodeHashMap,
                                      Fields output_fields, Fields input_fields, int batch_size, ExecutionNode executor, boolean common, boolean profile, Configuration conf) {
+        this(operator, childOP, executionNodeHashMap, output_fields, input_fields, batch_size, executor, common, profile, conf, null);
+    }
+
+    /**
+     * @param key_groups routing of the child operator, shared by all its producers, so that its parallelism can change at runtime.
+     */
+    public FieldsPartitionController(TopologyComponent operator, TopologyComponent childOP, HashMap<Integer, ExecutionNode> executionNodeHashMap,
+                                     Fields output_fields, Fields input_fields, int batch_size, ExecutionNode executor, boolean common, boolean profile, Configuration conf
+            , KeyGroups key_groups) {
         super(operator, childOP, executionNodeHashMap, batch_size, executor, common, LOG, profile, conf);
         Set<Integer> setID = super.getDownExecutor_list().keySet();
         targetTasksize = setID.size();
         targetTasks = setID.toArray(new Integer[setID.size()]);
         this.output_fields = output_fields;
         this.input_fields = input_fields;
+        this.key_groups = key_groups;
+    }
+
+    private int target(int hashcode) {
+        if (key_groups != null) {
+            return key_groups.target(hashcode);
+        }
+        return targetTasks[TupleUtils.chooseTaskIndex(hashcode, targetTasksize)];
+    }
 
+    private int target(List<Object> keys) {
+        if (key_groups != null) {
+            return key_groups.target(KeyGroups.hash(keys));
+        }
+        return targetTasks[TupleUtils.chooseTaskIndex(keys, targetTasksize)];
     }
 
     public int chooseTasks(Object... values) {
 //		int targetTaskIndex = TupleUtils.chooseTaskIndex(outFields.select(groupFields, values), numTasks);
 //		return targetTasks.get(targetTaskIndex);
-        int targetTaskIndex = TupleUtils.chooseTaskIndex(output_fields.select(input_fields, values), targetTasksize);
-        return targetTasks[targetTaskIndex];
+        return target(output_fields.select(input_fields, values));
     }
 
     public int chooseTasks(Object values) {
 //		int targetTaskIndex = TupleUtils.chooseTaskIndex(outFields.select(groupFields, values), numTasks);
 //		return targetTasks.get(targetTaskIndex);
-        int targetTaskIndex = TupleUtils.chooseTaskIndex(output_fields.select(input_fields, values), targetTasksize);
-        return targetTasks[targetTaskIndex];
+        return target(output_fields.select(input_fields, values));
     }
 
     public int chooseTasks(StreamValues values) {
 //		int targetTaskIndex = TupleUtils.chooseTaskIndex(outFields.select(groupFields, values), numTasks);
 //		return targetTasks.get(targetTaskIndex);
-        int targetTaskIndex = TupleUtils.chooseTaskIndex(output_fields.select(input_fields, values), targetTasksize);
-        return targetTasks[targetTaskIndex];
+        return target(output_fields.select(input_fields, values));
     }
 
 
@@ -63,16 +86,14 @@ public class FieldsPartitionController extends PartitionController {
 //		int targetTaskIndex = TupleUtils.chooseTaskIndex(outFields.select(groupFields, values), numTasks);
 //		return targetTasks.get(targetTaskIndex);
 
-        int targetTaskIndex = TupleUtils.chooseTaskIndex(Arrays.hashCode(values), targetTasksize);
-        return targetTasks[targetTaskIndex];
+        return target(Arrays.hashCode(values));
     }
 
     public int chooseTasks(int values) {
 //		int targetTaskIndex = TupleUtils.chooseTaskIndex(outFields.select(groupFields, values), numTasks);
 //		return targetTasks.get(targetTaskIndex);
 
-        int targetTaskIndex = TupleUtils.chooseTaskIndex(Integer.hashCode(values), targetTasksize);
-        return targetTasks[targetTaskIndex];
+        return target(Integer.hashCode(values));
     }
 
     @Override
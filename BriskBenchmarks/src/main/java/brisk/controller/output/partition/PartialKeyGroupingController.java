@@ -2,15 +2,16 @@ package brisk.controller.output.partition;
 
 import applications.datatype.AbstractLRBTuple;
 import brisk.components.TopologyComponent;
+import brisk.controller.output.partition.impl.KeyGroups;
+import brisk.controller.output.partition.impl.TupleUtils;
 import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.collector.impl.Meta;
 import brisk.execution.runtime.tuple.impl.Fields;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.Configuration;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 
@@ -21,9 +22,6 @@ import java.util.LinkedList;
 public class PartialKeyGroupingController extends FieldsPartitionController {
     private static final long serialVersionUID = -7938271195232530840L;
     private static Logger LOG = LoggerFactory.getLogger(PartialKeyGroupingController.class);
-    private HashFunction h1 = Hashing.murmur3_128(13);
-    private HashFunction h2 = Hashing.murmur3_128(17);
-
     //	private Set<Integer> targetTasks;
     private long[] targetTaskStats;
 
@@ -60,34 +58,30 @@ public class PartialKeyGroupingController extends FieldsPartitionController {
 
 
     public int chooseTasks(Object... values) {
-
-        int taskId = 0;
-        if (values.length > 0) {
-            //String str = values.get(0).toString(); // assume key is the first field
-            String str = output_fields.select(input_fields, values).toString();
-            int firstChoice = (int) (Math.abs(h1.hashBytes(str.getBytes()).asLong()) % downTaskSize);
-            int secondChoice = (int) (Math.abs(h2.hashBytes(str.getBytes()).asLong()) % downTaskSize);
-            int selected = targetTaskStats[firstChoice] > targetTaskStats[secondChoice] ? secondChoice : firstChoice;
-            taskId = targetTasks[selected];
-            targetTaskStats[selected]++;
+        if (values.length == 0) {
+            return 0;
         }
-        return taskId;
+        return choose(KeyGroups.hash(output_fields.select(input_fields, values)));
     }
 
 
     public int chooseTasks(char[] values) {
-
-        int taskId = 0;
-        if (values.length > 0) {
-            //String str = values.get(0).toString(); // assume key is the first field
-            String str = new String(values);
-            int firstChoice = (int) (Math.abs(h1.hashBytes(str.getBytes()).asLong()) % downTaskSize);
-            int secondChoice = (int) (Math.abs(h2.hashBytes(str.getBytes()).asLong()) % downTaskSize);
-            int selected = targetTaskStats[firstChoice] > targetTaskStats[secondChoice] ? secondChoice : firstChoice;
-            taskId = targetTasks[selected];
-            targetTaskStats[selected]++;
+        if (values.length == 0) {
+            return 0;
         }
-        return taskId;
+        return choose(Arrays.hashCode(values));
+    }
+
+    /**
+     * The two choices come from the two halves of one 64-bit hash of the key, computed once per tuple.
+     */
+    private int choose(int hashcode) {
+        final long h = TupleUtils.mix64(hashcode);
+        int firstChoice = Math.floorMod((int) h, downTaskSize);
+        int secondChoice = Math.floorMod((int) (h >>> 32), downTaskSize);
+        int selected = targetTaskStats[firstChoice] > targetTaskStats[secondChoice] ? secondChoice : firstChoice;
+        targetTaskStats[selected]++;
+        return targetTasks[selected];
     }
 
     /**
@@ -0,0 +1,96 @@
+package brisk.controller.output.partition;
+
+import brisk.components.TopologyComponent;
+import brisk.controller.output.partition.impl.HeavyHitters;
+import brisk.controller.output.partition.impl.KeyGroups;
+import brisk.controller.output.partition.impl.TupleUtils;
+import brisk.execution.ExecutionNode;
+import brisk.execution.runtime.tuple.impl.Fields;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.Configuration;
+import util.datatypes.StreamValues;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fields grouping that splits only the heavy hitters (D-Choices):
+ * each key is hashed once, a cold key always goes to the same executor as with fields grouping,
+ * while a hot key, detected online by {@link HeavyHitters}, goes to the least loaded of its d candidate executors.
+ * Keys with partial results on several executors are merged downstream (e.g. WordCountMergeBolt), which learns the
+ * keys actually split from ExecutionGraph#getSplitKeys: the first time a producer would send a key away from its home
+ * executor, it registers the key and sends that tuple home instead, so the home executor reports the key again after
+ * it is registered and the merge gets its count there.
+ * <p>
+ * A key is hot above 1/(5n) of the stream, n being the number of executors, and d is "skew_choices".
+ */
+public class SkewAwarePartitionController extends FieldsPartitionController {
+    private static final long serialVersionUID = 2966146520155574151L;
+    private static final Logger LOG = LoggerFactory.getLogger(SkewAwarePartitionController.class);
+    private static final long WINDOW = 1 << 20;//keys between two decays of the sketch.
+    private final HeavyHitters hot;
+    private final Map<Integer, Integer> split_keys;//shared by all producers of the operator, see ExecutionGraph#getSplitKeys.
+    private final long[] load;//tuples sent to each executor by this producer.
+    private final int choices;
+
+    public SkewAwarePartitionController(TopologyComponent operator, TopologyComponent childOP, HashMap<Integer, ExecutionNode> executionNodeHashMap,
+                                        Fields output_fields, Fields input_fields, int batch_size, ExecutionNode executor, boolean common, boolean profile, Configuration conf,
+                                        Map<Integer, Integer> split_keys) {
+        super(operator, childOP, executionNodeHashMap, output_fields, input_fields, batch_size, executor, common, profile, conf);
+        this.split_keys = split_keys;
+        final int n = targetTasks.length;
+        this.load = new long[n];
+        this.choices = Math.max(1, Math.min(conf.getInt("skew_choices", 4), n));
+        this.hot = new HeavyHitters(1.0 / (5 * n), WINDOW);
+        LOG.trace("Heavy hitters of " + childOP.getId() + " spread over " + choices + " executors");
+    }
+
+    private int select(int hashcode) {
+        final long h = TupleUtils.mix64(hashcode);
+        final int n = load.length;
+        final int home = TupleUtils.chooseTaskIndex(hashcode, n);//where fields grouping without key groups sends it.
+        int selected = home;
+        if (choices > 1 && hot.offer(h)) {
+            final int step = (int) (h >>> 32) | 1;
+            for (int i = 1; i < choices; i++) {
+                final int candidate = Math.floorMod((int) h + i * step, n);
+                if (load[candidate] < load[selected]) {
+                    selected = candidate;
+                }
+            }
+            if (selected != home && !split_keys.containsKey(hashcode)
+                    && split_keys.putIfAbsent(hashcode, targetTasks[home]) == null) {
+                selected = home;//registered first, see the class comment.
+            }
+        }
+        load[selected]++;
+        return targetTasks[selected];
+    }
+
+    @Override
+    public int chooseTasks(Object... values) {
+        return select(KeyGroups.hash(output_fields.select(input_fields, values)));
+    }
+
+    @Override
+    public int chooseTasks(Object values) {
+        return select(KeyGroups.hash(output_fields.select(input_fields, values)));
+    }
+
+    @Override
+    public int chooseTasks(StreamValues values) {
+        return select(KeyGroups.hash(output_fields.select(input_fields, values)));
+    }
+
+    @Override
+    public int chooseTasks(char[] values) {
+        return select(Arrays.hashCode(values));
+    }
+
+    @Override
+    public int chooseTasks(int values) {
+        return select(Integer.hashCode(values));
+    }
+}
@@ -0,0 +1,66 @@
+package brisk.controller.output.partition.impl;
+
+import java.io.Serializable;
+
+/**
+ * Online heavy hitter detection over 64-bit key hashes with a count-min sketch.
+ * A key is hot if its estimated count is above theta of the stream seen so far.
+ * Counters are halved every window keys, so that keys that cool down stop being hot.
+ * <p>
+ * Not thread-safe: each producer keeps its own.
+ */
+public class HeavyHitters implements Serializable {
+    private static final long serialVersionUID = 5319946498563203724L;
+    private static final int DEPTH = 4;
+    private final int width;
+    private final int mask;
+    private final int[] counters;
+    private final double theta;
+    private final long window;
+    private long total;
+
+    /**
+     * @param theta  minimal frequency of a heavy hitter, in (0, 1).
+     * @param window keys between two decays.
+     */
+    public HeavyHitters(double theta, long window) {
+        this.theta = theta;
+        this.window = window;
+        int w = 64;
+        while (w * theta < 8) {//estimation error (e / width of the stream) well below theta.
+            w <<= 1;
+        }
+        this.width = w;
+        this.mask = w - 1;
+        this.counters = new int[DEPTH * w];
+    }
+
+    /**
+     * Count one occurrence of the key.
+     *
+     * @param hash 64-bit hash of the key, e.g. {@link TupleUtils#mix64(int)}.
+     * @return true if the key is a heavy hitter.
+     */
+    public boolean offer(long hash) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32) | 1;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            final int c = ++counters[i * width + ((h1 + i * h2) & mask)];
+            if (c < min) {
+                min = c;
+            }
+        }
+        if (++total == window) {
+            decay();
+        }
+        return total >= width && min > theta * total;
+    }
+
+    private void decay() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>>= 1;
+        }
+        total >>>= 1;
+    }
+}
@@ -0,0 +1,141 @@
+package brisk.controller.output.partition.impl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Key-group routing of a fields-grouped operator, shared by all its producers.
+ * A key falls in one of a fixed number of key groups, and each group is owned by one executor of the operator.
+ * Changing the parallelism re-assigns only the groups it has to (see {@link #rebalance(List)}),
+ * so only a fraction of the keys, and of their state, moves.
+ * <p>
+ * The assignment is replaced only while the producers are paused (see ExecutionManager#rescale).
+ */
+public class KeyGroups implements Serializable {
+    private static final long serialVersionUID = -2404873563722810295L;
+    private static final int NONE = -1;
+    private final int groups;
+    private volatile int[] owner;//executor ID of each group.
+    private volatile int[] active;//sorted executor IDs owning at least one group.
+
+    /**
+     * @param groups    number of key groups, at least the maximal parallelism.
+     * @param executors initial owners.
+     */
+    public KeyGroups(int groups, List<Integer> executors) {
+        this.groups = groups;
+        final int[] none = new int[groups];
+        Arrays.fill(none, NONE);
+        this.owner = none;
+        install(rebalance(executors));
+    }
+
+    /**
+     * @return the partitioning hash of a key: of its field if it has a single one, so that a key emitted alone
+     * and the same key selected from a tuple fall in the same group.
+     */
+    public static int hash(List<Object> key) {
+        if (key.size() == 1) {
+            return hash(key.get(0));
+        }
+        return Arrays.deepHashCode(key.toArray());
+    }
+
+    public static int hash(Object field) {
+        if (field == null) {
+            return 0;
+        } else if (field instanceof char[]) {
+            return Arrays.hashCode((char[]) field);
+        } else if (field instanceof Object[]) {
+            return Arrays.deepHashCode((Object[]) field);
+        }
+        return field.hashCode();
+    }
+
+    public int group(int hash) {
+        return Math.floorMod(hash, groups);
+    }
+
+    /**
+     * @return executor ID owning the key.
+     */
+    public int target(int hash) {
+        return owner[Math.floorMod(hash, groups)];
+    }
+
+    public int owner(int group) {
+        return owner[group];
+    }
+
+    public int getGroups() {
+        return groups;
+    }
+
+    /**
+     * @return the executors owning at least one group.
+     */
+    public int[] active() {
+        return active.clone();
+    }
+
+    /**
+     * An executor owning no group receives nothing, and is parked until a rescale gives it some.
+     */
+    public boolean isActive(int executorID) {
+        return Arrays.binarySearch(active, executorID) >= 0;
+    }
+
+    /**
+     * Assignment of the groups over the given executors that moves as few groups as possible:
+     * an executor keeps its groups up to its even share, and only the groups of removed executors
+     * and the excess of the others are handed to the executors below their share.
+     *
+     * @param executors
+     * @return the new owner of each group, to {@link #install(int[])}.
+     */
+    public int[] rebalance(List<Integer> executors) {
+        final int n = executors.size();
+        if (n == 0 || n > groups) {
+            throw new IllegalArgumentException("parallelism " + n + " out of [1, " + groups + "]");
+        }
+        final HashMap<Integer, Integer> quota = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            quota.put(executors.get(i), groups / n + (i < groups % n ? 1 : 0));
+        }
+        final int[] next = owner.clone();
+        final HashMap<Integer, Integer> load = new HashMap<>();
+        final int[] orphans = new int[groups];
+        int orphan = 0;
+        for (int g = 0; g < groups; g++) {
+            final Integer q = quota.get(next[g]);
+            final int l = load.getOrDefault(next[g], 0);
+            if (q != null && l < q) {
+                load.put(next[g], l + 1);
+            } else {
+                orphans[orphan++] = g;
+            }
+        }
+        int i = 0;
+        for (int e : executors) {
+            int l = load.getOrDefault(e, 0);
+            while (l < quota.get(e)) {
+                next[orphans[i++]] = e;
+                l++;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @param next as returned by {@link #rebalance(List)}.
+     */
+    public void install(int[] next) {
+        if (next.length != groups) {
+            throw new IllegalArgumentException(next.length + " groups, expected " + groups);
+        }
+        this.active = Arrays.stream(next).distinct().sorted().toArray();
+        this.owner = next;
+    }
+}
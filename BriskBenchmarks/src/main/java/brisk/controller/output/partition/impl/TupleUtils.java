@@ -27,6 +27,19 @@ public final class TupleUtils {
         return Math.floorMod(hashcode, numTasks);
     }
 
+    /**
+     * Spread a 32-bit key hash over 64 bits (murmur3 finalizer), e.g., to derive several independent choices from one hash.
+     */
+    public static long mix64(int hashcode) {
+        long h = hashcode;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
     private static <T> int listHashCode(List<T> alist) {
         if (alist == null) {
             return 1;
@@ -6,12 +6,16 @@ import brisk.components.TopologyComponent;
 import brisk.components.grouping.Grouping;
 import brisk.components.operators.executor.VirtualExecutor;
 import brisk.controller.input.InputStreamController;
+import brisk.controller.input.scheduler.OrderedScheduler;
 import brisk.controller.input.scheduler.SequentialScheduler;
 import brisk.controller.input.scheduler.UniformedScheduler;
 import brisk.controller.output.MultiStreamOutputContoller;
 import brisk.controller.output.OutputController;
 import brisk.controller.output.PartitionController;
 import brisk.controller.output.partition.*;
+import brisk.controller.output.partition.impl.KeyGroups;
+import brisk.queue.impl.wait.WaitStrategies;
+import brisk.util.Latencies;
 import machine.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,8 +23,11 @@ import util.Configuration;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static applications.Constants.virtualType;
 
@@ -39,6 +46,9 @@ public class ExecutionGraph extends RawExecutionGraph {
     private ExecutionNode sink;
     private boolean shared;//share by multi producers
     private boolean common;//shared by mutlti consumers
+    private final HashMap<String, KeyGroups> key_groups = new HashMap<>();//<fields-grouped operator, its routing>
+    private final ConcurrentHashMap<String, Map<Integer, Integer>> split_keys = new ConcurrentHashMap<>();//<skew-aware grouped operator, its split keys>
+    private final LinkedHashMap<String, Map<ExecutionNode, ExecutionNode>> chains = new LinkedHashMap<>();//<producer->consumer, <host, chained>>
 
     /**
      * creates execution graph from topology
@@ -160,6 +170,7 @@ public class ExecutionGraph extends RawExecutionGraph {
             virtualNode.getParentsOf(sink.operator).add(par);
         }
 
+        build_chains();
         build_streamController(conf.getInt("batch", 100));
         if (!conf.getBoolean("NAV", true)) {
             if (!conf.getBoolean("profile"))
@@ -362,7 +373,8 @@ public class ExecutionGraph extends RawExecutionGraph {
 
         } else if (g.isFields()) {
             return new FieldsPartitionController(srcOP, childOP
-                    , downExecutor_list, srcOP.get_output_fields(streamId), g.getFields(), batch, executor, common, conf.getBoolean("profile", false), conf);
+                    , downExecutor_list, srcOP.get_output_fields(streamId), g.getFields(), batch, executor, common, conf.getBoolean("profile", false), conf
+                    , key_groups(childOP));
 
         } else if (g.isGlobal()) {
             return new GlobalPartitionController(srcOP, childOP
@@ -372,6 +384,11 @@ public class ExecutionGraph extends RawExecutionGraph {
             return new AllPartitionController(srcOP, childOP
                     , downExecutor_list, batch, executor, common, conf.getBoolean("profile", false), conf);
 
+        } else if (g.isSkewAware()) {
+            return new SkewAwarePartitionController(srcOP, childOP
+                    , downExecutor_list, srcOP.get_output_fields(streamId), g.getFields(), batch, executor, common, conf.getBoolean("profile", false), conf
+                    , getSplitKeys(childOP.getId()));
+
         } else if (g.isPartial()) {
             return new PartialKeyGroupingController(srcOP, childOP
                     , downExecutor_list, srcOP.get_output_fields(streamId), g.getFields(), batch, executor, common, conf.getBoolean("profile", false), conf);
@@ -382,6 +399,148 @@ public class ExecutionGraph extends RawExecutionGraph {
         }
     }
 
+    /**
+     * With "key_groups", fields-grouped operators route by key group, so that their parallelism can change at runtime
+     * (see ExecutionManager#rescale). With "elastic", they start with half of their executors.
+     *
+     * @param operator
+     * @return the routing of the operator, shared by all its producers, null without "key_groups".
+     */
+    private KeyGroups key_groups(TopologyComponent operator) {
+        final int groups = conf.getInt("key_groups", 0);
+        if (groups <= 0) {
+            return null;
+        }
+        return key_groups.computeIfAbsent(operator.getId(), id -> {
+            List<Integer> executors = operator.getExecutorIDList();
+            if (conf.getBoolean("elastic", false)) {
+                executors = executors.subList(0, (executors.size() + 1) / 2);
+            }
+            return new KeyGroups(Math.max(groups, operator.getNumTasks()), executors);
+        });
+    }
+
+    /**
+     * @param operatorId
+     * @return the key-group routing of the operator, null if it is not fields-grouped or without "key_groups".
+     */
+    public KeyGroups getKeyGroups(String operatorId) {
+        return key_groups.get(operatorId);
+    }
+
+    /**
+     * @param operatorId
+     * @return hash code of each key a skew-aware grouping split over several executors of the operator, to the
+     * executor it goes to as a cold key (see SkewAwarePartitionController). Shared by all producers of the operator,
+     * it only grows while the topology runs.
+     */
+    public Map<Integer, Integer> getSplitKeys(String operatorId) {
+        return split_keys.computeIfAbsent(operatorId, id -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Forget the split keys, once the topology is stopped, including in the maps the operators still refer to.
+     */
+    public void clearSplitKeys() {
+        split_keys.values().forEach(Map::clear);
+        split_keys.clear();
+    }
+
+    /**
+     * Chain the executors of 1:1 edges: the i-th consumer executor runs in the thread of the i-th producer executor,
+     * which calls it directly instead of going through a queue. Enabled by "chain", or per edge by
+     * "producer.consumer.chain". An edge can be chained if both operators have the same parallelism, it is the only input
+     * of the consumer, it is shuffle grouped (or both operators have a single executor), and the consumer is not the sink.
+     * Not with shared output controllers, fault tolerance or profiling.
+     */
+    private void build_chains() {
+        if (shared || conf.getBoolean("Fault_tolerance", false) || conf.getBoolean("profile", false)) {
+            return;
+        }
+        for (TopologyComponent consumer : topology.getRecords().values()) {
+            if (consumer.isLeafNode() || consumer.getParents().size() != 1) {
+                continue;
+            }
+            final Map<TopologyComponent, Grouping> parents = consumer.getParents().values().iterator().next();
+            if (parents.size() != 1) {
+                continue;
+            }
+            final Map.Entry<TopologyComponent, Grouping> edge = parents.entrySet().iterator().next();
+            final TopologyComponent producer = edge.getKey();
+            final Grouping g = edge.getValue();
+            if (!conf.getBoolean(producer.getId() + "." + consumer.getId() + ".chain", conf.getBoolean("chain", false))
+                    || producer.getNumTasks() != consumer.getNumTasks()
+                    || g.isMarkerShuffle() || !(g.isShuffle() || producer.getNumTasks() == 1)) {
+                continue;
+            }
+            final ArrayList<ExecutionNode> hosts = producer.getExecutorList();
+            final ArrayList<ExecutionNode> chained = consumer.getExecutorList();
+            if (hosts.size() != chained.size()) {
+                continue;
+            }
+            boolean free = true;
+            for (ExecutionNode host : hosts) {
+                free &= host.getChained() == null;//an executor runs one chained consumer at most.
+            }
+            if (!free) {
+                continue;
+            }
+            final Map<ExecutionNode, ExecutionNode> pairs = new LinkedHashMap<>();
+            for (int i = 0; i < hosts.size(); i++) {
+                hosts.get(i).chain(chained.get(i));
+                pairs.put(hosts.get(i), chained.get(i));
+            }
+            chains.put(producer.getId() + "->" + consumer.getId(), pairs);
+            LOG.info("Chains " + consumer.getId() + " into " + producer.getId());
+        }
+    }
+
+    /**
+     * @return the edges chained when the graph was built, as producer->consumer.
+     */
+    public Set<String> getChains() {
+        return chains.keySet();
+    }
+
+    /**
+     * Go back to queues and a thread per executor on a chained edge. Only before the executors are launched.
+     *
+     * @param edge producer->consumer.
+     */
+    public void unchain(String edge) {
+        rechain(edge, false);
+    }
+
+    /**
+     * Chain again an edge that has been unchained.
+     *
+     * @param edge producer->consumer.
+     */
+    public void chain(String edge) {
+        rechain(edge, true);
+    }
+
+    private void rechain(String edge, boolean chain) {
+        for (Map.Entry<ExecutionNode, ExecutionNode> pair : chains.get(edge).entrySet()) {
+            final ExecutionNode host = pair.getKey();
+            final ExecutionNode consumer = pair.getValue();
+            for (PartitionController pc : host.getController().getPartitionController()) {
+                if (pc.getDownExecutor_list().containsKey(consumer.getExecutorID())) {
+                    if (chain) {
+                        pc.chain(consumer);
+                    } else {
+                        pc.unchain();
+                    }
+                }
+            }
+            if (chain) {
+                host.chain(consumer);
+            } else {
+                host.unchain();
+            }
+        }
+    }
+
     void build_inputScheduler() {
         for (ExecutionNode executor : executionNodeArrayList) {
             if (executor.isSourceNode()) {
@@ -391,7 +550,10 @@ public class ExecutionGraph extends RawExecutionGraph {
             if (!executor.hasScheduler()) {
                 //use global scheduler instead.
                 // executor.setInputStreamController(new Scheduler(global_tuple_scheduler));//every executor owns its own input scheduler.
-                if (global_tuple_scheduler instanceof SequentialScheduler) {
+                if (global_tuple_scheduler instanceof OrderedScheduler
+                        || conf.getBoolean(executor.operator.getId() + ".ordered", conf.getBoolean("ordered", false))) {
+                    executor.setInputStreamController(new OrderedScheduler());
+                } else if (global_tuple_scheduler instanceof SequentialScheduler) {
                     executor.setInputStreamController(new SequentialScheduler());
                 } else if (global_tuple_scheduler instanceof UniformedScheduler) {
                     executor.setInputStreamController(new UniformedScheduler());
@@ -399,6 +561,10 @@ public class ExecutionGraph extends RawExecutionGraph {
                     LOG.error("Unknown input scheduler!");
                 }
             }
+            executor.getInputStreamController().setWaitStrategy(WaitStrategies.create(conf, executor.operator.getId()));
+            if (conf.getBoolean("latency_histograms", false)) {
+                executor.getInputStreamController().setResidence(Latencies.of(Latencies.QUEUE, executor.getExecutorID()));
+            }
         }
     }
 
@@ -413,6 +579,10 @@ public class ExecutionGraph extends RawExecutionGraph {
                 HashMap<String, HashMap<String, PartitionController>> PCMaps = new HashMap<>();
                 for (String streamId : executor.operator.getOutput_streamsIds()) {
                     HashMap<String, PartitionController> PClist = init_pc(streamId, executor.operator, batch, executor, common);//unique PC
+                    final ExecutionNode chained = executor.getChained();
+                    if (chained != null && PClist.containsKey(chained.getOP())) {
+                        PClist.get(chained.getOP()).chain(chained);
+                    }
                     PCMaps.put(streamId, PClist);
                 }
                 OutputController sc = new MultiStreamOutputContoller((MultiStreamComponent) executor.operator, PCMaps);
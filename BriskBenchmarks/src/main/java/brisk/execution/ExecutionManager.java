@@ -4,20 +4,35 @@ import brisk.components.TopologyComponent;
 import brisk.components.context.TopologyContext;
 import brisk.components.exception.UnhandledCaseException;
 import brisk.controller.affinity.AffinityController;
+import brisk.controller.output.PartitionController;
+import brisk.controller.output.partition.impl.KeyGroups;
 import brisk.execution.runtime.boltThread;
 import brisk.execution.runtime.executorThread;
 import brisk.execution.runtime.spoutThread;
+import brisk.faulttolerance.Recovery;
+import brisk.faulttolerance.State;
 import brisk.faulttolerance.Writer;
+import brisk.faulttolerance.impl.PrimitiveKeyedState;
 import brisk.optimization.ExecutionPlan;
+import brisk.metrics.MetricsReporter;
 import brisk.optimization.OptimizationManager;
+import brisk.util.Latencies;
 import ch.usi.overseer.OverHpc;
 import machine.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.Configuration;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 
 import static applications.Constants.EVENTS.*;
@@ -29,11 +44,12 @@ import static xerial.jnuma.Numa.*;
  */
 public class ExecutionManager {
     private final static Logger LOG = LoggerFactory.getLogger(ExecutionManager.class);
-    private final static long migration_gaps = 10000;
+    private final static long migration_gaps = 10000;//maximum time for the executors to drain before a migration.
     //    public static Clock clock = null;
     public final HashMap<Integer, executorThread> ThreadMap = new HashMap<>();
     public final AffinityController AC;
     private final OptimizationManager optimizationManager;
+    private final HashSet<Integer> parked = new HashSet<>();//executors owning no key group, kept paused.
     private int loadTargetHz;
     private int timeSliceLengthMs;
     private OverHpc HPCMonotor;
@@ -111,21 +127,36 @@ public class ExecutionManager {
 //			}
         }
         g.build_inputScheduler();
+        if (conf.getBoolean("latency_histograms", false)) {
+            Latencies.report(conf.getInt("latency_report", 10));
+        }
 //        clock = new Clock(conf.getDouble("checkpoint", 1));
 
         if (conf.getBoolean("Fault_tolerance", false)) {
             Writer writer = null;
+            final Set<Long> unrecoverable = ConcurrentHashMap.newKeySet();//markers of this topology that are not committed.
             for (ExecutionNode e : g.getExecutionNodeArrayList()) {
                 if (e.isFirst_executor()) {
-                    writer = new Writer(e.operator, e.operator.getNumTasks());
+                    writer = new Writer(e.operator, e.operator.getNumTasks(), conf, unrecoverable);
                 }
                 e.configureWriter(writer);
             }
+            //executors are not started yet, so states and spout offsets can be restored in place.
+            if (conf.getBoolean("recover", false)) {
+                new Recovery(conf).recover(g);
+            } else if (conf.getBoolean("clean_checkpoints", false)) {
+                new Recovery(conf).discard();
+            } else {
+                new Recovery(conf).archive();
+            }
         }
 
         executorThread thread = null;
         if (benchmark) {
             for (ExecutionNode e : g.getExecutionNodeArrayList()) {
+                if (e.isChained()) {
+                    continue;//runs in the thread of its producer.
+                }
                 switch (e.operator.type) {
                     case spoutType:
                         thread = launchSpout_InCore(e, new TopologyContext(g, plan, e, ThreadMap, HPCMonotor), conf
@@ -159,6 +190,9 @@ public class ExecutionManager {
             }
         } else if (profile) {
             for (ExecutionNode e : g.getExecutionNodeArrayList()) {
+                if (e.isChained()) {
+                    continue;//runs in the thread of its producer.
+                }
                 switch (e.operator.type) {
                     case spoutType:
                         thread = launchSpout_SingleCore(e, new TopologyContext(g, plan, e, ThreadMap, HPCMonotor), conf
@@ -194,6 +228,9 @@ public class ExecutionManager {
             TopologyComponent previous_op = null;
             long start = System.currentTimeMillis();
             for (ExecutionNode e : g.getExecutionNodeArrayList()) {
+                if (e.isChained()) {
+                    continue;//runs in the thread of its producer.
+                }
 
                 switch (e.operator.type) {
                     case spoutType:
@@ -234,6 +271,52 @@ public class ExecutionManager {
             long end = System.currentTimeMillis();
             LOG.info("It takes :" + (end - start) / 1000 + " seconds to finish launch the operators.");
         }
+        park_inactive();
+        if (conf.getBoolean("metrics", false)) {
+            register_metrics();
+            new MetricsReporter(conf).start();
+        }
+    }
+
+    /**
+     * Executors are named operator.executor, edges operator->child.executor, or operator->child.shared for an MPSC controller.
+     */
+    private void register_metrics() {
+        final Set<PartitionController> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ExecutionNode e : g.getExecutionNodeArrayList()) {
+            final executorThread thread = ThreadMap.get(e.getExecutorID());
+            if (thread == null) {
+                continue;//virtual
+            }
+            if (!e.isChained()) {
+                thread.register_metrics(e.getOP() + "." + e.getExecutorID());
+            }
+            if (e.isLeafNode() || e.getController() == null) {
+                continue;
+            }
+            for (PartitionController pc : e.getController().getPartitionController()) {
+                if (registered.add(pc)) {
+                    pc.register_metrics(e.getOP(), e.getController().isShared() ? "shared" : String.valueOf(e.getExecutorID()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Executors of key-grouped operators that own no key group receive nothing, they wait paused until a rescale.
+     */
+    private void park_inactive() {
+        for (ExecutionNode e : g.getExecutionNodeArrayList()) {
+            final KeyGroups groups = g.getKeyGroups(e.operator.getId());
+            final executorThread thread = ThreadMap.get(e.getExecutorID());
+            if (groups != null && thread != null && !groups.isActive(e.getExecutorID())) {
+                thread.request_pause();
+                parked.add(e.getExecutorID());
+            }
+        }
+        if (!parked.isEmpty()) {
+            LOG.info("Executors " + parked + " own no key group, parked.");
+        }
     }
 
 
@@ -249,6 +332,9 @@ public class ExecutionManager {
             st.start();
         }
         ThreadMap.putIfAbsent(e.getExecutorID(), st);
+        for (ExecutionNode chained = e.getChained(); chained != null; chained = chained.getChained()) {
+            ThreadMap.putIfAbsent(chained.getExecutorID(), st);//so that chained executors can stop the thread they run in.
+        }
         return st;
     }
 
@@ -263,6 +349,9 @@ public class ExecutionManager {
             wt.start();
         }
         ThreadMap.putIfAbsent(e.getExecutorID(), wt);
+        for (ExecutionNode chained = e.getChained(); chained != null; chained = chained.getChained()) {
+            ThreadMap.putIfAbsent(chained.getExecutorID(), wt);//so that chained executors can stop the thread they run in.
+        }
 //		try {
 //			while (!wt.binding_finished) {
 //				Thread.sleep(500);//wait for queue allocation.
@@ -315,51 +404,204 @@ public class ExecutionManager {
     }
 
 
-    private boolean migrate_complete(executorThread thread) {
-        return !thread.migrating;
+    /**
+     * Move the executors to the sockets of the plan, while they are paused, see {@link #pause_aligned(long)}.
+     *
+     * @return false if the executors could not be paused, they then keep running under the old plan.
+     */
+    public boolean redistributeTasks(ExecutionGraph g, Configuration conf, ExecutionPlan plan)
+            throws InterruptedException {
+        LOG.info("BasicBoltBatchExecutor rebinding..");
+        if (!pause_aligned(migration_gaps)) {
+            LOG.info("Executors did not drain within " + migration_gaps + " ms, migration aborted.");
+            return false;
+        }
+        try {
+            AC.clear();
+            TopologyContext.plan = plan;//update context, output queues are placed by the new plan.
+            for (executorThread thread : threads()) {
+                if (moves_consumer(thread, plan)) {
+                    thread.relocate();
+                }
+            }
+            for (executorThread thread : threads()) {
+                int toSocket = plan.toSocket(thread.getExecutorID());
+                long[] cpu = AC.require(toSocket);
+                thread.migrate(cpu);
+                thread.migrate(toSocket);
+                thread.await_migration();
+                LOG.info("Rebind Executors " + thread.getOP() + "-" + thread.getExecutorID() + " on core: " + Arrays.toString(cpu));
+            }
+            LOG.info("At this point, all threads are re-scheduled successfully.");
+        } finally {
+            resume_aligned();
+        }
+        LOG.info("Migration complete");
+        return true;
+    }
+
+    /**
+     * @return each thread once, whereas ThreadMap also maps the executors chained into a thread to it.
+     */
+    private Set<executorThread> threads() {
+        return new LinkedHashSet<>(ThreadMap.values());
     }
 
-    private boolean migrate_complete(ExecutionGraph g) {
-        for (executorThread thread : ThreadMap.values()) {
-            if (thread.migrating) {
-                return false;//still during migration.
+    /**
+     * @return true if the plan moves a consumer of a placed output queue of the thread to another socket.
+     */
+    private boolean moves_consumer(executorThread thread, ExecutionPlan plan) {
+        if (thread.executor.isLeafNode()) {
+            return false;
+        }
+        for (PartitionController pc : thread.executor.getController().getPartitionController()) {
+            if (!pc.isPlaced()) {
+                continue;
+            }
+            for (int consumer : pc.getDownExecutor_list().keySet()) {
+                final executorThread c = ThreadMap.get(consumer);
+                if (c != null && c.node != plan.toSocket(consumer)) {
+                    return true;
+                }
             }
         }
-        return true;
+        return false;
     }
 
-    public void redistributeTasks(ExecutionGraph g, Configuration conf, ExecutionPlan plan)
-            throws InterruptedException {
-        LOG.info("BasicBoltBatchExecutor rebinding..");
+    /**
+     * Change the number of executors of a key-grouped operator receiving keys, between 1 and the number of executors
+     * it was launched with, without stopping the topology: executors are paused as for a migration, the state of the
+     * keys of moved key groups is handed over from their old owner to their new one, the routing of all producers is
+     * switched at once, and executors left without key groups stay paused.
+     *
+     * @param operator
+     * @param parallelism
+     * @return false if the operator was not rescaled.
+     * @throws InterruptedException
+     */
+    public boolean rescale(TopologyComponent operator, int parallelism) throws InterruptedException {
+        final KeyGroups groups = g.getKeyGroups(operator.getId());
+        if (groups == null) {
+            LOG.info(operator.getId() + " is not routed by key group, it can not be rescaled.");
+            return false;
+        }
+        final List<ExecutionNode> pool = operator.getExecutorList();
+        final HashMap<Integer, PrimitiveKeyedState> states = new HashMap<>();
+        for (ExecutionNode e : pool) {
+            final State state = e.op.getState();
+            if (state instanceof PrimitiveKeyedState) {
+                states.put(e.getExecutorID(), (PrimitiveKeyedState) state);
+            } else if (state != null) {
+                LOG.info(operator.getId() + " keeps a " + state.getClass().getSimpleName() + ", which can not be split by key group.");
+                return false;
+            }
+        }
+        parallelism = Math.max(1, Math.min(parallelism, pool.size()));
+        final ArrayList<Integer> executors = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            executors.add(pool.get(i).getExecutorID());
+        }
+        final int[] next = groups.rebalance(executors);
+        int moved_groups = 0;
+        for (int i = 0; i < next.length; i++) {
+            if (next[i] != groups.owner(i)) {
+                moved_groups++;
+            }
+        }
+        if (moved_groups == 0) {
+            return false;
+        }
+        if (!pause_aligned(migration_gaps)) {
+            LOG.info("Executors did not drain within " + migration_gaps + " ms, rescale aborted.");
+            return false;
+        }
+        try {
+            int moved = 0;
+            for (PrimitiveKeyedState state : states.values()) {
+                moved += state.transfer(hash -> states.get(next[groups.group(hash)]));
+            }
+            groups.install(next);
+            for (ExecutionNode e : pool) {
+                if (executors.contains(e.getExecutorID())) {
+                    parked.remove(e.getExecutorID());
+                } else {
+                    parked.add(e.getExecutorID());
+                }
+            }
+            LOG.info("Rescaled " + operator.getId() + " to " + parallelism + " executors: " + moved_groups + " of "
+                    + groups.getGroups() + " key groups and " + moved + " keys moved.");
+        } finally {
+            resume_aligned();
+        }
+        return true;
+    }
 
-        AC.clear();
-//		TopologyContext[] contexts = new TopologyContext[g.getExecutionNodeArrayList().size() - 1];
-//		int i = 0;
-        for (executorThread thread : ThreadMap.values()) {
-            int toSocket = plan.toSocket(thread.getExecutorID());
-            long[] cpu = AC.require(toSocket);
-            thread.migrate(cpu);
-            thread.migrate(toSocket);
-            while (true) {
-                if (migrate_complete(thread)) {
-                    break;
+    /**
+     * Pause all executors at a consistent cut, without suspending threads.
+     * Like a marker flowing from the spouts to the sinks: spouts park first, then, in topological order,
+     * an executor parks once all its producers are parked and their output queues have drained into it.
+     * An executor flushes its partial output batches as it parks, so when it returns true all executors are parked,
+     * all queues are empty and no emitted tuple is left in a producer's buffers.
+     *
+     * @param timeoutMs
+     * @return false, with all executors resumed, if the executors did not drain in time.
+     * @throws InterruptedException
+     */
+    public boolean pause_aligned(long timeoutMs) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMs;
+        for (ExecutionNode e : g.getExecutionNodeArrayList()) {//executors are listed from spouts to sink.
+            final executorThread thread = ThreadMap.get(e.getExecutorID());
+            if (thread == null || e.isChained()) {
+                continue;//virtual, or paused with the executor it is chained into.
+            }
+            while (!drained(e)) {
+                if (System.currentTimeMillis() > deadline) {
+                    resume_aligned();
+                    return false;
                 }
-                Thread.sleep(1000);
+                Thread.sleep(1);
+            }
+            thread.request_pause();
+            while (!thread.isPaused()) {
+                if (System.currentTimeMillis() > deadline) {
+                    resume_aligned();
+                    return false;
+                }
+                Thread.sleep(1);
             }
-            LOG.info("Rebind Executors " + thread.getOP() + "-" + thread.getExecutorID() + " on core: " + Arrays.toString(cpu));
-            TopologyContext.plan = plan;//update context.
-//			contexts[i] = new TopologyContext(g, null, plan, thread.executor, ThreadMap, HPCMonotor);
-//			thread.setContext(contexts[i]);
-//			i++;
         }
+        LOG.info("Pause all threads.");
+        return true;
+    }
 
+    /**
+     * @return true if all producers of e are parked, and e has consumed all their outputs. A producer offers its partial
+     * batches before it reports parked, so once its queues are empty nothing it emitted is left on the old routing.
+     */
+    private boolean drained(ExecutionNode e) {
+        for (TopologyComponent parent : e.getParents_keySet()) {
+            for (ExecutionNode p : parent.getExecutorList()) {
+                final executorThread producer = ThreadMap.get(p.getExecutorID());
+                if (producer != null && !(producer.isPaused() && p.isEmpty())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
 
-        LOG.info("At this point, all threads are re-scheduled successfully.");
-//        pause();
-//        recreates_queue();
-//        resume();
-//        LOG.info("Re-binding complete");
-        LOG.info("Migration complete");
+    /**
+     * Resume all executors, consumers before their producers, except the parked ones.
+     */
+    public void resume_aligned() {
+        final ArrayList<ExecutionNode> executors = g.getExecutionNodeArrayList();
+        for (int i = executors.size() - 1; i >= 0; i--) {
+            final executorThread thread = ThreadMap.get(executors.get(i).getExecutorID());
+            if (thread != null && !executors.get(i).isChained() && !parked.contains(executors.get(i).getExecutorID())) {
+                thread.release();
+            }
+        }
+        LOG.info("Resume all threads.");
     }
 
 //    long[] rebinding(int[] cpu) {
@@ -409,7 +651,7 @@ public class ExecutionManager {
     }
 
     public void recreates_queue() {
-        for (executorThread thread : ThreadMap.values()) {
+        for (executorThread thread : threads()) {
             long[] rebinding = this.rebinding(thread.cpu);
 //            thread.cpu = rebinding;
             LOG.info("Recreates queue for " + thread.getOP() + ", Bind EM to " + " on core: " + Arrays.toString(thread.cpu) + "binding:"
@@ -427,20 +669,6 @@ public class ExecutionManager {
 
     }
 
-    public void resume() {
-        for (executorThread thread : ThreadMap.values()) {
-            thread.resume();
-        }
-        LOG.info("Resume all threads.");
-    }
-
-    public void pause() {
-        for (executorThread thread : ThreadMap.values()) {
-            thread.suspend();
-        }
-        LOG.info("Pause all threads.");
-    }
-
     /**
      * stop EM
      * It stops all execution threads as well.
@@ -448,6 +676,7 @@ public class ExecutionManager {
     public void exist() {
         LOG.info("Execution stops.");
         this.getSinkThread().getContext().Sequential_stopAll();
+        g.clearSplitKeys();
     }
 
     public executorThread getSinkThread() {
@@ -10,6 +10,7 @@ import brisk.controller.input.InputStreamController;
 import brisk.controller.output.OutputController;
 import brisk.controller.output.PartitionController;
 import brisk.execution.runtime.tuple.impl.Marker;
+import brisk.faulttolerance.State;
 import brisk.faulttolerance.Writer;
 import brisk.optimization.impl.SchedulingPlan;
 import brisk.optimization.model.RateModel;
@@ -53,6 +54,8 @@ public class ExecutionNode implements Serializable {
     private boolean _statistics;
     private boolean first_executor;
     private boolean needsProfile;
+    private ExecutionNode chained;//consumer executed by this executor, in its own thread.
+    private ExecutionNode chainHost;//producer that executes this executor, which then has no thread.
 
     public ExecutionNode(TopologyComponent rec, int i, Platform p, int compressRatio) {
         this.operator = rec;
@@ -518,6 +521,47 @@ public class ExecutionNode implements Serializable {
         return executorID == -2;
     }
 
+    /**
+     * Fuse the consumer into this executor: its input batches are executed directly by this executor's thread.
+     */
+    void chain(ExecutionNode consumer) {
+        chained = consumer;
+        consumer.chainHost = this;
+    }
+
+    void unchain() {
+        if (chained != null) {
+            chained.chainHost = null;
+            chained = null;
+        }
+    }
+
+    public ExecutionNode getChained() {
+        return chained;
+    }
+
+    public ExecutionNode getChainHost() {
+        return chainHost;
+    }
+
+    /**
+     * @return true if this executor runs in the thread of its producer.
+     */
+    public boolean isChained() {
+        return chainHost != null;
+    }
+
+    /**
+     * @return the executor whose thread runs this one, itself if it is not chained.
+     */
+    public ExecutionNode getThreadHost() {
+        ExecutionNode host = this;
+        while (host.chainHost != null) {
+            host = host.chainHost;
+        }
+        return host;
+    }
+
     public void display() {
         op.display();
     }
@@ -530,6 +574,21 @@ public class ExecutionNode implements Serializable {
         op.configureWriter(writer);
     }
 
+    public State getState() {
+        return op == null ? null : op.getState();
+    }
+
+    /**
+     * @return true if this is a spout that can re-emit its input from an offset, see {@link #rewind(long)}.
+     */
+    public boolean isReplayable() {
+        return op instanceof SpoutExecutor && ((SpoutExecutor) op).isReplayable();
+    }
+
+    public void rewind(long offset) {
+        op.rewind(offset);
+    }
+
     public void clean_state(Marker marker) {
         op.clean_state(marker);
     }
@@ -8,6 +8,8 @@ import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.collector.OutputCollector;
 import brisk.execution.runtime.tuple.TransferTuple;
 import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.execution.runtime.tuple.impl.Watermark;
+import brisk.metrics.Metrics;
 import brisk.optimization.OptimizationManager;
 import brisk.optimization.model.STAT;
 import ch.usi.overseer.OverHpc;
@@ -23,6 +25,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.javamex.classmexer.MemoryUtil.VisibilityFilter.ALL;
 import static util.OsUtils.isUnix;
@@ -41,7 +44,9 @@ public class boltThread extends executorThread {
 
     public volatile boolean binding_finished = false;
     private boolean UNIX = false;
-    private int miss = 0;
+    private final AtomicLong miss = new AtomicLong();//fetches that found nothing, read by the metrics reporter.
+    private int idle;//backoff state of the wait strategy, reset on every successful fetch.
+    private final boolean recycle;//hand drained batches back to their producers.
 
     /**
      * @param e
@@ -63,6 +68,8 @@ public class boltThread extends executorThread {
         this.collector = new OutputCollector(e, context);
         batch = conf.getInt("batch", 100);
         bolt.setExecutionNode(e);
+        recycle = conf.getBoolean("recycle", false) && !bolt.retainsInput();
+        idle = scheduler.spinTries();
 
     }
 
@@ -124,7 +131,7 @@ public class boltThread extends executorThread {
 
 //							for (int index = 0; index < batch; index++) {
 //								if (UNIX) {
-                        size_of_tuple = MemoryUtil.deepMemoryUsageOf(in.msg[0].getValue(), ALL);
+                        size_of_tuple = MemoryUtil.deepMemoryUsageOf(in.getMsg(0).getValue(), ALL);
 //								}
                         assert size_of_tuple >= 0;
                         stat.setProfiling(true, size_of_tuple);
@@ -132,6 +139,9 @@ public class boltThread extends executorThread {
                     } else {
                         bolt.execute(in);
                     }
+                    if (recycle) {
+                        in.recycle();
+                    }
                 } else {
                     i--;//make sure only the actual execution is measured.
                     //LOG.info("BasicBoltBatchExecutor:" + this.executor.operator.id+"
@@ -161,10 +171,24 @@ public class boltThread extends executorThread {
 
         TransferTuple in = fetchResult();
         if (in != null) {
-            bolt.execute(in);
-            cnt += batch;
+            final Watermark watermark = in.getWatermark();
+            if (watermark != null) {
+                bolt.watermark(in.getSourceTask(), watermark.timestamp);
+            } else {
+                final int length = in.length;//before the batch is recycled.
+                bolt.execute(in);
+                if (recycle) {
+                    in.recycle();
+                }
+                cnt += batch;
+                processed(length);
+            }
+            idle = scheduler.spinTries();
         } else {
-            miss++;
+            if (counted) {
+                miss.lazySet(miss.get() + 1);
+            }
+            idle = scheduler.idle(idle);
         }
     }
 
@@ -172,6 +196,12 @@ public class boltThread extends executorThread {
         _execute_noControl();
     }
 
+    @Override
+    public void register_metrics(String group) {
+        super.register_metrics(group);
+        Metrics.register(group, "empty_polls", miss::get);
+    }
+
     @Override
     public void run() {
 
@@ -194,6 +224,7 @@ public class boltThread extends executorThread {
 
             //do preparation.
             bolt.prepare(conf, context, collector);
+            prepare_chained();
 
             this.Ready(LOG);
 
@@ -250,7 +281,7 @@ public class boltThread extends executorThread {
             LOG.info(this.executor.getOP_full()
                             + "\tfinished execution and exist with throughput of:\t"
                             + actual_throughput + "(" + (actual_throughput / expected_throughput) + ")"
-                            + " on node: " + node + " fetch miss rate:" + miss / (cnt + miss) * 100
+                            + " on node: " + node + " fetch miss rate:" + miss.get() / (cnt + miss.get()) * 100
 //					+ " ( " + Arrays.show(cpu) +")"
             );
             try {
@@ -483,6 +483,31 @@ public class OutputCollector<T> {
         sc.marker_boardcast(meta, streamId, bid, marker);
     }
 
+    /**
+     * Forward the event time progress of this executor to its consumers.
+     *
+     * @param watermark in ms.
+     * @throws InterruptedException
+     */
+    public void broadcast_watermark(long watermark) throws InterruptedException {
+        broadcast_watermark(watermark, Long.MIN_VALUE);
+    }
+
+    /**
+     * Forward the event time progress of this executor to its consumers, and the BID progress of its output: the
+     * batches it emits after this one have a BID of at least progress, so an ordered consumer does not wait for it.
+     *
+     * @param watermark in ms, Long.MIN_VALUE to publish only the progress.
+     * @param progress  BID, Long.MIN_VALUE if unknown.
+     * @throws InterruptedException
+     */
+    public void broadcast_watermark(long watermark, long progress) throws InterruptedException {
+        if (executor.isLeafNode()) {
+            return;
+        }
+        sc.watermark_boardcast(meta, watermark, progress);
+    }
+
 
     /**
      * Only ``sink" operator shall call this function!
@@ -1,8 +1,10 @@
 package brisk.execution.runtime;
 
-import brisk.components.TopologyComponent;
 import brisk.components.context.TopologyContext;
+import brisk.controller.output.PartitionController;
 import brisk.execution.ExecutionNode;
+import brisk.execution.runtime.collector.OutputCollector;
+import brisk.metrics.Metrics;
 import ch.usi.overseer.OverHpc;
 import machine.Platform;
 import net.openhft.affinity.AffinityLock;
@@ -15,6 +17,7 @@ import java.util.HashMap;
 import java.util.Queue;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static brisk.controller.affinity.SequentialBinding.next_cpu;
 import static xerial.jnuma.Numa.*;
@@ -34,7 +37,7 @@ public abstract class executorThread extends Thread {
     public boolean profiling = false;
     public long[] cpu;
     public int node;
-    public boolean migrating = false;
+    public volatile boolean migrating = false;
     protected AffinityLock lock;
     double expected_throughput = 0;
     boolean not_yet_profiled = true;
@@ -45,11 +48,19 @@ public abstract class executorThread extends Thread {
     int batch;
     private boolean start = true;
     private volatile boolean ready = false;
+    private final Object pause_lock = new Object();
+    private volatile boolean pause_requested = false;
+    private volatile boolean paused = false;
+    private boolean relocated = false;//moves to another socket, its output queues follow.
+    private final AtomicLong tuples = new AtomicLong();//written by this thread only, read by the metrics reporter.
+    private final AtomicLong batches = new AtomicLong();
+    final boolean counted;//tuples and batches are counted only for the metrics or the dynamic optimization.
 
     protected executorThread(ExecutionNode e, Configuration conf, TopologyContext context
             , long[] cpu, int node, CountDownLatch latch, OverHpc HPCMonotor, HashMap<Integer, executorThread> threadMap) {
         this.context = context;
         this.conf = conf;
+        counted = conf.getBoolean("metrics", false) || conf.getBoolean("DO", false);
         executor = e;
         this.cpu = cpu;
         this.node = node;
@@ -209,81 +220,129 @@ public abstract class executorThread extends Thread {
     public void initilize_queue(int executorID) {
         allocate_OutputQueue();
         assign_InputQueue();
+        for (ExecutionNode e = executor.getChained(); e != null; e = e.getChained()) {
+            e.allocate_OutputQueue(conf.getBoolean("linked", false), 100000);
+            for (String streamId : e.operator.getOutput_streamsIds()) {
+                e.setReceive_queueOfChildren(streamId);
+            }
+        }
     }
 
-    private void _migrate() {
-        //TODO: disable migration for now.... We only profile once..
-        if (migrating) {
-            executorThread.LOG.info(this.executor.getOP() + " start migrating");
-            rebinding_clean();
-            not_yet_profiled = true;
-            this.pause_parent();
-            //wait until all output queues become empty here.
-            while (!this.executor.isEmpty()) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+    /**
+     * Prepare the executors chained into this one, which have no thread of their own, and count them down as ready.
+     */
+    void prepare_chained() {
+        for (ExecutionNode e = executor.getChained(); e != null; e = e.getChained()) {
+            final TopologyContext chained_context = new TopologyContext(context.getGraph(), TopologyContext.plan, e, threadMap, hpcMonotor);
+            if (!e.isLeafNode()) {
+                e.getController().setContext(e.getExecutorID(), chained_context);
             }
-            LOG.info(this.executor.getOP() + " has no outputs now, recreates its output queues now!");
-            //pause its consumers.
+            e.op.setExecutionNode(e);
+            e.op.prepare(conf, chained_context, new OutputCollector(e, chained_context));
+            LOG.info(e.getOP_full() + " is chained into " + executor.getOP_full());
+            latch.countDown();
+        }
+    }
 
-            this.pause();
+    /**
+     * Carried out by the thread itself while it is parked at its safepoint, so it never moves in the middle of a batch.
+     * The execution manager parks all executors once their input queues are drained, so the output queues can be
+     * re-created on the new socket without losing tuples.
+     */
+    private void _migrate() {
+        LOG.info(this.executor.getOP() + " start migrating");
+        if (lock != null) {
+            lock.release();
+            lock = null;
+        }
+        rebinding_clean();
+        not_yet_profiled = true;
+        if (relocated) {
+            LOG.info(this.executor.getOP() + " has no outputs now, recreates its output queues now!");
             initilize_queue(this.executor.getExecutorID());
-            executorThread.LOG.info(this.executor.getOP() + " migrating complete");
-            this.restart();
-            this.restart_parents();
-//            Thread.sleep(migration_gaps);
-            migrating = false;
+            relocated = false;
         }
+        LOG.info(this.executor.getOP() + " migrating complete");
+        migrating = false;
     }
 
-    private void pause() {
-        for (TopologyComponent children : this.executor.getChildren_keySet()) {
-            for (ExecutionNode c : children.getExecutorList()) {
-                if (threadMap.get(c.getExecutorID()) != null) {
-                    threadMap.get(c.getExecutorID()).suspend();
-                } else {
-                    LOG.info(c.getOP() + " do not have threads.");
+    /**
+     * Cooperative pause point, reached between two batches: the thread parks here while a pause is requested
+     * and performs its pending migration, if any.
+     * Before it reports paused, it offers the partial batches it buffers, so that a paused executor has handed all
+     * its output to its queues and the cut taken by the execution manager holds every tuple emitted before it.
+     */
+    private void safepoint() {
+        if (!pause_requested) {
+            return;
+        }
+        flush();
+        synchronized (pause_lock) {
+            paused = true;
+            pause_lock.notifyAll();
+            try {
+                while (pause_requested) {
+                    if (migrating) {
+                        _migrate();
+                        pause_lock.notifyAll();
+                    }
+                    pause_lock.wait();
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                paused = false;
             }
         }
     }
 
-    private void pause_parent() {
-        for (TopologyComponent parent : this.executor.getParents_keySet()) {
-            for (ExecutionNode p : parent.getExecutorList()) {
-                if (threadMap.get(p.getExecutorID()) != null) {
-                    threadMap.get(p.getExecutorID()).suspend();
-                } else {
-                    LOG.info(p.getOP() + " do not have threads.");
-                }
+    /**
+     * Offer the partial output batches of the executor and of those chained into it, producers first, as a chained
+     * consumer executed by the flush may buffer output of its own.
+     */
+    private void flush() {
+        for (ExecutionNode e = executor; e != null; e = e.getChained()) {
+            if (e.isLeafNode() || e.getController() == null) {
+                continue;
+            }
+            for (PartitionController pc : e.getController().getPartitionController()) {
+                pc.flush(e.getExecutorID());
             }
         }
     }
 
-    private void restart() {
-        for (TopologyComponent children : this.executor.getChildren_keySet()) {
-            for (ExecutionNode c : children.getExecutorList()) {
-                if (threadMap.get(c.getExecutorID()) != null) {
-                    threadMap.get(c.getExecutorID()).resume();
-                } else {
-                    LOG.info(c.getOP() + " do not have threads.");
-                }
+    /**
+     * Ask the thread to park at its next safepoint, see {@link #isPaused()}.
+     */
+    public void request_pause() {
+        pause_requested = true;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Let the parked thread carry out the migration set by migrate(..), and wait until it is done.
+     *
+     * @throws InterruptedException
+     */
+    public void await_migration() throws InterruptedException {
+        synchronized (pause_lock) {
+            pause_lock.notifyAll();
+            while (migrating) {
+                pause_lock.wait();
             }
         }
     }
 
-    private void restart_parents() {
-        for (TopologyComponent parent : this.executor.getParents_keySet()) {
-            for (ExecutionNode p : parent.getExecutorList()) {
-                if (threadMap.get(p.getExecutorID()) != null) {
-                    threadMap.get(p.getExecutorID()).resume();
-                } else {
-                    LOG.info(p.getOP() + " do not have threads.");
-                }
-            }
+    /**
+     * Resume a paused thread.
+     */
+    public void release() {
+        synchronized (pause_lock) {
+            pause_requested = false;
+            pause_lock.notifyAll();
         }
     }
 
@@ -296,9 +355,18 @@ public abstract class executorThread extends Thread {
 
     public void migrate(int node) {
         migrating = true;//wait to be scheduled.
+        relocated |= node != this.node;
         this.node = node;
     }
 
+    /**
+     * Re-create the output queues at the next migration, as a consumer moved and a placed queue follows it.
+     */
+    public void relocate() {
+        migrating = true;
+        relocated = true;
+    }
+
     private void allocate_OutputQueue() {
 //        if (enable_latency_measurement) {
 //            executor.allocate_OutputQueue(conf.getBoolean("linked", false), 2);//no queueing delay.
@@ -343,7 +411,7 @@ public abstract class executorThread extends Thread {
             } else {
                 _execute();
             }
-            _migrate();
+            safepoint();
         }//thread exist running
         end_emit = System.nanoTime();
     }
@@ -357,6 +425,7 @@ public abstract class executorThread extends Thread {
         }
         while (running) {
             _execute();
+            safepoint();
 //			_migrate(LOG);//even if this thread is not under measurement, it may still need to be re-scheduled.
 //            if (s++ % 10000 == 0)
 //                this.executor.op.display();
@@ -379,10 +448,40 @@ public abstract class executorThread extends Thread {
         return executor.getOP();
     }
 
+    /**
+     * @return number of events processed so far, as published by {@link #processed(int)} to other threads,
+     * 0 unless they are counted.
+     */
+    public double getProcessed() {
+        return tuples.get();
+    }
+
     public double getResults() {
         return executor.op.getResults();
     }
 
+    /**
+     * Count a batch processed, for the metrics and the dynamic optimization, and only if one of them is enabled.
+     * Single writer, so an ordered store publishes it without a fence.
+     *
+     * @param tuples in the batch.
+     */
+    final void processed(int tuples) {
+        if (counted) {
+            this.tuples.lazySet(this.tuples.get() + tuples);
+            batches.lazySet(batches.get() + 1);
+        }
+    }
+
+    /**
+     * Register the metrics of this executor: tuples processed (received by a bolt, emitted by a spout) and batches
+     * (fetched by a bolt, emitted by a spout), as counted by {@link #processed(int)}.
+     */
+    public void register_metrics(String group) {
+        Metrics.register(group, "tuples", tuples::get);
+        Metrics.register(group, "batches", batches::get);
+    }
+
     public boolean isReady() {
         return ready;
     }
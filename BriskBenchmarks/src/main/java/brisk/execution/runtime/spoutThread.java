@@ -27,6 +27,11 @@ public class spoutThread extends executorThread {
     private final int timeSliceLengthMs;
     private final int elements;
     private final OutputCollector collector;
+    private final long watermark_interval;//ms between two watermarks, 0 if the spout does not send any.
+    private final long watermark_lag;
+    private long next_watermark;
+    private final long checkpoint_interval;//ms between two checkpoints started by this spout, 0 if fault tolerance is off.
+    private long next_checkpoint;
     int sleep_time = 0;
     int busy_time = 0;
 
@@ -51,6 +56,10 @@ public class spoutThread extends executorThread {
         this.collector = new OutputCollector(e, context);
         batch = conf.getInt("batch", 100);
         elements = loadPerTimeslice();//how many elements are required to sent each time.
+        watermark_interval = conf.getBoolean("profile", false) ? 0 : conf.getInt("watermark_interval", 0);
+        watermark_lag = conf.getInt("watermark_lag", 0);
+        checkpoint_interval = conf.getBoolean("profile", false) || !conf.getBoolean("Fault_tolerance", false)
+                ? 0 : (long) (conf.getDouble("checkpoint", 1) * 1000);//--checkpoint is in s.
         sp.setExecutionNode(e);
     }
 
@@ -58,6 +67,21 @@ public class spoutThread extends executorThread {
     protected void _execute_noControl() throws InterruptedException {
         sp.bulk_emit(batch);
         cnt += batch;
+        processed(batch);
+        if (watermark_interval > 0) {
+            final long now = System.currentTimeMillis();
+            if (now >= next_watermark) {
+                next_watermark = now + watermark_interval;
+                sp.emit_watermark(watermark_lag);
+            }
+        }
+        if (checkpoint_interval > 0) {
+            final long now = System.currentTimeMillis();
+            if (now >= next_checkpoint) {
+                next_checkpoint = now + checkpoint_interval;
+                sp.checkpoint();
+            }
+        }
     }
 
     protected void _execute() throws InterruptedException {
@@ -110,6 +134,7 @@ public class spoutThread extends executorThread {
 
 
             sp.prepare(conf, context, collector);
+            prepare_chained();
             Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
 //            Thread.currentThread().setDaemon(true);
 
@@ -189,6 +214,7 @@ public class spoutThread extends executorThread {
         long emitStartTime = System.currentTimeMillis();
         sp.bulk_emit(elements);
         cnt += elements;
+        processed(elements);
         // Sleep for the rest of timeslice if needed
         long emitTime = System.currentTimeMillis() - emitStartTime;
         if (emitTime < timeSliceLengthMs) {// in terms of milliseconds.
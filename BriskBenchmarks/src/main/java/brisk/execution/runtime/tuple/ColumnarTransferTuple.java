@@ -0,0 +1,274 @@
+package brisk.execution.runtime.tuple;
+
+import brisk.components.context.TopologyContext;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.Marker;
+import brisk.execution.runtime.tuple.impl.Message;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.execution.runtime.tuple.impl.msgs.GeneralMsg;
+
+/**
+ * A batch of a single stream whose declared (typed) output fields are stored column by column:
+ * int[], long[], double[] and char[][] for the corresponding field types, Object[] for everything else.
+ * Typed accessors read straight from the columns, so neither the producer nor the consumer boxes.
+ * <p>
+ * Rows that are not written through the columns (markers, values emitted through an untyped emit, or values that
+ * do not match the declared types) are kept as plain messages in {@link #msg}; a columnar row has a null message slot.
+ * <p>
+ * Only consumers that read the columns, through the typed getters of the batch or a {@link FieldAccessor} (as
+ * MovingAverageBolt and SpikeDetectionBolt do), gain from it: {@link #getMsg(int)} and {@link #getTuple(int)} box a
+ * columnar row back into a message, which costs more than a row-mode batch would have.
+ */
+public class ColumnarTransferTuple extends TransferTuple {
+    private static final int INT = 0, LONG = 1, DOUBLE = 2, CHARS = 3, OBJECT = 4;
+
+    private final String streamId;
+    private final int[] kinds;
+    private final Object[] columns;
+    private final boolean int_double_double;
+    private final boolean chars_long;
+
+    public ColumnarTransferTuple(int sourceId, long bid, int length, TopologyContext context, String streamId, Fields schema) {
+        super(sourceId, bid, length, context);
+        this.streamId = streamId;
+        final int size = schema.size();
+        kinds = new int[size];
+        columns = new Object[size];
+        for (int f = 0; f < size; f++) {
+            final Class<?> type = schema.getType(f);
+            if (type == int.class || type == Integer.class) {
+                kinds[f] = INT;
+                columns[f] = new int[length];
+            } else if (type == long.class || type == Long.class) {
+                kinds[f] = LONG;
+                columns[f] = new long[length];
+            } else if (type == double.class || type == Double.class) {
+                kinds[f] = DOUBLE;
+                columns[f] = new double[length];
+            } else if (type == char[].class) {
+                kinds[f] = CHARS;
+                columns[f] = new char[length][];
+            } else {
+                kinds[f] = OBJECT;
+                columns[f] = new Object[length];
+            }
+        }
+        int_double_double = size == 3 && kinds[0] == INT && kinds[1] == DOUBLE && kinds[2] == DOUBLE;
+        chars_long = size == 2 && kinds[0] == CHARS && kinds[1] == LONG;
+    }
+
+    /**
+     * Write a row through the columns. A row that does not follow the declared schema, by its arity or the type of a
+     * value (a null primitive included), is kept as a message instead.
+     *
+     * @param p
+     * @param values
+     */
+    public void set(int p, Object... values) {
+        if (!matches(values)) {
+            add(p, new GeneralMsg<Object>(streamId, values));
+            return;
+        }
+        for (int f = 0; f < kinds.length; f++) {
+            switch (kinds[f]) {
+                case INT:
+                    ((int[]) columns[f])[p] = (int) values[f];
+                    break;
+                case LONG:
+                    ((long[]) columns[f])[p] = (long) values[f];
+                    break;
+                case DOUBLE:
+                    ((double[]) columns[f])[p] = (double) values[f];
+                    break;
+                case CHARS:
+                    ((char[][]) columns[f])[p] = (char[]) values[f];
+                    break;
+                default:
+                    ((Object[]) columns[f])[p] = values[f];
+            }
+        }
+        msg[p] = null;
+    }
+
+    private boolean matches(Object[] values) {
+        if (values.length != kinds.length) {
+            return false;
+        }
+        for (int f = 0; f < kinds.length; f++) {
+            final Object value = values[f];
+            switch (kinds[f]) {
+                case INT:
+                    if (!(value instanceof Integer)) {
+                        return false;
+                    }
+                    break;
+                case LONG:
+                    if (!(value instanceof Long)) {
+                        return false;
+                    }
+                    break;
+                case DOUBLE:
+                    if (!(value instanceof Double)) {
+                        return false;
+                    }
+                    break;
+                case CHARS:
+                    if (value != null && !(value instanceof char[])) {
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+
+    public void set(int p, int value0, double value1, double value2) {
+        if (!int_double_double) {
+            set(p, new Object[]{value0, value1, value2});
+            return;
+        }
+        ((int[]) columns[0])[p] = value0;
+        ((double[]) columns[1])[p] = value1;
+        ((double[]) columns[2])[p] = value2;
+        msg[p] = null;
+    }
+
+    public void set(int p, char[] key, long value) {
+        if (!chars_long) {
+            set(p, new Object[]{key, value});
+            return;
+        }
+        ((char[][]) columns[0])[p] = key;
+        ((long[]) columns[1])[p] = value;
+        msg[p] = null;
+    }
+
+    public void set(int p, char[] value) {
+        if (kinds.length != 1 || kinds[0] != CHARS) {
+            set(p, new Object[]{value});
+            return;
+        }
+        ((char[][]) columns[0])[p] = value;
+        msg[p] = null;
+    }
+
+    /**
+     * @param i
+     * @return false if row i is a marker or was not written through the columns.
+     */
+    public boolean isColumnar(int i) {
+        return msg[i] == null;
+    }
+
+    public int[] getIntColumn(int index_field) {
+        return (int[]) columns[index_field];
+    }
+
+    public long[] getLongColumn(int index_field) {
+        return (long[]) columns[index_field];
+    }
+
+    public double[] getDoubleColumn(int index_field) {
+        return (double[]) columns[index_field];
+    }
+
+    public char[][] getCharArrayColumn(int index_field) {
+        return (char[][]) columns[index_field];
+    }
+
+    public Object[] getObjectColumn(int index_field) {
+        return (Object[]) columns[index_field];
+    }
+
+    @Override
+    public int getInt(int index_field, int index_msg) {
+        if (msg[index_msg] != null) {
+            return super.getInt(index_field, index_msg);
+        }
+        return ((int[]) columns[index_field])[index_msg];
+    }
+
+    @Override
+    public long getLong(int index_field, int index_msg) {
+        if (msg[index_msg] != null) {
+            return super.getLong(index_field, index_msg);
+        }
+        return ((long[]) columns[index_field])[index_msg];
+    }
+
+    @Override
+    public double getDouble(int index_field, int index_msg) {
+        if (msg[index_msg] != null) {
+            return super.getDouble(index_field, index_msg);
+        }
+        return ((double[]) columns[index_field])[index_msg];
+    }
+
+    @Override
+    public char[] getCharArray(int index_field, int index_msg) {
+        if (msg[index_msg] != null) {
+            return super.getCharArray(index_field, index_msg);
+        }
+        return ((char[][]) columns[index_field])[index_msg];
+    }
+
+    /**
+     * Boxes primitive columns. Use the typed accessors on the hot path.
+     */
+    @Override
+    public Object getValue(int index_field, int index_msg) {
+        if (msg[index_msg] != null) {
+            return super.getValue(index_field, index_msg);
+        }
+        switch (kinds[index_field]) {
+            case INT:
+                return ((int[]) columns[index_field])[index_msg];
+            case LONG:
+                return ((long[]) columns[index_field])[index_msg];
+            case DOUBLE:
+                return ((double[]) columns[index_field])[index_msg];
+            case CHARS:
+                return ((char[][]) columns[index_field])[index_msg];
+            default:
+                return ((Object[]) columns[index_field])[index_msg];
+        }
+    }
+
+    /**
+     * Materializes a columnar row as a message, boxing its primitives, only for consumers that are not column aware.
+     */
+    @Override
+    public Message getMsg(int index_msg) {
+        if (msg[index_msg] != null) {
+            return msg[index_msg];
+        }
+        final Object[] values = new Object[kinds.length];
+        for (int f = 0; f < kinds.length; f++) {
+            values[f] = getValue(f, index_msg);
+        }
+        return new GeneralMsg<Object>(streamId, values);
+    }
+
+    /**
+     * Boxes a columnar row, see {@link #getMsg(int)}.
+     */
+    @Override
+    public Tuple getTuple(int i) {
+        return new Tuple(getBID(), sourceId, getContext(), getMsg(i));
+    }
+
+    @Override
+    public Marker getMarker(int i) {
+        if (msg[i] != null) {
+            return msg[i].getMarker();
+        }
+        return null;
+    }
+
+    @Override
+    public String getSourceStreamId(int index_msg) {
+        return streamId;
+    }
+}
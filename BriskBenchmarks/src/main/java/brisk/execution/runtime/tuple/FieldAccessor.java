@@ -0,0 +1,76 @@
+package brisk.execution.runtime.tuple;
+
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.Tuple;
+
+import java.io.Serializable;
+
+/**
+ * A field of an input stream whose position has been resolved against the declared schema once.
+ * Reading it is a plain index into the message (or the column of a columnar batch),
+ * instead of the component/stream/field lookups done by the *ByField accessors on every call.
+ * <p>
+ * Obtain one in {@code initialize} via {@link brisk.components.operators.api.AbstractBolt#accessor}.
+ */
+public final class FieldAccessor implements Serializable {
+    private static final long serialVersionUID = 5502826185468370137L;
+    private final String field;
+    private final int index;
+
+    private FieldAccessor(String field, int index) {
+        this.field = field;
+        this.index = index;
+    }
+
+    public static FieldAccessor of(Fields schema, String field) {
+        return new FieldAccessor(field, schema.fieldIndex(field));
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Object get(TransferTuple in, int index_msg) {
+        return in.getValue(index, index_msg);
+    }
+
+    public int getInt(TransferTuple in, int index_msg) {
+        return in.getInt(index, index_msg);
+    }
+
+    public long getLong(TransferTuple in, int index_msg) {
+        return in.getLong(index, index_msg);
+    }
+
+    public double getDouble(TransferTuple in, int index_msg) {
+        return in.getDouble(index, index_msg);
+    }
+
+    public char[] getCharArray(TransferTuple in, int index_msg) {
+        return in.getCharArray(index, index_msg);
+    }
+
+    public Object get(Tuple in) {
+        return in.getValue(index);
+    }
+
+    public int getInt(Tuple in) {
+        return in.getInt(index);
+    }
+
+    public long getLong(Tuple in) {
+        return in.getLong(index);
+    }
+
+    public double getDouble(Tuple in) {
+        return in.getDouble(index);
+    }
+
+    public char[] getCharArray(Tuple in) {
+        return in.getCharArray(index);
+    }
+}
@@ -4,9 +4,12 @@ import brisk.components.context.TopologyContext;
 import brisk.execution.runtime.tuple.impl.Marker;
 import brisk.execution.runtime.tuple.impl.Message;
 import brisk.execution.runtime.tuple.impl.Tuple;
+import brisk.execution.runtime.tuple.impl.Watermark;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Queue;
+
 /**
  * Created by shuhaozhang on 10/7/16.
  * TODO:Make it generic!!
@@ -24,16 +27,25 @@ public class TransferTuple implements Comparable<TransferTuple> {
     //	private final int targetTasks;//this is no longer required as we avoid the usage of multi-consumer based implementation.
     public int length;//length of batch
     private long bid;
+    private Queue<TransferTuple> recycler;//return ring of the producer, null if batch recycling is disabled.
+    private long offered;//System.nanoTime() when the producer offered this batch, 0 if not stamped.
     //context is not going to be serialized.
 
 
+    /**
+     * A row-mode copy: the rows of a columnar batch are materialized as messages.
+     *
+     * @param clone
+     */
     public TransferTuple(TransferTuple clone) {
         this.bid = clone.bid;
         this.sourceId = clone.sourceId;
         this.length = clone.length;
         this.context = clone.context;
         msg = new Message[length];
-        System.arraycopy(clone.msg, 0, msg, 0, length);
+        for (int i = 0; i < length; i++) {
+            msg[i] = clone.getMsg(i);
+        }
     }
 
 
@@ -85,10 +97,46 @@ public class TransferTuple implements Comparable<TransferTuple> {
         return context;
     }
 
-    public void add(Integer p, Message message) {
+    public void add(int p, Message message) {
         msg[p] = message;
     }
 
+    /**
+     * Stamp the batch as it is offered to the queue, to measure its residence when fetched.
+     */
+    public void stamp() {
+        this.offered = System.nanoTime();
+    }
+
+    public long getOffered() {
+        return offered;
+    }
+
+    public void setRecycler(Queue<TransferTuple> recycler) {
+        this.recycler = recycler;
+    }
+
+    /**
+     * Re-initialize a recycled batch shell before the producer fills it again.
+     * Message slots are kept so that they can be overwritten in place.
+     *
+     * @param bid
+     */
+    public void reset(long bid) {
+        this.bid = bid;
+        this.length = msg.length;
+    }
+
+    /**
+     * Hand this batch back to its producer once the consumer has fully drained it.
+     * It does nothing if the batch is not recyclable, and the batch is simply dropped if the return ring is full.
+     */
+    public void recycle() {
+        if (recycler != null) {
+            recycler.offer(this);
+        }
+    }
+
 
     public String getSourceComponent() {
         return context.getComponent(sourceId).getId();
@@ -106,6 +154,16 @@ public class TransferTuple implements Comparable<TransferTuple> {
         return msg[i].getMarker();
     }
 
+    /**
+     * @return the watermark if this batch carries one, which is then its only message, null otherwise.
+     */
+    public Watermark getWatermark() {
+        if (length == 1 && msg[0] instanceof Watermark) {
+            return (Watermark) msg[0];
+        }
+        return null;
+    }
+
 
     public Object getValue(int index_field, int index_msg) {
         return msg[index_msg].getValue(index_field);
@@ -117,7 +175,7 @@ public class TransferTuple implements Comparable<TransferTuple> {
     }
 
     public Object getValueByField(String field, int index_msg) {
-        return msg[index_msg].getValue(fieldIndex(field, index_msg));
+        return getValue(fieldIndex(field, index_msg), index_msg);
     }
 
 
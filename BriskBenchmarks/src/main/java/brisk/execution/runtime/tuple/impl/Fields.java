@@ -13,12 +13,34 @@ public class Fields implements Iterable<String>, Serializable {
 
     private final List<String> _fields;
     private final Map<String, Integer> _index = new HashMap<>();
+    private final Class<?>[] _types;//declared type of each field, null if the schema is untyped.
 
     public Fields(String... fields) {
         this(Arrays.asList(fields));
     }
 
+    /**
+     * Typed schema, e.g. {@code new Fields(new Class<?>[]{int.class, double.class}, "id", "value")}.
+     * Streams declared with a typed schema can be shipped as primitive columns (see ColumnarTransferTuple).
+     *
+     * @param types
+     * @param fields
+     */
+    public Fields(Class<?>[] types, String... fields) {
+        this(Arrays.asList(fields), types);
+    }
+
     public Fields(List<String> fields) {
+        this(fields, null);
+    }
+
+    private Fields(List<String> fields, Class<?>[] types) {
+        if (types != null && types.length != fields.size()) {
+            throw new IllegalArgumentException(
+                    String.format("%d types declared for %d fields", types.length, fields.size())
+            );
+        }
+        _types = types;
         _fields = new ArrayList<>(fields.size());
         for (String field : fields) {
             if (_fields.contains(field)) {
@@ -80,4 +102,12 @@ public class Fields implements Iterable<String>, Serializable {
     public int size() {
         return _fields.size();
     }
+
+    public boolean isTyped() {
+        return _types != null;
+    }
+
+    public Class<?> getType(int i) {
+        return _types[i];
+    }
 }
@@ -0,0 +1,39 @@
+package brisk.execution.runtime.tuple.impl;
+
+/**
+ * Event time progress of a producer: it will not emit tuples with a timestamp below this one any more.
+ * Like a marker it is a control message, but it travels in-band, as the only message of a batch offered
+ * behind the batches emitted before it, so a consumer sees it after the tuples it covers.
+ * <p>
+ * The BID of that batch is the BID progress of the producer: the batches it emits after have a BID of at least this
+ * one (Long.MIN_VALUE if it does not know), which lets an ordered consumer go on while the producer is idle.
+ */
+public class Watermark extends Message {
+    private static final long serialVersionUID = -4312806273310358472L;
+    public final long timestamp;
+
+    public Watermark(String streamId, long timestamp) {
+        super(streamId, 0);
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public Object getValue() {
+        return timestamp;
+    }
+
+    @Override
+    public Object getValue(int index_fields) {
+        return timestamp;
+    }
+
+    @Override
+    public boolean isMarker() {
+        return false;
+    }
+
+    @Override
+    public Marker getMarker() {
+        return null;
+    }
+}
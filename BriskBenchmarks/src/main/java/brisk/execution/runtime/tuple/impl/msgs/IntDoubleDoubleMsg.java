@@ -5,9 +5,9 @@ import brisk.execution.runtime.tuple.impl.Message;
 
 public class IntDoubleDoubleMsg extends Message {
     private static final long serialVersionUID = -285716889341771284L;
-    public final int v1;
-    public final double v2;
-    public final double v3;
+    public int v1;//not final so that a recycled batch can overwrite it in place.
+    public double v2;
+    public double v3;
 
     public IntDoubleDoubleMsg(String streamId, int _v1, double _v2, double _v3) {
         super(streamId, 3);
@@ -16,6 +16,12 @@ public class IntDoubleDoubleMsg extends Message {
         v3 = _v3;
     }
 
+    public void set(int _v1, double _v2, double _v3) {
+        v1 = _v1;
+        v2 = _v2;
+        v3 = _v3;
+    }
+
     @Override
     public Object getValue() {
         return v1 + "" + v2 + "" + v3;
@@ -5,8 +5,8 @@ import brisk.execution.runtime.tuple.impl.Message;
 
 public class StringLongMsg extends Message {
     private static final long serialVersionUID = -285716889341771284L;
-    public final char[] str;
-    public final long value;
+    public char[] str;//not final so that a recycled batch can overwrite it in place.
+    public long value;
 
     public StringLongMsg(String streamId, char[] str, long value) {
         super(streamId, 2);
@@ -14,6 +14,11 @@ public class StringLongMsg extends Message {
         this.value = value;
     }
 
+    public void set(char[] str, long value) {
+        this.str = str;
+        this.value = value;
+    }
+
     @Override
     public Object getValue() {
         return str + "" + value;
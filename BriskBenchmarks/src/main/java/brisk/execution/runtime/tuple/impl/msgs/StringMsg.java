@@ -5,13 +5,17 @@ import brisk.execution.runtime.tuple.impl.Message;
 
 public class StringMsg extends Message {
     private static final long serialVersionUID = -8382182763339974896L;
-    public final char[] str;
+    public char[] str;//not final so that a recycled batch can overwrite it in place.
 
     public StringMsg(String streamId, char[] str) {
         super(streamId, 1);
         this.str = str;
     }
 
+    public void set(char[] str) {
+        this.str = str;
+    }
+
     @Override
     public char[] getValue() {
         return str;
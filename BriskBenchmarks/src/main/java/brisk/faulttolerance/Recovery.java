@@ -0,0 +1,439 @@
+package brisk.faulttolerance;
+
+import brisk.execution.ExecutionGraph;
+import brisk.execution.ExecutionNode;
+import brisk.faulttolerance.impl.KeyedState;
+import brisk.faulttolerance.impl.PrimitiveKeyedState;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.Configuration;
+import util.OsUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static applications.Constants.spoutType;
+
+/**
+ * Restores the operators from the latest globally complete checkpoint, before the executors are launched.
+ * <p>
+ * A checkpoint (the directory of a marker id) is complete once every spout executor has committed it,
+ * i.e. all of its consumers have acknowledged the marker (see {@link Writer#commit}).
+ * Each executor is rebuilt from its last full snapshot up to that checkpoint, followed by the deltas in between,
+ * and replayable spouts are rewound to the offset recorded with the marker.
+ * <p>
+ * The marker ids of the new run start over, so the restored checkpoint is rewritten as full snapshots
+ * under marker id {@link #BASE} and every other checkpoint is dropped.
+ */
+public class Recovery {
+    private final static Logger LOG = LoggerFactory.getLogger(Recovery.class);
+    static final long BASE = -1;
+    private static final String ARCHIVE = "archive";
+    private static final byte[] LZ4_MAGIC = {'L', 'Z', '4', 'B', 'l', 'o', 'c', 'k'};
+    private final int threads;
+
+    public Recovery(Configuration conf) {
+        OsUtils.configLOG(LOG);
+        this.threads = Math.max(1, conf.getInt("recovery_threads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    private static File root() {
+        return Writer.checkpoint_dir(BASE).getParentFile();
+    }
+
+    private static File staging() {
+        return new File(root(), "recovering");
+    }
+
+    /**
+     * @return the checkpoint directories, by increasing marker id.
+     */
+    private static ArrayList<Long> checkpoints() {
+        final ArrayList<Long> ids = new ArrayList<>();
+        final File[] dirs = root().listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                try {
+                    ids.add(Long.parseLong(dir.getName()));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        ids.sort(Long::compare);
+        return ids;
+    }
+
+    /**
+     * @return the executors with a state to restore, and the spouts, which commit the checkpoints and may be rewound.
+     */
+    private static ArrayList<ExecutionNode> restorable(ExecutionGraph g) {
+        final ArrayList<ExecutionNode> executors = new ArrayList<>();
+        for (ExecutionNode e : g.getExecutionNodeArrayList()) {
+            if (e.getState() != null || e.operator.type == spoutType) {
+                executors.add(e);
+            }
+        }
+        return executors;
+    }
+
+    private static String path(ExecutionNode e) {
+        return e.operator.getId() + "." + e.getExecutorID();//same as Operator#checkpoint_store.
+    }
+
+    /**
+     * @param dir    of a checkpoint.
+     * @param path   of the executor.
+     * @param shared of its operator, see Writer#save_state_MMIO_shared.
+     * @return the snapshot of the executor in the checkpoint, else the one shared by its operator, null if none.
+     */
+    private static File snapshot(File dir, String path, String shared) {
+        final File[] files = dir.listFiles((d, name) -> name_of(name, path) || name_of(name, shared));
+        if (files == null || files.length == 0) {
+            return null;
+        }
+        for (File file : files) {
+            if (name_of(file.getName(), path)) {
+                return file;
+            }
+        }
+        return files[0];
+    }
+
+    /**
+     * @return true if the file is named path@timestamp, with the suffix of a delta or not.
+     */
+    private static boolean name_of(String name, String path) {
+        if (!name.startsWith(path + "@")) {
+            return false;
+        }
+        String timestamp = name.substring(path.length() + 1);
+        if (timestamp.endsWith(Writer.DELTA_SUFFIX)) {
+            timestamp = timestamp.substring(0, timestamp.length() - Writer.DELTA_SUFFIX.length());
+        }
+        if (timestamp.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < timestamp.length(); i++) {
+            if (!Character.isDigit(timestamp.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param spouts number of spout executors, each commits the checkpoints it starts.
+     * @return the id of the latest complete checkpoint, null if there is none.
+     */
+    Long latest_complete(int spouts) {
+        final ArrayList<Long> ids = checkpoints();
+        for (int i = ids.size() - 1; i >= 0 && spouts > 0; i--) {
+            final String[] commits = Writer.checkpoint_dir(ids.get(i)).list((dir, name) -> name.startsWith(Writer.COMMIT_PREFIX));
+            if (commits != null && commits.length == spouts) {
+                return ids.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A run that does not recover starts a new checkpoint history. The checkpoints of the previous run are moved
+     * under archive/, rather than deleted, so that they can be moved back and recovered from later.
+     */
+    public void archive() {
+        final ArrayList<Long> ids = checkpoints();
+        if (ids.isEmpty() && !staging().exists()) {
+            return;
+        }
+        final File archive = new File(new File(root(), ARCHIVE), String.valueOf(System.currentTimeMillis()));
+        if (!archive.mkdirs()) {
+            throw new IllegalStateException("Failed to create " + archive + " to archive the previous checkpoints");
+        }
+        for (long id : ids) {
+            move(Writer.checkpoint_dir(id), archive);
+        }
+        if (staging().exists()) {
+            move(staging(), archive);
+        }
+        LOG.info("Archived " + ids.size() + " checkpoints of the previous run in " + archive);
+    }
+
+    /**
+     * The checkpoints of the new run would mix with those left in place, so failing to move one is fatal.
+     */
+    private static void move(File dir, File archive) {
+        if (!dir.renameTo(new File(archive, dir.getName()))) {
+            throw new IllegalStateException("Failed to archive " + dir + " in " + archive);
+        }
+    }
+
+    /**
+     * Delete the checkpoints of the previous run, see --clean_checkpoints. Archived ones are kept.
+     */
+    public void discard() {
+        for (long id : checkpoints()) {
+            delete(Writer.checkpoint_dir(id));
+        }
+        delete(staging());
+    }
+
+    /**
+     * Restore the state of every checkpointable executor in parallel and rewind the replayable spouts.
+     *
+     * @param g
+     * @return the time to recover in ms, -1 if there was no complete checkpoint to recover from.
+     */
+    public double recover(ExecutionGraph g) {
+        final long start = System.nanoTime();
+        if (staging().isDirectory() && !Writer.checkpoint_dir(BASE).exists()) {//interrupted while rebasing.
+            if (!staging().renameTo(Writer.checkpoint_dir(BASE))) {
+                LOG.error("Failed to resume an interrupted recovery from " + staging());
+            }
+        }
+
+        final ArrayList<ExecutionNode> executors = restorable(g);
+        int spouts = 0;
+        for (ExecutionNode e : executors) {
+            if (e.operator.type == spoutType) {
+                spouts++;
+            }
+        }
+        final Long target = latest_complete(spouts);
+        if (target == null) {
+            LOG.info("No complete checkpoint found, start from scratch.");
+            archive();
+            return -1;
+        }
+        final long located = System.nanoTime();
+
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, executors.size())));
+        final ArrayList<Future<Long>> restored = new ArrayList<>(executors.size());
+        for (ExecutionNode e : executors) {
+            restored.add(pool.submit(() -> restore(e, target)));
+        }
+        long bytes = 0;
+        try {
+            for (Future<Long> future : restored) {
+                bytes += future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Failed to recover from checkpoint " + target, e);
+        } finally {
+            pool.shutdown();
+        }
+        final long end = System.nanoTime();
+
+        rebase(executors, target);
+        LOG.info("Recovered " + executors.size() + " executors from checkpoint " + target
+                + ", locate (ms):" + (located - start) / 1E6
+                + ", restore (ms):" + (end - located) / 1E6
+                + ", read (bytes):" + bytes
+                + ", time to recover (ms):" + (end - start) / 1E6);
+        return (end - start) / 1E6;
+    }
+
+    /**
+     * @param e
+     * @param target
+     * @return bytes read.
+     */
+    private long restore(ExecutionNode e, long target) throws IOException, ClassNotFoundException {
+        final long start = System.nanoTime();
+        final String path = path(e);
+        final String shared = e.operator.getId();//written by Writer#save_state_MMIO_shared for all executors.
+        final LinkedList<File> chain = new LinkedList<>();
+
+        //walk back from the target until a full snapshot, collecting the deltas on the way.
+        final ArrayList<Long> ids = checkpoints();
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            if (ids.get(i) > target) {
+                continue;
+            }
+            final File file = snapshot(Writer.checkpoint_dir(ids.get(i)), path, shared);
+            if (file == null) {
+                continue;
+            }
+            chain.addFirst(file);
+            if (!file.getName().endsWith(Writer.DELTA_SUFFIX)) {
+                break;
+            }
+        }
+        if (!chain.isEmpty() && chain.getFirst().getName().endsWith(Writer.DELTA_SUFFIX)) {
+            chain.clear();
+        }
+        if (chain.isEmpty() && e.operator.type != spoutType) {//spouts without a state of their own have no snapshot.
+            LOG.warn(e.getOP_full() + " has no full snapshot up to checkpoint " + target + ", starts empty.");
+        }
+
+        long bytes = 0;
+        for (File file : chain) {
+            Object value = read(file);
+            if (name_of(file.getName(), shared)) {
+                value = ((Serializable[]) value)[e.getExecutorID() - e.operator.getExecutorList().get(0).getExecutorID()];
+            }
+            apply(e.getState(), value);
+            bytes += file.length();
+        }
+
+        if (e.operator.type == spoutType && e.isReplayable()) {//the others commit -1, they cannot go back.
+            final long offset = read_offset(new File(Writer.checkpoint_dir(target), Writer.COMMIT_PREFIX + e.getExecutorID()));
+            if (offset >= 0) {
+                e.rewind(offset);
+            }
+        }
+        LOG.info(e.getOP_full() + " restored from " + chain.size() + " snapshots in (ms):" + (System.nanoTime() - start) / 1E6);
+        return bytes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void apply(State state, Object value) {
+        if (value instanceof KeyedState.Snapshot && state instanceof KeyedState) {
+            ((KeyedState) state).restore((KeyedState.Snapshot) value);
+        } else {
+            state.update((Serializable) value);
+        }
+    }
+
+    private static Object read(File file) throws IOException, ClassNotFoundException {
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (starts_with(buffer, Writer.RAW_MAGIC)) {
+                buffer.position(Writer.RAW_MAGIC.length);
+                return PrimitiveKeyedState.Image.wrap(buffer);//the mapping outlives the channel.
+            }
+            InputStream in = new ByteBufferInputStream(buffer);
+            if (starts_with(buffer, LZ4_MAGIC)) {
+                in = new LZ4BlockInputStream(in);
+            }
+            try (ObjectInputStream objectIn = new ObjectInputStream(in)) {
+                return objectIn.readObject();
+            }
+        }
+    }
+
+    private static boolean starts_with(ByteBuffer buffer, byte[] magic) {
+        if (buffer.remaining() < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (buffer.get(buffer.position() + i) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long read_offset(File commit) throws IOException {
+        try (FileChannel channel = new RandomAccessFile(commit, "r").getChannel()) {
+            final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            return buffer.getLong(0);
+        }
+    }
+
+    /**
+     * Keep only the restored checkpoint, as full snapshots under {@link #BASE}.
+     * It is staged first, so that a failure in between leaves either the old or the new copy.
+     */
+    private void rebase(ArrayList<ExecutionNode> executors, long target) {
+        final File staging = staging();
+        delete(staging);
+        if (!staging.mkdirs()) {
+            LOG.error("Failed to create " + staging);
+            return;
+        }
+        try {
+            for (ExecutionNode e : executors) {
+                if (e.getState() != null && e.getState().value() != null) {
+                    write(new File(staging, path(e) + "@0"), serialize(e.getState().value()));
+                }
+                if (e.operator.type == spoutType) {
+                    final File commit = new File(Writer.checkpoint_dir(target), Writer.COMMIT_PREFIX + e.getExecutorID());
+                    write(new File(staging, commit.getName()), ByteBuffer.allocate(Long.BYTES).putLong(0, read_offset(commit)).array());
+                }
+            }
+        } catch (IOException ex) {
+            LOG.error("Failed to rebase checkpoint " + target + ", the checkpoints are kept as they are.", ex);
+            delete(staging);
+            return;
+        }
+        for (long id : checkpoints()) {
+            delete(Writer.checkpoint_dir(id));
+        }
+        if (!staging.renameTo(Writer.checkpoint_dir(BASE))) {
+            LOG.error("Failed to move " + staging + " to " + Writer.checkpoint_dir(BASE));
+        }
+    }
+
+    private static byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream objectOut = new ObjectOutputStream(new LZ4BlockOutputStream(baos));
+        objectOut.writeObject(value);
+        objectOut.close();
+        return baos.toByteArray();
+    }
+
+    private static void write(File file, byte[] data) throws IOException {
+        try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+            final ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static void delete(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            LOG.trace("Failed to remove " + file);
+        }
+    }
+
+    /**
+     * Reads a (memory-mapped) buffer without copying it first.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package brisk.faulttolerance;
+
+/**
+ * A spout that can re-emit its input from a position, so that after a recovery it resumes
+ * from where it was when the restored checkpoint's marker was broadcast.
+ */
+public interface Replayable {
+
+    /**
+     * @return the position of the next tuple to emit.
+     */
+    long offset();
+
+    /**
+     * Called before the spout is initialized.
+     *
+     * @param offset a position previously returned by {@link #offset()}.
+     */
+    void rewind(long offset);
+}
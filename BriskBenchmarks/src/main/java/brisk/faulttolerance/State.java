@@ -3,6 +3,7 @@ package brisk.faulttolerance;
 import brisk.components.TopologyComponent;
 import brisk.execution.ExecutionNode;
 import brisk.execution.runtime.tuple.impl.Marker;
+import org.apache.commons.lang3.SerializationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.OsUtils;
@@ -31,6 +32,18 @@ public abstract class State<E extends Serializable> implements Serializable {
 
     public abstract void clean();
 
+    /**
+     * Capture, on the operator thread, what has to be persisted for a checkpoint.
+     * The result is serialized by a background writer, so it must not be mutated afterwards.
+     * By default it is a deep copy of the whole value; states that track changes may return a delta unless full is set.
+     *
+     * @param full
+     * @return
+     */
+    public Serializable snapshot(boolean full) {
+        return SerializationUtils.clone(value());
+    }
+
     /**
      * have received all ack from consumers.
      *
@@ -92,6 +105,29 @@ public abstract class State<E extends Serializable> implements Serializable {
 
     }
 
+    /**
+     * 5. Asynchronous: only the snapshot capture runs on the operator thread.
+     *
+     * @param value
+     * @param sourceId
+     * @param marker
+     * @param executor
+     * @param path
+     * @return
+     */
+    public boolean async_store(E value, int sourceId, Marker marker, ExecutionNode executor, String path) {
+        source_ready.put(sourceId, true);
+        if (all_src_ready()) {
+            if (value != null) {
+                update(value);
+                writer.save_state_async(marker.msgId, marker.timeStampNano, path, executor, this);
+            }
+            source_state_ini(executor);
+            return true;
+        }
+        return false;//not ready yet, do not forward the marker.
+    }
+
     /**
      * 4. With compress and shared.
      *
@@ -216,13 +252,32 @@ public abstract class State<E extends Serializable> implements Serializable {
     }
 
     public synchronized void callback_spout(int callee, Marker marker, ExecutionNode executor) {
+        callback_spout(callee, marker, executor, -1);
+    }
+
+    /**
+     * The marker is acknowledged by the whole topology once all consumers of the spout have acked,
+     * so its checkpoint is committed for recovery.
+     *
+     * @param callee
+     * @param marker
+     * @param executor
+     * @param offset   where the spout was when it broadcast the marker, -1 if it is not replayable.
+     * @return true if all consumers have acked.
+     */
+    public synchronized boolean callback_spout(int callee, Marker marker, ExecutionNode executor, long offset) {
         consumer_ack.put(callee, true);
 //        executor.earlier_clean_state(marker);
         if (all_dst_ack()) {
             LOG.trace(executor.getOP_full() + " received ack from all consumers.");
+            if (writer != null) {
+                writer.commit(marker.msgId, executor.getExecutorID(), offset);
+            }
             dst_state_init(executor);
             executor.clean_state(marker);
+            return true;
         }
+        return false;
     }
 
 
@@ -2,15 +2,25 @@ package brisk.faulttolerance;
 
 import brisk.components.TopologyComponent;
 import brisk.execution.ExecutionNode;
+import brisk.faulttolerance.impl.KeyedState;
+import brisk.faulttolerance.impl.PrimitiveKeyedState;
 import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.apache.commons.lang3.SerializationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import util.Configuration;
 import util.OsUtils;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Operator shares the same writer.
@@ -18,6 +28,20 @@ import java.nio.channels.FileChannel;
  */
 public class Writer {
     private final static Logger LOG = LoggerFactory.getLogger(Writer.class);
+    static final String DELTA_SUFFIX = ".delta";
+    static final String COMMIT_PREFIX = "_commit@";//one per spout executor that has received all acks of a marker.
+    static final byte[] RAW_MAGIC = {'B', 'r', 'i', 's', 'k', 'R', 'a', 'w'};//an image of primitive keyed state follows.
+    /**
+     * Background writers shared by all operators. Checkpoints of one executor always go to the same lane,
+     * so its full snapshot and the deltas after it are persisted in order.
+     */
+    private static ExecutorService[] lanes;
+    /**
+     * Markers some snapshot of which is not on disk, or chains onto one that is not: they are never committed,
+     * so that recovery does not pick them. Shared by the writers of a topology, as the snapshots are written by
+     * the writers of the bolts and the commits by those of the spouts.
+     */
+    private final Set<Long> unrecoverable;
     public final TopologyComponent operator;
     public final int numTasks;
     int called_executors = 0;
@@ -27,13 +51,211 @@ public class Writer {
     Collections collections;
     private volatile int iteration = 0;
     private volatile int cnt = 0;
+    private final boolean compress;
+    private final int compaction;//every compaction-th checkpoint of an executor is a full one.
+    private final ConcurrentHashMap<Integer, Integer> deltas = new ConcurrentHashMap<>();//deltas captured since the last full snapshot.
+    private final ConcurrentHashMap<Integer, LinkedList<File>> chain = new ConcurrentHashMap<>();//full snapshot and deltas after it.
+    private final ConcurrentHashMap<Integer, LinkedList<File>> previous = new ConcurrentHashMap<>();//the chain before.
+    private final ConcurrentHashMap<Integer, Long> persisted = new ConcurrentHashMap<>();//last marker durably written per executor.
+    private final ConcurrentHashMap<Integer, Long> broken = new ConcurrentHashMap<>();//marker of the failed snapshot, per executor until its next full one lands.
 
     public Writer(TopologyComponent operator, int numTasks) {
+        this(operator, numTasks, new Configuration());
+    }
+
+    public Writer(TopologyComponent operator, int numTasks, Configuration conf) {
+        this(operator, numTasks, conf, ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * @param unrecoverable shared by the writers of the operators of a topology.
+     */
+    public Writer(TopologyComponent operator, int numTasks, Configuration conf, Set<Long> unrecoverable) {
         OsUtils.configLOG(LOG);
+        this.unrecoverable = unrecoverable;
         this.operator = operator;
         this.numTasks = numTasks;
 //		this.collections = new HashMap<>();
         this.collections = new Collections(this.operator, this.operator.getNumTasks());
+        this.compress = conf.getBoolean("checkpoint_compress", true);
+        this.compaction = Math.max(1, conf.getInt("checkpoint_compaction", 10));
+        init_lanes(conf.getInt("checkpoint_threads", 2));
+    }
+
+    private static synchronized void init_lanes(int threads) {
+        if (lanes == null) {
+            lanes = new ExecutorService[Math.max(1, threads)];
+            for (int i = 0; i < lanes.length; i++) {
+                final int lane = i;
+                lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "checkpoint-writer-" + lane);
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+    }
+
+    static File checkpoint_dir(long msgId) {
+        return new File(System.getProperty("user.home")
+                + OsUtils.OS_wrapper("briskstream") + OsUtils.OS_wrapper("checkpoints")
+                + OsUtils.OS_wrapper(String.valueOf(msgId)));
+    }
+
+    /**
+     * @param executorId
+     * @return the id of the last marker whose snapshot of this executor is on disk, -1 if none.
+     */
+    public long last_persisted(int executorId) {
+        return persisted.getOrDefault(executorId, -1L);
+    }
+
+    /**
+     * Captures the snapshot on the calling (operator) thread, and hands serialization, compression and fsync
+     * to a background lane. A full snapshot is taken for the first and then every compaction-th checkpoint,
+     * the others only carry the keys changed since the previous capture (for states that track them).
+     * If a snapshot fails to persist, the next one is full, and the deltas captured in between are dropped: none of
+     * those markers is committed.
+     *
+     * @param msgId
+     * @param timeStampNano
+     * @param path
+     * @param executor
+     * @param state
+     */
+    public void save_state_async(long msgId, long timeStampNano, String path, ExecutionNode executor, State state) {
+        final int id = executor.getExecutorID();
+        final Integer since_full = deltas.get(id);
+        final Serializable snapshot = state.snapshot(since_full == null || since_full + 1 >= compaction || broken.containsKey(id));
+        final boolean full = !(snapshot instanceof KeyedState.Snapshot) || ((KeyedState.Snapshot) snapshot).full;
+        deltas.put(id, full ? 0 : since_full + 1);
+
+        lanes[id % lanes.length].execute(() -> {
+            if (!full && broken.containsKey(id)) {//captured before the failure was seen, it chains onto a missing snapshot.
+                unrecoverable.add(msgId);
+                LOG.warn("Drop delta checkpoint " + msgId + " of " + path + ", it follows the failed checkpoint " + broken.get(id));
+                return;
+            }
+            try {
+                persist(msgId, timeStampNano, path, id, snapshot, full);
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Failed to persist checkpoint " + msgId + " of " + path + ", the next one is full", e);
+                unrecoverable.add(msgId);
+                broken.put(id, msgId);
+                deltas.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Record that the marker broadcast by a spout executor has been acknowledged by the whole topology,
+     * together with the offset the spout had reached when it was broadcast.
+     * The record is written only after every snapshot queued so far on any lane is on disk,
+     * so a checkpoint with a record from every spout executor is complete.
+     * Once a marker is committed, the earlier markers are superseded: this executor already refused to commit those
+     * that are unrecoverable, so they can never be complete, and they are forgotten.
+     *
+     * @param msgId
+     * @param executorId
+     * @param offset     -1 if the spout is not replayable.
+     */
+    public void commit(long msgId, int executorId, long offset) {
+        final CompletableFuture<?>[] drained = new CompletableFuture<?>[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            drained[i] = CompletableFuture.runAsync(() -> {
+            }, lanes[i]);
+        }
+        CompletableFuture.allOf(drained).thenRunAsync(() -> {
+            if (unrecoverable.contains(msgId)) {
+                LOG.warn("Checkpoint " + msgId + " misses a snapshot, it is not committed by executor " + executorId);
+                return;
+            }
+            unrecoverable.removeIf(id -> id < msgId);
+            final File file = new File(create_dir(msgId) + OsUtils.OS_wrapper(COMMIT_PREFIX + executorId));
+            try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+                final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            } catch (IOException e) {
+                LOG.error("Failed to commit checkpoint " + msgId + " of executor " + executorId, e);
+            }
+        }, lanes[executorId % lanes.length]);
+    }
+
+    private void persist(long msgId, long timeStampNano, String path, int id, Serializable snapshot, boolean full) throws IOException {
+        final File file = new File(create_dir(msgId)
+                + OsUtils.OS_wrapper(path + "@" + timeStampNano + (full ? "" : DELTA_SUFFIX)));
+        try {
+            write(file, snapshot);
+        } catch (IOException | RuntimeException e) {
+            if (file.exists() && !file.delete()) {//recovery must not read it.
+                LOG.error("Failed to remove the partial checkpoint " + file);
+            }
+            throw e;
+        }
+        persisted(msgId, path, id, file, full);
+    }
+
+    private void write(File file, Serializable snapshot) throws IOException {
+        if (snapshot instanceof PrimitiveKeyedState.Image) {
+            //already a flat copy of the tables, written as is.
+            try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+                final ByteBuffer magic = ByteBuffer.wrap(RAW_MAGIC);
+                while (magic.hasRemaining()) {
+                    channel.write(magic);
+                }
+                ((PrimitiveKeyedState.Image) snapshot).write(channel);
+                channel.force(true);
+            }
+            return;
+        }
+
+        final byte[] data;
+        if (compress) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ObjectOutputStream objectOut = new ObjectOutputStream(new LZ4BlockOutputStream(baos));
+            objectOut.writeObject(snapshot);
+            objectOut.close();
+            data = baos.toByteArray();
+        } else {
+            data = SerializationUtils.serialize(snapshot);
+        }
+
+        try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+            final ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private void persisted(long msgId, String path, int id, File file, boolean full) {
+        persisted.put(id, msgId);
+        if (full) {
+            broken.remove(id);
+        }
+
+        //compaction: a full snapshot starts a new chain. The previous chain is kept until the next full one lands,
+        //as other executors may not have completed this marker yet.
+        if (full) {
+            final LinkedList<File> superseded = previous.remove(id);
+            if (superseded != null) {
+                for (File old : superseded) {
+                    if (!old.delete()) {
+                        LOG.trace("Failed to remove compacted checkpoint " + old);
+                    }
+                }
+            }
+            final LinkedList<File> current = chain.remove(id);
+            if (current != null) {
+                previous.put(id, current);
+            }
+        }
+        chain.computeIfAbsent(id, k -> new LinkedList<>()).add(file);
+        LOG.trace(path + " persisted " + (full ? "full" : "delta") + " checkpoint with marker Id:" + msgId + " size:" + file.length());
     }
 
 
@@ -55,10 +277,7 @@ public class Writer {
     }
 
     private synchronized File create_dir(long msgId) {
-        String directory = System.getProperty("user.home")
-                + OsUtils.OS_wrapper("briskstream") + OsUtils.OS_wrapper("checkpoints")
-                + OsUtils.OS_wrapper(String.valueOf(msgId));
-        File file = new File(directory);
+        File file = checkpoint_dir(msgId);
         if (!file.mkdirs()) {
             ////LOG.DEBUG("Failed to create the directory to store the snapshots.");
         }
@@ -162,7 +381,8 @@ public class Writer {
 //		collections.putIfAbsent(myiteration, new Collections(executor.operator, executor.operator.getNumTasks()));
 //		collections.get(myiteration).add(msgId, timeStampNano, executor, myiteration, state.value_list());
 
-        collections.add(msgId, timeStampNano, executor, myiteration, state.value());
+        //a copy: the value goes to disk once every executor of the operator has reached the marker, this one runs on.
+        collections.add(msgId, timeStampNano, executor, myiteration, state.snapshot(true));
     }
 
 
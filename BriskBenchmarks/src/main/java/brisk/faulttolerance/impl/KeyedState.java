@@ -0,0 +1,158 @@
+package brisk.faulttolerance.impl;
+
+
+import brisk.faulttolerance.State;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keyed State that tracks the keys changed since the last captured snapshot,
+ * so that a checkpoint only needs to persist those (see {@link Snapshot}).
+ * Values that are mutated in place must be reported through {@link #markDirty(Serializable)}.
+ */
+public class KeyedState<K extends Serializable, V extends Serializable> extends State<HashMap<K, V>> {
+    private static final long serialVersionUID = -3187262861904457340L;
+    private final Copier<V> copier;//copies a value on the operator thread, identity for immutable values.
+    private HashMap<K, V> map = new HashMap<>();
+    private transient HashSet<K> dirty = new HashSet<>();
+    private transient HashSet<K> removed = new HashSet<>();
+    private transient boolean has_base;//false until a full snapshot has been captured (again).
+
+    public KeyedState() {
+        this(value -> value);
+    }
+
+    public KeyedState(Copier<V> copier) {
+        this.copier = copier;
+    }
+
+    public V get(K key) {
+        return map.get(key);
+    }
+
+    public void put(K key, V value) {
+        map.put(key, value);
+        markDirty(key);
+    }
+
+    public void remove(K key) {
+        if (map.remove(key) != null) {
+            dirty().remove(key);
+            removed().add(key);
+        }
+    }
+
+    public void markDirty(K key) {
+        dirty().add(key);
+    }
+
+    private HashSet<K> dirty() {
+        if (dirty == null) {//after deserialization.
+            dirty = new HashSet<>();
+        }
+        return dirty;
+    }
+
+    private HashSet<K> removed() {
+        if (removed == null) {
+            removed = new HashSet<>();
+        }
+        return removed;
+    }
+
+    /**
+     * Replaces the whole content, the next snapshot is a full one.
+     *
+     * @param value
+     */
+    @Override
+    public void update(HashMap<K, V> value) {
+        if (value != map) {
+            map = value;
+            has_base = false;
+        }
+    }
+
+    @Override
+    public HashMap<K, V> value() {
+        return map;
+    }
+
+    @Override
+    public void clean() {
+        map.clear();
+        dirty().clear();
+        removed().clear();
+        has_base = false;
+    }
+
+    /**
+     * Copy the changed (or all) entries. Only the copies are handed to the background writer.
+     *
+     * @param full
+     * @return
+     */
+    @Override
+    public Serializable snapshot(boolean full) {
+        full |= !has_base;
+        final HashMap<K, V> entries;
+        if (full) {
+            entries = new HashMap<>(map.size() * 4 / 3 + 1);
+            for (Map.Entry<K, V> e : map.entrySet()) {
+                entries.put(e.getKey(), copier.apply(e.getValue()));
+            }
+        } else {
+            entries = new HashMap<>(dirty().size() * 4 / 3 + 1);
+            for (K key : dirty()) {
+                final V value = map.get(key);
+                if (value != null) {
+                    entries.put(key, copier.apply(value));
+                }
+            }
+        }
+        final Snapshot<K, V> snapshot = new Snapshot<>(full, entries, full ? new HashSet<>() : new HashSet<>(removed()));
+        dirty().clear();
+        removed().clear();
+        has_base = true;
+        return snapshot;
+    }
+
+    /**
+     * Rebuild the content from a full snapshot followed by the deltas taken after it, in order.
+     *
+     * @param snapshot
+     */
+    public void restore(Snapshot<K, V> snapshot) {
+        if (snapshot.full) {
+            map = new HashMap<>(snapshot.entries);
+        } else {
+            map.putAll(snapshot.entries);
+            for (K key : snapshot.removed) {
+                map.remove(key);
+            }
+        }
+        dirty().clear();
+        removed().clear();
+        has_base = false;
+    }
+
+    public interface Copier<V> extends UnaryOperator<V>, Serializable {
+    }
+
+    public static class Snapshot<K extends Serializable, V extends Serializable> implements Serializable {
+        private static final long serialVersionUID = 6406187207521460719L;
+        public final boolean full;
+        public final HashMap<K, V> entries;
+        public final HashSet<K> removed;
+
+        Snapshot(boolean full, HashMap<K, V> entries, HashSet<K> removed) {
+            this.full = full;
+            this.entries = entries;
+            this.removed = removed;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package brisk.faulttolerance.impl;
+
+import brisk.faulttolerance.State;
+import brisk.util.map.PrimitiveMap;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.function.IntFunction;
+
+/**
+ * Keyed state held in {@link PrimitiveMap}s, registered by the operator in order (see Operator#keyed_state).
+ * A snapshot is an {@link Image}: a bulk copy of the tables of all maps, which the writer persists as raw bytes
+ * and recovery maps back, without going through Java serialization of the entries.
+ * <p>
+ * Recovery may happen before the operator has registered its maps (in prepare), the image is then applied on registration.
+ */
+public class PrimitiveKeyedState extends State<PrimitiveKeyedState.Image> {
+    private static final long serialVersionUID = 5180431416751108713L;
+    private final ArrayList<PrimitiveMap> maps = new ArrayList<>();
+    private transient Image view;//the live content, see value().
+    private transient ByteBuffer[] pending;//images of maps not registered yet.
+
+    public <M extends PrimitiveMap> M register(M map) {
+        final int index = maps.size();
+        if (pending != null && index < pending.length && pending[index] != null) {
+            map.restore(pending[index]);
+            pending[index] = null;
+        }
+        maps.add(map);
+        return map;
+    }
+
+    public int size() {
+        int size = 0;
+        for (PrimitiveMap map : maps) {
+            size += map.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return bytes held by all maps.
+     */
+    public long footprint() {
+        long bytes = 0;
+        for (PrimitiveMap map : maps) {
+            bytes += map.footprint();
+        }
+        return bytes;
+    }
+
+    /**
+     * Move entries to the states of other executors of the operator, map by map (see {@link PrimitiveMap#transfer}).
+     *
+     * @param destination gets the partitioning hash of a key, returns the state it moves to or null to keep it.
+     * @return number of entries moved.
+     */
+    public int transfer(IntFunction<PrimitiveKeyedState> destination) {
+        int moved = 0;
+        for (int i = 0; i < maps.size(); i++) {
+            final int index = i;
+            moved += maps.get(i).transfer(hash -> {
+                final PrimitiveKeyedState to = destination.apply(hash);
+                return to == null ? null : to.maps.get(index);
+            });
+        }
+        return moved;
+    }
+
+    /**
+     * Restore from an image, unless it is the live view itself.
+     *
+     * @param value
+     */
+    @Override
+    public void update(Image value) {
+        if (value == null || value == view) {
+            return;
+        }
+        final ByteBuffer in = value.data();
+        pending = new ByteBuffer[in.getInt()];
+        for (int i = 0; i < pending.length; i++) {
+            final int length = in.getInt();
+            final ByteBuffer section = in.slice().order(ByteOrder.nativeOrder());
+            section.limit(length);
+            in.position(in.position() + length);
+            if (i < maps.size()) {
+                maps.get(i).restore(section);
+            } else {
+                pending[i] = section;
+            }
+        }
+    }
+
+    /**
+     * @return a view of the live content, copied only when it is serialized.
+     */
+    @Override
+    public Image value() {
+        if (view == null) {
+            view = new Image(this);
+        }
+        return view;
+    }
+
+    @Override
+    public void clean() {
+        for (PrimitiveMap map : maps) {
+            map.clear();
+        }
+    }
+
+    @Override
+    public Serializable snapshot(boolean full) {
+        return new Image(copy());
+    }
+
+    private ByteBuffer copy() {
+        long bytes = Integer.BYTES;
+        for (PrimitiveMap map : maps) {
+            bytes += Integer.BYTES + map.image_size();
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The image of the keyed state would take " + bytes + " bytes, past the 2 GB of a buffer:"
+                    + " spread the state over more executors");
+        }
+        final ByteBuffer out = ByteBuffer.allocate((int) bytes).order(ByteOrder.nativeOrder());
+        out.putInt(maps.size());
+        for (PrimitiveMap map : maps) {
+            out.putInt(map.image_size());
+            map.image(out);
+        }
+        out.flip();
+        return out;
+    }
+
+    /**
+     * Content of all maps: {@code [count]} then {@code [length][image]} per map, in native byte order.
+     */
+    public static final class Image implements Serializable {
+        private static final long serialVersionUID = -4062599651599549342L;
+        private transient PrimitiveKeyedState owner;
+        private transient ByteBuffer data;
+
+        private Image(PrimitiveKeyedState owner) {
+            this.owner = owner;
+        }
+
+        private Image(ByteBuffer data) {
+            this.data = data;
+        }
+
+        /**
+         * @param data as written by {@link #write(WritableByteChannel)}, e.g. a mapped file.
+         * @return
+         */
+        public static Image wrap(ByteBuffer data) {
+            return new Image(data.slice().order(ByteOrder.nativeOrder()));
+        }
+
+        /**
+         * @return the bytes, from its position.
+         */
+        public ByteBuffer data() {
+            return owner != null ? owner.copy() : data.duplicate().order(ByteOrder.nativeOrder());
+        }
+
+        /**
+         * Bulk write of the bytes.
+         *
+         * @param channel
+         * @throws IOException
+         */
+        public void write(WritableByteChannel channel) throws IOException {
+            final ByteBuffer buffer = data();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+            final ByteBuffer buffer = data();
+            final byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            final byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            data = ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package brisk.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of the runtime metrics, by group (an executor, an edge) and name.
+ * A metric is a gauge read by the reporter, it reads counters that the executors maintain anyway
+ * or that only exist when metrics are enabled, so that nothing is added to the hot path otherwise.
+ */
+public class Metrics {
+    private static final Map<String, Map<String, DoubleSupplier>> groups = new LinkedHashMap<>();
+
+    public static synchronized void register(String group, String name, DoubleSupplier gauge) {
+        groups.computeIfAbsent(group, k -> new LinkedHashMap<>()).put(name, gauge);
+    }
+
+    /**
+     * @return a copy of the registered groups, in registration order.
+     */
+    public static synchronized Map<String, Map<String, DoubleSupplier>> groups() {
+        final Map<String, Map<String, DoubleSupplier>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, DoubleSupplier>> group : groups.entrySet()) {
+            copy.put(group.getKey(), Collections.unmodifiableMap(new LinkedHashMap<>(group.getValue())));
+        }
+        return copy;
+    }
+}
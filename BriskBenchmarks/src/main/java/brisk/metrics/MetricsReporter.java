@@ -0,0 +1,185 @@
+package brisk.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.Configuration;
+
+import javax.management.*;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Low priority thread that samples the registered {@link Metrics} every metrics_interval ms,
+ * exposes the last sample of each group as a JMX MBean (brisk.metrics:name=group),
+ * and appends it to metrics.csv under metrics.output. The file is rolled to metrics.1.csv every metrics_rows samples.
+ */
+public class MetricsReporter extends Thread {
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsReporter.class);
+    private final long interval;
+    private final int rows_per_file;
+    private final File file;//null if metrics.output is not a directory.
+    private final File rolled;
+    private final Map<String, Map<String, DoubleSupplier>> groups;
+    private Writer writer;
+    private int rows;
+
+    public MetricsReporter(Configuration conf) {
+        super("metrics-reporter");
+        setDaemon(true);
+        setPriority(Thread.MIN_PRIORITY);
+        interval = conf.getInt("metrics_interval", 1000);
+        rows_per_file = conf.getInt("metrics_rows", 3600);
+        final File directory = new File(conf.getString("metrics.output", "."));
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            LOG.warn("Metrics directory " + directory.getAbsolutePath() + " can not be created, metrics are only exported to JMX.");
+            file = null;
+            rolled = null;
+        } else {
+            file = new File(directory, "metrics.csv");
+            rolled = new File(directory, "metrics.1.csv");
+        }
+        groups = Metrics.groups();
+    }
+
+    @Override
+    public void run() {
+        final List<Group> beans = new ArrayList<>();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Map.Entry<String, Map<String, DoubleSupplier>> group : groups.entrySet()) {
+            final Group bean = new Group(group.getKey(), group.getValue());
+            try {
+                server.registerMBean(bean, new ObjectName("brisk.metrics:name=" + ObjectName.quote(group.getKey())));
+            } catch (JMException e) {
+                LOG.warn("Metrics of " + group.getKey() + " are not exported to JMX: " + e.getMessage());
+            }
+            beans.add(bean);
+        }
+        try {
+            while (!isInterrupted()) {
+                Thread.sleep(interval);
+                final StringBuilder row = new StringBuilder().append(System.currentTimeMillis());
+                for (Group bean : beans) {
+                    bean.sample(row);
+                }
+                if (file != null) {
+                    write(row.toString());
+                }
+            }
+        } catch (InterruptedException ignored) {
+        } catch (IOException e) {
+            LOG.warn("Metrics are no longer written to " + file + ": " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    private void write(String row) throws IOException {
+        if (writer != null && rows == rows_per_file) {
+            close();
+            Files.move(file.toPath(), rolled.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (writer == null) {
+            writer = new BufferedWriter(new FileWriter(file));
+            rows = 0;
+            final StringBuilder header = new StringBuilder("time");
+            for (Map.Entry<String, Map<String, DoubleSupplier>> group : groups.entrySet()) {
+                for (String name : group.getValue().keySet()) {
+                    header.append(',').append(group.getKey()).append('.').append(name);
+                }
+            }
+            writer.write(header.append('\n').toString());
+        }
+        writer.write(row);
+        writer.write('\n');
+        writer.flush();
+        rows++;
+    }
+
+    private void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * The metrics of a group, as attributes of an MBean that hold the last sample.
+     */
+    static class Group implements DynamicMBean {
+        private final String name;
+        private final Map<String, DoubleSupplier> gauges;
+        private final Map<String, Double> values = new ConcurrentHashMap<>();
+
+        Group(String name, Map<String, DoubleSupplier> gauges) {
+            this.name = name;
+            this.gauges = gauges;
+            for (String metric : gauges.keySet()) {
+                values.put(metric, 0d);
+            }
+        }
+
+        void sample(StringBuilder row) {
+            for (Map.Entry<String, DoubleSupplier> gauge : gauges.entrySet()) {
+                final double value = gauge.getValue().getAsDouble();
+                values.put(gauge.getKey(), value);
+                row.append(',').append(value);
+            }
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            final Double value = values.get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            final AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                final Double value = values.get(attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            final MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[gauges.size()];
+            int i = 0;
+            for (String metric : gauges.keySet()) {
+                attributes[i++] = new MBeanAttributeInfo(metric, "double", metric, true, false, false);
+            }
+            return new MBeanInfo(Group.class.getName(), "metrics of " + name, attributes, null, null, null);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package brisk.optimization;
 
 import brisk.optimization.impl.SchedulingPlan;
 import brisk.optimization.routing.RoutingPlan;
+import brisk.queue.Placement;
 
 /**
  * Created by I309939 on 11/8/2016.
@@ -59,6 +60,16 @@ public class ExecutionPlan {
         return SP.allocation_decision(executorID);
     }
 
+    /**
+     * @param producerId
+     * @param consumerId
+     * @return placement of the queue between them chosen by the scheduling plan.
+     */
+    public Placement placement(int producerId, int consumerId) {
+        if (SP == null) return Placement.LOCAL;
+        return SP.placement(producerId, consumerId);
+    }
+
 //	/**
 //	 * Ad-hoc test purpose.
 //	 *
@@ -3,6 +3,7 @@ package brisk.optimization;
 import brisk.components.Topology;
 import brisk.components.TopologyComponent;
 import brisk.components.exception.UnhandledCaseException;
+import brisk.controller.output.partition.impl.KeyGroups;
 import brisk.execution.ExecutionGraph;
 import brisk.execution.ExecutionManager;
 import brisk.execution.ExecutionNode;
@@ -19,6 +20,8 @@ import util.Configuration;
 import util.OsUtils;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Scanner;
 import java.util.concurrent.CountDownLatch;
 
@@ -32,6 +35,7 @@ public class OptimizationManager extends executorThread {
     private final Configuration conf;
     private final int end_cnt = 50;//50* 10=500 seconds per executor maximally
     private final long warmup_gaps = (long) (1 * 1E3);//1 seconds.
+    private final long backlog = 50000;//queued tuples per executor beyond which it is considered saturated.
     private final boolean profile;
     private final RoutingOptimizer ro;
     private final String prefix;
@@ -42,6 +46,7 @@ public class OptimizationManager extends executorThread {
     private Optimizer so;
     private ExecutionPlan executionPlan;
     private ExecutionManager EM;
+    private final HashMap<String, Double> capacity = new HashMap<>();//<operator, events/ns of one executor when saturated>
     private long profiling_gaps = 10000;//10 seconds.
     private int profile_start = 0;
     private int profile_end = 1;
@@ -197,6 +202,9 @@ public class OptimizationManager extends executorThread {
             } else {//produce the optimize plan
 
                 SchedulingPlan schedulingPlan = so.optimize_plan();
+                if (conf.getBoolean("chain_auto", false)) {
+                    choose_chains(schedulingPlan);
+                }
                 conf.put("predict", schedulingPlan.getOutput_rate(false) * 1E6);
                 if (conf.getBoolean("routing")) {
                     RoutingPlan routingPlan = ro.optimize(new RoutingPlan(g, schedulingPlan));
@@ -232,6 +240,26 @@ public class OptimizationManager extends executorThread {
         return executionPlan;
     }
 
+    /**
+     * Keep each chained edge of the plan only if the model predicts a higher output rate with it
+     * than with a queue and a thread per executor, under the same placement.
+     */
+    private void choose_chains(SchedulingPlan plan) {
+        for (String edge : new ArrayList<>(plan.graph.getChains())) {
+            plan.cache_clean();
+            final double chained = plan.getOutput_rate(false);
+            plan.graph.unchain(edge);
+            plan.cache_clean();
+            final double pipelined = plan.getOutput_rate(false);
+            if (chained >= pipelined) {
+                plan.graph.chain(edge);
+            }
+            LOG.info(edge + (chained >= pipelined ? " chained" : " pipelined") + ", predicted output rate chained: "
+                    + chained * 1E6 + " pipelined: " + pipelined * 1E6);
+        }
+        plan.cache_clean();
+    }
+
     private void storeSTAT() {
 
         for (ExecutionNode executor : g.getExecutionNodeArrayList()) {
@@ -334,19 +362,70 @@ public class OptimizationManager extends executorThread {
         }
     }
 
+    /**
+     * Control loop of the dynamic optimization: every reopt_interval, sample the executors, re-plan under the observed
+     * source rate, and migrate only if the predicted output rate of the new plan beats the running one by reopt_threshold.
+     */
     private void dynamic_optimize() {
-
-        boolean parallelism_tune = conf.getBoolean("parallelism_tune", false);
+        final boolean replan = executionPlan.getSP() != null;
+        final boolean elastic = conf.getBoolean("elastic", false);
+        if (!replan && !elastic) {
+            LOG.info("Dynamic optimization needs a scheduling plan to start from.");
+            return;
+        }
+        final long interval = conf.getInt("reopt_interval", 10000);
+        final double threshold = conf.getDouble("reopt_threshold", 0.1);
+        final int search = (int) Math.min(30000, interval / 2);
+        final RuntimeMonitor monitor = new RuntimeMonitor(g, EM.ThreadMap);
+        monitor.sample();
         while (true) {
             try {
-//                    LOG.info("Wait for optimization gaps...");
-                sleep(profiling_gaps);
+                sleep(interval);
+                monitor.sample();
+                if (elastic && elastic(monitor)) {
+                    monitor.reset();//the pause is not part of the next interval.
+                    monitor.sample();
+                    continue;
+                }
+                if (!replan) {
+                    continue;
+                }
 
-                SchedulingPlan schedulingPlan = so.optimize_plan();
-                RoutingPlan routingPlan = ro.optimize(new RoutingPlan(g, schedulingPlan));
-                executionPlan = new ExecutionPlan(schedulingPlan, routingPlan);
+                double source_rate = monitor.source_rate();
+                if (monitor.saturated(backlog)) {
+                    //spouts are throttled by back pressure, the offered load is at least the planned one.
+                    source_rate = Math.max(source_rate, executionPlan.SP.variables.SOURCE_RATE);
+                }
+                if (source_rate <= 0) {
+                    continue;
+                }
+                final SchedulingPlan running = new SchedulingPlan(executionPlan.SP, true);
+                running.variables.SOURCE_RATE = source_rate;
+                final double current_output_rate = running.getOutput_rate(true);
 
-                EM.redistributeTasks(g, conf, executionPlan);
+                final SchedulingPlan schedulingPlan = so.reoptimize_plan(running, search);
+                if (schedulingPlan == null) {
+                    continue;
+                }
+                final double optimize_output_rate = schedulingPlan.getOutput_rate(true);
+                LOG.info("Observed source rate (events/ms):" + source_rate * 1E6
+                        + "\tpredicted output rate (events/ms), running plan:" + current_output_rate * 1E6
+                        + "\tnew plan:" + optimize_output_rate * 1E6);
+                if (optimize_output_rate <= current_output_rate * (1 + threshold)) {
+                    continue;
+                }
+
+                RoutingPlan routingPlan = null;
+                if (conf.getBoolean("routing")) {
+                    routingPlan = ro.optimize(new RoutingPlan(g, schedulingPlan));
+                }
+                final ExecutionPlan plan = new ExecutionPlan(schedulingPlan, routingPlan);
+                if (EM.redistributeTasks(g, conf, plan)) {
+                    executionPlan = plan;
+                    conf.put("predict", optimize_output_rate * 1E6);
+                }
+                monitor.reset();//the pause is not part of the next interval.
+                monitor.sample();
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
@@ -354,6 +433,41 @@ public class OptimizationManager extends executorThread {
     }
 
 
+    /**
+     * Elastic parallelism of the key-grouped operators: double the executors receiving keys when they build up a backlog,
+     * and halve them when half of the executors could carry the load at 70% of the rate they sustained when saturated.
+     *
+     * @param monitor
+     * @return true if an operator was rescaled.
+     * @throws InterruptedException
+     */
+    private boolean elastic(RuntimeMonitor monitor) throws InterruptedException {
+        boolean rescaled = false;
+        for (TopologyComponent operator : g.topology.getRecords().values()) {
+            final KeyGroups groups = g.getKeyGroups(operator.getId());
+            if (groups == null) {
+                continue;
+            }
+            final int[] active = groups.active();
+            long queued = 0;
+            double rate = 0;
+            for (int executor : active) {
+                queued = Math.max(queued, monitor.queued(executor));
+                rate += monitor.rate(executor);
+            }
+            if (queued > backlog) {
+                capacity.put(operator.getId(), rate / active.length);
+                if (active.length < operator.getExecutorList().size()) {
+                    rescaled |= EM.rescale(operator, active.length * 2);
+                }
+            } else if (active.length > 1 && capacity.containsKey(operator.getId())
+                    && rate < 0.7 * capacity.get(operator.getId()) * (active.length / 2)) {
+                rescaled |= EM.rescale(operator, active.length / 2);
+            }
+        }
+        return rescaled;
+    }
+
     /**
      * creates new txn and routing plan continuously.
      */
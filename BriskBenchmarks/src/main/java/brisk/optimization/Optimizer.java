@@ -167,6 +167,25 @@ public class Optimizer {
         return new_plan;
     }
 
+    /**
+     * Re-plan at runtime, warm-started from the running plan: the search begins with it as the incumbent solution.
+     * Unlike {@link #optimize_plan()}, it neither terminates the program nor writes the plan to disk.
+     *
+     * @param running   the running plan, with the observed source rate.
+     * @param timeoutMs search budget.
+     * @return null if no valid plan was found.
+     */
+    public SchedulingPlan reoptimize_plan(SchedulingPlan running, int timeoutMs) {
+        running.set_success();
+        final SchedulingPlan new_plan = new BranchAndBound(graph, numNodes, numCPUs, cons, conf, running)
+                .Search(false, timeoutMs);
+        if (new_plan == null || !new_plan.success() || !cons.check(new_plan)) {
+            LOG.info("failed to find valid new plan, keep the running plan.");
+            return null;
+        }
+        return new_plan;
+    }
+
     /**
      * TODO: support different algorithms later.
      * TODO: implement the worst case plan in future.
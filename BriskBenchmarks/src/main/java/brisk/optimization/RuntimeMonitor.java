@@ -0,0 +1,110 @@
+package brisk.optimization;
+
+import brisk.execution.ExecutionGraph;
+import brisk.execution.ExecutionNode;
+import brisk.execution.runtime.executorThread;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Samples the running executors for the dynamic optimization:
+ * the rate of each executor (events/ns) since the previous sample, and the tuples waiting in its input queues.
+ */
+public class RuntimeMonitor {
+    private final ExecutionGraph g;
+    private final Map<Integer, executorThread> threads;
+    private final HashMap<Integer, Double> processed = new HashMap<>();
+    private final HashMap<Integer, Double> rate = new HashMap<>();
+    private final HashMap<Integer, Long> queued = new HashMap<>();
+    private long last = 0;
+
+    public RuntimeMonitor(ExecutionGraph g, Map<Integer, executorThread> threads) {
+        this.g = g;
+        this.threads = threads;
+    }
+
+    private static long queued(ExecutionNode e) {
+        long sum = 0;
+        if (e.isSourceNode() || e.getInputStreamController() == null) {
+            return sum;
+        }
+        for (HashMap<Integer, Queue> queues : e.getInputStreamController().getRQ().values()) {
+            for (Queue queue : queues.values()) {
+                sum += queue.size();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Take a sample. The first one (and the first one after {@link #reset()}) only sets the baseline of the rates.
+     */
+    public void sample() {
+        final long now = System.nanoTime();
+        final long elapsed = now - last;
+        for (ExecutionNode e : g.getExecutionNodeArrayList()) {
+            final executorThread thread = threads.get(e.getExecutorID());
+            if (thread == null) {
+                continue;//virtual
+            }
+            final double cnt = thread.getProcessed();
+            final Double previous = processed.put(e.getExecutorID(), cnt);
+            if (last != 0 && previous != null) {
+                rate.put(e.getExecutorID(), (cnt - previous) / elapsed);
+            }
+            queued.put(e.getExecutorID(), queued(e));
+        }
+        last = now;
+    }
+
+    /**
+     * Forget the baseline, e.g., after the executors were paused.
+     */
+    public void reset() {
+        last = 0;
+        processed.clear();
+        rate.clear();
+    }
+
+    /**
+     * @return events/ns processed by the executor during the last interval.
+     */
+    public double rate(int executorID) {
+        return rate.getOrDefault(executorID, 0.0);
+    }
+
+    /**
+     * @return tuples waiting in the input queues of the executor at the last sample.
+     */
+    public long queued(int executorID) {
+        return queued.getOrDefault(executorID, 0L);
+    }
+
+    /**
+     * @return events/ns emitted by all spouts during the last interval.
+     */
+    public double source_rate() {
+        double sum = 0;
+        for (ExecutionNode e : g.getExecutionNodeArrayList()) {
+            if (e.isSourceNode()) {
+                sum += rate(e.getExecutorID());
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @param backlog tuples per executor.
+     * @return true if any executor had more than backlog tuples waiting, i.e., the spouts are throttled by back pressure.
+     */
+    public boolean saturated(long backlog) {
+        for (long q : queued.values()) {
+            if (q > backlog) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -10,6 +10,7 @@ import brisk.optimization.model.Constraints;
 import brisk.optimization.model.GraphMetrics;
 import brisk.optimization.model.Variables;
 import brisk.optimization.model.cache;
+import brisk.queue.Placement;
 import brisk.util.myIntegerMap;
 import org.apache.commons.lang3.SerializationUtils;
 import org.slf4j.Logger;
@@ -61,6 +62,25 @@ public class SchedulingPlan implements Comparable<SchedulingPlan>, Serializable
         ini_cacheMap();
     }
 
+    /**
+     * Rebuild a plan of the graph from its compact placement, see {@link #encode()}.
+     * validOperators is left to the caller, as BnB counts validations rather than valid executors.
+     */
+    public SchedulingPlan(ExecutionGraph graph, int numNodes, Constraints cons, Configuration conf, Variables variables, byte[] placement) {
+        this(graph, numNodes, cons, conf, variables);
+        validationMap = new HashMap<>();
+        final ArrayList<ExecutionNode> executors = graph.getExecutionNodeArrayList();
+        for (int i = 0; i < placement.length; i++) {
+            final int executorID = executors.get(i).getExecutorID();
+            validationMap.put(executorID, false);
+            if (placement[i] > 0) {
+                allocate(validationMap, executorID, placement[i] - 1);
+            } else if (placement[i] < 0) {
+                allocate(null, executorID, -placement[i] - 1);
+            }
+        }
+    }
+
     /**
      * reverse the compressed graph to normal.
      */
@@ -503,6 +523,25 @@ public class SchedulingPlan implements Comparable<SchedulingPlan>, Serializable
     }
 
 
+    /**
+     * Placement of the queue from producer to consumer.
+     * A collocated pair keeps it local. Otherwise the queue goes to the consumer:
+     * the model charges remote tuple fetches to the consumer (RateModel#getTransConsumption), which stalls on its reads,
+     * while the remote writes of the producer are buffered.
+     *
+     * @param producerId
+     * @param consumerId
+     * @return
+     */
+    public Placement placement(int producerId, int consumerId) {
+        final Integer producer = mapping.get(producerId);
+        final Integer consumer = mapping.get(consumerId);
+        if (producer == null || consumer == null || producer.equals(consumer)) {
+            return Placement.LOCAL;
+        }
+        return Placement.CONSUMER;
+    }
+
     public void buildFromFileForBenchmark(int i, String prefix) throws FileNotFoundException {
         String path = MAP_Path + OsUtils.OS_wrapper("resourceBenchmark") + OsUtils.OS_wrapper(prefix);
         File file = new File(path);
@@ -639,6 +678,26 @@ public class SchedulingPlan implements Comparable<SchedulingPlan>, Serializable
         }
     }
 
+    /**
+     * Compact placement, for the parallel BnB: for each executor of the graph (in order),
+     * socket + 1 if it is validly allocated, -(socket + 1) if it is allocated only, and 0 if it is not allocated.
+     *
+     * @return
+     */
+    public byte[] encode() {
+        final ArrayList<ExecutionNode> executors = graph.getExecutionNodeArrayList();
+        final byte[] placement = new byte[executors.size()];
+        for (int i = 0; i < placement.length; i++) {
+            final int executorID = executors.get(i).getExecutorID();
+            if (mapping.containsKey(executorID)) {
+                final int socket = mapping.get(executorID);
+                final boolean valid = validationMap != null && Boolean.TRUE.equals(validationMap.get(executorID));
+                placement[i] = (byte) (valid ? socket + 1 : -(socket + 1));
+            }
+        }
+        return placement;
+    }
+
     public boolean success() {
         return allocated;
     }
@@ -226,7 +226,14 @@ public class BranchAndBound extends PlanScheduler {
 
         long start = System.nanoTime();
 
-        SchedulingPlan plan = BnBSearching(timeoutMs);
+        SchedulingPlan plan;
+        if (conf.getBoolean("bnb_compare", false)) {
+            plan = compare(timeoutMs);
+        } else if (conf.getBoolean("parallel_bnb", false)) {
+            plan = ParallelBnBSearching(timeoutMs);
+        } else {
+            plan = BnBSearching(timeoutMs);
+        }
 
         long end = System.nanoTime();
         LOG.info("It takes " + String.format("%.2f", (end - start) / 1E9) + " seconds to finish branch and bound searching");
@@ -249,31 +256,90 @@ public class BranchAndBound extends PlanScheduler {
     }
 
 
-    private SchedulingPlan BnBSearching(int timeoutMs) {
-        //LOG.DEBUG("BnB allowed time (sec):" + timeoutMs / 1000 / 1E3);
-        node = new Node();
-        stack = new Node_Stack();
-        boolean improvedByBB = false;
-        long end;
-
-        node.decisions = initialAllDecisions(graph);
-        node.plan = new SchedulingPlan(graph, numNodes, cons, conf, currentPlan.variables).AllLocal(graph);
-        node.setValidationMap(initialValidation(graph));
+    /**
+     * The search tree root: nothing but spouts and virtual executors validated, every decision open.
+     */
+    private Node root() {
+        final Node root = new Node();
+        root.decisions = initialAllDecisions(graph);
+        root.plan = new SchedulingPlan(graph, numNodes, cons, conf, currentPlan.variables).AllLocal(graph);
+        root.setValidationMap(initialValidation(graph));
+        root.plan.validOperators = (int) root.getValidationMap().values().stream().filter(valid -> valid).count();//spouts and virtual executors, a node is complete once all are valid.
 
 //		for (ExecutionNode executionNode : graph.getExecutionNodeArrayList()) {
 //			if (executionNode.operator.type == spoutType || executionNode.isVirtual()) {
-//				node.plan.allocate(executionNode, 0);
+//				root.plan.allocate(executionNode, 0);
 //			}
 //		}
-        node.output_rate = node.plan.getBound_rate();
-        LOG.info("======Bound output rate:=======\t" + node.output_rate * 1E6);
-        conf.put("bound", node.output_rate * 1E6);
+        root.output_rate = root.plan.getBound_rate();
+        LOG.info("======Bound output rate:=======\t" + root.output_rate * 1E6);
+        conf.put("bound", root.output_rate * 1E6);
 
 
-        if (node.output_rate < solution_node.output_rate) {
+        if (root.output_rate < solution_node.output_rate) {
             LOG.info("Bounded output rate is smaller than set_executor_ready plan's output rate??");
-            node.plan.planToString(false, true);
+            root.plan.planToString(false, true);
+        }
+        return root;
+    }
+
+    /**
+     * Run both searches from the same initial plan, report their wall-time and plan quality, and keep the better plan.
+     */
+    private SchedulingPlan compare(int timeoutMs) {
+        final Node initial = solution_node;
+
+        long start = System.nanoTime();
+        final SchedulingPlan parallel = ParallelBnBSearching(timeoutMs);
+        final double parallel_ms = (System.nanoTime() - start) / 1E6;
+        final Node parallel_node = solution_node;
+
+        solution_node = initial;
+        start = System.nanoTime();
+        final SchedulingPlan sequential = BnBSearching(timeoutMs);
+        final double sequential_ms = (System.nanoTime() - start) / 1E6;
+
+        LOG.info(String.format("Parallel BnB: %.1f ms, output rate (event/ms): %.2f; sequential BnB: %.1f ms, output rate (event/ms): %.2f",
+                parallel_ms, parallel.success() ? parallel.getOutput_rate(true) * 1E6 : 0,
+                sequential_ms, sequential.success() ? sequential.getOutput_rate(true) * 1E6 : 0));
+        if (parallel.success() && (!sequential.success() || parallel_node.output_rate > solution_node.output_rate)) {
+            solution_node = parallel_node;
+            return parallel;
         }
+        return sequential;
+    }
+
+    /**
+     * Same search as {@link #BnBSearching(int)}, on all cores, see {@link ParallelBranchAndBound}.
+     */
+    private SchedulingPlan ParallelBnBSearching(int timeoutMs) {
+        node = root();
+        final ParallelBranchAndBound search = new ParallelBranchAndBound(graph, numNodes, cons, conf, currentPlan.variables,
+                node.decisions, conf.getInt("bnb_threads", 0));
+        SchedulingPlan plan = null;
+        try {
+            plan = search.search(node.plan, solution_node.output_rate, timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (plan != null) {
+            solution_node = new Node();
+            solution_node.plan = plan;
+            solution_node.output_rate = plan.getBound_rate();
+            return plan;
+        }
+        if (solution_node.plan == null || !solution_node.plan.success()) {
+            return end_process();
+        }
+        return solution_node.plan;
+    }
+
+    private SchedulingPlan BnBSearching(int timeoutMs) {
+        //LOG.DEBUG("BnB allowed time (sec):" + timeoutMs / 1000 / 1E3);
+        node = root();
+        stack = new Node_Stack();
+        boolean improvedByBB = false;
+        long end;
 
         stack.push(node);
 
@@ -694,7 +760,7 @@ public class BranchAndBound extends PlanScheduler {
         return c;
     }
 
-    private boolean parentsDetermined(Map<Integer, Boolean> validationMap, ExecutionNode executionNode) {
+    private static boolean parentsDetermined(Map<Integer, Boolean> validationMap, ExecutionNode executionNode) {
         for (TopologyComponent topo : executionNode.getParents().keySet()) {
             for (ExecutionNode parent : executionNode.getParentsOf(topo)) {
                 if (!validationMap.get(parent.getExecutorID())) {
@@ -705,7 +771,7 @@ public class BranchAndBound extends PlanScheduler {
         return true;
     }
 
-    private boolean parentsDetermined(Map<Integer, Boolean> validationMap, ExecutionNode srcNode, ExecutionNode executionNode) {
+    private static boolean parentsDetermined(Map<Integer, Boolean> validationMap, ExecutionNode srcNode, ExecutionNode executionNode) {
         for (TopologyComponent topo : executionNode.getParents().keySet()) {
             for (ExecutionNode parent : executionNode.getParentsOf(topo)) {
                 if (parent != srcNode && !validationMap.get(parent.getExecutorID())) {
@@ -723,7 +789,7 @@ public class BranchAndBound extends PlanScheduler {
      * @param decision
      * @return
      */
-    private boolean bothReDeterminable(Map<Integer, Boolean> validationMap, Decision decision) {
+    static boolean bothReDeterminable(Map<Integer, Boolean> validationMap, Decision decision) {
         ExecutionNode producer = decision.producer;
         ExecutionNode consumer = decision.consumer;
         return !validationMap.get(producer.getExecutorID()) && !validationMap.get(consumer.getExecutorID()) && parentsDetermined(validationMap, producer) && parentsDetermined(validationMap, producer, consumer);
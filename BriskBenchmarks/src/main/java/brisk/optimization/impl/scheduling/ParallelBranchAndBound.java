@@ -0,0 +1,281 @@
+package brisk.optimization.impl.scheduling;
+
+import brisk.execution.ExecutionGraph;
+import brisk.optimization.impl.Decision;
+import brisk.optimization.impl.SchedulingPlan;
+import brisk.optimization.model.Constraints;
+import brisk.optimization.model.Variables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.Configuration;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Branch and bound over the same search space as {@link BranchAndBound}, explored in parallel:
+ * <ul>
+ * <li>each subtree is a fork/join task, so idle workers steal unexplored subtrees;</li>
+ * <li>the best complete plan so far (the incumbent) is shared through an atomic reference,
+ * and every worker prunes against it;</li>
+ * <li>a search node only keeps its placement as a byte per executor (see SchedulingPlan#encode) and its remaining
+ * decisions as a bit set, the plan is rebuilt when the node is expanded;</li>
+ * <li>a node reached again by applying the same decisions in another order is recognized by the hash of its
+ * placement and decisions, and explored once.</li>
+ * </ul>
+ * The bound of a partial plan is not strictly an upper bound, so what is pruned depends on the order nodes are explored
+ * in: the two searches may return plans of different output rates, see --bnb_compare.
+ */
+class ParallelBranchAndBound {
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelBranchAndBound.class);
+    private static final int MEMO_CAPACITY = 1 << 21;//nodes remembered, beyond this duplicates are explored again.
+    private final ExecutionGraph graph;
+    private final int numNodes;
+    private final Constraints cons;
+    private final Configuration conf;
+    private final Variables variables;
+    private final List<Decision> decisions;//of the root, nodes refer to them by index.
+    private final int size;
+    private final int threads;
+    private final AtomicReference<Incumbent> incumbent = new AtomicReference<>();
+    private final Set<Key> seen = ConcurrentHashMap.newKeySet();
+    private final AtomicLong expanded = new AtomicLong();
+    private final AtomicLong bounded = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private volatile boolean timeout = false;
+    private long deadline;
+
+    ParallelBranchAndBound(ExecutionGraph graph, int numNodes, Constraints cons, Configuration conf, Variables variables,
+                           List<Decision> decisions, int threads) {
+        this.graph = graph;
+        this.numNodes = numNodes;
+        this.cons = cons;
+        this.conf = conf;
+        this.variables = variables;
+        this.decisions = new ArrayList<>(decisions);
+        this.size = graph.getExecutionNodeArrayList().size();
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @param root      plan with the executors validated so far.
+     * @param seed      output rate of the best plan known, only better plans are searched for.
+     * @param timeoutMs
+     * @return the best plan found, null if none is better than the seed.
+     */
+    SchedulingPlan search(SchedulingPlan root, double seed, int timeoutMs) throws InterruptedException {
+        incumbent.set(new Incumbent(seed, null));
+        deadline = System.currentTimeMillis() + timeoutMs;
+        final BitSet all = new BitSet(decisions.size());
+        all.set(0, decisions.size());
+        final Partial start = new Partial(root.encode(), clean(all, root.validationMap), root.getBound_rate(), root.validOperators);
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.execute(new Explore(start));
+            pool.shutdown();
+            if (!pool.awaitTermination(Math.max(timeoutMs, 0) + 1000L, TimeUnit.MILLISECONDS)) {
+                timeout = true;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        LOG.info("Parallel BnB with " + threads + " workers expanded " + expanded.get() + " nodes, pruned "
+                + bounded.get() + " by bound and " + duplicates.get() + " duplicates" + (timeout ? ", timed out." : "."));
+        final Incumbent best = incumbent.get();
+        if (best.placement == null) {
+            return null;
+        }
+        final SchedulingPlan plan = plan(best.placement, size);
+        plan.set_success();
+        return plan;
+    }
+
+    boolean isTimeout() {
+        return timeout;
+    }
+
+    private SchedulingPlan plan(byte[] placement, int validOperators) {
+        final SchedulingPlan plan = new SchedulingPlan(graph, numNodes, cons, conf, variables, placement);
+        plan.validOperators = validOperators;
+        return plan;
+    }
+
+    /**
+     * Drop the decisions whose executors are all valid, as BranchAndBound#Clean.
+     */
+    private BitSet clean(BitSet remaining, Map<Integer, Boolean> validationMap) {
+        final BitSet cleaned = (BitSet) remaining.clone();
+        for (int i = remaining.nextSetBit(0); i >= 0; i = remaining.nextSetBit(i + 1)) {
+            final Decision decision = decisions.get(i);
+            final boolean consumer = validationMap.get(decision.consumer.getExecutorID());
+            if (decision.producer == null ? consumer : consumer && validationMap.get(decision.producer.getExecutorID())) {
+                cleaned.clear(i);
+            }
+        }
+        return cleaned;
+    }
+
+    private void offer(Partial node) {
+        Incumbent current = incumbent.get();
+        while (node.bound > current.rate) {
+            if (incumbent.compareAndSet(current, new Incumbent(node.bound, node.placement))) {
+                LOG.info("A better solution has been found by parallel BnB:" + node.bound * 1E6 + ",\tprevious solution:" + current.rate * 1E6);
+                return;
+            }
+            current = incumbent.get();
+        }
+    }
+
+    /**
+     * Children of a node, as BranchAndBound#branching_body applied to each remaining decision.
+     */
+    private List<Partial> expand(Partial node) {
+        final SchedulingPlan parent = plan(node.placement, node.valid);
+        final Map<Integer, Boolean> validation = parent.validationMap;
+        final List<Integer> distinctNodes = new ArrayList<>();
+        for (int s = 0; s < numNodes; s++) {
+            boolean identical = false;
+            for (int a : distinctNodes) {
+                if (cons.identical_Nodes(validation, parent, a, s)) {
+                    identical = true;
+                    break;
+                }
+            }
+            if (!identical) {
+                distinctNodes.add(s);
+            }
+        }
+        final List<Partial> children = new ArrayList<>();
+        for (int i = node.decisions.nextSetBit(0); i >= 0; i = node.decisions.nextSetBit(i + 1)) {
+            final Decision dec = decisions.get(i);
+            if (dec.producer == null) {
+                if (!validation.get(dec.consumer.getExecutorID())) {
+                    for (int s : distinctNodes) {
+                        child(node, parent, i, plan -> plan.valid_allocate(dec.consumer, s), children);
+                    }
+                }
+            } else if (BranchAndBound.bothReDeterminable(validation, dec)) {
+                child(node, parent, i, plan -> plan.valid_collocation(plan.validationMap, dec), children);
+            } else {
+                for (int s : distinctNodes) {
+                    if (!validation.get(dec.producer.getExecutorID())) {
+                        child(node, parent, i, plan -> plan.valid_allocate(dec.producer, s), children);
+                    }
+                    if (!validation.get(dec.consumer.getExecutorID())) {
+                        child(node, parent, i, plan -> plan.valid_allocate(dec.consumer, s), children);
+                    }
+                }
+            }
+        }
+        return children;
+    }
+
+    private void child(Partial node, SchedulingPlan parent, int decision, UnaryOperator<SchedulingPlan> branch, List<Partial> children) {
+        final SchedulingPlan copy = new SchedulingPlan(parent, false);
+        copy.validationMap = new HashMap<>(parent.validationMap);
+        copy.validOperators = parent.validOperators;
+        final SchedulingPlan plan = branch.apply(copy);
+        if (plan == null) {
+            return;
+        }
+        final BitSet remaining = (BitSet) node.decisions.clone();
+        remaining.clear(decision);
+        children.add(new Partial(plan.encode(), clean(remaining, plan.validationMap), plan.getBound_rate(), plan.validOperators));
+    }
+
+    private static final class Incumbent {
+        final double rate;
+        final byte[] placement;//null for the plan the search started from.
+
+        Incumbent(double rate, byte[] placement) {
+            this.rate = rate;
+            this.placement = placement;
+        }
+    }
+
+    private static final class Partial {
+        final byte[] placement;
+        final BitSet decisions;//remaining ones.
+        final double bound;//output rate if complete, upper bound otherwise.
+        final int valid;
+
+        Partial(byte[] placement, BitSet decisions, double bound, int valid) {
+            this.placement = placement;
+            this.decisions = decisions;
+            this.bound = bound;
+            this.valid = valid;
+        }
+    }
+
+    private static final class Key {
+        final byte[] placement;
+        final BitSet decisions;
+        final int hash;
+
+        Key(Partial node) {
+            this.placement = node.placement;
+            this.decisions = node.decisions;
+            this.hash = 31 * Arrays.hashCode(placement) + decisions.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key k = (Key) o;
+            return hash == k.hash && Arrays.equals(placement, k.placement) && decisions.equals(k.decisions);
+        }
+    }
+
+    private final class Explore extends RecursiveAction {
+        private static final long serialVersionUID = -5120983707946003176L;
+        private final Partial node;
+
+        Explore(Partial node) {
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+            if (timeout || System.currentTimeMillis() > deadline) {
+                timeout = true;
+                return;
+            }
+            if (node.valid == size) {
+                offer(node);
+                return;
+            }
+            if (node.bound <= incumbent.get().rate) {
+                bounded.incrementAndGet();
+                return;
+            }
+            expanded.incrementAndGet();
+            final List<Partial> children = expand(node);
+            children.sort((a, b) -> Double.compare(b.bound, a.bound));//most promising first.
+            final List<Explore> tasks = new ArrayList<>();
+            for (Partial child : children) {
+                if (child.valid != size && child.bound <= incumbent.get().rate) {
+                    bounded.incrementAndGet();
+                } else if (seen.size() < MEMO_CAPACITY && !seen.add(new Key(child))) {
+                    duplicates.incrementAndGet();
+                } else {
+                    tasks.add(new Explore(child));
+                }
+            }
+            invokeAll(tasks);
+        }
+    }
+}
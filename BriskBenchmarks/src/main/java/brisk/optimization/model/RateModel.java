@@ -84,6 +84,8 @@ public class RateModel implements Serializable {
     }
 
     private double Acutal_FetchCycles(STAT stat, SchedulingPlan sp, ExecutionNode src, ExecutionNode dst) {
+        src = src.getThreadHost();//a chained executor runs where the executor it is chained into runs.
+        dst = dst.getThreadHost();
 
 //		return Double.compare(sp.allocation_decision(src), sp.allocation_decision(dst)) != 0 ? (
 //				p.CLOCK_RATE//xxx(cycles/ns)
@@ -127,7 +129,9 @@ public class RateModel implements Serializable {
     private double C_Fetch(STAT stat, SchedulingPlan sp, ExecutionNode src, ExecutionNode dst) {
 
         double rt;
-        if (src == null) {
+        if (src != null && dst.getChainHost() == src) {
+            rt = 0;//chained, called directly by its producer.
+        } else if (src == null) {
             rt = stat.cycles_PS_inFetch[0];//Math.max(stat.cycles_PS_inFetch[0], stat.cycles_PS_inFetch[1]);
         } else {
 
@@ -157,7 +161,7 @@ public class RateModel implements Serializable {
             } else {//bound function
                 v =
                         C_Pro(stat)//predict local cycles
-                                + (C_Fetch(stat, sp, null, null))//C_Fetch
+                                + (dst.isChained() ? 0 : C_Fetch(stat, sp, null, null))//C_Fetch
                 ;
             }
         } else {
@@ -165,6 +169,8 @@ public class RateModel implements Serializable {
                     + (C_Fetch(stat, sp, src, dst));//C_Fetch
         }
 
+        v += C_Chained(dst);
+
 //		if (dst.op.isStateful()) {
 //			v += C_gc_overhead(sp, stat.gc_factor);
 //		} else {
@@ -176,6 +182,23 @@ public class RateModel implements Serializable {
     }
 
 
+    /**
+     * Cycles spent per input tuple of the executor in the consumers chained into it, which run in its thread:
+     * each output tuple is processed right away by the chained consumer (and the consumers chained into that one).
+     */
+    private double C_Chained(ExecutionNode host) {
+        final ExecutionNode chained = host.getChained();
+        if (chained == null) {
+            return 0;
+        }
+        final STAT stat = chained.profiling.get(host.getExecutorID());
+        if (stat == null) {
+            return 0;
+        }
+        final String stream = chained.operator.getParents().keySet().iterator().next();//the only input of a chained consumer.
+        return host.RM.output_selectivity.getOrDefault(stream, 1.0) * (C_Pro(stat) + C_Chained(chained));
+    }
+
     // It has additional gc overhead when using more than 4 sockets.
     // it seems to be 3 for FD.
     private double C_gc_overhead(SchedulingPlan sp, double gc_factor) {
@@ -254,6 +277,10 @@ public class RateModel implements Serializable {
         if (cacheSet(cacheMap.getCycles())) {
             return cacheMap.getCycles();
         }
+        if (executionNode.isChained()) {//its cycles are spent by the executor it is chained into.
+            cacheMap.setCycles(0);
+            return 0;
+        }
 
         if (executionNode.noParents()) {//no producer operator
             double rt = erp_sc(executionNode, null, streamId, schedulingPlan, bound)
@@ -0,0 +1,66 @@
+package brisk.queue;
+
+import brisk.execution.ExecutionNode;
+import brisk.queue.impl.P1CnRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.OsUtils;
+
+import java.util.HashMap;
+import java.util.Queue;
+
+/**
+ * One ring for all the consumers of a broadcast edge: the producer publishes each batch once, and the queue of each
+ * consumer is its cursor on the ring. Consumers so read the same batch, instead of a copy each.
+ * The ring is allocated locally, it can not follow the node of every consumer.
+ */
+public class BroadcastController extends QueueController {
+    private static final Logger LOG = LoggerFactory.getLogger(BroadcastController.class);
+    private static final long serialVersionUID = 4426510938807645371L;
+    private final HashMap<Integer, Queue> cursors = new HashMap<>();//<Downstream executor ID, its cursor on the ring>
+    private P1CnRing ring;
+
+    public BroadcastController(HashMap<Integer, ExecutionNode> downExecutor_list) {
+        super(downExecutor_list);
+    }
+
+    public boolean isEmpty() {
+        return ring.isEmpty();
+    }
+
+    /**
+     * Allocate memory for queue structure here.
+     *
+     * @param linked                          there is no linked ring, an array is used anyway.
+     * @param desired_elements_epoch_per_core
+     */
+    public void allocate_queue(boolean linked, int desired_elements_epoch_per_core) {
+        if (ring != null) {
+            LOG.info("relax_reset the old queue");
+            cursors.clear();
+        }
+        if (linked) {
+            LOG.info("There is no linked implementation for the broadcast ring, an array is used.");
+        }
+        if (OsUtils.isWindows() || OsUtils.isMac()) {
+            ring = new P1CnRing(1024, downExecutor_list.size());
+        } else {
+            ring = new P1CnRing(desired_elements_epoch_per_core / 2, downExecutor_list.size());
+        }
+        int index = 0;
+        for (int executor : downExecutor_list.keySet()) {
+            cursors.put(executor, ring.consumer(index++));
+        }
+    }
+
+    public Queue get_queue(int executor) {
+        return cursors.get(executor);
+    }
+
+    /**
+     * @return the producer's side of the ring.
+     */
+    public P1CnRing getRing() {
+        return ring;
+    }
+}
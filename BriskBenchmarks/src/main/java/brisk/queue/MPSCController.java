@@ -67,14 +67,14 @@ public class MPSCController extends QueueController {
 
 //
             if (OsUtils.isWindows() || OsUtils.isMac()) {//local debug
-                outputQueue.put(executor, new MpscArrayQueue(desired_elements_epoch_per_core));
+                outputQueue.put(executor, place(executor, () -> new MpscArrayQueue(desired_elements_epoch_per_core)));
             } else {
                 if (linked) {
-                    outputQueue.put(executor, new MpscLinkedQueue8<>());
+                    outputQueue.put(executor, place(executor, MpscLinkedQueue8::new));
                 } else {
 //                    int queue_size = (int) (desired_elements_epoch/2);//* 1.2
 //                    LOG.info("finally, set queue size to be:" + queue_size);
-                    outputQueue.put(executor, new MpscArrayQueue(desired_elements_epoch_per_core));//(int) Math.pow(2, 17)= 131072 160000
+                    outputQueue.put(executor, place(executor, () -> new MpscArrayQueue(desired_elements_epoch_per_core)));//(int) Math.pow(2, 17)= 131072 160000
                 }
             }
         }
@@ -0,0 +1,125 @@
+package brisk.queue;
+
+import brisk.queue.impl.UnsafeDirectByteBuffer;
+import util.OsUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static xerial.jnuma.Numa.*;
+
+/**
+ * Allocates Java objects with their initial pages on a chosen NUMA node.
+ * The calling thread is moved to the node and prefers its memory while allocating, then its binding is restored.
+ * <p>
+ * This is all it does: the heap gives no control over placement. With -XX:+UseNUMA, objects are taken from the eden of
+ * the node the allocating thread runs on, but the first collection they survive copies them to survivor and old spaces
+ * that are not per node, and whatever they reference later (e.g. the messages put in a batch) is allocated by other
+ * threads. Only memory that is not moved, such as a direct buffer, zeroed hence first touched while allocating, stays
+ * where it was placed; {@link #pages(ByteBuffer)} tells where that is.
+ */
+public final class NumaAllocator {
+    private static volatile int[] nodes;//NUMA node of each socket, see Platform#node.
+
+    private NumaAllocator() {
+    }
+
+    /**
+     * @param nodes NUMA node of each socket of the platform, so that memory-only nodes do not shift the sockets.
+     */
+    public static void setNodes(int[] nodes) {
+        NumaAllocator.nodes = nodes.clone();
+    }
+
+    /**
+     * @return number of sockets objects can be allocated on.
+     */
+    public static int sockets() {
+        final int[] nodes = NumaAllocator.nodes;
+        return nodes != null ? nodes.length : OsUtils.totalSockets();
+    }
+
+    /**
+     * @param socket
+     * @return the NUMA node of the socket.
+     */
+    public static int node(int socket) {
+        final int[] nodes = NumaAllocator.nodes;
+        return nodes != null && socket < nodes.length ? nodes[socket] : socket;
+    }
+
+    /**
+     * @param socket     -1 to allocate locally.
+     * @param allocation
+     * @return the allocated object, whose pages first touched by the allocation are on the node of the socket.
+     */
+    public static <T> T on(int socket, Supplier<T> allocation) {
+        if (socket < 0 || !OsUtils.isUnix() || numNodes() < 2) {
+            return allocation.get();
+        }
+        final int node = node(socket);
+        final long[] affinity = getAffinity();
+        runOnNode(node);
+        setPreferred(node);
+        try {
+            return allocation.get();
+        } finally {
+            setLocalAlloc();
+            setAffinity(affinity);
+        }
+    }
+
+    /**
+     * Placement check of a direct buffer, from /proc/self/numa_maps: the number of resident pages on each node of the
+     * mapping that holds it. A mapping may be shared with other allocations, so its pages are an upper bound of those
+     * of the buffer.
+     *
+     * @param direct
+     * @return pages per node, empty if the mapping is not found or the kernel does not report NUMA placement.
+     * @throws IOException
+     */
+    public static Map<Integer, Long> pages(ByteBuffer direct) throws IOException {
+        if (!direct.isDirect()) {
+            throw new IllegalArgumentException("Only the placement of a direct buffer is stable");
+        }
+        final long address = UnsafeDirectByteBuffer.getAddress(direct);
+        final Map<Integer, Long> pages = new TreeMap<>();
+        final Path maps = Paths.get("/proc/self/maps");
+        final Path numa_maps = Paths.get("/proc/self/numa_maps");
+        if (!Files.exists(maps) || !Files.exists(numa_maps)) {
+            return pages;
+        }
+        String start = null;//of the mapping holding the address, as both files print it.
+        for (String line : Files.readAllLines(maps)) {//from-to perms ...
+            final String range = line.substring(0, line.indexOf(' '));
+            final int dash = range.indexOf('-');
+            final long from = Long.parseUnsignedLong(range.substring(0, dash), 16);
+            final long to = Long.parseUnsignedLong(range.substring(dash + 1), 16);
+            if (Long.compareUnsigned(from, address) <= 0 && Long.compareUnsigned(address, to) < 0) {
+                start = range.substring(0, dash);
+                break;
+            }
+        }
+        if (start == null) {
+            return pages;
+        }
+        for (String line : Files.readAllLines(numa_maps)) {//from policy ... N<node>=<pages> ...
+            if (line.startsWith(start + " ")) {
+                for (String field : line.split(" ")) {
+                    final int eq = field.indexOf('=');
+                    if (field.startsWith("N") && eq > 1) {
+                        pages.put(Integer.parseInt(field.substring(1, eq)), Long.parseLong(field.substring(eq + 1)));
+                    }
+                }
+                break;
+            }
+        }
+        return pages;
+    }
+}
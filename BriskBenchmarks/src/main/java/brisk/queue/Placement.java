@@ -0,0 +1,63 @@
+package brisk.queue;
+
+import util.Configuration;
+
+/**
+ * NUMA node on which the queues of an edge, and the batches sent through them, are allocated.
+ * "&lt;producer id&gt;.&lt;consumer id&gt;.placement" overrides the global "placement" (default: local).
+ */
+public enum Placement {
+    /**
+     * Wherever the thread allocating the queue runs, i.e., the producer when it allocates its own queues.
+     */
+    LOCAL,
+    /**
+     * On the node of the producer: its writes are local and the consumer reads remotely.
+     */
+    PRODUCER,
+    /**
+     * On the node of the consumer: the producer writes remotely and the consumer, which stalls on its reads, reads locally.
+     */
+    CONSUMER,
+    /**
+     * The queues of the edge spread round-robin over all nodes, so that no memory controller carries a fan-out alone.
+     * This is only round-robin across queues: each queue is on a single node, its pages are not interleaved.
+     */
+    INTERLEAVED,
+    /**
+     * As decided by the scheduling plan, see SchedulingPlan#placement.
+     */
+    PLAN;
+
+    public static Placement resolve(Configuration conf, String producerId, String consumerId) {
+        return parse(conf.getString(producerId + "." + consumerId + ".placement", conf.getString("placement", "local")));
+    }
+
+    public static Placement parse(String name) {
+        try {
+            return valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown placement: " + name);
+        }
+    }
+
+    /**
+     * @param producer node of the producer.
+     * @param consumer node of the consumer.
+     * @param index    index of the consumer among the consumers of the edge.
+     * @param nodes    number of nodes.
+     * @return node to allocate the queue on, -1 for local.
+     */
+    public int node(int producer, int consumer, int index, int nodes) {
+        switch (this) {
+            case PRODUCER:
+                return producer;
+            case CONSUMER:
+                return consumer;
+            case INTERLEAVED:
+                return index % nodes;
+            default:
+                return -1;
+        }
+    }
+}
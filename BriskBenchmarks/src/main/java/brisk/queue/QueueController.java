@@ -7,17 +7,35 @@ import org.slf4j.LoggerFactory;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Queue;
+import java.util.function.Supplier;
 
 public abstract class QueueController implements Serializable {
     private static final long serialVersionUID = 12L;
 
     private static final Logger LOG = LoggerFactory.getLogger(QueueController.class);
     final HashMap<Integer, ExecutionNode> downExecutor_list;
+    private HashMap<Integer, Integer> nodes;//<Downstream executor ID, socket of its queue>, null to allocate locally.
 
     QueueController(HashMap<Integer, ExecutionNode> downExecutor_list) {
         this.downExecutor_list = downExecutor_list;
     }
 
+    /**
+     * Set the socket on which the queue of each downstream executor is allocated by the next allocate_queue.
+     *
+     * @param nodes see {@link Placement}.
+     */
+    public void setNodes(HashMap<Integer, Integer> nodes) {
+        this.nodes = nodes;
+    }
+
+    Queue place(int executor, Supplier<Queue> queue) {
+        if (nodes == null) {
+            return queue.get();
+        }
+        return NumaAllocator.on(nodes.getOrDefault(executor, -1), queue);
+    }
+
     public abstract Queue get_queue(int executor);
 
 
@@ -60,12 +60,12 @@ public class SPSCController extends QueueController {
             }
 
             if (OsUtils.isWindows() || OsUtils.isMac()) {
-                outputQueue.put(executor, new SpscArrayQueue(1024));
+                outputQueue.put(executor, place(executor, () -> new SpscArrayQueue(1024)));
             } else {
                 if (linked) {
-                    outputQueue.put(executor, new SpscLinkedQueue()/*new P1C1Queue<TransferTuple>()*/);
+                    outputQueue.put(executor, place(executor, () -> new SpscLinkedQueue()/*new P1C1Queue<TransferTuple>()*/));
                 } else {
-                    outputQueue.put(executor, new SpscArrayQueue(desired_elements_epoch_per_core / 2)/*new P1C1Queue<TransferTuple>()*/);
+                    outputQueue.put(executor, place(executor, () -> new SpscArrayQueue(desired_elements_epoch_per_core / 2)/*new P1C1Queue<TransferTuple>()*/));
                 }
             }
 
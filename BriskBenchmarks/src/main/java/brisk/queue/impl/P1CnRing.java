@@ -0,0 +1,197 @@
+package brisk.queue.impl;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One producer, n consumers ring where every consumer reads every element.
+ * <ul>
+ * <li>The producer publishes an element once, by advancing the tail; each consumer has its own cursor, read through
+ * {@link #consumer(int)}, and the element is shared by all of them rather than copied into a queue per consumer.
+ * <li>A slot is reclaimed once all cursors have passed it: the producer clears it and may reuse it. The producer
+ * caches the slowest cursor, and only reads the cursors again when the ring looks full, or every
+ * {@link #RECLAIM_INTERVAL} elements so that consumed elements are not kept alive for a whole lap.
+ * <li>Using the power of 2 mask, forcing the capacity to next power of 2. Tail, cursors and their caches are padded.
+ * </ul>
+ * The ring itself is the producer's view: it can be offered to, not polled.
+ * Elements are shared: consumers must not modify them.
+ */
+public final class P1CnRing<E> extends AbstractQueue<E> {
+    private static final int RECLAIM_INTERVAL = 64;
+    private final int capacity;
+    private final int mask;
+    private final E[] buffer;
+    private final AtomicLong tail = new PaddedAtomicLong(0);
+    private final Cursor[] cursors;
+    private final PaddedLong gateCache = new PaddedLong();//slowest cursor last seen by the producer.
+
+    @SuppressWarnings("unchecked")
+    public P1CnRing(int capacity, int consumers) {
+        if (consumers <= 0) {
+            throw new IllegalArgumentException("A ring needs at least one consumer: " + consumers);
+        }
+        this.capacity = findNextPositivePowerOfTwo(Math.max(capacity, 2));
+        mask = this.capacity - 1;
+        buffer = (E[]) new Object[this.capacity];
+        cursors = new P1CnRing.Cursor[consumers];
+        for (int i = 0; i < consumers; i++) {
+            cursors[i] = new Cursor();
+        }
+    }
+
+    private static int findNextPositivePowerOfTwo(final int value) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(value - 1));
+    }
+
+    /**
+     * @param index of the consumer, from 0 to the number of consumers - 1.
+     * @return the queue this consumer polls.
+     */
+    public Cursor consumer(int index) {
+        return cursors[index];
+    }
+
+    @Override
+    public boolean offer(final E e) {
+        return offerIfBelowThreshold(e, capacity);
+    }
+
+    /**
+     * @param e
+     * @param threshold max number of elements the slowest consumer may lag behind, capped by the capacity.
+     * @return false if the slowest consumer lags too much, the element is not published then.
+     */
+    public boolean offerIfBelowThreshold(final E e, int threshold) {
+        if (e == null) {
+            throw new NullPointerException("Null is not a valid element");
+        }
+        final long limit = Math.min(threshold, capacity);
+        final long t = tail.get();
+        if (t - gateCache.value >= limit || (t & (RECLAIM_INTERVAL - 1)) == 0) {
+            reclaim();
+            if (t - gateCache.value >= limit) {
+                return false;
+            }
+        }
+        buffer[(int) t & mask] = e;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Clear the slots all consumers have passed since the last reclaim. Producer only.
+     */
+    private void reclaim() {
+        final long gate = gate();
+        for (long p = gateCache.value; p < gate; p++) {
+            buffer[(int) p & mask] = null;
+        }
+        gateCache.value = gate;
+    }
+
+    private long gate() {
+        long min = Long.MAX_VALUE;
+        for (Cursor cursor : cursors) {
+            final long c = cursor.head.get();
+            if (c < min) {
+                min = c;
+            }
+        }
+        return min;
+    }
+
+    @Override
+    public E poll() {
+        throw new UnsupportedOperationException("Poll a consumer of the ring instead");
+    }
+
+    @Override
+    public E peek() {
+        throw new UnsupportedOperationException("Peek a consumer of the ring instead");
+    }
+
+    /**
+     * @return the number of elements the slowest consumer has still to read.
+     */
+    @Override
+    public int size() {
+        return (int) (tail.get() - gate());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tail.get() == gate();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * The view of one consumer: it reads every element published after it was created, and is polled by that
+     * consumer only. It can not be offered to.
+     */
+    public final class Cursor extends AbstractQueue<E> {
+        private final AtomicLong head = new PaddedAtomicLong(0);
+        private final PaddedLong tailCache = new PaddedLong();
+
+        private Cursor() {
+        }
+
+        @Override
+        public boolean offer(E e) {
+            throw new UnsupportedOperationException("Offer to the ring instead");
+        }
+
+        @Override
+        public E poll() {
+            final long h = head.get();
+            if (h >= tailCache.value) {
+                tailCache.value = tail.get();
+                if (h >= tailCache.value) {
+                    return null;
+                }
+            }
+            final E e = buffer[(int) h & mask];
+            head.lazySet(h + 1);
+            return e;
+        }
+
+        @Override
+        public E peek() {
+            final long h = head.get();
+            if (h >= tailCache.value) {
+                tailCache.value = tail.get();
+                if (h >= tailCache.value) {
+                    return null;
+                }
+            }
+            return buffer[(int) h & mask];
+        }
+
+        @Override
+        public int size() {
+            return (int) (tail.get() - head.get());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return head.get() >= tail.get();
+        }
+
+        /**
+         * Skip every element published so far.
+         */
+        @Override
+        public void clear() {
+            head.lazySet(tail.get());
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
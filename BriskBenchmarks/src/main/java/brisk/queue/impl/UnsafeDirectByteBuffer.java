@@ -3,7 +3,7 @@ package brisk.queue.impl;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 
-class UnsafeDirectByteBuffer {
+public class UnsafeDirectByteBuffer {
     public static final int CACHE_LINE_SIZE = 64;
     private static final int PAGE_SIZE = UnsafeAccess.unsafe.pageSize();
     private static final long addressOffset;
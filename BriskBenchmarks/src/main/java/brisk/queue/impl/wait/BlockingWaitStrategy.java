@@ -0,0 +1,83 @@
+package brisk.queue.impl.wait;
+
+import brisk.queue.impl.PaddedLong;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spins briefly, then blocks on a condition until the other end of the channel signals progress.
+ * The lock is only taken on the signalling side when somebody is actually waiting, so a channel that
+ * never blocks pays a single volatile read per offer/poll.
+ * A signal racing with a thread that is about to wait may be missed, hence waits are bounded by {@link #TIMEOUT_NS}.
+ */
+public final class BlockingWaitStrategy implements WaitStrategy {
+    private static final long serialVersionUID = -6312405718290733315L;
+    private static final int SPIN_TRIES = 100;
+    private static final long TIMEOUT_NS = 1000000;//1 ms
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    private boolean _test_offer(final AtomicLong tail, final AtomicLong head, final int capacity, final PaddedLong headCache) {
+        final long currentTail = tail.get();
+        final long wrapPoint = currentTail - capacity;
+        if (headCache.value <= wrapPoint) {
+            headCache.value = head.get();
+            return headCache.value > wrapPoint;
+        }
+        return true;
+    }
+
+    @Override
+    public int waitFor(final AtomicLong tail, final AtomicLong head, final int capacity, final PaddedLong headCache) throws InterruptedException {
+        int counter = SPIN_TRIES;
+        while (!_test_offer(tail, head, capacity, headCache)) {
+            counter = idle(counter);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int spinTries() {
+        return SPIN_TRIES;
+    }
+
+    @Override
+    public int idle(int counter) {
+        if (counter > 0) {
+            return --counter;
+        }
+        lock.lock();
+        waiters.incrementAndGet();
+        try {
+            progress.await(TIMEOUT_NS, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+        return 0;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        if (waiters.get() != 0) {
+            lock.lock();
+            try {
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package brisk.queue.impl.wait;
+
+import brisk.queue.impl.PaddedLong;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Never gives up the core: lowest latency, burns a full core while idle.
+ */
+public final class BusySpinWaitStrategy implements WaitStrategy {
+    private static final long serialVersionUID = -2716438021650385197L;
+
+    private boolean _test_offer(final AtomicLong tail, final AtomicLong head, final int capacity, final PaddedLong headCache) {
+        final long currentTail = tail.get();
+        final long wrapPoint = currentTail - capacity;
+        if (headCache.value <= wrapPoint) {
+            headCache.value = head.get();
+            return headCache.value > wrapPoint;
+        }
+        return true;
+    }
+
+    @Override
+    public int waitFor(final AtomicLong tail, final AtomicLong head, final int capacity, final PaddedLong headCache) {
+        while (!_test_offer(tail, head, capacity, headCache)) {
+            //spin.
+        }
+        return 0;
+    }
+
+    @Override
+    public int spinTries() {
+        return 0;
+    }
+
+    @Override
+    public int idle(int counter) {
+        return counter;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+
+    }
+}
@@ -0,0 +1,66 @@
+package brisk.queue.impl.wait;
+
+import brisk.queue.impl.PaddedLong;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spins, then yields, then parks with an exponentially growing period (capped at {@link #MAX_PARK_NS}).
+ * The counter counts down through the spin and yield phases and keeps going negative while parking,
+ * so the backoff needs no extra state and is reset by the caller on the next successful offer/poll.
+ */
+public final class ParkingWaitStrategy implements WaitStrategy {
+    private static final long serialVersionUID = 8183470519360734401L;
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 10;
+    private static final long MIN_PARK_NS = 1000;//1 us
+    private static final long MAX_PARK_NS = 1000000;//1 ms
+    private static final int MAX_SHIFT = 63 - Long.numberOfLeadingZeros(MAX_PARK_NS / MIN_PARK_NS);
+
+    private boolean _test_offer(final AtomicLong tail, final AtomicLong head, final int capacity, final PaddedLong headCache) {
+        final long currentTail = tail.get();
+        final long wrapPoint = currentTail - capacity;
+        if (headCache.value <= wrapPoint) {
+            headCache.value = head.get();
+            return headCache.value > wrapPoint;
+        }
+        return true;
+    }
+
+    @Override
+    public int waitFor(final AtomicLong tail, final AtomicLong head, final int capacity, final PaddedLong headCache) {
+        int counter = spinTries();
+        while (!_test_offer(tail, head, capacity, headCache)) {
+            counter = idle(counter);
+        }
+        return 0;
+    }
+
+    @Override
+    public int spinTries() {
+        return SPIN_TRIES + YIELD_TRIES;
+    }
+
+    @Override
+    public int idle(int counter) {
+        if (counter > YIELD_TRIES) {
+            --counter;
+        } else if (counter > 0) {
+            Thread.yield();
+            --counter;
+        } else {
+            final int shift = Math.min(-counter, MAX_SHIFT + 1);
+            LockSupport.parkNanos(Math.min(MIN_PARK_NS << shift, MAX_PARK_NS));
+            if (-counter <= MAX_SHIFT) {
+                --counter;
+            }
+        }
+        return counter;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+
+    }
+}
@@ -5,6 +5,7 @@ import brisk.queue.impl.PaddedLong;
 import java.util.concurrent.atomic.AtomicLong;
 
 public final class SleepWaitStrategy implements WaitStrategy {
+    private static final long serialVersionUID = -4815217368032870452L;
     private static final int SPIN_TRIES = 0;
     private static final int sleep_ns = 0;
     private static final int sleep_ms = 10;
@@ -41,6 +42,20 @@ public final class SleepWaitStrategy implements WaitStrategy {
         return counter;
     }
 
+    @Override
+    public int spinTries() {
+        return SPIN_TRIES;
+    }
+
+    @Override
+    public int idle(int counter) {
+        try {
+            return applyWaitMethod(counter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return counter;
+        }
+    }
 
     @Override
     public void signalAllWhenBlocking() {
@@ -0,0 +1,34 @@
+package brisk.queue.impl.wait;
+
+import util.Configuration;
+
+/**
+ * Resolves the wait strategy of an operator.
+ * "&lt;operator id&gt;.wait_strategy" overrides the global "wait_strategy" (default: spin).
+ */
+public final class WaitStrategies {
+
+    private WaitStrategies() {
+    }
+
+    public static WaitStrategy create(Configuration conf, String operatorId) {
+        return create(conf.getString(operatorId + ".wait_strategy", conf.getString("wait_strategy", "spin")));
+    }
+
+    public static WaitStrategy create(String name) {
+        switch (name.toLowerCase()) {
+            case "spin":
+                return new BusySpinWaitStrategy();
+            case "yield":
+                return new YieldingWaitStrategy();
+            case "park":
+                return new ParkingWaitStrategy();
+            case "block":
+                return new BlockingWaitStrategy();
+            case "sleep":
+                return new SleepWaitStrategy();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        }
+    }
+}
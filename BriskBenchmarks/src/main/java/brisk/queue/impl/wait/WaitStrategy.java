@@ -3,11 +3,29 @@ package brisk.queue.impl.wait;
 
 import brisk.queue.impl.PaddedLong;
 
+import java.io.Serializable;
 import java.util.concurrent.atomic.AtomicLong;
 
-public interface WaitStrategy {
+/**
+ * How a thread waits on a communication channel that is full (producer) or empty (consumer).
+ * One instance is shared by both ends of the channels of a consuming executor.
+ */
+public interface WaitStrategy extends Serializable {
 
     int waitFor(AtomicLong tail, AtomicLong head, int capacity, PaddedLong headCache) throws InterruptedException;
 
+    /**
+     * @return the initial counter handed to {@link #idle(int)} after a successful offer/poll.
+     */
+    int spinTries();
+
+    /**
+     * Called once per failed offer/poll attempt.
+     *
+     * @param counter the value returned by the previous call (or {@link #spinTries()}).
+     * @return the counter for the next call.
+     */
+    int idle(int counter);
+
     void signalAllWhenBlocking();
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import brisk.queue.impl.PaddedLong;
 import java.util.concurrent.atomic.AtomicLong;
 
 public final class YieldingWaitStrategy implements WaitStrategy {
+    private static final long serialVersionUID = 5291003451257811302L;
     private static final int SPIN_TRIES = 1;
 
     private boolean _test_offer(final AtomicLong tail, final AtomicLong head, final int capacity, final PaddedLong headCache) {
@@ -37,6 +38,15 @@ public final class YieldingWaitStrategy implements WaitStrategy {
         return counter;
     }
 
+    @Override
+    public int spinTries() {
+        return SPIN_TRIES;
+    }
+
+    @Override
+    public int idle(int counter) {
+        return applyWaitMethod(counter);
+    }
 
     @Override
     public void signalAllWhenBlocking() {
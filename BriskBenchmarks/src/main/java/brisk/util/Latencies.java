@@ -0,0 +1,76 @@
+package brisk.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms of each executor, by kind, and their periodic report.
+ * Every executor records into its own {@link LatencyHistogram}; they are only merged when reported.
+ */
+public class Latencies {
+    /**
+     * From the spout emit timestamp carried by the tuple to the sink.
+     */
+    public static final String END_TO_END = "end-to-end";
+    /**
+     * Residence of a batch in the queue of an edge, from the producer offer to the consumer fetch.
+     */
+    public static final String QUEUE = "queue";
+    private static final Logger LOG = LoggerFactory.getLogger(Latencies.class);
+    private static final Map<String, Map<Integer, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> reported = new ConcurrentHashMap<>();//merge of the last report.
+    private static ScheduledExecutorService reporter;
+
+    /**
+     * @return the histogram of this kind owned by the executor.
+     */
+    public static LatencyHistogram of(String kind, int executorID) {
+        return histograms.computeIfAbsent(kind, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(executorID, k -> new LatencyHistogram());
+    }
+
+    /**
+     * @return all histograms of this kind merged, from the start.
+     */
+    public static LatencyHistogram merge(String kind) {
+        final LatencyHistogram merged = new LatencyHistogram();
+        final Map<Integer, LatencyHistogram> executors = histograms.get(kind);
+        if (executors != null) {
+            for (LatencyHistogram histogram : executors.values()) {
+                merged.add(histogram);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Log the percentiles of every kind over the last period, every periodSeconds, until the JVM exits.
+     */
+    public static synchronized void report(int periodSeconds) {
+        if (reporter != null || periodSeconds <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread t = new Thread(r, "latency-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(Latencies::report, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    private static void report() {
+        for (String kind : histograms.keySet()) {
+            final LatencyHistogram merged = merge(kind);
+            final LatencyHistogram previous = reported.put(kind, merged);
+            final LatencyHistogram interval = previous == null ? merged : merged.since(previous);
+            LOG.info(kind + " latency, last period: " + interval + ", total count: " + merged.count()
+                    + " max: " + merged.max() / 1E6 + " (ms)");
+        }
+    }
+}
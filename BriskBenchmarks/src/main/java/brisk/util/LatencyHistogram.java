@@ -0,0 +1,143 @@
+package brisk.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory latency histogram with log-scaled buckets, in the manner of HdrHistogram:
+ * values below 2^SUB_BITS are counted exactly, larger ones with a relative error below 2^-(SUB_BITS-1) (about 1.6%).
+ * Values are in ns and saturate at MAX_VALUE (about 73 minutes).
+ * <p>
+ * There is one writer (the executor that owns it) and any number of readers. Recording is a plain read and
+ * an ordered write of the bucket, without lock or CAS; readers see a slightly stale but consistent-enough count.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int HALF = SUB >> 1;
+    private static final int MAX_BITS = 42;
+    public static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKETS = (MAX_BITS - SUB_BITS) * HALF + SUB;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);//last slot holds the max.
+
+    static int index(long value) {
+        if (value < SUB) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS + 1;
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the largest value counted in bucket i.
+     */
+    static long highest(int i) {
+        if (i < SUB) {
+            return i;
+        }
+        final int shift = i / HALF - 1;
+        final long sub = i - shift * HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Called by the owner only.
+     *
+     * @param value in ns.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        final int i = index(value);
+        counts.lazySet(i, counts.get(i) + 1);
+        if (value > counts.get(BUCKETS)) {
+            counts.lazySet(BUCKETS, value);
+        }
+    }
+
+    /**
+     * Add the counts of another histogram into this one, which must not be recorded into concurrently.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            final long c = other.counts.get(i);
+            if (c != 0) {
+                counts.lazySet(i, counts.get(i) + c);
+            }
+        }
+        counts.lazySet(BUCKETS, Math.max(counts.get(BUCKETS), other.counts.get(BUCKETS)));
+    }
+
+    /**
+     * @param earlier a previous merge of the same histograms.
+     * @return what has been recorded since then.
+     */
+    public LatencyHistogram since(LatencyHistogram earlier) {
+        final LatencyHistogram interval = new LatencyHistogram();
+        int last = -1;
+        for (int i = 0; i < BUCKETS; i++) {
+            final long c = counts.get(i) - earlier.counts.get(i);
+            if (c > 0) {
+                interval.counts.lazySet(i, c);
+                last = i;
+            }
+        }
+        if (last >= 0) {
+            interval.counts.lazySet(BUCKETS, Math.min(highest(last), max()));
+        }
+        return interval;
+    }
+
+    public long count() {
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            sum += counts.get(i);
+        }
+        return sum;
+    }
+
+    public long max() {
+        return counts.get(BUCKETS);
+    }
+
+    /**
+     * @param percentile in (0, 100].
+     * @return the value below which this percentage of the recorded values fall, 0 if nothing is recorded.
+     */
+    public long percentile(double percentile) {
+        final long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highest(i), max());
+            }
+        }
+        return max();
+    }
+
+    public double mean() {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            final long c = counts.get(i);
+            if (c != 0) {
+                total += c;
+                sum += c * (double) highest(i);
+            }
+        }
+        return total == 0 ? 0 : sum / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count: %d mean: %.3f p50: %.3f p99: %.3f p99.9: %.3f max: %.3f (ms)",
+                count(), mean() / 1E6, percentile(50) / 1E6, percentile(99) / 1E6, percentile(99.9) / 1E6, max() / 1E6);
+    }
+}
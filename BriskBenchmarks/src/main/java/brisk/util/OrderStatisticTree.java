@@ -0,0 +1,262 @@
+package brisk.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Multiset of doubles supporting insert, remove and k-th smallest in O(log n).
+ * <p>
+ * A treap whose nodes live in primitive arrays and are recycled through a free list,
+ * so once it has grown to the window size, updates do not allocate.
+ * Each value carries an int tag (e.g., the window slot it came from): entries are ordered by value then tag,
+ * equal entries share a node with a count.
+ */
+public class OrderStatisticTree implements Serializable {
+    private static final long serialVersionUID = 3306411532584301657L;
+    private static final int NIL = 0;//sentinel node, sizes[NIL] == 0.
+    private double[] keys;
+    private int[] tags;
+    private int[] counts;
+    private int[] sizes;
+    private int[] lefts;
+    private int[] rights;
+    private int[] priorities;
+    private int root = NIL;
+    private int free = NIL;//released nodes, linked through rights.
+    private int next = 1;//first never used node.
+    private int seed = 0x2545F491;
+
+    public OrderStatisticTree(int capacity) {
+        allocate(Math.max(1, capacity) + 1);
+    }
+
+    private void allocate(int length) {
+        keys = keys == null ? new double[length] : Arrays.copyOf(keys, length);
+        tags = tags == null ? new int[length] : Arrays.copyOf(tags, length);
+        counts = counts == null ? new int[length] : Arrays.copyOf(counts, length);
+        sizes = sizes == null ? new int[length] : Arrays.copyOf(sizes, length);
+        lefts = lefts == null ? new int[length] : Arrays.copyOf(lefts, length);
+        rights = rights == null ? new int[length] : Arrays.copyOf(rights, length);
+        priorities = priorities == null ? new int[length] : Arrays.copyOf(priorities, length);
+    }
+
+    public int size() {
+        return sizes[root];
+    }
+
+    public void clear() {
+        root = NIL;
+        free = NIL;
+        next = 1;
+    }
+
+    public void insert(double key) {
+        insert(key, 0);
+    }
+
+    public void insert(double key, int tag) {
+        root = insert(root, key, tag);
+    }
+
+    /**
+     * @param key
+     * @return false if there is no such entry.
+     */
+    public boolean remove(double key) {
+        return remove(key, 0);
+    }
+
+    public boolean remove(double key, int tag) {
+        final int before = size();
+        root = remove(root, key, tag);
+        return size() < before;
+    }
+
+    /**
+     * @param k 0-based
+     * @return the k-th smallest value.
+     */
+    public double select(int k) {
+        return keys[node(k)];
+    }
+
+    /**
+     * @param k 0-based
+     * @return the tag of the k-th smallest entry.
+     */
+    public int selectTag(int k) {
+        return tags[node(k)];
+    }
+
+    /**
+     * @return the median, the mean of the two middle values for an even size.
+     */
+    public double median() {
+        final int n = size();
+        if (n % 2 == 0) {
+            return (select(n / 2) + select(n / 2 - 1)) / 2;
+        }
+        return select(n / 2);
+    }
+
+    /**
+     * @param key
+     * @return number of values smaller than key.
+     */
+    public int rank(double key) {
+        int rank = 0;
+        int n = root;
+        while (n != NIL) {
+            if (key <= keys[n]) {
+                n = lefts[n];
+            } else {
+                rank += sizes[lefts[n]] + counts[n];
+                n = rights[n];
+            }
+        }
+        return rank;
+    }
+
+    private int node(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("k: " + k + ", size: " + size());
+        }
+        int n = root;
+        while (true) {
+            final int left = sizes[lefts[n]];
+            if (k < left) {
+                n = lefts[n];
+            } else if (k < left + counts[n]) {
+                return n;
+            } else {
+                k -= left + counts[n];
+                n = rights[n];
+            }
+        }
+    }
+
+    private int compare(double key, int tag, int n) {
+        final int c = Double.compare(key, keys[n]);
+        return c != 0 ? c : Integer.compare(tag, tags[n]);
+    }
+
+    private int create(double key, int tag) {
+        final int n;
+        if (free != NIL) {
+            n = free;
+            free = rights[n];
+        } else {
+            if (next == keys.length) {
+                allocate(keys.length * 2);
+            }
+            n = next++;
+        }
+        keys[n] = key;
+        tags[n] = tag;
+        counts[n] = 1;
+        sizes[n] = 1;
+        lefts[n] = NIL;
+        rights[n] = NIL;
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        priorities[n] = seed;
+        return n;
+    }
+
+    private void release(int n) {
+        rights[n] = free;
+        free = n;
+    }
+
+    private void update(int n) {
+        sizes[n] = sizes[lefts[n]] + counts[n] + sizes[rights[n]];
+    }
+
+    private int rotateRight(int n) {
+        final int l = lefts[n];
+        lefts[n] = rights[l];
+        rights[l] = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    private int rotateLeft(int n) {
+        final int r = rights[n];
+        rights[n] = lefts[r];
+        lefts[r] = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    private int insert(int n, double key, int tag) {
+        if (n == NIL) {
+            return create(key, tag);
+        }
+        final int c = compare(key, tag, n);
+        if (c == 0) {
+            counts[n]++;
+        } else if (c < 0) {
+            final int left = insert(lefts[n], key, tag);//may grow the arrays, assign afterwards.
+            lefts[n] = left;
+            if (priorities[left] > priorities[n]) {
+                return rotateRight(n);
+            }
+        } else {
+            final int right = insert(rights[n], key, tag);
+            rights[n] = right;
+            if (priorities[right] > priorities[n]) {
+                return rotateLeft(n);
+            }
+        }
+        update(n);
+        return n;
+    }
+
+    private int remove(int n, double key, int tag) {
+        if (n == NIL) {
+            return NIL;
+        }
+        final int c = compare(key, tag, n);
+        if (c < 0) {
+            lefts[n] = remove(lefts[n], key, tag);
+        } else if (c > 0) {
+            rights[n] = remove(rights[n], key, tag);
+        } else if (counts[n] > 1) {
+            counts[n]--;
+        } else {
+            return delete(n);
+        }
+        update(n);
+        return n;
+    }
+
+    /**
+     * Rotate n down until it is a leaf (or has one child), then unlink it.
+     */
+    private int delete(int n) {
+        if (lefts[n] == NIL) {
+            final int r = rights[n];
+            release(n);
+            return r;
+        }
+        if (rights[n] == NIL) {
+            final int l = lefts[n];
+            release(n);
+            return l;
+        }
+        if (priorities[lefts[n]] > priorities[rights[n]]) {
+            final int l = rotateRight(n);
+            rights[l] = delete(n);
+            update(l);
+            return l;
+        } else {
+            final int r = rotateLeft(n);
+            lefts[r] = delete(n);
+            update(r);
+            return r;
+        }
+    }
+}
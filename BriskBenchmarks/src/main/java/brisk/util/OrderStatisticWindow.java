@@ -0,0 +1,81 @@
+package brisk.util;
+
+import java.io.Serializable;
+
+/**
+ * Count-based sliding window (like {@link SlidingWindow}) of items that each carry one or more doubles,
+ * with the order statistics of all values currently in the window.
+ * An arrival and the expiry it causes cost O(v log w) for v values per item, instead of re-sorting the window.
+ */
+public class OrderStatisticWindow implements Serializable {
+    private static final long serialVersionUID = -2318402797373812063L;
+    private final double[][] items;
+    private final OrderStatisticTree tree;
+    private int ct = 0;
+
+    public OrderStatisticWindow(int length) {
+        this(length, 1);
+    }
+
+    /**
+     * @param length         number of items in the window
+     * @param values_per_item expected, to size the tree up front
+     */
+    public OrderStatisticWindow(int length, int values_per_item) {
+        items = new double[length][];
+        tree = new OrderStatisticTree(length * Math.max(1, values_per_item));
+    }
+
+    /**
+     * Slide by one item, expiring the oldest once the window is full.
+     *
+     * @param values of the new item, owned by the window from now on.
+     * @return the slot of the new item, which tags its values.
+     */
+    public int put(double... values) {
+        final int slot = ct % items.length;
+        final double[] expired = items[slot];
+        if (expired != null) {
+            for (double value : expired) {
+                tree.remove(value, slot);
+            }
+        }
+        for (double value : values) {
+            tree.insert(value, slot);
+        }
+        items[slot] = values;
+        ct++;
+        return slot;
+    }
+
+    /**
+     * @return true once the window is full.
+     */
+    public boolean build() {
+        return ct >= items.length;
+    }
+
+    public int size() {
+        return tree.size();
+    }
+
+    public double median() {
+        return tree.median();
+    }
+
+    /**
+     * @param k 0-based
+     * @return the k-th smallest value in the window.
+     */
+    public double select(int k) {
+        return tree.select(k);
+    }
+
+    /**
+     * @param k 0-based
+     * @return the slot of the item holding the k-th smallest value.
+     */
+    public int slot(int k) {
+        return tree.selectTag(k);
+    }
+}
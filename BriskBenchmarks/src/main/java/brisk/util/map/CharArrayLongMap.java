@@ -0,0 +1,331 @@
+package brisk.util.map;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * char[] to long map, e.g., word counts, that compares whole keys (not just their hash codes).
+ * <p>
+ * Keys are copied into an append-only arena next to the table ({@code [length][chars]} per key),
+ * and a slot holds the arena reference of its key, the hash of the key and the value.
+ * Lookups take a char[] range, so a key does not have to be materialized as a String or copied to be looked up.
+ * Space of removed keys is reclaimed when the arena is full.
+ */
+public class CharArrayLongMap extends PrimitiveMap {
+    private static final long serialVersionUID = -6233811339062233052L;
+    private int hashes;//offset of the hashes region.
+    private int values;//offset of the values region.
+    private transient ByteBuffer arena;
+    private int used;//bytes of the arena in use, including garbage.
+    private int garbage;//bytes of removed keys.
+
+    public CharArrayLongMap(int expected, boolean off_heap) {
+        super(expected, off_heap);
+        arena = buffer(Math.min(MAX_BYTES, Math.max(256, expected * 16L)));
+    }
+
+    private static int hash(char[] key, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + key[i];
+        }
+        return mix(h);
+    }
+
+    @Override
+    protected void allocate(int capacity) {
+        super.allocate(capacity);
+        hashes = capacity * Integer.BYTES;
+        values = capacity * 2 * Integer.BYTES;
+    }
+
+    @Override
+    protected int slot_bytes() {
+        return 2 * Integer.BYTES + Long.BYTES;
+    }
+
+    @Override
+    public long footprint() {
+        return super.footprint() + arena.capacity();
+    }
+
+    private int ref(int pos) {
+        return table.getInt(pos << 2);
+    }
+
+    private int hash(int pos) {
+        return table.getInt(hashes + (pos << 2));
+    }
+
+    private long value(int pos) {
+        return table.getLong(values + (pos << 3));
+    }
+
+    private void set(int pos, int ref, int hash, long value) {
+        table.putInt(pos << 2, ref);
+        table.putInt(hashes + (pos << 2), hash);
+        table.putLong(values + (pos << 3), value);
+    }
+
+    private boolean equals(int ref, char[] key, int offset, int length) {
+        final int at = ref - 1;
+        if (arena.getInt(at) != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (arena.getChar(at + Integer.BYTES + (i << 1)) != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int find(int h, char[] key, int offset, int length) {
+        int pos = h & mask;
+        int ref;
+        while ((ref = ref(pos)) != 0 && (hash(pos) != h || !equals(ref, key, offset, length))) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    public boolean containsKey(char[] key) {
+        return containsKey(key, 0, key.length);
+    }
+
+    public boolean containsKey(char[] key, int offset, int length) {
+        return ref(find(hash(key, offset, length), key, offset, length)) != 0;
+    }
+
+    public long get(char[] key, long missing) {
+        return get(key, 0, key.length, missing);
+    }
+
+    public long get(char[] key, int offset, int length, long missing) {
+        final int pos = find(hash(key, offset, length), key, offset, length);
+        return ref(pos) == 0 ? missing : value(pos);
+    }
+
+    public void put(char[] key, long value) {
+        put(key, 0, key.length, value);
+    }
+
+    public void put(char[] key, int offset, int length, long value) {
+        final int h = hash(key, offset, length);
+        final int pos = find(h, key, offset, length);
+        if (ref(pos) == 0) {
+            insert(pos, h, key, offset, length, value);
+        } else {
+            table.putLong(values + (pos << 3), value);
+        }
+    }
+
+    public long add(char[] key, long delta) {
+        return add(key, 0, key.length, delta);
+    }
+
+    /**
+     * @return the new value, delta if the key was absent.
+     */
+    public long add(char[] key, int offset, int length, long delta) {
+        final int h = hash(key, offset, length);
+        final int pos = find(h, key, offset, length);
+        if (ref(pos) == 0) {
+            insert(pos, h, key, offset, length, delta);
+            return delta;
+        }
+        final long sum = value(pos) + delta;
+        table.putLong(values + (pos << 3), sum);
+        return sum;
+    }
+
+    private void insert(int pos, int h, char[] key, int offset, int length, long value) {
+        set(pos, append(key, offset, length), h, value);
+        if (++size >= threshold(capacity)) {
+            rehash(capacity << 1);
+        }
+    }
+
+    public boolean remove(char[] key) {
+        return remove(key, 0, key.length);
+    }
+
+    /**
+     * @return true if the key was present.
+     */
+    public boolean remove(char[] key, int offset, int length) {
+        final int pos = find(hash(key, offset, length), key, offset, length);
+        if (ref(pos) == 0) {
+            return false;
+        }
+        garbage += Integer.BYTES + (length << 1);
+        shift(pos);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return the reference of the copy of the key in the arena.
+     */
+    private int append(char[] key, int offset, int length) {
+        final int bytes = Integer.BYTES + (length << 1);
+        if ((long) used + bytes > arena.capacity()) {
+            if (garbage > used / 2) {
+                compact(used - garbage + bytes, Math.max(arena.capacity(), (used - garbage + (long) bytes) * 2));
+            } else {
+                compact((long) used + bytes, Math.max(arena.capacity() * 2L, (long) used + bytes));
+            }
+        }
+        final int at = used;
+        arena.putInt(at, length);
+        for (int i = 0; i < length; i++) {
+            arena.putChar(at + Integer.BYTES + (i << 1), key[offset + i]);
+        }
+        used += bytes;
+        return at + 1;
+    }
+
+    /**
+     * Copy the live keys into a new arena, dropping the garbage.
+     *
+     * @param needed bytes the arena must hold.
+     * @param wanted bytes to hold, capped by the size of a buffer.
+     */
+    private void compact(long needed, long wanted) {
+        final ByteBuffer old = arena;
+        arena = buffer(Math.max(needed, Math.min(MAX_BYTES, wanted)));
+        used = 0;
+        for (int pos = 0; pos < capacity; pos++) {
+            final int ref = ref(pos);
+            if (ref != 0) {
+                final int length = Integer.BYTES + (old.getInt(ref - 1) << 1);
+                final ByteBuffer entry = old.duplicate();
+                entry.limit(ref - 1 + length).position(ref - 1);
+                arena.position(used);
+                arena.put(entry);
+                table.putInt(pos << 2, used + 1);
+                used += length;
+            }
+        }
+        arena.clear();
+        garbage = 0;
+    }
+
+    private void shift(int pos) {
+        while (true) {
+            final int last = pos;
+            pos = (pos + 1) & mask;
+            int ref;
+            while (true) {
+                if ((ref = ref(pos)) == 0) {
+                    set(last, 0, 0, 0);
+                    return;
+                }
+                final int home = hash(pos) & mask;
+                //the entry can fill the hole at last unless its home lies cyclically in (last, pos].
+                if (last <= pos ? last >= home || home > pos : last >= home && home > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            set(last, ref, hash(pos), value(pos));
+        }
+    }
+
+    private void rehash(int capacity) {
+        final ByteBuffer old = table;
+        final int old_capacity = this.capacity;
+        final int old_hashes = hashes;
+        final int old_values = values;
+        allocate(capacity);
+        for (int i = 0; i < old_capacity; i++) {
+            final int ref = old.getInt(i << 2);
+            if (ref != 0) {
+                final int h = old.getInt(old_hashes + (i << 2));
+                int pos = h & mask;
+                while (ref(pos) != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                set(pos, ref, h, old.getLong(old_values + (i << 3)));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        used = 0;
+        garbage = 0;
+    }
+
+    @Override
+    public int next(int cursor) {
+        for (int pos = cursor + 1; pos < capacity; pos++) {
+            if (ref(pos) != 0) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return a copy of the key at the cursor.
+     */
+    public char[] keyAt(int cursor) {
+        final int at = ref(cursor) - 1;
+        final char[] key = new char[arena.getInt(at)];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = arena.getChar(at + Integer.BYTES + (i << 1));
+        }
+        return key;
+    }
+
+    public long valueAt(int cursor) {
+        return value(cursor);
+    }
+
+    @Override
+    public int transfer(IntFunction<? extends PrimitiveMap> destination) {
+        final ArrayList<char[]> moved = new ArrayList<>();
+        for (int c = next(-1); c >= 0; c = next(c)) {
+            final char[] key = keyAt(c);
+            final PrimitiveMap to = destination.apply(Arrays.hashCode(key));
+            if (to != null && to != this) {
+                ((CharArrayLongMap) to).put(key, valueAt(c));
+                moved.add(key);
+            }
+        }
+        for (char[] key : moved) {
+            remove(key);
+        }
+        return moved.size();
+    }
+
+    @Override
+    protected long extra_size() {
+        return 2L * Integer.BYTES + used;
+    }
+
+    @Override
+    protected void write_extra(ByteBuffer out) {
+        out.putInt(used);
+        out.putInt(garbage);
+        final ByteBuffer keys = arena.duplicate();
+        keys.limit(used).position(0);
+        out.put(keys);
+    }
+
+    @Override
+    protected void read_extra(ByteBuffer in) {
+        used = in.getInt();
+        garbage = in.getInt();
+        arena = buffer(Math.max(256, Math.min(MAX_BYTES, used * 2L)));
+        final ByteBuffer keys = in.duplicate();
+        keys.limit(keys.position() + used);
+        arena.put(keys);
+        arena.clear();
+        in.position(in.position() + used);
+    }
+}
@@ -0,0 +1,33 @@
+package brisk.util.map;
+
+/**
+ * int to double map, e.g., running sums per key.
+ */
+public class IntDoubleMap extends IntKeyMap {
+    private static final long serialVersionUID = -4466021447003915950L;
+
+    public IntDoubleMap(int expected, boolean off_heap) {
+        super(expected, off_heap);
+    }
+
+    public double get(int key, double missing) {
+        return Double.longBitsToDouble(get_bits(key, Double.doubleToRawLongBits(missing)));
+    }
+
+    public void put(int key, double value) {
+        put_bits(key, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @return the new value, delta if the key was absent.
+     */
+    public double add(int key, double delta) {
+        final double value = get(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    public double valueAt(int cursor) {
+        return Double.longBitsToDouble(bitsAt(cursor));
+    }
+}
@@ -0,0 +1,229 @@
+package brisk.util.map;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * Open addressing with linear probing over int keys and 8-byte values (as raw long bits).
+ * The table holds the keys then the values; key 0 marks a free slot, so the entry of key 0 is kept aside.
+ * Removal shifts the following entries back instead of leaving tombstones.
+ */
+abstract class IntKeyMap extends PrimitiveMap {
+    private static final long serialVersionUID = -1406815426512862457L;
+    private int values;//offset of the values region.
+    private boolean has_zero;
+    private long zero;
+
+    IntKeyMap(int expected, boolean off_heap) {
+        super(expected, off_heap);
+    }
+
+    @Override
+    protected void allocate(int capacity) {
+        super.allocate(capacity);
+        values = capacity * Integer.BYTES;
+    }
+
+    @Override
+    protected int slot_bytes() {
+        return Integer.BYTES + Long.BYTES;
+    }
+
+    private int key(int pos) {
+        return table.getInt(pos << 2);
+    }
+
+    private long bits(int pos) {
+        return table.getLong(values + (pos << 3));
+    }
+
+    private void set(int pos, int key, long bits) {
+        table.putInt(pos << 2, key);
+        table.putLong(values + (pos << 3), bits);
+    }
+
+    /**
+     * @return the position of key, or of the free slot where it would go.
+     */
+    private int find(int key) {
+        int pos = mix(key) & mask;
+        int k;
+        while ((k = key(pos)) != 0 && k != key) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    public boolean containsKey(int key) {
+        return key == 0 ? has_zero : key(find(key)) != 0;
+    }
+
+    long get_bits(int key, long missing) {
+        if (key == 0) {
+            return has_zero ? zero : missing;
+        }
+        final int pos = find(key);
+        return key(pos) == 0 ? missing : bits(pos);
+    }
+
+    void put_bits(int key, long bits) {
+        if (key == 0) {
+            if (!has_zero) {
+                has_zero = true;
+                size++;
+            }
+            zero = bits;
+            return;
+        }
+        final int pos = find(key);
+        if (key(pos) == 0) {
+            insert(pos, key, bits);
+        } else {
+            table.putLong(values + (pos << 3), bits);
+        }
+    }
+
+    /**
+     * Add to a long value with a single probe.
+     *
+     * @return the new value.
+     */
+    long add_long(int key, long delta) {
+        if (key == 0) {
+            put_bits(0, get_bits(0, 0) + delta);
+            return zero;
+        }
+        final int pos = find(key);
+        if (key(pos) == 0) {
+            insert(pos, key, delta);
+            return delta;
+        }
+        final long value = bits(pos) + delta;
+        table.putLong(values + (pos << 3), value);
+        return value;
+    }
+
+    private void insert(int pos, int key, long bits) {
+        set(pos, key, bits);
+        if (++size >= threshold(capacity)) {
+            rehash(capacity << 1);
+        }
+    }
+
+    /**
+     * @return true if the key was present.
+     */
+    public boolean remove(int key) {
+        if (key == 0) {
+            if (!has_zero) {
+                return false;
+            }
+            has_zero = false;
+            size--;
+            return true;
+        }
+        final int pos = find(key);
+        if (key(pos) == 0) {
+            return false;
+        }
+        shift(pos);
+        size--;
+        return true;
+    }
+
+    private void shift(int pos) {
+        while (true) {
+            final int last = pos;
+            pos = (pos + 1) & mask;
+            int k;
+            while (true) {
+                if ((k = key(pos)) == 0) {
+                    set(last, 0, 0);
+                    return;
+                }
+                final int home = mix(k) & mask;
+                //k can fill the hole at last unless its home lies cyclically in (last, pos].
+                if (last <= pos ? last >= home || home > pos : last >= home && home > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            set(last, k, bits(pos));
+        }
+    }
+
+    private void rehash(int capacity) {
+        final ByteBuffer old = table;
+        final int old_capacity = this.capacity;
+        final int old_values = values;
+        allocate(capacity);
+        for (int i = 0; i < old_capacity; i++) {
+            final int k = old.getInt(i << 2);
+            if (k != 0) {
+                set(find(k), k, old.getLong(old_values + (i << 3)));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        has_zero = false;
+    }
+
+    /**
+     * Position {@code capacity} stands for key 0.
+     */
+    @Override
+    public int next(int cursor) {
+        for (int pos = cursor + 1; pos < capacity; pos++) {
+            if (key(pos) != 0) {
+                return pos;
+            }
+        }
+        return cursor < capacity && has_zero ? capacity : -1;
+    }
+
+    public int keyAt(int cursor) {
+        return cursor == capacity ? 0 : key(cursor);
+    }
+
+    long bitsAt(int cursor) {
+        return cursor == capacity ? zero : bits(cursor);
+    }
+
+    @Override
+    public int transfer(IntFunction<? extends PrimitiveMap> destination) {
+        final int[] moved = new int[size];
+        int n = 0;
+        for (int c = next(-1); c >= 0; c = next(c)) {
+            final int key = keyAt(c);
+            final PrimitiveMap to = destination.apply(Integer.hashCode(key));
+            if (to != null && to != this) {
+                ((IntKeyMap) to).put_bits(key, bitsAt(c));
+                moved[n++] = key;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            remove(moved[i]);
+        }
+        return n;
+    }
+
+    @Override
+    protected long extra_size() {
+        return 1 + Long.BYTES;
+    }
+
+    @Override
+    protected void write_extra(ByteBuffer out) {
+        out.put((byte) (has_zero ? 1 : 0));
+        out.putLong(zero);
+    }
+
+    @Override
+    protected void read_extra(ByteBuffer in) {
+        has_zero = in.get() != 0;
+        zero = in.getLong();
+    }
+}
@@ -0,0 +1,31 @@
+package brisk.util.map;
+
+/**
+ * int to long map, e.g., counts per key.
+ */
+public class IntLongMap extends IntKeyMap {
+    private static final long serialVersionUID = 2950316470788593127L;
+
+    public IntLongMap(int expected, boolean off_heap) {
+        super(expected, off_heap);
+    }
+
+    public long get(int key, long missing) {
+        return get_bits(key, missing);
+    }
+
+    public void put(int key, long value) {
+        put_bits(key, value);
+    }
+
+    /**
+     * @return the new value, delta if the key was absent.
+     */
+    public long add(int key, long delta) {
+        return add_long(key, delta);
+    }
+
+    public long valueAt(int cursor) {
+        return bitsAt(cursor);
+    }
+}
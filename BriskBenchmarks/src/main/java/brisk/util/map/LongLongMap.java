@@ -0,0 +1,230 @@
+package brisk.util.map;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * long to long map, e.g., counts per composite key.
+ * Same layout as {@link IntKeyMap} with 8-byte keys.
+ */
+public class LongLongMap extends PrimitiveMap {
+    private static final long serialVersionUID = 7307000402317811525L;
+    private int values;//offset of the values region.
+    private boolean has_zero;
+    private long zero;
+
+    public LongLongMap(int expected, boolean off_heap) {
+        super(expected, off_heap);
+    }
+
+    @Override
+    protected void allocate(int capacity) {
+        super.allocate(capacity);
+        values = capacity * Long.BYTES;
+    }
+
+    @Override
+    protected int slot_bytes() {
+        return Long.BYTES + Long.BYTES;
+    }
+
+    private static int hash(long key) {
+        return mix((int) (key ^ (key >>> 32)));
+    }
+
+    private long key(int pos) {
+        return table.getLong(pos << 3);
+    }
+
+    private long value(int pos) {
+        return table.getLong(values + (pos << 3));
+    }
+
+    private void set(int pos, long key, long value) {
+        table.putLong(pos << 3, key);
+        table.putLong(values + (pos << 3), value);
+    }
+
+    /**
+     * @return the position of key, or of the free slot where it would go.
+     */
+    private int find(long key) {
+        int pos = hash(key) & mask;
+        long k;
+        while ((k = key(pos)) != 0 && k != key) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? has_zero : key(find(key)) != 0;
+    }
+
+    public long get(long key, long missing) {
+        if (key == 0) {
+            return has_zero ? zero : missing;
+        }
+        final int pos = find(key);
+        return key(pos) == 0 ? missing : value(pos);
+    }
+
+    public void put(long key, long value) {
+        if (key == 0) {
+            if (!has_zero) {
+                has_zero = true;
+                size++;
+            }
+            zero = value;
+            return;
+        }
+        final int pos = find(key);
+        if (key(pos) == 0) {
+            insert(pos, key, value);
+        } else {
+            table.putLong(values + (pos << 3), value);
+        }
+    }
+
+    /**
+     * @return the new value, delta if the key was absent.
+     */
+    public long add(long key, long delta) {
+        if (key == 0) {
+            put(0, get(0, 0) + delta);
+            return zero;
+        }
+        final int pos = find(key);
+        if (key(pos) == 0) {
+            insert(pos, key, delta);
+            return delta;
+        }
+        final long sum = value(pos) + delta;
+        table.putLong(values + (pos << 3), sum);
+        return sum;
+    }
+
+    private void insert(int pos, long key, long value) {
+        set(pos, key, value);
+        if (++size >= threshold(capacity)) {
+            rehash(capacity << 1);
+        }
+    }
+
+    /**
+     * @return true if the key was present.
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!has_zero) {
+                return false;
+            }
+            has_zero = false;
+            size--;
+            return true;
+        }
+        final int pos = find(key);
+        if (key(pos) == 0) {
+            return false;
+        }
+        shift(pos);
+        size--;
+        return true;
+    }
+
+    private void shift(int pos) {
+        while (true) {
+            final int last = pos;
+            pos = (pos + 1) & mask;
+            long k;
+            while (true) {
+                if ((k = key(pos)) == 0) {
+                    set(last, 0, 0);
+                    return;
+                }
+                final int home = hash(k) & mask;
+                //k can fill the hole at last unless its home lies cyclically in (last, pos].
+                if (last <= pos ? last >= home || home > pos : last >= home && home > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            set(last, k, value(pos));
+        }
+    }
+
+    private void rehash(int capacity) {
+        final ByteBuffer old = table;
+        final int old_capacity = this.capacity;
+        final int old_values = values;
+        allocate(capacity);
+        for (int i = 0; i < old_capacity; i++) {
+            final long k = old.getLong(i << 3);
+            if (k != 0) {
+                set(find(k), k, old.getLong(old_values + (i << 3)));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        has_zero = false;
+    }
+
+    /**
+     * Position {@code capacity} stands for key 0.
+     */
+    @Override
+    public int next(int cursor) {
+        for (int pos = cursor + 1; pos < capacity; pos++) {
+            if (key(pos) != 0) {
+                return pos;
+            }
+        }
+        return cursor < capacity && has_zero ? capacity : -1;
+    }
+
+    public long keyAt(int cursor) {
+        return cursor == capacity ? 0 : key(cursor);
+    }
+
+    public long valueAt(int cursor) {
+        return cursor == capacity ? zero : value(cursor);
+    }
+
+    @Override
+    public int transfer(IntFunction<? extends PrimitiveMap> destination) {
+        final long[] moved = new long[size];
+        int n = 0;
+        for (int c = next(-1); c >= 0; c = next(c)) {
+            final long key = keyAt(c);
+            final PrimitiveMap to = destination.apply(Long.hashCode(key));
+            if (to != null && to != this) {
+                ((LongLongMap) to).put(key, valueAt(c));
+                moved[n++] = key;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            remove(moved[i]);
+        }
+        return n;
+    }
+
+    @Override
+    protected long extra_size() {
+        return 1 + Long.BYTES;
+    }
+
+    @Override
+    protected void write_extra(ByteBuffer out) {
+        out.put((byte) (has_zero ? 1 : 0));
+        out.putLong(zero);
+    }
+
+    @Override
+    protected void read_extra(ByteBuffer in) {
+        has_zero = in.get() != 0;
+        zero = in.getLong();
+    }
+}
@@ -0,0 +1,221 @@
+package brisk.util.map;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.IntFunction;
+
+/**
+ * Base of the open-addressing maps with primitive keys and values.
+ * All slots live in one {@link ByteBuffer}, on the heap or off-heap (direct), so a map of millions of keys
+ * is a handful of objects instead of millions of boxed entries, and its image is a bulk copy of that buffer
+ * (see {@link #image(ByteBuffer)} and {@link #restore(ByteBuffer)}).
+ * <p>
+ * Iteration goes through a cursor: {@code for (int c = map.next(-1); c >= 0; c = map.next(c))}.
+ * Maps are not thread-safe.
+ * <p>
+ * A buffer is indexed by int, so the table, and the image, of a map are limited to 2 GB: about 50M keys with 16 byte
+ * slots, 100M with 12 byte slots. Sizes are computed in long and a map that would grow past it fails instead.
+ */
+public abstract class PrimitiveMap implements Serializable {
+    private static final long serialVersionUID = -5139436585436906813L;
+    static final long MAX_BYTES = Integer.MAX_VALUE;
+    private static final int MAX_CAPACITY = 1 << 30;
+    protected final boolean off_heap;
+    protected transient ByteBuffer table;
+    protected int capacity;//number of slots, a power of two.
+    protected int mask;
+    protected int size;
+
+    protected PrimitiveMap(int expected, boolean off_heap) {
+        this.off_heap = off_heap;
+        allocate(capacity_for(expected));
+    }
+
+    static int capacity_for(int expected) {
+        int n = 4;
+        while (threshold(n) < expected) {
+            if (n == MAX_CAPACITY) {
+                throw new IllegalArgumentException("A map holds at most " + threshold(n) + " keys, not " + expected);
+            }
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * The number of keys a table of the given number of slots holds before it grows: a load factor of 0.75, in int,
+     * as a float cannot tell apart counts near the largest tables.
+     */
+    static int threshold(int capacity) {
+        return capacity - (capacity >>> 2);
+    }
+
+    /**
+     * @param bytes a size computed in long.
+     * @param what  the buffer, for the message.
+     * @return bytes, if a buffer can hold them.
+     */
+    static int checked(long bytes, String what) {
+        if (bytes < 0 || bytes > MAX_BYTES) {
+            throw new IllegalStateException(what + " would take " + bytes + " bytes, past the 2 GB of a buffer:"
+                    + " spread the state over more executors");
+        }
+        return (int) bytes;
+    }
+
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    protected ByteBuffer buffer(long bytes) {
+        final int checked = checked(bytes, getClass().getSimpleName());
+        return (off_heap ? ByteBuffer.allocateDirect(checked) : ByteBuffer.allocate(checked)).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * (Re)allocate an empty table of the given number of slots.
+     * If it cannot be allocated, the map is left as it was.
+     */
+    protected void allocate(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {//doubled past the largest power of two.
+            throw new IllegalStateException(getClass().getSimpleName() + " cannot grow past " + MAX_CAPACITY + " slots");
+        }
+        final ByteBuffer table = buffer((long) capacity * slot_bytes());
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.table = table;
+    }
+
+    protected boolean full() {
+        return size >= threshold(capacity);
+    }
+
+    /**
+     * @return bytes taken by one slot, over all regions of the table.
+     */
+    protected abstract int slot_bytes();
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isOffHeap() {
+        return off_heap;
+    }
+
+    /**
+     * @return bytes held by the map.
+     */
+    public long footprint() {
+        return table.capacity();
+    }
+
+    public void clear() {
+        final ByteBuffer zero = table.duplicate();
+        zero.clear();
+        while (zero.remaining() >= Long.BYTES) {
+            zero.putLong(0);
+        }
+        while (zero.hasRemaining()) {
+            zero.put((byte) 0);
+        }
+        size = 0;
+    }
+
+    /**
+     * @param cursor -1 to start.
+     * @return the next occupied position after cursor, -1 at the end.
+     */
+    public abstract int next(int cursor);
+
+    /**
+     * Move entries to other maps of the same type, e.g. when key groups move between the executors of an operator.
+     * destination gets the partitioning hash of each key ({@code Arrays.hashCode} of a char[] key,
+     * {@code Integer.hashCode} or {@code Long.hashCode} of a primitive key) and returns the map it moves to, or null to keep it.
+     *
+     * @param destination
+     * @return number of entries moved.
+     */
+    public abstract int transfer(IntFunction<? extends PrimitiveMap> destination);
+
+    /**
+     * @return bytes needed by {@link #image(ByteBuffer)}.
+     */
+    public int image_size() {
+        return checked(2L * Integer.BYTES + table.capacity() + extra_size(), "The image of " + getClass().getSimpleName());
+    }
+
+    /**
+     * Write the whole content to out as a bulk copy of the table.
+     *
+     * @param out
+     */
+    public void image(ByteBuffer out) {
+        out.putInt(capacity);
+        out.putInt(size);
+        final ByteBuffer slots = table.duplicate();
+        slots.clear();
+        out.put(slots);
+        write_extra(out);
+    }
+
+    /**
+     * Replace the whole content by an image written by {@link #image(ByteBuffer)} of the same type of map.
+     *
+     * @param in
+     */
+    public void restore(ByteBuffer in) {
+        allocate(in.getInt());
+        final int size = in.getInt();
+        final ByteBuffer slots = in.duplicate();
+        slots.limit(slots.position() + table.capacity());
+        table.clear();
+        table.put(slots);
+        table.clear();
+        in.position(in.position() + table.capacity());
+        read_extra(in);
+        this.size = size;
+    }
+
+    protected long extra_size() {
+        return 0;
+    }
+
+    protected void write_extra(ByteBuffer out) {
+    }
+
+    protected void read_extra(ByteBuffer in) {
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        final ByteBuffer image = ByteBuffer.allocate(image_size()).order(ByteOrder.nativeOrder());
+        image(image);
+        out.writeInt(image.capacity());
+        out.write(image.array());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        restore(ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder()));
+    }
+
+    /**
+     * Creates a map, e.g. {@code IntLongMap::new}.
+     */
+    @FunctionalInterface
+    public interface Factory<M extends PrimitiveMap> extends Serializable {
+        M create(int expected, boolean off_heap);
+    }
+}
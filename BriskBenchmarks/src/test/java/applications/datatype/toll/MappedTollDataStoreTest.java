@@ -0,0 +1,134 @@
+package applications.datatype.toll;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The mapped store must answer like a map across segment growth, compaction and reopening the file.
+ */
+public class MappedTollDataStoreTest {
+    private static final int SEGMENT = 64;//records, so a few thousand operations span many segments.
+    private File file;
+    private MappedTollDataStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("brisk-lrb-test", ".tolls");
+        file.delete();
+        store = new MappedTollDataStore(file, SEGMENT);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+        file.delete();
+    }
+
+    private void reopen() throws IOException {
+        store.close();
+        store = new MappedTollDataStore(file, SEGMENT);
+    }
+
+    private static long key(int xWay, int day, int vid) {
+        return ((long) xWay << 48) | ((long) day << 32) | vid;
+    }
+
+    private void check(Map<Long, Integer> expected) {
+        assertEquals(expected.size(), store.size());
+        for (int xWay = 0; xWay < 2; xWay++) {
+            for (int day = 0; day < 4; day++) {
+                for (int vid = 0; vid < 100; vid++) {
+                    assertEquals(expected.get(key(xWay, day, vid)), store.retrieveToll(xWay, day, vid));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void TestStoreRetrieveRemove() {
+        assertNull(store.retrieveToll(1, 2, 3));
+        store.storeToll(1, 2, 3, 40);
+        store.storeToll(1, 2, 4, 50);
+        assertEquals(Integer.valueOf(40), store.retrieveToll(1, 2, 3));
+        store.storeToll(1, 2, 3, 41);
+        assertEquals(Integer.valueOf(41), store.retrieveToll(1, 2, 3));
+        assertEquals(2, store.size());
+        assertEquals(Integer.valueOf(41), store.removeEntry(1, 2, 3));
+        assertNull(store.removeEntry(1, 2, 3));
+        assertNull(store.retrieveToll(1, 2, 3));
+        assertEquals(Integer.valueOf(50), store.retrieveToll(1, 2, 4));
+        assertEquals(1, store.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void TestReservedToll() {
+        store.storeToll(1, 2, 3, MappedTollDataStore.REMOVED);
+    }
+
+    @Test
+    public void TestGrowth() throws IOException {
+        final Map<Long, Integer> expected = new HashMap<>();
+        for (int vid = 0; vid < 100; vid++) {
+            for (int day = 0; day < 4; day++) {
+                store.storeToll(vid % 2, day, vid, vid * 10 + day);
+                expected.put(key(vid % 2, day, vid), vid * 10 + day);
+            }
+        }
+        assertEquals(400, store.records());
+        check(expected);
+        reopen();
+        assertEquals(400, store.records());
+        check(expected);
+    }
+
+    @Test
+    public void TestCompaction() throws IOException {
+        final Map<Long, Integer> expected = new HashMap<>();
+        final Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            final int xWay = random.nextInt(2);
+            final int day = random.nextInt(4);
+            final int vid = random.nextInt(100);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(key(xWay, day, vid)), store.removeEntry(xWay, day, vid));
+            } else {
+                store.storeToll(xWay, day, vid, i);
+                expected.put(key(xWay, day, vid), i);
+            }
+        }
+        //at most 800 keys: without compaction the log would hold every one of the 20000 operations.
+        assertTrue(store.records() + " records", store.records() <= 2 * 800 + SEGMENT);
+        assertTrue(file.length() + " bytes", file.length() <= 16 + 16 * (2 * 800 + 2 * SEGMENT));
+        check(expected);
+        reopen();
+        check(expected);
+        store.compact();
+        assertEquals(expected.size(), store.records());
+        check(expected);
+        reopen();
+        check(expected);
+    }
+
+    @Test(expected = IOException.class)
+    public void TestNotAStore() throws IOException {
+        final File other = File.createTempFile("brisk-lrb-test", ".txt");
+        try {
+            Files.write(other.toPath(), "not a toll store".getBytes());
+            new MappedTollDataStore(other, SEGMENT);
+        } finally {
+            other.delete();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package streaming;
+
+import brisk.components.exception.InvalidIDException;
+import brisk.execution.ExecutionGraph;
+import brisk.optimization.impl.SchedulingPlan;
+import org.junit.Test;
+import streaming.impl.demoTopology_testPlacement;
+
+import static org.junit.Assert.*;
+
+/**
+ * The parallel branch and bound explores the same search space as the sequential one, from the same empty plan:
+ * both must return plans meeting the constraints, no better than the best of all placements, and the best itself on a
+ * graph small enough for the bound to prune nothing that matters. The bound is not a strict upper bound, so on larger
+ * graphs the order in which the searches prune may lead them to different plans.
+ */
+public class BranchAndBoundTest {
+    private static final int TIMEOUT = 20000;
+    private static final double EPSILON = 1E-9;
+
+    private static void check(demoTopology_testPlacement topology, SchedulingPlan plan, double optimum, double ratio) {
+        assertTrue(plan.success());
+        assertTrue(topology.satisfied(plan));
+        final double rate = plan.getOutput_rate(true);
+        assertTrue(rate + " above the optimum " + optimum, rate <= optimum * (1 + EPSILON));
+        assertTrue(rate + " below " + ratio + " of the optimum " + optimum, rate >= optimum * ratio);
+    }
+
+    @Test
+    public void TestOptimalTwoSockets() throws InvalidIDException {
+        final demoTopology_testPlacement topology = new demoTopology_testPlacement(3, 2, 3);
+        final ExecutionGraph graph = topology.prepare();
+        final double optimum = topology.optimum(graph);
+        check(topology, topology.place(false, graph, TIMEOUT), optimum, 1 - EPSILON);
+        check(topology, topology.place(true, graph, TIMEOUT), optimum, 1 - EPSILON);
+    }
+
+    @Test
+    public void TestFourSockets() throws InvalidIDException {
+        final demoTopology_testPlacement topology = new demoTopology_testPlacement(4, 4, 2);
+        final ExecutionGraph graph = topology.prepare();
+        final double optimum = topology.optimum(graph);
+        final SchedulingPlan sequential = topology.place(false, graph, TIMEOUT);
+        final SchedulingPlan parallel = topology.place(true, graph, TIMEOUT);
+        check(topology, sequential, optimum, 0.9);
+        check(topology, parallel, optimum, 0.9);
+        assertTrue(parallel.getOutput_rate(true) >= sequential.getOutput_rate(true));//best first finds the better plan here.
+    }
+}
@@ -0,0 +1,99 @@
+package streaming;
+
+import brisk.components.exception.InvalidIDException;
+import brisk.execution.runtime.tuple.FieldAccessor;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.msgs.GeneralMsg;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import streaming.impl.demoTopology_testFields;
+
+import static applications.Constants.DEFAULT_STREAM_ID;
+import static constants.TrafficMonitoringConstants.Field;
+
+/**
+ * JMH-style microbenchmark (warm-up iterations, measured iterations, result sink) of the per-access cost
+ * of reading the four GPS fields of a TrafficMonitoring record, by name through getValueByField or by an accessor.
+ * It is a main run by hand rather than part of the unit tests; FieldAccessorTest checks that the accessors are correct.
+ */
+public class FieldAccessorBenchmark {
+    private final static Logger LOG = LoggerFactory.getLogger(FieldAccessorBenchmark.class);
+    private static final int BATCH = 100;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 20;
+    private static final int OPS = 10000;//batches per iteration.
+
+    private final demoTopology_testFields topology;
+    private long sink;//consumes results so that the reads are not optimized away.
+
+    private FieldAccessorBenchmark() throws InvalidIDException {
+        topology = new demoTopology_testFields();
+    }
+
+    public static void main(String[] args) throws InvalidIDException {
+        new FieldAccessorBenchmark().run();
+    }
+
+    private TransferTuple batch() {
+        TransferTuple in = new TransferTuple(topology.spoutId(), 0, BATCH, topology.context(topology.boltId()));
+        for (int i = 0; i < BATCH; i++) {
+            in.add(i, new GeneralMsg<Object>(DEFAULT_STREAM_ID, new Object[]{("v" + i).toCharArray(), "2013-01-01".toCharArray(), true, i, i % 360, 22.5 + i, 114.0 + i}));
+        }
+        return in;
+    }
+
+    private long byName(TransferTuple in) {
+        long sum = 0;
+        for (int i = 0; i < in.length; i++) {
+            sum += in.getIntegerByField(Field.SPEED, i);
+            sum += in.getIntegerByField(Field.BEARING, i);
+            sum += in.getDoubleByField(Field.LATITUDE, i);
+            sum += in.getDoubleByField(Field.LONGITUDE, i);
+        }
+        return sum;
+    }
+
+    private long byAccessor(TransferTuple in, FieldAccessor speed, FieldAccessor bearing, FieldAccessor latitude, FieldAccessor longitude) {
+        long sum = 0;
+        for (int i = 0; i < in.length; i++) {
+            sum += speed.getInt(in, i);
+            sum += bearing.getInt(in, i);
+            sum += latitude.getDouble(in, i);
+            sum += longitude.getDouble(in, i);
+        }
+        return sum;
+    }
+
+    private double measure(String name, Runnable op) {
+        for (int w = 0; w < WARMUP; w++) {
+            op.run();
+        }
+        long start = System.nanoTime();
+        for (int it = 0; it < ITERATIONS; it++) {
+            op.run();
+        }
+        double ns = (System.nanoTime() - start) / ((double) ITERATIONS * OPS * BATCH * 4);
+        LOG.info(name + ": " + String.format("%.2f", ns) + " ns/access");
+        return ns;
+    }
+
+    private void run() {
+        final TransferTuple in = batch();
+        final FieldAccessor speed = topology.bolt.resolve(Field.SPEED);
+        final FieldAccessor bearing = topology.bolt.resolve(Field.BEARING);
+        final FieldAccessor latitude = topology.bolt.resolve(Field.LATITUDE);
+        final FieldAccessor longitude = topology.bolt.resolve(Field.LONGITUDE);
+
+        measure("by name", () -> {
+            for (int op = 0; op < OPS; op++) {
+                sink += byName(in);
+            }
+        });
+        measure("by accessor", () -> {
+            for (int op = 0; op < OPS; op++) {
+                sink += byAccessor(in, speed, bearing, latitude, longitude);
+            }
+        });
+        LOG.info("sink:" + sink);
+    }
+}
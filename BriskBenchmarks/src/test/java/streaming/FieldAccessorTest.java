@@ -0,0 +1,118 @@
+package streaming;
+
+import brisk.components.exception.InvalidIDException;
+import brisk.execution.runtime.tuple.ColumnarTransferTuple;
+import brisk.execution.runtime.tuple.FieldAccessor;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.msgs.GeneralMsg;
+import org.junit.Before;
+import org.junit.Test;
+import streaming.impl.demoTopology_testFields;
+
+import java.util.Objects;
+
+import static applications.Constants.DEFAULT_STREAM_ID;
+import static constants.TrafficMonitoringConstants.Field;
+import static org.junit.Assert.*;
+
+/**
+ * An accessor resolved once must read the same value as the by-name lookup through the topology, on row and columnar
+ * batches.
+ */
+public class FieldAccessorTest {
+    private static final int BATCH = 10;
+    private static final String[] FIELDS = {Field.VEHICLE_ID, Field.DATE_TIME, Field.OCCUPIED, Field.SPEED,
+            Field.BEARING, Field.LATITUDE, Field.LONGITUDE};
+    private demoTopology_testFields topology;
+
+    @Before
+    public void setUp() throws InvalidIDException {
+        topology = new demoTopology_testFields();
+    }
+
+    private Object[] row(int i) {
+        return new Object[]{("v" + i).toCharArray(), "2013-01-01".toCharArray(), i % 2 == 0, i, i % 360, 22.5 + i, 114.0 + i};
+    }
+
+    private TransferTuple rows() {
+        TransferTuple in = new TransferTuple(topology.spoutId(), 0, BATCH, topology.context(topology.boltId()));
+        for (int i = 0; i < BATCH; i++) {
+            in.add(i, new GeneralMsg<Object>(DEFAULT_STREAM_ID, row(i)));
+        }
+        return in;
+    }
+
+    private TransferTuple columns() {
+        Fields schema = topology.graph.topology.getComponent(demoTopology_testFields.SPOUT).get_output_fields(DEFAULT_STREAM_ID);
+        ColumnarTransferTuple in = new ColumnarTransferTuple(topology.spoutId(), 0, BATCH, topology.context(topology.boltId()), DEFAULT_STREAM_ID, schema);
+        for (int i = 0; i < BATCH; i++) {
+            in.set(i, row(i));
+        }
+        return in;
+    }
+
+    @Test
+    public void TestResolution() {
+        for (String field : FIELDS) {
+            FieldAccessor accessor = topology.bolt.resolve(field);
+            assertEquals(field, accessor.getField());
+            assertEquals(field, topology.bolt.resolve(demoTopology_testFields.SPOUT, DEFAULT_STREAM_ID, field).getIndex(), accessor.getIndex());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void TestUnknownField() {
+        topology.bolt.resolve("unknown");
+    }
+
+    @Test
+    public void TestRows() {
+        check(rows());
+    }
+
+    @Test
+    public void TestColumns() {
+        TransferTuple in = columns();
+        for (int i = 0; i < BATCH; i++) {
+            assertTrue(((ColumnarTransferTuple) in).isColumnar(i));
+        }
+        check(in);
+    }
+
+    /**
+     * The schema of the spout has no long field: a long and a boxed count, read through each overload.
+     */
+    @Test
+    public void TestLong() {
+        final FieldAccessor count = FieldAccessor.of(new Fields("word", "count"), "count");
+        final TransferTuple in = new TransferTuple(0, 0, 2, null);
+        in.add(0, new GeneralMsg<Object>(DEFAULT_STREAM_ID, "a".toCharArray(), 7L));
+        in.add(1, new GeneralMsg<Object>(DEFAULT_STREAM_ID, "b".toCharArray(), Long.MIN_VALUE));
+        assertEquals(7L, count.getLong(in, 0));
+        assertEquals(Long.MIN_VALUE, count.getLong(in, 1));
+        assertEquals(7L, count.getLong(in.getTuple(0)));
+        assertEquals(Long.MIN_VALUE, count.getLong(in.getTuple(1)));
+    }
+
+    private void check(TransferTuple in) {
+        for (String field : FIELDS) {
+            FieldAccessor accessor = topology.bolt.resolve(field);
+            for (int i = 0; i < in.length; i++) {
+                assertTrue(field, Objects.deepEquals(in.getValueByField(field, i), accessor.get(in, i)));
+                assertTrue(field, Objects.deepEquals(in.getTuple(i).getValueByField(field), accessor.get(in.getTuple(i))));
+            }
+        }
+        FieldAccessor speed = topology.bolt.resolve(Field.SPEED);
+        FieldAccessor latitude = topology.bolt.resolve(Field.LATITUDE);
+        FieldAccessor vehicle = topology.bolt.resolve(Field.VEHICLE_ID);
+        for (int i = 0; i < in.length; i++) {
+            assertEquals(in.getIntegerByField(Field.SPEED, i), speed.getInt(in, i));
+            assertEquals(in.getDoubleByField(Field.LATITUDE, i), latitude.getDouble(in, i), 0);
+            assertArrayEquals((char[]) in.getValueByField(Field.VEHICLE_ID, i), vehicle.getCharArray(in, i));
+            assertEquals(in.getTuple(i).getIntegerByField(Field.SPEED), speed.getInt(in.getTuple(i)));
+            assertEquals(in.getTuple(i).getDoubleByField(Field.LATITUDE), latitude.getDouble(in.getTuple(i)), 0);
+            assertArrayEquals((char[]) in.getTuple(i).getValueByField(Field.VEHICLE_ID), vehicle.getCharArray(in.getTuple(i)));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package streaming;
+
+import brisk.controller.output.partition.impl.HeavyHitters;
+import brisk.controller.output.partition.impl.TupleUtils;
+import org.junit.Test;
+import streaming.impl.demoTopology_testSkew;
+
+import static org.junit.Assert.*;
+
+/**
+ * The sketch must report the keys above theta of a skewed stream, and not the keys well below it.
+ */
+public class HeavyHittersTest {
+    private static final int KEYS = 1000;
+    private static final int LENGTH = 200_000;
+    private static final double THETA = 0.02;
+
+    private static long hash(int key) {
+        return TupleUtils.mix64(Integer.hashCode(key));
+    }
+
+    /**
+     * @return if each key was hot at its last occurrence.
+     */
+    private static boolean[] offer(HeavyHitters hot, int[] stream) {
+        final boolean[] last = new boolean[KEYS];
+        for (int key : stream) {
+            last[key] = hot.offer(hash(key));
+        }
+        return last;
+    }
+
+    private static void check(int[] stream, boolean[] hot) {
+        final long[] counts = new long[KEYS];
+        for (int key : stream) {
+            counts[key]++;
+        }
+        int reported = 0;
+        for (int k = 0; k < KEYS; k++) {
+            final double frequency = (double) counts[k] / stream.length;
+            if (frequency > 2 * THETA) {
+                assertTrue("key " + k + " at " + frequency, hot[k]);
+            } else if (frequency < THETA / 2) {
+                assertFalse("key " + k + " at " + frequency, hot[k]);
+            }
+            if (hot[k]) {
+                reported++;
+            }
+        }
+        assertTrue(reported > 0);
+        assertTrue(reported + " keys reported", reported < 1 / THETA);
+    }
+
+    @Test
+    public void TestZipf() {
+        final int[] stream = demoTopology_testSkew.zipf(KEYS, 1.0, LENGTH, 42);
+        check(stream, offer(new HeavyHitters(THETA, 1L << 40), stream));
+    }
+
+    @Test
+    public void TestZipfDecayed() {
+        final int[] stream = demoTopology_testSkew.zipf(KEYS, 1.2, LENGTH, 7);
+        check(stream, offer(new HeavyHitters(THETA, 1 << 14), stream));
+    }
+
+    @Test
+    public void TestCoolDown() {
+        final HeavyHitters hot = new HeavyHitters(THETA, 1 << 12);
+        for (int i = 0; i < 10_000; i++) {
+            hot.offer(hash(-1));
+        }
+        assertTrue(hot.offer(hash(-1)));
+        for (int i = 0; i < 100_000; i++) {
+            hot.offer(hash(i % KEYS));
+        }
+        assertFalse(hot.offer(hash(-1)));
+    }
+}
@@ -0,0 +1,116 @@
+package streaming;
+
+import brisk.util.LatencyHistogram;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bucket boundaries of LatencyHistogram, and its quantiles against the exact ones of a sorted array.
+ */
+public class LatencyHistogramTest {
+    private static final double ERROR = 1.0 / 64;//2^-(SUB_BITS-1)
+
+    /**
+     * @return the largest value of the bucket of value, read back through percentile.
+     */
+    private static long upper(long value) {
+        final LatencyHistogram h = new LatencyHistogram();
+        h.record(value);
+        h.record(LatencyHistogram.MAX_VALUE);//so that the max does not cap the bucket.
+        return h.percentile(50);
+    }
+
+    @Test
+    public void TestExactBelow128() {
+        for (long v = 0; v < 128; v++) {
+            assertEquals(v, upper(v));
+        }
+        assertEquals(129, upper(128));//first bucket of width 2.
+    }
+
+    @Test
+    public void TestBoundaries() {
+        long previous = -1;
+        for (int bits = 7; bits < 42; bits++) {
+            for (long base : new long[]{1L << bits, (1L << bits) + (1L << bits) / 3, (3L << bits) / 2}) {
+                for (long v = base - 2; v <= base + 2; v++) {
+                    final long edge = upper(v);
+                    assertTrue(v + " is above the top " + edge + " of its bucket", edge >= v);
+                    assertTrue(v + " is off by more than the relative error: " + edge, edge - v <= v * ERROR);
+                    assertEquals("the top of a bucket is in it", edge, upper(edge));
+                    assertTrue("the next value starts the next bucket", upper(edge + 1) > edge);
+                    assertTrue("bucket tops increase with the value", edge >= previous);
+                    previous = edge;
+                }
+            }
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE, upper(LatencyHistogram.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void TestClamp() {
+        final LatencyHistogram h = new LatencyHistogram();
+        h.record(-5);
+        assertEquals(0, h.percentile(100));
+        h.record(Long.MAX_VALUE);
+        assertEquals(LatencyHistogram.MAX_VALUE, h.max());
+        assertEquals(LatencyHistogram.MAX_VALUE, h.percentile(100));
+        assertEquals(2, h.count());
+        assertEquals(0, new LatencyHistogram().percentile(50));
+    }
+
+    @Test
+    public void TestQuantilesAgainstSortedArray() {
+        final Random random = new Random(42);
+        final int n = 200_000;
+        final long[] values = new long[n];
+        final LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < n; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(1E10));//log-uniform from 1ns to 10s.
+            h.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(n, h.count());
+        assertEquals(values[n - 1], h.max());
+        for (double p : new double[]{0.1, 1, 10, 25, 50, 75, 90, 99, 99.9, 99.99, 100}) {
+            final long exact = values[(int) Math.ceil(p / 100 * n) - 1];
+            final long estimate = h.percentile(p);
+            assertTrue("p" + p + ": " + estimate + " below " + exact, estimate >= exact);
+            assertTrue("p" + p + ": " + estimate + " too far above " + exact, estimate - exact <= exact * ERROR);
+        }
+        double mean = 0;
+        for (long v : values) {
+            mean += v;
+        }
+        mean /= n;
+        assertTrue(Math.abs(h.mean() - mean) <= mean * ERROR);
+    }
+
+    @Test
+    public void TestAddAndSince() {
+        final LatencyHistogram a = new LatencyHistogram();
+        final LatencyHistogram b = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v++) {
+            (v % 2 == 0 ? a : b).record(v * 1000);
+        }
+        final LatencyHistogram merged = new LatencyHistogram();
+        merged.add(a);
+        final LatencyHistogram earlier = new LatencyHistogram();
+        earlier.add(merged);
+        merged.add(b);
+        assertEquals(1000, merged.count());
+        assertEquals(1_000_000, merged.max());
+        final long p50 = merged.percentile(50);
+        assertTrue(p50 >= 500_000 && p50 - 500_000 <= 500_000 * ERROR);
+
+        final LatencyHistogram interval = merged.since(earlier);
+        assertEquals(500, interval.count());
+        final long top = interval.percentile(100);
+        assertTrue(top >= 999_000 && top <= 1_000_000);
+    }
+}
@@ -0,0 +1,39 @@
+package streaming;
+
+import brisk.queue.NumaAllocator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * A direct buffer allocated on a socket has its pages on the node of that socket, as the kernel reports them.
+ */
+public class NumaAllocatorTest {
+    private static final int BYTES = 16 << 20;
+
+    @Test
+    public void TestPlacement() throws IOException {
+        if (!Files.exists(Paths.get("/proc/self/numa_maps"))) {
+            return;//the kernel does not report placement.
+        }
+        final int page = 4096;
+        for (int socket = 0; socket < NumaAllocator.sockets(); socket++) {
+            final ByteBuffer buffer = NumaAllocator.on(socket, () -> ByteBuffer.allocateDirect(BYTES));
+            final Map<Integer, Long> pages = NumaAllocator.pages(buffer);
+            assertFalse("no mapping holds the buffer", pages.isEmpty());
+            final int node = NumaAllocator.node(socket);
+            assertTrue("socket " + socket + ": " + pages, pages.getOrDefault(node, 0L) >= BYTES / page);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void TestHeapBuffer() throws IOException {
+        NumaAllocator.pages(ByteBuffer.allocate(16));
+    }
+}
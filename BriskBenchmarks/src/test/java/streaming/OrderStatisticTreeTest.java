@@ -0,0 +1,130 @@
+package streaming;
+
+import brisk.util.OrderStatisticTree;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The treap must behave like a sorted list of (value, tag) entries, across duplicates, removals of present and absent
+ * entries, growth of its arrays and reuse of released nodes.
+ */
+public class OrderStatisticTreeTest {
+    private static final int OPS = 50000;
+    private static final Comparator<double[]> ORDER = (a, b) -> {
+        final int c = Double.compare(a[0], b[0]);
+        return c != 0 ? c : Double.compare(a[1], b[1]);
+    };
+
+    private static void insert(List<double[]> sorted, double value, int tag) {
+        final double[] entry = {value, tag};
+        int i = Collections.binarySearch(sorted, entry, ORDER);
+        sorted.add(i < 0 ? -i - 1 : i, entry);
+    }
+
+    private static boolean remove(List<double[]> sorted, double value, int tag) {
+        final int i = Collections.binarySearch(sorted, new double[]{value, tag}, ORDER);
+        if (i < 0) {
+            return false;
+        }
+        sorted.remove(i);
+        return true;
+    }
+
+    private static void check(List<double[]> sorted, OrderStatisticTree tree, Random random) {
+        assertEquals(sorted.size(), tree.size());
+        if (sorted.isEmpty()) {
+            return;
+        }
+        for (int probe = 0; probe < 8; probe++) {
+            final int k = random.nextInt(sorted.size());
+            assertEquals(sorted.get(k)[0], tree.select(k), 0);
+            assertEquals((int) sorted.get(k)[1], tree.selectTag(k));
+        }
+        final double key = random.nextInt(40) / 4.0 - 5;
+        int smaller = 0;
+        while (smaller < sorted.size() && sorted.get(smaller)[0] < key) {
+            smaller++;
+        }
+        assertEquals(smaller, tree.rank(key));
+        final int n = sorted.size();
+        final double median = n % 2 == 0 ? (sorted.get(n / 2)[0] + sorted.get(n / 2 - 1)[0]) / 2 : sorted.get(n / 2)[0];
+        assertEquals(median, tree.median(), 0);
+    }
+
+    /**
+     * Values and tags from small domains, so that most entries have duplicates.
+     */
+    private static void run(OrderStatisticTree tree, long seed, int bias) {
+        final Random random = new Random(seed);
+        final List<double[]> sorted = new ArrayList<>();
+        for (int op = 0; op < OPS; op++) {
+            final double value = random.nextInt(32) / 4.0 - 4;
+            final int tag = random.nextInt(4);
+            if (random.nextInt(100) < bias) {
+                tree.insert(value, tag);
+                insert(sorted, value, tag);
+            } else if (!sorted.isEmpty() && random.nextBoolean()) {
+                final double[] present = sorted.get(random.nextInt(sorted.size()));//remove an entry that exists.
+                assertTrue(tree.remove(present[0], (int) present[1]));
+                remove(sorted, present[0], (int) present[1]);
+            } else {
+                assertEquals(remove(sorted, value, tag), tree.remove(value, tag));
+            }
+            check(sorted, tree, random);
+        }
+        while (!sorted.isEmpty()) {
+            final double[] last = sorted.remove(sorted.size() - 1);
+            assertTrue(tree.remove(last[0], (int) last[1]));
+            check(sorted, tree, random);
+        }
+        assertFalse(tree.remove(0, 0));
+    }
+
+    @Test
+    public void TestAgainstSortedList() {
+        run(new OrderStatisticTree(1), 1, 55);
+    }
+
+    @Test
+    public void TestDeletionHeavy() {
+        run(new OrderStatisticTree(16), 2, 45);
+    }
+
+    @Test
+    public void TestClearAndReuse() {
+        final OrderStatisticTree tree = new OrderStatisticTree(4);
+        run(tree, 3, 60);
+        for (int i = 0; i < 100; i++) {
+            tree.insert(i % 7);
+        }
+        tree.clear();
+        assertEquals(0, tree.size());
+        run(tree, 4, 50);
+    }
+
+    @Test
+    public void TestDefaultTag() {
+        final OrderStatisticTree tree = new OrderStatisticTree(8);
+        tree.insert(2.5);
+        tree.insert(2.5);
+        tree.insert(-1);
+        assertEquals(3, tree.size());
+        assertEquals(2.5, tree.median(), 0);
+        assertTrue(tree.remove(2.5));
+        assertTrue(tree.remove(2.5));
+        assertFalse(tree.remove(2.5));
+        assertEquals(-1, tree.select(0), 0);
+        try {
+            tree.select(1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package streaming;
+
+import brisk.controller.input.scheduler.OrderedScheduler;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Watermark;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.Assert.*;
+
+/**
+ * The loser tree of {@link OrderedScheduler} must return the batches of all channels in BID order, hold the merge
+ * while a channel without a head batch may still deliver an earlier one, and let watermarks through in their channel.
+ */
+public class OrderedSchedulerTest {
+    private static final String STREAM = "default";
+
+    private static final class Channels {
+        final OrderedScheduler scheduler = new OrderedScheduler();
+        final List<Queue<TransferTuple>> queues = new ArrayList<>();
+
+        /**
+         * @param k channels, spread over two streams to merge across them as well.
+         */
+        Channels(int k) {
+            for (int c = 0; c < k; c++) {
+                final Queue<TransferTuple> queue = new ConcurrentLinkedQueue<>();
+                queues.add(queue);
+                scheduler.setReceive_queue(c % 2 == 0 ? STREAM : "other", c, queue);
+            }
+            scheduler.initialize();
+        }
+
+        TransferTuple batch(int channel, long bid) {
+            final TransferTuple batch = new TransferTuple(channel, bid, 0, null);
+            queues.get(channel).offer(batch);
+            return batch;
+        }
+
+        /**
+         * As the producers send them: a batch of BID 0 whose only message is the watermark.
+         */
+        TransferTuple watermark(int channel, long timestamp) {
+            final TransferTuple batch = new TransferTuple(channel, 0, 1, null, new Watermark(STREAM, timestamp));
+            queues.get(channel).offer(batch);
+            return batch;
+        }
+
+        /**
+         * A watermark batch publishing the BID progress of the producer: its next batches are not below it.
+         */
+        TransferTuple progress(int channel, long bid) {
+            final TransferTuple batch = new TransferTuple(channel, bid, 1, null, new Watermark(STREAM, Long.MIN_VALUE));
+            queues.get(channel).offer(batch);
+            return batch;
+        }
+
+        TransferTuple fetch() {
+            return scheduler.fetchResults();
+        }
+    }
+
+    @Test
+    public void TestSingleChannel() {
+        final Channels channels = new Channels(1);
+        assertNull(channels.fetch());
+        final TransferTuple first = channels.batch(0, 1);
+        final TransferTuple second = channels.batch(0, 4);
+        assertSame(first, channels.fetch());
+        assertSame(second, channels.fetch());
+        assertNull(channels.fetch());
+        final TransferTuple watermark = channels.watermark(0, 100);
+        final TransferTuple third = channels.batch(0, 9);
+        assertSame(watermark, channels.fetch());
+        assertSame(third, channels.fetch());
+        assertNull(channels.fetch());
+    }
+
+    /**
+     * Nothing is returned before every channel delivered, as the empty one may send the lowest BID.
+     */
+    @Test
+    public void TestEmptyChannelHoldsBack() {
+        final Channels channels = new Channels(3);
+        final TransferTuple b5 = channels.batch(0, 5);
+        final TransferTuple b10 = channels.batch(1, 10);
+        assertNull(channels.fetch());
+        assertNull(channels.fetch());
+        final TransferTuple b3 = channels.batch(2, 3);
+        assertSame(b3, channels.fetch());
+        //channel 2 is empty again, at low watermark 3: it may still send 4.
+        assertNull(channels.fetch());
+        final TransferTuple b4 = channels.batch(2, 4);
+        assertSame(b4, channels.fetch());
+        assertNull(channels.fetch());
+        final TransferTuple b7 = channels.batch(2, 7);
+        assertSame(b5, channels.fetch());
+        //channel 0 is empty at 5, below 7.
+        assertNull(channels.fetch());
+        final TransferTuple b12 = channels.batch(0, 12);
+        assertSame(b7, channels.fetch());
+        assertNull(channels.fetch());
+        final TransferTuple b11 = channels.batch(2, 11);
+        assertSame(b10, channels.fetch());
+        assertNull(channels.fetch());//channel 1 is empty at 10.
+        channels.batch(1, 13);
+        assertSame(b11, channels.fetch());
+        assertNull(channels.fetch());//channel 2 is empty at 11.
+        channels.batch(2, 14);
+        assertSame(b12, channels.fetch());
+        assertNull(channels.fetch());
+    }
+
+    /**
+     * Equal BIDs on several channels are all returned, in any order of the channels: a channel emptied at a BID
+     * can only send that BID or later, so it does not hold back the head batches of the same BID.
+     */
+    @Test
+    public void TestTies() {
+        final Channels channels = new Channels(3);
+        final Set<TransferTuple> tied = new HashSet<>();
+        tied.add(channels.batch(0, 2));
+        tied.add(channels.batch(1, 2));
+        tied.add(channels.batch(2, 2));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(tied.remove(channels.fetch()));
+        }
+        assertNull(channels.fetch());
+    }
+
+    /**
+     * A watermark is returned as its channel comes up, after the batches of its producer before it and
+     * without waiting for the other channels.
+     */
+    @Test
+    public void TestWatermarks() {
+        final Channels channels = new Channels(2);
+        final TransferTuple b1 = channels.batch(0, 1);
+        final TransferTuple b3 = channels.batch(0, 3);
+        final TransferTuple b2 = channels.batch(1, 2);
+        final TransferTuple w = channels.watermark(1, 50);
+        channels.batch(1, 4);
+        assertSame(b1, channels.fetch());
+        assertSame(b2, channels.fetch());
+        assertSame(w, channels.fetch());
+        assertSame(b3, channels.fetch());
+        assertNull(channels.fetch());//channel 0 is empty at 3, below 4.
+        final TransferTuple w0 = channels.watermark(0, 60);
+        assertSame(w0, channels.fetch());
+        assertNull(channels.fetch());
+    }
+
+    /**
+     * An idle producer holds the merge at its low watermark only until it publishes its progress; a slow one with a
+     * batch on the way still gets it in order.
+     */
+    @Test
+    public void TestStalledProducer() {
+        final Channels channels = new Channels(3);
+        assertEquals(Long.MIN_VALUE, channels.scheduler.progress());
+        channels.batch(2, 1);
+        final TransferTuple b5 = channels.batch(0, 5);
+        final TransferTuple b6 = channels.batch(1, 6);
+        final TransferTuple b9 = channels.batch(0, 9);
+        assertEquals(1, channels.fetch().getBID());
+        assertNull(channels.fetch());//channel 2 is idle at 1.
+        final TransferTuple idle = channels.progress(2, 8);
+        assertSame(idle, channels.fetch());
+        assertSame(b5, channels.fetch());
+        assertSame(b6, channels.fetch());
+        assertEquals(6, channels.scheduler.progress());//channel 1 may still send 6, channel 2 8.
+        assertNull(channels.fetch());
+        channels.progress(1, 20);
+        channels.fetch();
+        final TransferTuple b8 = channels.batch(2, 8);
+        assertSame(b8, channels.fetch());
+        channels.progress(2, 30);
+        channels.fetch();
+        assertSame(b9, channels.fetch());
+        assertEquals(9, channels.scheduler.progress());
+
+        //a progress below the low watermark changes nothing.
+        channels.progress(0, 3);
+        channels.fetch();
+        assertEquals(9, channels.scheduler.progress());
+        assertNull(channels.fetch());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void TestNoSingleTuples() {
+        new Channels(1).scheduler.fetchResults_single();
+    }
+
+    /**
+     * Random k, BIDs ascending with ties within and across channels, watermarks, and batches offered in random
+     * interleavings between fetches. The data batches must come out in BID order, each channel in its own order;
+     * once a batch of BID max is offered to every channel, all batches before are out.
+     */
+    @Test
+    public void TestRandomMerge() {
+        final Random random = new Random(23);
+        for (int k = 1; k <= 17; k++) {
+            for (int round = 0; round < 20; round++) {
+                final Channels channels = new Channels(k);
+                final List<ArrayDeque<TransferTuple>> pending = new ArrayList<>();
+                final List<ArrayDeque<TransferTuple>> expected = new ArrayList<>();
+                int total = 0;
+                for (int c = 0; c < k; c++) {
+                    final ArrayDeque<TransferTuple> batches = new ArrayDeque<>();
+                    long bid = random.nextInt(5);
+                    for (int i = random.nextInt(40); i > 0; i--) {
+                        bid += random.nextInt(4);//0 for ties.
+                        batches.add(random.nextInt(8) == 0
+                                ? new TransferTuple(c, 0, 1, null, new Watermark(STREAM, bid))
+                                : new TransferTuple(c, bid, 0, null));
+                    }
+                    batches.add(new TransferTuple(c, Long.MAX_VALUE, 0, null));
+                    total += batches.size() - 1;
+                    pending.add(batches);
+                    expected.add(new ArrayDeque<>(batches));
+                }
+                long last = Long.MIN_VALUE;
+                int returned = 0;
+                while (returned < total) {
+                    for (int offers = random.nextInt(4); offers > 0; offers--) {
+                        final ArrayDeque<TransferTuple> batches = pending.get(random.nextInt(k));
+                        if (!batches.isEmpty()) {
+                            channels.queues.get(batches.peek().getSourceTask()).offer(batches.poll());
+                        }
+                    }
+                    final TransferTuple batch = channels.fetch();
+                    if (batch == null) {
+                        boolean drained = true;
+                        for (ArrayDeque<TransferTuple> batches : pending) {
+                            drained &= batches.isEmpty();
+                        }
+                        assertFalse("k=" + k + ": held back with every batch offered", drained);
+                        continue;
+                    }
+                    assertSame("k=" + k + ": order of channel " + batch.getSourceTask(),
+                            expected.get(batch.getSourceTask()).poll(), batch);
+                    if (batch.getWatermark() == null) {
+                        assertTrue("k=" + k + ": " + batch.getBID() + " after " + last, batch.getBID() >= last);
+                        last = batch.getBID();
+                    }
+                    returned++;
+                }
+                for (ArrayDeque<TransferTuple> batches : expected) {
+                    assertEquals(Long.MAX_VALUE, batches.poll().getBID());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package streaming;
+
+import brisk.queue.impl.P1CnRing;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Every consumer of a {@link P1CnRing} reads every element in order, and a slot is reused only once the slowest
+ * consumer has passed it.
+ */
+public class P1CnRingTest {
+
+    @Test
+    public void TestEveryCursorReadsEveryElement() {
+        final P1CnRing<Integer> ring = new P1CnRing<>(8, 3);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ring.offer(i));
+        }
+        for (int c = 0; c < 3; c++) {
+            final P1CnRing<Integer>.Cursor cursor = ring.consumer(c);
+            assertEquals(5, cursor.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(Integer.valueOf(i), cursor.peek());
+                assertEquals(Integer.valueOf(i), cursor.poll());
+            }
+            assertNull(cursor.poll());
+            assertTrue(cursor.isEmpty());
+        }
+        assertTrue(ring.isEmpty());
+        assertTrue(ring.offer(5));
+        assertEquals(Integer.valueOf(5), ring.consumer(1).poll());
+        assertEquals(1, ring.size());//the others have not read it yet.
+    }
+
+    @Test
+    public void TestCapacityIsPowerOfTwo() {
+        final P1CnRing<Integer> ring = new P1CnRing<>(5, 1);
+        int offered = 0;
+        while (ring.offer(offered)) {
+            offered++;
+        }
+        assertEquals(8, offered);
+    }
+
+    /**
+     * A full ring takes a new element only as the slowest cursor frees a slot, however far the others are.
+     */
+    @Test
+    public void TestSlowestCursorGatesReuse() {
+        final P1CnRing<Integer> ring = new P1CnRing<>(4, 2);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        while (ring.consumer(1).poll() != null) {
+        }
+        assertFalse("consumer 0 has not read slot 0 yet", ring.offer(4));
+        assertEquals(Integer.valueOf(0), ring.consumer(0).poll());
+        assertTrue(ring.offer(4));
+        assertFalse(ring.offer(5));
+        //the slots consumer 0 has not passed still hold what it has to read.
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(Integer.valueOf(i), ring.consumer(0).poll());
+        }
+        assertEquals(Integer.valueOf(4), ring.consumer(1).poll());
+    }
+
+    /**
+     * Reclaiming, as the producer does periodically, clears only the slots every cursor has passed.
+     */
+    @Test
+    public void TestReclaimAfterSlowestCursor() throws InterruptedException {
+        final P1CnRing<Object> ring = new P1CnRing<>(1024, 2);
+        Object element = new Object();
+        final WeakReference<Object> reference = new WeakReference<>(element);
+        ring.offer(element);
+        element = null;
+        assertNotNull(ring.consumer(0).poll());
+        for (int i = 0; i < 200; i++) {//past a few reclaim intervals.
+            ring.offer(i);
+        }
+        assertFalse(collected(reference));
+        assertSame(reference.get(), ring.consumer(1).poll());
+        for (int i = 0; i < 200; i++) {
+            ring.offer(i);
+        }
+        assertTrue("the slot passed by both cursors is cleared", collected(reference));
+        assertEquals(400, ring.consumer(0).size());//the ring itself is still reachable.
+    }
+
+    private static boolean collected(WeakReference<?> reference) throws InterruptedException {
+        for (int attempt = 0; attempt < 10 && reference.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        return reference.get() == null;
+    }
+
+    @Test
+    public void TestOfferIfBelowThreshold() {
+        final P1CnRing<Integer> ring = new P1CnRing<>(16, 2);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(ring.offerIfBelowThreshold(i, 3));
+        }
+        assertFalse(ring.offerIfBelowThreshold(3, 3));
+        assertEquals(Integer.valueOf(0), ring.consumer(0).poll());
+        assertEquals(Integer.valueOf(1), ring.consumer(0).poll());
+        assertFalse("consumer 1 still lags by 3", ring.offerIfBelowThreshold(3, 3));
+        assertEquals(Integer.valueOf(0), ring.consumer(1).poll());
+        assertTrue(ring.offerIfBelowThreshold(3, 3));
+        assertFalse(ring.offerIfBelowThreshold(4, 3));
+        //a threshold above the capacity is capped by it.
+        assertTrue(ring.offerIfBelowThreshold(4, 100));
+        assertEquals(4, ring.size());
+    }
+
+    @Test(timeout = 60000)
+    public void TestConcurrentConsumers() throws InterruptedException {
+        final int elements = 2_000_000;
+        final int consumers = 4;
+        final P1CnRing<Integer> ring = new P1CnRing<>(64, consumers);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final Thread[] threads = new Thread[consumers];
+        for (int c = 0; c < consumers; c++) {
+            final P1CnRing<Integer>.Cursor cursor = ring.consumer(c);
+            final int id = c;
+            threads[c] = new Thread(() -> {
+                int expected = 0;
+                while (expected < elements && failure.get() == null) {
+                    final Integer e = cursor.poll();
+                    if (e == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (e != expected) {
+                        failure.compareAndSet(null, "consumer " + id + " read " + e + " instead of " + expected);
+                        return;
+                    }
+                    expected++;
+                }
+            });
+            threads[c].start();
+        }
+        for (int i = 0; i < elements && failure.get() == null; i++) {
+            final Integer e = i;
+            while (!ring.offer(e) && failure.get() == null) {
+                Thread.yield();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(ring.isEmpty());
+    }
+}
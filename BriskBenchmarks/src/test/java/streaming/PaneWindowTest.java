@@ -0,0 +1,312 @@
+package streaming;
+
+import brisk.components.windowing.InvertibleWindowAggregate;
+import brisk.components.windowing.PaneWindow;
+import brisk.components.windowing.WindowAggregate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Both pane stores of {@link PaneWindow}, two stacks for any aggregate and running panes for an invertible one, must
+ * report the windows a brute-force window computes from all the inputs it kept.
+ */
+public class PaneWindowTest {
+    private static final int INPUTS = 20000;
+    private static final long[][] SHAPES = {//length, slide.
+            {10, 3},//panes of 1
+            {12, 8},//panes of 4
+            {5, 5},//tumbling
+            {4, 10},//hopping, with gaps between windows
+            {1000, 10},
+    };
+
+    /**
+     * Order sensitive, so that two stacks must combine panes oldest first: a polynomial hash of the inputs.
+     */
+    private static final class Hash implements WindowAggregate<Long, long[]> {
+        private static final long P = 1_000_003;
+
+        static long[] of(List<Long> inputs) {
+            final long[] hash = new long[2];
+            for (long input : inputs) {
+                hash[0] = hash[0] * P + input;
+                hash[1]++;
+            }
+            return hash;
+        }
+
+        private static long pow(long n) {
+            long result = 1;
+            long base = P;
+            for (; n > 0; n >>= 1) {
+                if ((n & 1) == 1) {
+                    result *= base;
+                }
+                base *= base;
+            }
+            return result;
+        }
+
+        @Override
+        public long[] create() {
+            return new long[2];//hash, inputs.
+        }
+
+        @Override
+        public long[] accumulate(long[] partial, Long input) {
+            partial[0] = partial[0] * P + input;
+            partial[1]++;
+            return partial;
+        }
+
+        @Override
+        public long[] combine(long[] older, long[] newer) {
+            return new long[]{older[0] * pow(newer[1]) + newer[0], older[1] + newer[1]};
+        }
+    }
+
+    private static final class Sum implements InvertibleWindowAggregate<Long, long[]> {
+        static long[] of(List<Long> inputs) {
+            final long[] sum = new long[3];
+            for (long input : inputs) {
+                sum[0]++;
+                sum[1] += input;
+                sum[2] += input * input;
+            }
+            return sum;
+        }
+
+        @Override
+        public long[] create() {
+            return new long[3];//inputs, sum, sum of squares.
+        }
+
+        @Override
+        public long[] accumulate(long[] partial, Long input) {
+            partial[0]++;
+            partial[1] += input;
+            partial[2] += input * input;
+            return partial;
+        }
+
+        @Override
+        public long[] combine(long[] older, long[] newer) {
+            return new long[]{older[0] + newer[0], older[1] + newer[1], older[2] + newer[2]};
+        }
+
+        @Override
+        public long[] remove(long[] total, long[] expired) {
+            return new long[]{total[0] - expired[0], total[1] - expired[1], total[2] - expired[2]};
+        }
+    }
+
+    /**
+     * Keeps every input it accepts, and computes each window from them when its end is closed.
+     * Panes close as in {@link PaneWindow}: on an input of a later pane, or on advance when watermarked.
+     */
+    private static final class BruteForce {
+        private final long length;
+        private final long slide;
+        private final long pane;
+        private final boolean watermarked;
+        private final boolean invertible;
+        private final List<long[]> inputs = new ArrayList<>();//position, value, arrival; of the windows still to close.
+        private final List<String> fired = new ArrayList<>();
+        private long closed = Long.MIN_VALUE;//inputs before are late.
+        private long late;
+        private long arrivals;
+
+        BruteForce(long length, long slide, long pane, boolean watermarked, boolean invertible) {
+            this.length = length;
+            this.slide = slide;
+            this.pane = pane;
+            this.watermarked = watermarked;
+            this.invertible = invertible;
+        }
+
+        boolean add(long value, long position) {
+            if (position < closed) {
+                late++;
+                return false;
+            }
+            inputs.add(new long[]{position, value, arrivals++});
+            if (!watermarked) {
+                close(Math.floorDiv(position, pane) * pane);
+            }
+            return true;
+        }
+
+        void advance(long position) {
+            close(Math.floorDiv(position, pane) * pane);
+        }
+
+        private void close(long to) {
+            if (to <= closed) {
+                return;
+            }
+            final TreeSet<Long> ends = new TreeSet<>();//of the windows holding an input, which end in (closed, to].
+            for (long[] input : inputs) {
+                final long last = Math.min(to, input[0] + length);
+                for (long end = (Math.floorDiv(Math.max(closed, input[0]), slide) + 1) * slide; end <= last; end += slide) {
+                    ends.add(end);
+                }
+            }
+            closed = to;
+            for (long end : ends) {
+                final List<long[]> in = new ArrayList<>();
+                for (long[] input : inputs) {
+                    if (input[0] >= end - length && input[0] < end) {
+                        in.add(input);
+                    }
+                }
+                //panes in order, and the inputs of a pane in arrival order.
+                in.sort(Comparator.<long[]>comparingLong(i -> Math.floorDiv(i[0], pane)).thenComparingLong(i -> i[2]));
+                final List<Long> values = new ArrayList<>();
+                for (long[] input : in) {
+                    values.add(input[1]);
+                }
+                fired.add(window(invertible ? Sum.of(values) : Hash.of(values), end - length, end));
+            }
+            inputs.removeIf(input -> input[0] + length <= closed);//in no window still to close.
+        }
+    }
+
+    private static String window(long[] aggregate, long start, long end) {
+        return "[" + start + ", " + end + ") " + Arrays.toString(aggregate);
+    }
+
+    /**
+     * The window under test and the brute force, fed the same inputs.
+     */
+    private static final class Pair {
+        final List<String> fired = new ArrayList<>();
+        final PaneWindow<Long, long[]> window;
+        final BruteForce expected;
+
+        Pair(long length, long slide, boolean watermarked, boolean invertible) {
+            window = new PaneWindow<>(invertible ? new Sum() : new Hash(), length, slide,
+                    (aggregate, start, end) -> fired.add(window(aggregate, start, end)), watermarked);
+            expected = new BruteForce(length, slide, window.getPane(), watermarked, invertible);
+        }
+
+        void add(long value, long position) {
+            assertEquals("input at " + position, expected.add(value, position), window.add(value, position));
+        }
+
+        void advance(long position) {
+            expected.advance(position);
+            window.advance(position);
+        }
+
+        void check() {
+            assertEquals(expected.fired, fired);
+            assertEquals(expected.late, window.getLate());
+        }
+    }
+
+    @Test
+    public void TestGcdPanes() {
+        assertEquals(1, new Pair(10, 3, false, false).window.getPane());
+        assertEquals(4, new Pair(12, 8, false, true).window.getPane());
+        assertEquals(5, new Pair(5, 5, false, false).window.getPane());
+        assertEquals(2, new Pair(4, 10, false, true).window.getPane());
+    }
+
+    @Test
+    public void TestCountWindows() {
+        for (long[] shape : SHAPES) {
+            for (boolean invertible : new boolean[]{false, true}) {
+                final Random random = new Random(shape[0] * 31 + shape[1]);
+                final Pair pair = new Pair(shape[0], shape[1], false, invertible);
+                for (int i = 0; i < INPUTS; i++) {
+                    pair.add((long) random.nextInt(1000), i);
+                }
+                pair.advance(INPUTS + shape[0]);
+                pair.check();
+                assertFalse(pair.fired.isEmpty());
+            }
+        }
+    }
+
+    /**
+     * Timestamps in order with bursts, gaps, and runs of empty panes far longer than a window, plus a few inputs
+     * behind the open pane: those in the open pane are kept, older ones are late.
+     */
+    @Test
+    public void TestTimeWindows() {
+        for (long[] shape : SHAPES) {
+            for (boolean invertible : new boolean[]{false, true}) {
+                final Random random = new Random(shape[0] * 17 + shape[1]);
+                final Pair pair = new Pair(shape[0], shape[1], false, invertible);
+                long ts = 1_000_000;
+                for (int i = 0; i < INPUTS; i++) {
+                    final int dice = random.nextInt(100);
+                    if (dice == 0) {
+                        ts += 1_000_000 + random.nextInt(1000);//empty run
+                    } else if (dice < 50) {
+                        ts += random.nextInt(3);
+                    }
+                    final long position = dice >= 95 ? ts - random.nextInt(20) : ts;
+                    pair.add((long) random.nextInt(1000), position);
+                }
+                pair.advance(ts + 2 * shape[0]);
+                pair.check();
+                assertTrue(pair.window.getLate() > 0);
+            }
+        }
+    }
+
+    /**
+     * A window with one input, then an input a billion positions later: only the windows holding either are reported,
+     * and the empty panes in between are skipped, not closed one by one.
+     */
+    @Test(timeout = 10000)
+    public void TestEmptyPanesSkipped() {
+        for (boolean watermarked : new boolean[]{false, true}) {
+            for (boolean invertible : new boolean[]{false, true}) {
+                final Pair pair = new Pair(1000, 1, watermarked, invertible);
+                pair.add(7L, 10);
+                pair.add(8L, 1_000_000_010L);
+                pair.add(9L, 3_000_000_000_000L);
+                pair.advance(3_000_000_002_000L);
+                pair.check();
+                assertEquals(3000, pair.fired.size());
+            }
+        }
+    }
+
+    /**
+     * Driven by watermarks: timestamps out of order by up to a bound, and a watermark lagging the highest timestamp
+     * by less than that, so that some inputs are late and dropped, and the others are aggregated in their panes.
+     */
+    @Test
+    public void TestLateInputs() {
+        for (long[] shape : SHAPES) {
+            for (boolean invertible : new boolean[]{false, true}) {
+                final Random random = new Random(shape[0] * 7 + shape[1]);
+                final Pair pair = new Pair(shape[0], shape[1], true, invertible);
+                long max = 0;
+                for (int i = 0; i < INPUTS; i++) {
+                    final long ts = i / 4 + random.nextInt(40);//out of order by up to 40.
+                    max = Math.max(max, ts);
+                    pair.add((long) random.nextInt(1000), ts);
+                    if (i % 16 == 0) {
+                        pair.advance(max - 25);
+                    }
+                }
+                pair.advance(max + 2 * shape[0]);
+                pair.check();
+                assertTrue(pair.window.getLate() > 0);
+                assertTrue(pair.window.getLate() < INPUTS / 4);
+            }
+        }
+    }
+}
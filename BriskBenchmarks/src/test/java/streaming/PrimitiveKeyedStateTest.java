@@ -0,0 +1,115 @@
+package streaming;
+
+import brisk.faulttolerance.impl.PrimitiveKeyedState;
+import brisk.util.map.CharArrayLongMap;
+import brisk.util.map.IntDoubleMap;
+import brisk.util.map.LongLongMap;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.*;
+
+/**
+ * A snapshot of the keyed state must restore the same content, whether it is applied before or after the operator
+ * registers its maps, and whether it went through Java serialization or the raw bytes the writer persists.
+ */
+public class PrimitiveKeyedStateTest {
+    private static final int KEYS = 5000;
+
+    private static final class Maps {
+        final PrimitiveKeyedState state;
+        final CharArrayLongMap words;
+        final LongLongMap longs;
+        final IntDoubleMap sums;
+
+        Maps(PrimitiveKeyedState state) {
+            this.state = state;
+            words = state.register(new CharArrayLongMap(16, false));
+            longs = state.register(new LongLongMap(16, true));
+            sums = state.register(new IntDoubleMap(16, false));
+        }
+    }
+
+    private static Maps filled() {
+        final Maps maps = new Maps(new PrimitiveKeyedState());
+        for (int k = 0; k < KEYS; k++) {
+            maps.words.add(("w" + k).toCharArray(), k);
+            maps.longs.put(k * 31L, -k);
+            maps.sums.add(k, k / 4.0);
+        }
+        for (int k = 0; k < KEYS; k += 3) {
+            maps.words.remove(("w" + k).toCharArray());
+        }
+        return maps;
+    }
+
+    private static void check(Maps maps) {
+        assertEquals(KEYS - (KEYS + 2) / 3, maps.words.size());
+        for (int k = 0; k < KEYS; k++) {
+            assertEquals(k % 3 == 0 ? -1 : k, maps.words.get(("w" + k).toCharArray(), -1));
+            assertEquals(-k, maps.longs.get(k * 31L, 1));
+            assertEquals(k / 4.0, maps.sums.get(k, -1), 0);
+        }
+        assertEquals(maps.words.size() + 2 * KEYS, maps.state.size());
+    }
+
+    @Test
+    public void TestRestoreAfterRegistration() {
+        final Maps source = filled();
+        final PrimitiveKeyedState.Image image = SerializationUtils.clone(
+                (PrimitiveKeyedState.Image) source.state.snapshot(true));
+        source.state.clean();
+        assertEquals(0, source.state.size());
+        source.state.update(image);
+        check(source);
+        final Maps other = new Maps(new PrimitiveKeyedState());
+        other.state.update(image);
+        check(other);
+    }
+
+    @Test
+    public void TestRestoreBeforeRegistration() {
+        final Serializable snapshot = filled().state.snapshot(true);
+        final PrimitiveKeyedState state = new PrimitiveKeyedState();
+        state.update((PrimitiveKeyedState.Image) snapshot);//e.g. recovery before prepare.
+        check(new Maps(state));
+    }
+
+    @Test
+    public void TestRawImage() throws IOException {
+        final Maps source = filled();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ((PrimitiveKeyedState.Image) source.state.snapshot(true)).write(Channels.newChannel(bytes));
+        final PrimitiveKeyedState state = new PrimitiveKeyedState();
+        state.update(PrimitiveKeyedState.Image.wrap(ByteBuffer.wrap(bytes.toByteArray())));
+        check(new Maps(state));
+    }
+
+    @Test
+    public void TestLiveView() {
+        final Maps maps = filled();
+        final PrimitiveKeyedState.Image view = maps.state.value();
+        maps.state.update(view);//no-op on its own view.
+        check(maps);
+        final Maps copy = new Maps(new PrimitiveKeyedState());
+        copy.state.update(SerializationUtils.clone(view));
+        check(copy);
+    }
+
+    @Test
+    public void TestSnapshotIsACopy() {
+        final Maps maps = filled();
+        final PrimitiveKeyedState.Image snapshot = (PrimitiveKeyedState.Image) maps.state.snapshot(true);
+        maps.words.clear();
+        maps.longs.put(1, 1);
+        final Maps restored = new Maps(new PrimitiveKeyedState());
+        restored.state.update(snapshot);
+        check(restored);
+    }
+}
@@ -0,0 +1,288 @@
+package streaming;
+
+import brisk.util.map.CharArrayLongMap;
+import brisk.util.map.IntDoubleMap;
+import brisk.util.map.IntLongMap;
+import brisk.util.map.LongLongMap;
+import brisk.util.map.PrimitiveMap;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The primitive maps must behave like a {@link HashMap} of the boxed keys, on and off the heap, across resizes,
+ * removals, arena compaction, images and serialization.
+ */
+public class PrimitiveMapTest {
+    private static final int OPS = 50000;
+    private static final int KEYS = 3000;//small key space, so keys are updated and removed many times.
+
+    private static byte[] image(PrimitiveMap map) {
+        final ByteBuffer out = ByteBuffer.allocate(map.image_size()).order(ByteOrder.nativeOrder());
+        map.image(out);
+        assertFalse(out.hasRemaining());
+        return out.array();
+    }
+
+    private static <M extends PrimitiveMap> M restore(M map, byte[] image) {
+        map.restore(ByteBuffer.wrap(image).order(ByteOrder.nativeOrder()));
+        return map;
+    }
+
+    private static char[] word(int i) {
+        return ("w" + i).toCharArray();
+    }
+
+    private static void check(Map<Integer, Long> expected, IntLongMap map) {
+        assertEquals(expected.size(), map.size());
+        for (int k = -1; k < KEYS; k++) {
+            assertEquals(expected.containsKey(k), map.containsKey(k));
+            assertEquals(expected.getOrDefault(k, -7L).longValue(), map.get(k, -7L));
+        }
+        final Map<Integer, Long> iterated = new HashMap<>();
+        for (int c = map.next(-1); c >= 0; c = map.next(c)) {
+            assertNull(iterated.put(map.keyAt(c), map.valueAt(c)));
+        }
+        assertEquals(expected, iterated);
+    }
+
+    private static void check(Map<Long, Long> expected, LongLongMap map) {
+        assertEquals(expected.size(), map.size());
+        for (long k = -1; k < KEYS; k++) {
+            assertEquals(expected.getOrDefault(k << 33, -7L).longValue(), map.get(k << 33, -7L));
+        }
+        final Map<Long, Long> iterated = new HashMap<>();
+        for (int c = map.next(-1); c >= 0; c = map.next(c)) {
+            assertNull(iterated.put(map.keyAt(c), map.valueAt(c)));
+        }
+        assertEquals(expected, iterated);
+    }
+
+    private static void check(Map<String, Long> expected, CharArrayLongMap map) {
+        assertEquals(expected.size(), map.size());
+        for (int k = 0; k < KEYS; k++) {
+            final char[] key = word(k);
+            assertEquals(expected.containsKey(new String(key)), map.containsKey(key));
+            assertEquals(expected.getOrDefault(new String(key), -7L).longValue(), map.get(key, -7L));
+        }
+        final Map<String, Long> iterated = new HashMap<>();
+        for (int c = map.next(-1); c >= 0; c = map.next(c)) {
+            assertNull(iterated.put(new String(map.keyAt(c)), map.valueAt(c)));
+        }
+        assertEquals(expected, iterated);
+    }
+
+    private void IntLong(boolean off_heap) {
+        final Random random = new Random(1);
+        final IntLongMap map = new IntLongMap(4, off_heap);
+        final Map<Integer, Long> expected = new HashMap<>();
+        for (int i = 0; i < OPS; i++) {
+            final int key = random.nextInt(KEYS + 1) - 1;//includes 0 and -1.
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.merge(key, (long) i, Long::sum).longValue(), map.add(key, i));
+                    break;
+                default:
+                    map.put(key, i);
+                    expected.put(key, (long) i);
+            }
+        }
+        check(expected, map);
+        check(expected, restore(new IntLongMap(4, !off_heap), image(map)));
+        check(expected, SerializationUtils.clone(map));
+        map.clear();
+        check(new HashMap<>(), map);
+    }
+
+    @Test
+    public void TestIntLong() {
+        IntLong(false);
+        IntLong(true);
+    }
+
+    @Test
+    public void TestIntDouble() {
+        final Random random = new Random(2);
+        final IntDoubleMap map = new IntDoubleMap(4, true);
+        final Map<Integer, Double> expected = new HashMap<>();
+        for (int i = 0; i < OPS; i++) {
+            final int key = random.nextInt(KEYS);
+            if (random.nextInt(5) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                final double delta = random.nextGaussian();
+                assertEquals(expected.merge(key, delta, Double::sum), map.add(key, delta), 0);
+            }
+        }
+        final IntDoubleMap copy = restore(new IntDoubleMap(4, false), image(map));
+        assertEquals(expected.size(), copy.size());
+        for (int k = 0; k < KEYS; k++) {
+            assertEquals(expected.getOrDefault(k, Double.NaN), map.get(k, Double.NaN), 0);
+            assertEquals(expected.getOrDefault(k, Double.NaN), copy.get(k, Double.NaN), 0);
+        }
+    }
+
+    private void LongLong(boolean off_heap) {
+        final Random random = new Random(3);
+        final LongLongMap map = new LongLongMap(4, off_heap);
+        final Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < OPS; i++) {
+            final long key = (long) (random.nextInt(KEYS + 1) - 1) << 33;//includes 0, low bits all equal.
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.merge(key, (long) i, Long::sum).longValue(), map.add(key, i));
+                    break;
+                default:
+                    map.put(key, i);
+                    expected.put(key, (long) i);
+            }
+        }
+        check(expected, map);
+        check(expected, restore(new LongLongMap(4, !off_heap), image(map)));
+        check(expected, SerializationUtils.clone(map));
+    }
+
+    @Test
+    public void TestLongLong() {
+        LongLong(false);
+        LongLong(true);
+    }
+
+    private void CharArrayLong(boolean off_heap) {
+        final Random random = new Random(4);
+        final CharArrayLongMap map = new CharArrayLongMap(4, off_heap);
+        final Map<String, Long> expected = new HashMap<>();
+        final char[] line = new char[64];
+        for (int i = 0; i < OPS; i++) {
+            final char[] key = word(random.nextInt(KEYS));
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(new String(key)) != null, map.remove(key));
+                    break;
+                case 1:
+                    //through a range of a larger buffer, as a tokenizer hands them over.
+                    final int offset = 1 + random.nextInt(8);
+                    Arrays.fill(line, ' ');
+                    System.arraycopy(key, 0, line, offset, key.length);
+                    assertEquals(expected.merge(new String(key), 1L, Long::sum).longValue(),
+                            map.add(line, offset, key.length, 1));
+                    break;
+                default:
+                    map.put(key, i);
+                    expected.put(new String(key), (long) i);
+            }
+        }
+        check(expected, map);
+        check(expected, restore(new CharArrayLongMap(4, !off_heap), image(map)));
+        check(expected, SerializationUtils.clone(map));
+    }
+
+    @Test
+    public void TestCharArrayLong() {
+        CharArrayLong(false);
+        CharArrayLong(true);
+    }
+
+    /**
+     * Churning through keys must reuse the space of removed keys instead of growing the arena.
+     */
+    @Test
+    public void TestArenaCompaction() {
+        final CharArrayLongMap map = new CharArrayLongMap(16, false);
+        final Map<String, Long> expected = new HashMap<>();
+        for (int k = 0; k < 100; k++) {
+            map.put(word(k), k);
+            expected.put(new String(word(k)), (long) k);
+        }
+        final long footprint = map.footprint();
+        for (int round = 1; round < 200; round++) {
+            for (int k = 0; k < 100; k++) {
+                final int key = round * 100 + k;
+                assertTrue(map.remove(word(key - 100)));
+                map.put(word(key), key);
+                expected.remove(new String(word(key - 100)));
+                expected.put(new String(word(key)), (long) key);
+            }
+        }
+        assertTrue(map.footprint() + " > " + footprint, map.footprint() <= 2 * footprint);
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<String, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue().longValue(), map.get(e.getKey().toCharArray(), -1));
+        }
+        final CharArrayLongMap copy = restore(new CharArrayLongMap(4, true), image(map));
+        for (Map.Entry<String, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue().longValue(), copy.get(e.getKey().toCharArray(), -1));
+        }
+    }
+
+    @Test
+    public void TestTransfer() {
+        final IntLongMap from = new IntLongMap(4, false);
+        final IntLongMap to = new IntLongMap(4, true);
+        for (int k = 0; k < 1000; k++) {
+            from.put(k, k * 10L);
+        }
+        assertEquals(500, from.transfer(hash -> hash % 2 == 0 ? to : null));
+        assertEquals(500, from.size());
+        assertEquals(500, to.size());
+        for (int k = 0; k < 1000; k++) {
+            assertEquals(k * 10L, (k % 2 == 0 ? to : from).get(k, -1));
+            assertFalse((k % 2 == 0 ? from : to).containsKey(k));
+        }
+        final CharArrayLongMap words = new CharArrayLongMap(4, false);
+        final CharArrayLongMap moved = new CharArrayLongMap(4, false);
+        for (int k = 0; k < 1000; k++) {
+            words.put(word(k), k);
+        }
+        final int n = words.transfer(hash -> (hash & 1) == 0 ? moved : words);
+        assertEquals(1000, n + words.size());
+        assertEquals(n, moved.size());
+        for (int k = 0; k < 1000; k++) {
+            final boolean even = (Arrays.hashCode(word(k)) & 1) == 0;
+            assertEquals(k, (even ? moved : words).get(word(k), -1));
+            assertFalse((even ? words : moved).containsKey(word(k)));
+        }
+    }
+
+    private static void checkTooLarge(PrimitiveMap.Factory<?> factory, int expected) {
+        try {
+            factory.create(expected, true);
+            fail(expected + " keys");
+        } catch (IllegalStateException ex) {//not an overflown size handed to the buffer.
+            assertTrue(ex.getMessage(), ex.getMessage().contains("2 GB"));
+        }
+    }
+
+    /**
+     * The tables one key past the largest that fits in a buffer: 2^26 slots of 16 bytes, 2^27 slots of 12 bytes.
+     * They fail on the computed size, before anything is allocated.
+     */
+    @Test
+    public void TestSizeLimit() {
+        checkTooLarge(LongLongMap::new, (1 << 26) / 4 * 3 + 1);
+        checkTooLarge(CharArrayLongMap::new, (1 << 26) / 4 * 3 + 1);
+        checkTooLarge(IntLongMap::new, (1 << 27) / 4 * 3 + 1);
+        checkTooLarge(IntDoubleMap::new, (1 << 27) / 4 * 3 + 1);
+        checkTooLarge(IntLongMap::new, 500_000_000);
+        try {
+            new IntLongMap(Integer.MAX_VALUE, true);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("at most"));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package streaming;
+
+import brisk.components.exception.InvalidIDException;
+import brisk.execution.ExecutionGraph;
+import brisk.faulttolerance.Recovery;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import streaming.impl.demoTopology_testRecovery;
+import streaming.impl.recovery.spout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * A topology killed after a few checkpoints is recovered from the latest complete one: the counters hold the counts
+ * of the words the spout had emitted when it broadcast the marker, and the spout is rewound to that offset.
+ */
+public class RecoveryTest {
+    private static final long TIMEOUT = 60000;
+    private String home;
+    private demoTopology_testRecovery topology;
+
+    @Before
+    public void setUp() throws IOException {
+        home = System.getProperty("user.home");
+        System.setProperty("user.home", Files.createTempDirectory("recovery").toString());//the checkpoints go there.
+        spout.reset();
+    }
+
+    @After
+    public void tearDown() {
+        if (topology != null) {
+            topology.stop();
+        }
+        System.setProperty("user.home", home);
+    }
+
+    private void kill_and_recover(int counters, boolean async) throws InvalidIDException, InterruptedException {
+        topology = new demoTopology_testRecovery(counters, async);
+        topology.launch();
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (spout.acknowledged.get() < 5) {//past a full checkpoint and the deltas after it.
+            assertTrue("checkpoints acknowledged: " + spout.acknowledged.get(), System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        topology.stop();
+        topology = null;
+        Thread.sleep(200);//the commits are written in the background.
+
+        final demoTopology_testRecovery restarted = new demoTopology_testRecovery(counters, async);
+        final ExecutionGraph graph = restarted.graph();
+        assertTrue(new Recovery(restarted.conf).recover(graph) >= 0);
+        final long offset = spout.rewound;
+        assertTrue("rewound to " + offset, offset > 0);
+
+        final Map<String, Long> counts = new HashMap<>();
+        for (int id : graph.topology.getComponent(demoTopology_testRecovery.COUNTER).getExecutorIDList()) {
+            @SuppressWarnings("unchecked") final HashMap<String, MutableLong> state
+                    = (HashMap<String, MutableLong>) graph.getExecutionNode(id).getState().value();
+            for (Map.Entry<String, MutableLong> count : state.entrySet()) {
+                assertNull("a word is counted by one counter", counts.put(count.getKey(), count.getValue().longValue()));
+            }
+        }
+        for (int w = 0; w < spout.WORDS; w++) {
+            assertEquals("w" + w + " at offset " + offset, spout.count(w, offset), counts.getOrDefault("w" + w, 0L).longValue());
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void TestRecoverAsync() throws InvalidIDException, InterruptedException {
+        kill_and_recover(2, true);
+    }
+
+    @Test(timeout = 120000)
+    public void TestRecoverShared() throws InvalidIDException, InterruptedException {
+        kill_and_recover(2, false);
+    }
+}
@@ -0,0 +1,77 @@
+package streaming;
+
+import brisk.components.exception.InvalidIDException;
+import org.junit.After;
+import org.junit.Test;
+import streaming.impl.demoTopology_testRescale;
+import streaming.impl.rescale.sink;
+import streaming.impl.rescale.spout;
+
+import static org.junit.Assert.*;
+
+/**
+ * Rescaling the word counters in the middle of the stream must neither lose nor split a count: every word ends with
+ * one running count equal to its number of occurrences.
+ */
+public class RescaleTest {
+    private static final long TIMEOUT = 60000;
+    private demoTopology_testRescale topology;
+
+    @After
+    public void tearDown() {
+        if (topology != null) {
+            topology.stop();
+        }
+    }
+
+    /**
+     * Let the spout go up to tuples.
+     */
+    private static void run_to(long tuples) throws InterruptedException {
+        spout.allow(tuples);
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (spout.emitted() < tuples) {
+            assertTrue("spout stuck at " + spout.emitted(), System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Wait until the sink received a count for each of the tuples, pausing the topology once so that the partial
+     * batches left at the end of the stream are flushed.
+     */
+    private void await_counts(long tuples) throws InterruptedException {
+        assertTrue(topology.EM.pause_aligned(TIMEOUT));
+        topology.EM.resume_aligned();
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (sink.received.get() < tuples) {
+            assertTrue(sink.received.get() + " of " + tuples + " counts received", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(tuples, sink.received.get());
+    }
+
+    private static void check(long tuples) {
+        assertEquals(spout.WORDS, sink.counts.size());
+        for (int w = 0; w < spout.WORDS; w++) {
+            final long expected = tuples / spout.WORDS + (w < tuples % spout.WORDS ? 1 : 0);
+            assertEquals("w" + w, expected, sink.counts.get("w" + w).longValue());
+        }
+    }
+
+    @Test
+    public void TestRescaleMidStream() throws InvalidIDException, InterruptedException {
+        topology = new demoTopology_testRescale(4, 16);
+        //stop the spout in the middle of batches, so the cut finds partial batches buffered for several counters.
+        run_to(10_003);
+        assertTrue(topology.EM.rescale(topology.counter(), 2));
+        run_to(20_011);
+        assertTrue(topology.EM.rescale(topology.counter(), 3));
+        run_to(30_017);
+        assertTrue(topology.EM.rescale(topology.counter(), 1));
+        run_to(40_000);
+        await_counts(40_000);
+        check(40_000);
+    }
+}
@@ -0,0 +1,108 @@
+package streaming;
+
+import brisk.components.exception.InvalidIDException;
+import brisk.controller.output.partition.FieldsPartitionController;
+import brisk.execution.ExecutionGraph;
+import org.junit.After;
+import org.junit.Test;
+import streaming.impl.demoTopology_testSkew;
+import streaming.impl.skew.sink;
+import streaming.impl.skew.spout;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * The skew-aware grouping must send a key it does not split where the fields grouping sends it, spread the heavy
+ * hitters, and the merge of the partial counts of the split keys must give the exact count of every word.
+ */
+public class SkewAwareGroupingTest {
+    private static final long TIMEOUT = 60000;
+    private static final int COUNTERS = 4;
+    private demoTopology_testSkew topology;
+
+    @After
+    public void tearDown() {
+        if (topology != null) {
+            topology.stop();
+        }
+    }
+
+    private static char[][] words(int[] keys) {
+        final char[][] words = new char[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            words[i] = ("w" + keys[i]).toCharArray();
+        }
+        return words;
+    }
+
+    private static Map<String, Long> counts(char[][] stream) {
+        final Map<String, Long> counts = new HashMap<>();
+        for (char[] word : stream) {
+            counts.merge(new String(word), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    public void TestColdKeysStayHome() throws InvalidIDException {
+        final char[][] stream = words(demoTopology_testSkew.zipf(500, 1.0, 100_000, 42));
+        final FieldsPartitionController fields = demoTopology_testSkew.grouping(
+                new demoTopology_testSkew(COUNTERS, false, stream).prepare());
+        final ExecutionGraph graph = new demoTopology_testSkew(COUNTERS, true, stream).prepare();
+        final FieldsPartitionController skew = demoTopology_testSkew.grouping(graph);
+        final Map<String, Set<Integer>> targets = new HashMap<>();
+        for (char[] word : stream) {
+            targets.computeIfAbsent(new String(word), w -> new HashSet<>()).add(skew.chooseTasks(word));
+        }
+        final Map<Integer, Integer> split = graph.getSplitKeys(demoTopology_testSkew.COUNTER);
+        assertFalse(split.isEmpty());
+        final Map<String, Long> counts = counts(stream);
+        for (Map.Entry<String, Set<Integer>> entry : targets.entrySet()) {
+            final char[] word = entry.getKey().toCharArray();
+            final int home = fields.chooseTasks(word);
+            final Integer registered = split.get(Arrays.hashCode(word));
+            if (registered == null) {
+                assertEquals(entry.getKey(), Collections.singleton(home), entry.getValue());
+            } else {
+                assertEquals(entry.getKey(), home, registered.intValue());
+                assertTrue(entry.getKey() + " split to " + entry.getValue(), entry.getValue().size() > 1);
+                assertTrue(entry.getKey() + " split at " + counts.get(entry.getKey()),
+                        counts.get(entry.getKey()) > stream.length / (5 * COUNTERS) / 2);
+            }
+        }
+        assertTrue(split.containsKey(Arrays.hashCode("w0".toCharArray())));
+    }
+
+    @Test
+    public void TestMerge() throws InvalidIDException, InterruptedException {
+        final char[][] stream = words(demoTopology_testSkew.zipf(200, 1.0, 50_000, 7));
+        final Map<String, Long> expected = counts(stream);
+        topology = new demoTopology_testSkew(COUNTERS, true, stream);
+        topology.launch();
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (spout.emitted() < stream.length) {
+            assertTrue("spout stuck at " + spout.emitted(), System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        //pause once, so that the partial batches left at the end of the stream are flushed.
+        assertTrue(topology.EM.pause_aligned(TIMEOUT));
+        topology.EM.resume_aligned();
+        deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!expected.equals(sink.counts) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, sink.counts);
+        final Map<Integer, Integer> split = sink.split;
+        assertTrue(split.containsKey(Arrays.hashCode("w0".toCharArray())));
+        topology.stop();
+        topology = null;
+        assertTrue(split.isEmpty());//forgotten with the topology.
+    }
+}
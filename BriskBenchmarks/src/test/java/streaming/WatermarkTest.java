@@ -0,0 +1,196 @@
+package streaming;
+
+import applications.spout.MemFileSpout;
+import brisk.components.exception.InvalidIDException;
+import brisk.components.windowing.WatermarkTracker;
+import org.junit.After;
+import org.junit.Test;
+import streaming.impl.demoTopology_testWatermark;
+import streaming.impl.watermark.sink;
+import streaming.impl.watermark.spout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Event time windows are fired by the watermarks of the spouts: tuples out of order by less than the lag are all
+ * counted in their windows, older ones go to the late stream.
+ */
+public class WatermarkTest {
+    private static final long TIMEOUT = 60000;
+    private static final int LENGTH = 100;
+    private static final int SLIDE = 50;
+    private static final int LAG = 50;
+    private demoTopology_testWatermark topology;
+
+    @After
+    public void tearDown() {
+        if (topology != null) {
+            topology.stop();
+        }
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            assertTrue(what, System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * @return the timestamps from to to, one per ms, shuffled in blocks of 40: out of order by less than the lag.
+     */
+    private static List<Long> shuffled(long from, long to, Random random) {
+        final List<Long> timestamps = new ArrayList<>();
+        for (long block = from; block < to; block += 40) {
+            final List<Long> shuffled = new ArrayList<>();
+            for (long ts = block; ts < Math.min(block + 40, to); ts++) {
+                shuffled.add(ts);
+            }
+            Collections.shuffle(shuffled, random);
+            timestamps.addAll(shuffled);
+        }
+        return timestamps;
+    }
+
+    /**
+     * @return the windows holding the counted timestamps, fired up to the end of the last one.
+     */
+    private static List<String> windows(List<Long> counted, long last_end) {
+        final List<String> windows = new ArrayList<>();
+        for (long end = SLIDE; end <= last_end; end += SLIDE) {
+            long count = 0;
+            for (long ts : counted) {
+                if (ts >= end - LENGTH && ts < end) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                windows.add(sink.window(end - LENGTH, end, count));
+            }
+        }
+        return windows;
+    }
+
+    @Test
+    public void TestOutOfOrder() throws InvalidIDException, InterruptedException {
+        final Random random = new Random(22);
+        final List<Long> first = shuffled(0, 2000, random);
+        final List<Long> late = new ArrayList<>();
+        for (long ts = 100; ts < 150; ts++) {
+            late.add(ts);
+        }
+        final List<Long> second = shuffled(2000, 4000, random);
+        final List<Long> script = new ArrayList<>(first);
+        script.addAll(late);
+        script.addAll(second);
+        script.add(100_000L);//its watermark fires all windows before, and no window holds it alone yet.
+        final long[] timestamps = new long[script.size()];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = script.get(i);
+        }
+        spout.play(timestamps);
+        topology = new demoTopology_testWatermark(true, LENGTH, SLIDE, LAG);
+        topology.launch();
+
+        //the watermark of the first part, 1999 - lag, fires the windows ending at or before 1900.
+        spout.allow(first.size());
+        final List<String> fired = windows(first, 1900);
+        await("windows fired by the first watermarks: " + sink.windows.size(), () -> sink.windows.size() >= fired.size());
+        assertEquals(fired, sink.windows);
+
+        //far behind the watermark now.
+        spout.allow(first.size() + late.size());
+        await("late tuples: " + sink.late.size(), () -> sink.late.size() >= late.size());
+        assertEquals(late, sink.late);
+
+        spout.allow(timestamps.length);
+        final List<Long> counted = new ArrayList<>(first);
+        counted.addAll(second);
+        final List<String> all = windows(counted, 4050);
+        await("windows fired: " + sink.windows.size(), () -> sink.windows.size() >= all.size());
+        Thread.sleep(100);
+        assertEquals(all, sink.windows);
+        assertEquals(late, sink.late);
+    }
+
+    /**
+     * Once the forwarders are rescaled from 2 to 1, the parked one sends no more watermarks: the window goes on with
+     * those of the other instead of waiting for it.
+     */
+    @Test
+    public void TestParkedProducer() throws InvalidIDException, InterruptedException {
+        final long[] timestamps = new long[4001];
+        for (int i = 0; i < 4000; i++) {
+            timestamps[i] = i;
+        }
+        timestamps[4000] = 100_000L;
+        spout.play(timestamps);
+        topology = new demoTopology_testWatermark(true, LENGTH, SLIDE, LAG, 2);
+        topology.launch();
+
+        final List<Long> first = new ArrayList<>();
+        for (long ts = 0; ts < 2000; ts++) {
+            first.add(ts);
+        }
+        spout.allow(first.size());
+        final List<String> fired = windows(first, 1900);
+        await("windows fired by both forwarders: " + sink.windows.size(), () -> sink.windows.size() >= fired.size());
+
+        assertTrue(topology.EM.rescale(topology.forwarders(), 1));
+        spout.allow(timestamps.length);
+        final List<Long> counted = new ArrayList<>();
+        for (long ts = 0; ts < 4000; ts++) {
+            counted.add(ts);
+        }
+        final List<String> all = windows(counted, 4050);
+        await("windows fired after the rescale: " + sink.windows.size(), () -> sink.windows.size() >= all.size());
+        Thread.sleep(100);
+        assertEquals(all, sink.windows);
+        assertTrue(sink.late.isEmpty());
+    }
+
+    @Test
+    public void TestTrackerSkipsParked() {
+        final Set<Integer> parked = new HashSet<>();
+        final WatermarkTracker tracker = new WatermarkTracker(Arrays.asList(1, 2), source -> !parked.contains(source));
+        assertFalse(tracker.update(1, 10));
+        assertTrue(tracker.update(2, 20));
+        assertEquals(10, tracker.current());
+
+        parked.add(1);//holds the minimum, and sends nothing more.
+        assertTrue(tracker.update(2, 30));
+        assertEquals(30, tracker.current());
+
+        parked.clear();//resumed, behind: the watermark does not go back, and waits for it.
+        assertFalse(tracker.update(2, 40));
+        assertEquals(30, tracker.current());
+        assertTrue(tracker.update(1, 35));
+        assertEquals(35, tracker.current());
+    }
+
+    /**
+     * The windows would never fire: the spout sends watermarks that do not advance.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void TestSpoutWithoutEventTime() throws InvalidIDException {
+        topology = new demoTopology_testWatermark(false, LENGTH, SLIDE, LAG);
+        topology.prepare_window();
+    }
+
+    @Test
+    public void TestLineTimestamp() {
+        assertEquals(1234L, MemFileSpout.column(2).of("a,b,1234,c".toCharArray()));
+        assertEquals(-7L, MemFileSpout.column(0).of("-7".toCharArray()));
+        assertEquals(99L, MemFileSpout.column(1).of("x,99".toCharArray()));
+    }
+}
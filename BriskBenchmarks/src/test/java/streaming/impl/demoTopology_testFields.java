@@ -0,0 +1,52 @@
+package streaming.impl;
+
+import applications.abstractRunner;
+import brisk.components.Topology;
+import brisk.components.context.TopologyContext;
+import brisk.components.exception.InvalidIDException;
+import brisk.components.grouping.ShuffleGrouping;
+import brisk.controller.input.scheduler.SequentialScheduler;
+import brisk.execution.ExecutionGraph;
+import brisk.topology.TopologyBuilder;
+import machine.RTM_Machine;
+import streaming.impl.fields.bolt;
+import streaming.impl.fields.spout;
+import util.Configuration;
+
+/**
+ * A GPS spout feeding a bolt, compiled into an execution graph but not launched: enough for the context of the bolt
+ * to resolve the fields of its input.
+ */
+public class demoTopology_testFields {
+    public static final String SPOUT = "gps";
+    public static final String BOLT = "map";
+    public final bolt bolt = new bolt();
+    public final ExecutionGraph graph;
+
+    public demoTopology_testFields() throws InvalidIDException {
+        TopologyBuilder tb = new TopologyBuilder();
+        tb.setSpout(SPOUT, new spout(), 1);
+        tb.setSink(BOLT, bolt, 1, new ShuffleGrouping(SPOUT));
+        tb.setGlobalScheduler(new SequentialScheduler());
+        Topology topo = tb.createTopology();
+        topo.addMachine(new RTM_Machine());
+        Configuration conf = new Configuration();
+        new abstractRunner() {
+        }.configuration(conf);//defaults of the command line.
+        conf.put("NAV", true);//no profiled statistics to load.
+        graph = new ExecutionGraph(topo, null, conf);
+        bolt.prepare(conf, context(boltId()), null);
+    }
+
+    public int spoutId() {
+        return graph.topology.getComponent(SPOUT).getExecutorIDList().get(0);
+    }
+
+    public int boltId() {
+        return graph.topology.getComponent(BOLT).getExecutorIDList().get(0);
+    }
+
+    public TopologyContext context(int executor) {
+        return new TopologyContext(graph, null, graph.getExecutionNode(executor), null, null);
+    }
+}
@@ -0,0 +1,148 @@
+package streaming.impl;
+
+import applications.abstractRunner;
+import applications.bolts.wc.WordCountBolt;
+import brisk.components.Topology;
+import brisk.components.exception.InvalidIDException;
+import brisk.components.grouping.FieldsGrouping;
+import brisk.components.grouping.ShuffleGrouping;
+import brisk.controller.input.scheduler.SequentialScheduler;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.ExecutionNode;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.optimization.impl.SchedulingPlan;
+import brisk.optimization.impl.scheduling.BranchAndBound;
+import brisk.optimization.model.Constraints;
+import brisk.topology.TopologyBuilder;
+import machine.HP_Machine;
+import machine.Platform;
+import streaming.impl.rescale.sink;
+import streaming.impl.rescale.spout;
+import util.Configuration;
+
+import java.util.List;
+
+import static constants.WordCountConstants.Field;
+
+/**
+ * A word spout feeding word counters, whose counts go to a sink, placed on the sockets by branch and bound from
+ * synthetic statistics instead of profiled ones.
+ */
+public class demoTopology_testPlacement {
+    public static final String SPOUT = "words";
+    public static final String COUNTER = "counter";
+    public static final String SINK = "sink";
+    public final Configuration conf = new Configuration();
+    private final Topology topo;
+    private final Platform p = new HP_Machine();
+
+    /**
+     * @param sockets the plan spreads the executors over.
+     * @param cores   per socket.
+     */
+    public demoTopology_testPlacement(int counters, int sockets, int cores) throws InvalidIDException {
+        TopologyBuilder tb = new TopologyBuilder();
+        tb.setSpout(SPOUT, new spout(), 1);
+        tb.setBolt(COUNTER, new WordCountBolt(), counters, new FieldsGrouping(SPOUT, new Fields(Field.WORD)));
+        tb.setSink(SINK, new sink(), 1, new ShuffleGrouping(COUNTER));
+        tb.setGlobalScheduler(new SequentialScheduler());
+        topo = tb.createTopology();
+        topo.addMachine(p);
+        new abstractRunner() {
+        }.configuration(conf);//defaults of the command line.
+        conf.put("num_socket", sockets);
+        conf.put("num_cpu", cores);
+        conf.put("compressRatio", 1);//search the executors themselves.
+        conf.put("NAV", false);//load the statistics,
+        conf.put("profile", false);
+        p.cachedInformation.updateInfo(SPOUT + SPOUT, statistics(800, 0));//instead of their files.
+        p.cachedInformation.updateInfo(COUNTER + SPOUT, statistics(3000, 150));
+        for (int n = 1; n <= counters; n++) {
+            p.cachedInformation.updateInfo(COUNTER + n + SPOUT, statistics(3000, 150));
+        }
+        p.cachedInformation.updateInfo(SINK + COUNTER, statistics(200, 150));
+    }
+
+    /**
+     * Statistics of an operator, in the format of the profiled files (see STAT#load): cycles per tuple and
+     * cache misses, local then remote to the producer, then the tuple size.
+     */
+    private static String statistics(double cycles, double fetch) {
+        final StringBuilder sb = new StringBuilder();
+        for (int remote = 0; remote <= 1; remote++) {
+            final double penalty = remote == 0 ? 1 : 3;
+            sb.append(fetch * penalty).append('\t').append(cycles).append('\t');
+            sb.append(2 * penalty).append('\t').append(1.0).append('\t');
+            sb.append(4 * penalty).append('\t').append(2.0).append('\t');
+            sb.append(8 * penalty).append('\t').append(4.0).append('\t');
+            sb.append(8 * penalty).append('\t').append(4.0).append('\t');
+        }
+        return sb.append(64).toString();
+    }
+
+    /**
+     * Build the execution graph without launching the topology, from the synthetic statistics.
+     */
+    public ExecutionGraph prepare() {
+        return new ExecutionGraph(topo, null, conf);
+    }
+
+    private Constraints constraints() {
+        return new Constraints(conf.getInt("num_socket"), conf.getInt("num_cpu"), p);
+    }
+
+    /**
+     * @param parallel if the branch and bound explores the search tree with all cores.
+     * @return the best plan found within timeoutMs, starting from an empty plan of no output rate instead of a random
+     * one, so that both searches start from the same point and keep only the plans they find.
+     */
+    public SchedulingPlan place(boolean parallel, ExecutionGraph graph, int timeoutMs) {
+        conf.put("parallel_bnb", parallel);
+        final int sockets = conf.getInt("num_socket");
+        final SchedulingPlan initial = new SchedulingPlan(graph, sockets, constraints(), conf, null);
+        initial.set_success();
+        return new BranchAndBound(graph, sockets, conf.getInt("num_cpu"), constraints(), conf, initial)
+                .Search(false, timeoutMs);
+    }
+
+    /**
+     * @return output rate of the best plan meeting the constraints, by trying every placement of the executors.
+     */
+    public double optimum(ExecutionGraph graph) {
+        final int sockets = conf.getInt("num_socket");
+        final Constraints cons = constraints();
+        final List<ExecutionNode> executors = graph.getExecutionNodeArrayList();
+        long placements = 1;
+        for (ExecutionNode e : executors) {
+            if (!e.isVirtual()) {
+                placements *= sockets;
+            }
+        }
+        double best = 0;
+        for (long placement = 0; placement < placements; placement++) {
+            final SchedulingPlan plan = new SchedulingPlan(graph, sockets, cons, conf, null);
+            long rest = placement;
+            for (ExecutionNode e : executors) {
+                if (e.isVirtual()) {
+                    plan.allocate(e, 0);
+                } else {
+                    plan.allocate(e, (int) (rest % sockets));
+                    rest /= sockets;
+                }
+            }
+            plan.set_success();
+            if (cons.satisfy(plan) == cons.allstatisfy) {
+                best = Math.max(best, plan.getOutput_rate(true));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return if the plan meets the CPU, memory, QPI and core constraints of every socket.
+     */
+    public boolean satisfied(SchedulingPlan plan) {
+        final Constraints cons = constraints();
+        return cons.satisfy(plan) == cons.allstatisfy;
+    }
+}
@@ -0,0 +1,85 @@
+package streaming.impl;
+
+import applications.abstractRunner;
+import applications.bolts.wc.WordCountBolt_FT;
+import brisk.components.Topology;
+import brisk.components.exception.InvalidIDException;
+import brisk.components.grouping.FieldsGrouping;
+import brisk.components.grouping.ShuffleGrouping;
+import brisk.controller.input.scheduler.SequentialScheduler;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.ExecutionManager;
+import brisk.execution.ExecutionNode;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.faulttolerance.Writer;
+import brisk.topology.TopologyBuilder;
+import brisk.topology.TopologySubmitter;
+import machine.RTM_Machine;
+import streaming.impl.recovery.sink;
+import streaming.impl.recovery.spout;
+import util.Configuration;
+
+import static constants.WordCountConstants.Field;
+
+/**
+ * A replayable spout of words feeding checkpointed word counters, whose markers a sink acknowledges, launched natively
+ * with fault tolerance.
+ */
+public class demoTopology_testRecovery {
+    public static final String SPOUT = "words";
+    public static final String COUNTER = "counter";
+    public static final String SINK = "sink";
+    public final Configuration conf = new Configuration();
+    private final Topology topo;
+    public ExecutionManager EM;
+
+    /**
+     * @param counters parallelism of the counters.
+     * @param async    checkpoints persisted by background writers, else shared by all executors of an operator.
+     */
+    public demoTopology_testRecovery(int counters, boolean async) throws InvalidIDException {
+        TopologyBuilder tb = new TopologyBuilder();
+        tb.setSpout(SPOUT, new spout(), 1);
+        tb.setBolt(COUNTER, new WordCountBolt_FT(), counters, new FieldsGrouping(SPOUT, new Fields(Field.WORD)));
+        tb.setSink(SINK, new sink(), 1, new ShuffleGrouping(COUNTER));
+        tb.setGlobalScheduler(new SequentialScheduler());
+        topo = tb.createTopology();
+        topo.addMachine(new RTM_Machine());
+        new abstractRunner() {
+        }.configuration(conf);//defaults of the command line.
+        conf.put("NAV", true);//native execution, no profiled statistics to load.
+        conf.put("batch", 10);
+        conf.put("Fault_tolerance", true);
+        conf.put("checkpoint", 0.05);
+        conf.put("async_checkpoint", async);
+        conf.put("checkpoint_compaction", 3);
+    }
+
+    public void launch() {
+        TopologySubmitter submitter = new TopologySubmitter();
+        submitter.submitTopology(topo, conf);
+        EM = submitter.getOM().getEM();
+    }
+
+    /**
+     * @return the executors of the topology with their writers, as the execution manager configures them before
+     * launching, without launching them.
+     */
+    public ExecutionGraph graph() {
+        final ExecutionGraph graph = new ExecutionGraph(topo, null, conf);
+        Writer writer = null;
+        for (ExecutionNode e : graph.getExecutionNodeArrayList()) {
+            if (e.isFirst_executor()) {
+                writer = new Writer(e.operator, e.operator.getNumTasks(), conf);
+            }
+            e.configureWriter(writer);
+        }
+        return graph;
+    }
+
+    public void stop() {
+        if (EM != null) {
+            EM.exist();
+        }
+    }
+}
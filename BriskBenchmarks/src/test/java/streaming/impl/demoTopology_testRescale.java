@@ -0,0 +1,61 @@
+package streaming.impl;
+
+import applications.abstractRunner;
+import applications.bolts.wc.WordCountBolt;
+import brisk.components.Topology;
+import brisk.components.TopologyComponent;
+import brisk.components.exception.InvalidIDException;
+import brisk.components.grouping.FieldsGrouping;
+import brisk.components.grouping.ShuffleGrouping;
+import brisk.controller.input.scheduler.SequentialScheduler;
+import brisk.execution.ExecutionManager;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.topology.TopologyBuilder;
+import brisk.topology.TopologySubmitter;
+import machine.RTM_Machine;
+import streaming.impl.rescale.sink;
+import streaming.impl.rescale.spout;
+import util.Configuration;
+
+import static constants.WordCountConstants.Field;
+
+/**
+ * A word spout feeding word counters routed by key group, whose running counts go to a sink, launched natively so that
+ * the counters can be rescaled while the stream flows.
+ */
+public class demoTopology_testRescale {
+    public static final String SPOUT = "words";
+    public static final String COUNTER = "counter";
+    public static final String SINK = "sink";
+    public final Topology topology;
+    public final ExecutionManager EM;
+
+    public demoTopology_testRescale(int counters, int key_groups) throws InvalidIDException {
+        spout.reset();
+        sink.reset();
+        TopologyBuilder tb = new TopologyBuilder();
+        tb.setSpout(SPOUT, new spout(), 1);
+        tb.setBolt(COUNTER, new WordCountBolt(), counters, new FieldsGrouping(SPOUT, new Fields(Field.WORD)));
+        tb.setSink(SINK, new sink(), 1, new ShuffleGrouping(COUNTER));
+        tb.setGlobalScheduler(new SequentialScheduler());
+        Topology topo = tb.createTopology();
+        topo.addMachine(new RTM_Machine());
+        Configuration conf = new Configuration();
+        new abstractRunner() {
+        }.configuration(conf);//defaults of the command line.
+        conf.put("NAV", true);//native execution, no profiled statistics to load.
+        conf.put("key_groups", key_groups);
+        conf.put("batch", 10);
+        TopologySubmitter submitter = new TopologySubmitter();
+        topology = submitter.submitTopology(topo, conf);
+        EM = submitter.getOM().getEM();
+    }
+
+    public TopologyComponent counter() {
+        return topology.getComponent(COUNTER);
+    }
+
+    public void stop() {
+        EM.exist();
+    }
+}
@@ -0,0 +1,119 @@
+package streaming.impl;
+
+import applications.abstractRunner;
+import applications.bolts.wc.WordCountBolt;
+import applications.bolts.wc.WordCountMergeBolt;
+import brisk.components.Topology;
+import brisk.components.exception.InvalidIDException;
+import brisk.components.grouping.FieldsGrouping;
+import brisk.components.grouping.ShuffleGrouping;
+import brisk.components.grouping.SkewAwareGrouping;
+import brisk.controller.input.scheduler.SequentialScheduler;
+import brisk.controller.output.partition.FieldsPartitionController;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.ExecutionManager;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.topology.TopologyBuilder;
+import brisk.topology.TopologySubmitter;
+import machine.RTM_Machine;
+import streaming.impl.skew.sink;
+import streaming.impl.skew.spout;
+import util.Configuration;
+
+import java.util.Random;
+
+import static applications.Constants.DEFAULT_STREAM_ID;
+import static constants.WordCountConstants.Component;
+import static constants.WordCountConstants.Field;
+
+/**
+ * A spout of Zipf distributed words feeding word counters, which a skew-aware grouping (or a fields grouping) routes
+ * to, whose running counts are merged before a sink.
+ */
+public class demoTopology_testSkew {
+    public static final String SPOUT = "words";
+    public static final String COUNTER = Component.COUNTER;//the name WordCountMergeBolt looks up.
+    public static final String MERGE = "merge";
+    public static final String SINK = "sink";
+    public final Configuration conf = new Configuration();
+    private final Topology topo;
+    public ExecutionManager EM;
+
+    /**
+     * @param skew if the counters are routed by a skew-aware grouping, by a fields grouping otherwise.
+     */
+    public demoTopology_testSkew(int counters, boolean skew, char[][] stream) throws InvalidIDException {
+        spout.reset(stream);
+        sink.reset();
+        TopologyBuilder tb = new TopologyBuilder();
+        tb.setSpout(SPOUT, new spout(), 1);
+        tb.setBolt(COUNTER, new WordCountBolt(), counters, skew
+                ? new SkewAwareGrouping(SPOUT, new Fields(Field.WORD))
+                : new FieldsGrouping(SPOUT, new Fields(Field.WORD)));
+        tb.setBolt(MERGE, new WordCountMergeBolt(), 2, new FieldsGrouping(COUNTER, new Fields(Field.WORD)));
+        tb.setSink(SINK, new sink(), 1, new ShuffleGrouping(MERGE));
+        tb.setGlobalScheduler(new SequentialScheduler());
+        topo = tb.createTopology();
+        topo.addMachine(new RTM_Machine());
+        new abstractRunner() {
+        }.configuration(conf);//defaults of the command line.
+        conf.put("NAV", true);//native execution, no profiled statistics to load.
+        conf.put("batch", 10);
+    }
+
+    /**
+     * @return keys following a Zipf distribution of exponent s over keys ranks (0 the most frequent), drawn from seed.
+     */
+    public static int[] zipf(int keys, double s, int length, long seed) {
+        final double[] cdf = new double[keys];
+        double sum = 0;
+        for (int k = 0; k < keys; k++) {
+            sum += 1 / Math.pow(k + 1, s);
+            cdf[k] = sum;
+        }
+        final Random random = new Random(seed);
+        final int[] stream = new int[length];
+        for (int i = 0; i < length; i++) {
+            final double u = random.nextDouble() * sum;
+            int lo = 0, hi = keys - 1;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (cdf[mid] < u) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            stream[i] = lo;
+        }
+        return stream;
+    }
+
+    public void launch() {
+        TopologySubmitter submitter = new TopologySubmitter();
+        submitter.submitTopology(topo, conf);
+        EM = submitter.getOM().getEM();
+    }
+
+    /**
+     * Build the execution graph without launching the topology.
+     */
+    public ExecutionGraph prepare() {
+        return new ExecutionGraph(topo, null, conf);
+    }
+
+    /**
+     * @return the grouping of the spout to the counters.
+     */
+    public static FieldsPartitionController grouping(ExecutionGraph graph) {
+        final int executor = graph.topology.getComponent(SPOUT).getExecutorIDList().get(0);
+        return (FieldsPartitionController) graph.getExecutionNode(executor).getController()
+                .getPartitionController(DEFAULT_STREAM_ID, COUNTER);
+    }
+
+    public void stop() {
+        if (EM != null) {
+            EM.exist();
+        }
+    }
+}
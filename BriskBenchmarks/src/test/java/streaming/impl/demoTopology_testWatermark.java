@@ -0,0 +1,100 @@
+package streaming.impl;
+
+import applications.abstractRunner;
+import brisk.components.Topology;
+import brisk.components.TopologyComponent;
+import brisk.components.context.TopologyContext;
+import brisk.components.exception.InvalidIDException;
+import brisk.components.grouping.FieldsGrouping;
+import brisk.components.grouping.ShuffleGrouping;
+import brisk.controller.input.scheduler.SequentialScheduler;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.ExecutionManager;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.topology.TopologyBuilder;
+import brisk.topology.TopologySubmitter;
+import machine.RTM_Machine;
+import streaming.impl.watermark.bolt;
+import streaming.impl.watermark.forward;
+import streaming.impl.watermark.sink;
+import streaming.impl.watermark.spout;
+import util.Configuration;
+
+/**
+ * A spout of timestamped tuples feeding an event time window, whose counts and late tuples go to a sink, launched
+ * natively with watermarks. Optionally, the tuples go through forwarders routed by key group before the window.
+ */
+public class demoTopology_testWatermark {
+    public static final String SPOUT = "events";
+    public static final String FORWARD = "forward";
+    public static final String WINDOW = "window";
+    public static final String SINK = "sink";
+    public final Configuration conf = new Configuration();
+    private final Topology topo;
+    private Topology launched;
+    public ExecutionManager EM;
+
+    /**
+     * @param event_time if the spout reports the timestamps of its tuples.
+     * @param length     of a window, in ms.
+     * @param slide      of a window, in ms.
+     * @param lag        ms that tuples may be out of order by.
+     */
+    public demoTopology_testWatermark(boolean event_time, int length, int slide, int lag) throws InvalidIDException {
+        this(event_time, length, slide, lag, 0);
+    }
+
+    /**
+     * @param forwarders executors of the forwarders between the spout and the window, none if 0.
+     */
+    public demoTopology_testWatermark(boolean event_time, int length, int slide, int lag, int forwarders) throws InvalidIDException {
+        sink.reset();
+        TopologyBuilder tb = new TopologyBuilder();
+        tb.setSpout(SPOUT, new spout(event_time), 1);
+        if (forwarders > 0) {
+            tb.setBolt(FORWARD, new forward(), forwarders, new FieldsGrouping(SPOUT, new Fields(spout.NAME)));
+            tb.setBolt(WINDOW, new bolt(length, slide, lag), 1, new ShuffleGrouping(FORWARD));
+        } else {
+            tb.setBolt(WINDOW, new bolt(length, slide, lag), 1, new ShuffleGrouping(SPOUT));
+        }
+        tb.setSink(SINK, new sink(), 1, new ShuffleGrouping(WINDOW), new ShuffleGrouping(WINDOW, bolt.LATE));
+        tb.setGlobalScheduler(new SequentialScheduler());
+        topo = tb.createTopology();
+        topo.addMachine(new RTM_Machine());
+        new abstractRunner() {
+        }.configuration(conf);//defaults of the command line.
+        conf.put("NAV", true);//native execution, no profiled statistics to load.
+        conf.put("batch", 10);
+        conf.put("watermark_interval", 1);
+        conf.put("watermark_lag", 0);
+        if (forwarders > 0) {
+            conf.put("key_groups", 16);
+        }
+    }
+
+    public void launch() {
+        TopologySubmitter submitter = new TopologySubmitter();
+        launched = submitter.submitTopology(topo, conf);
+        EM = submitter.getOM().getEM();
+    }
+
+    public TopologyComponent forwarders() {
+        return launched.getComponent(FORWARD);
+    }
+
+    /**
+     * Prepare the window bolt, without launching the topology.
+     */
+    public void prepare_window() {
+        final ExecutionGraph graph = new ExecutionGraph(topo, null, conf);
+        final int executor = graph.topology.getComponent(WINDOW).getExecutorIDList().get(0);
+        final TopologyContext context = new TopologyContext(graph, null, graph.getExecutionNode(executor), null, null);
+        graph.getExecutionNode(executor).op.prepare(conf, context, null);
+    }
+
+    public void stop() {
+        if (EM != null) {
+            EM.exist();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package streaming.impl.fields;
+
+import brisk.components.operators.base.MapBolt;
+import brisk.execution.runtime.tuple.FieldAccessor;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exposes the accessors a bolt resolves in initialize.
+ */
+public class bolt extends MapBolt {
+    private static final Logger LOG = LoggerFactory.getLogger(bolt.class);
+    private static final long serialVersionUID = -4471927064624331742L;
+
+    public bolt() {
+        super(LOG);
+    }
+
+    public FieldAccessor resolve(String field) {
+        return accessor(field);
+    }
+
+    public FieldAccessor resolve(String sourceComponent, String streamId, String field) {
+        return accessor(sourceComponent, streamId, field);
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields("speed"));
+    }
+
+    @Override
+    public void execute(Tuple in) throws InterruptedException {
+
+    }
+}
@@ -0,0 +1,37 @@
+package streaming.impl.fields;
+
+import brisk.components.operators.api.AbstractSpout;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static constants.TrafficMonitoringConstants.Field;
+
+/**
+ * Declares the GPS fields of TrafficMonitoring, the numbers typed so that the stream may be shipped as columns.
+ */
+public class spout extends AbstractSpout {
+    private static final Logger LOG = LoggerFactory.getLogger(spout.class);
+    private static final long serialVersionUID = 3150377530412347271L;
+
+    public spout() {
+        super(LOG);
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields(new Class<?>[]{char[].class, char[].class, Boolean.class, int.class, int.class, double.class, double.class},
+                Field.VEHICLE_ID, Field.DATE_TIME, Field.OCCUPIED, Field.SPEED, Field.BEARING, Field.LATITUDE, Field.LONGITUDE));
+    }
+
+    @Override
+    public void cleanup() {
+
+    }
+
+    @Override
+    public void nextTuple() throws InterruptedException {
+
+    }
+}
@@ -0,0 +1,42 @@
+package streaming.impl.recovery;
+
+import brisk.components.operators.base.MapBolt;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Marker;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Acknowledges the markers, the counts are dropped.
+ */
+public class sink extends MapBolt {
+    private static final Logger LOG = LoggerFactory.getLogger(sink.class);
+    private static final long serialVersionUID = -3620963473938262468L;
+
+    public sink() {
+        super(LOG);
+    }
+
+    @Override
+    public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
+
+    }
+
+    @Override
+    public void execute(Tuple in) {
+
+    }
+
+    @Override
+    public void execute(TransferTuple in) {
+        final int bound = in.length;
+        for (int i = 0; i < bound; i++) {
+            final Marker marker = in.getMarker(i);
+            if (marker != null) {
+                collector.ack(in, marker);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package streaming.impl.recovery;
+
+import brisk.components.operators.api.AbstractSpout;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.Marker;
+import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
+import brisk.faulttolerance.Replayable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static constants.WordCountConstants.Field;
+
+/**
+ * Emits the words {@code w0 .. w(WORDS-1)} round robin, its offset is the number of words emitted: the counts of the
+ * words up to an offset are known.
+ */
+public class spout extends AbstractSpout implements Replayable {
+    public static final int WORDS = 31;
+    public static final AtomicLong acknowledged = new AtomicLong();//last marker acknowledged by the whole topology.
+    public static volatile long rewound = -1;//offset of the last rewind.
+    private static final Logger LOG = LoggerFactory.getLogger(spout.class);
+    private static final long serialVersionUID = 5109216738716543542L;
+    private long emitted;
+
+    public spout() {
+        super(LOG);
+    }
+
+    public static void reset() {
+        acknowledged.set(0);
+        rewound = -1;
+    }
+
+    /**
+     * @return the count of the word after offset words.
+     */
+    public static long count(int word, long offset) {
+        return offset / WORDS + (word < offset % WORDS ? 1 : 0);
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields(Field.WORD));
+    }
+
+    @Override
+    public void cleanup() {
+
+    }
+
+    @Override
+    public void nextTuple() throws InterruptedException {
+        collector.emit(0, ("w" + emitted % WORDS).toCharArray());
+        emitted++;
+        if (emitted % 100 == 0) {
+            LockSupport.parkNanos(100_000);//not to run far ahead of the counters.
+        }
+    }
+
+    @Override
+    public void callback(int callee, Marker marker) {
+        super.callback(callee, marker);
+        if (success) {
+            acknowledged.accumulateAndGet(marker.msgId, Math::max);
+        }
+    }
+
+    @Override
+    public long offset() {
+        return emitted;
+    }
+
+    @Override
+    public void rewind(long offset) {
+        emitted = offset;
+        rewound = offset;
+    }
+}
@@ -0,0 +1,51 @@
+package streaming.impl.rescale;
+
+import brisk.components.operators.base.MapBolt;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the highest running count received for each word: once all counts arrived, the total of the word.
+ */
+public class sink extends MapBolt {
+    public static final Map<String, Long> counts = new ConcurrentHashMap<>();
+    public static final AtomicLong received = new AtomicLong();
+    private static final Logger LOG = LoggerFactory.getLogger(sink.class);
+    private static final long serialVersionUID = 4263296127447262203L;
+
+    public sink() {
+        super(LOG);
+    }
+
+    public static void reset() {
+        counts.clear();
+        received.set(0);
+    }
+
+    @Override
+    public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
+
+    }
+
+    @Override
+    public void execute(Tuple in) {
+        counts.merge(new String(in.getCharArray(0)), in.getLong(1), Math::max);
+        received.incrementAndGet();
+    }
+
+    @Override
+    public void execute(TransferTuple in) {
+        final int bound = in.length;
+        for (int i = 0; i < bound; i++) {
+            counts.merge(new String(in.getCharArray(0, i)), in.getLong(1, i), Math::max);
+        }
+        received.addAndGet(bound);
+    }
+}
@@ -0,0 +1,61 @@
+package streaming.impl.rescale;
+
+import brisk.components.operators.api.AbstractSpout;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.LockSupport;
+
+import static constants.WordCountConstants.Field;
+
+/**
+ * Emits the words {@code w0 .. w(WORDS-1)} round robin, as far as the test lets it (see {@link #allow(long)}), so that
+ * the topology can be rescaled at a known point of the stream.
+ */
+public class spout extends AbstractSpout {
+    public static final int WORDS = 97;
+    private static final Logger LOG = LoggerFactory.getLogger(spout.class);
+    private static final long serialVersionUID = -1716421330926858227L;
+    private static volatile long allowed;
+    private static volatile long emitted;
+
+    public spout() {
+        super(LOG);
+    }
+
+    public static void allow(long tuples) {
+        allowed = tuples;
+    }
+
+    public static long emitted() {
+        return emitted;
+    }
+
+    public static void reset() {
+        allowed = 0;
+        emitted = 0;
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields(Field.WORD));
+    }
+
+    @Override
+    public void cleanup() {
+
+    }
+
+    @Override
+    public void nextTuple() throws InterruptedException {
+        final long n = emitted;
+        if (n >= allowed) {
+            LockSupport.parkNanos(100_000);
+            return;
+        }
+        collector.emit(0, ("w" + n % WORDS).toCharArray());
+        emitted = n + 1;
+    }
+}
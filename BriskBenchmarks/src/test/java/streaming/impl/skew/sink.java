@@ -0,0 +1,51 @@
+package streaming.impl.skew;
+
+import brisk.components.operators.base.MapBolt;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import constants.WordCountConstants.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the highest merged count received for each word: once all counts arrived, the total of the word. Also exposes
+ * the keys the skew-aware grouping split over the counters of its topology.
+ */
+public class sink extends MapBolt {
+    public static final Map<String, Long> counts = new ConcurrentHashMap<>();
+    public static volatile Map<Integer, Integer> split = Collections.emptyMap();
+    private static final Logger LOG = LoggerFactory.getLogger(sink.class);
+    private static final long serialVersionUID = -2418930612585037730L;
+
+    public sink() {
+        super(LOG);
+    }
+
+    public static void reset() {
+        counts.clear();
+        split = Collections.emptyMap();
+    }
+
+    @Override
+    public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
+        split = graph.getSplitKeys(Component.COUNTER);
+    }
+
+    @Override
+    public void execute(Tuple in) {
+        counts.merge(new String(in.getCharArray(0)), in.getLong(1), Math::max);
+    }
+
+    @Override
+    public void execute(TransferTuple in) {
+        final int bound = in.length;
+        for (int i = 0; i < bound; i++) {
+            counts.merge(new String(in.getCharArray(0, i)), in.getLong(1, i), Math::max);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package streaming.impl.skew;
+
+import brisk.components.operators.api.AbstractSpout;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.LockSupport;
+
+import static constants.WordCountConstants.Field;
+
+/**
+ * Emits the words of {@link #stream} once, in order, then idles.
+ */
+public class spout extends AbstractSpout {
+    private static final Logger LOG = LoggerFactory.getLogger(spout.class);
+    private static final long serialVersionUID = 3804125582069741177L;
+    public static volatile char[][] stream = new char[0][];
+    private static volatile int emitted;
+
+    public spout() {
+        super(LOG);
+    }
+
+    public static int emitted() {
+        return emitted;
+    }
+
+    public static void reset(char[][] words) {
+        stream = words;
+        emitted = 0;
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields(Field.WORD));
+    }
+
+    @Override
+    public void cleanup() {
+
+    }
+
+    @Override
+    public void nextTuple() throws InterruptedException {
+        final int n = emitted;
+        if (n >= stream.length) {
+            LockSupport.parkNanos(100_000);
+            return;
+        }
+        collector.emit(0, stream[n]);
+        emitted = n + 1;
+    }
+}
@@ -0,0 +1,51 @@
+package streaming.impl.watermark;
+
+import brisk.components.operators.api.BaseAggregateWindowedBolt;
+import brisk.components.windowing.WindowAggregates;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the tuples of each event time window, and sends the late tuples on their own stream.
+ */
+public class bolt extends BaseAggregateWindowedBolt<double[]> {
+    public static final String LATE = "late";
+    private static final Logger LOG = LoggerFactory.getLogger(bolt.class);
+    private static final long serialVersionUID = -4539931470290911652L;
+
+    /**
+     * @param length of a window, in ms.
+     * @param slide  of a window, in ms.
+     * @param lag    ms that tuples may be out of order by.
+     */
+    public bolt(int length, int slide, int lag) {
+        super(LOG, null, null, 1, 1, false, 0, 1);
+        withAggregate(WindowAggregates.count());
+        withWindow(Duration.of(length), Duration.of(slide));
+        withTimestampField(spout.TIME);
+        withLag(Duration.of(lag));
+        withLateTupleStream(LATE);
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields("window"));
+        declarer.declareStream(LATE, new Fields("tuple"));
+    }
+
+    @Override
+    public void cleanup() {
+
+    }
+
+    @Override
+    public void execute(double[] aggregate, long start, long end) {
+        try {
+            collector.emit(0, (Object) new long[]{start, end, (long) aggregate[0]});
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
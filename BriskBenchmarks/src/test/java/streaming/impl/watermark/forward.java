@@ -0,0 +1,46 @@
+package streaming.impl.watermark;
+
+import brisk.components.operators.base.MapBolt;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Forwards the tuples of the spout as they are, and its watermarks: a fields-grouped stage that can be rescaled in
+ * front of the window.
+ */
+public class forward extends MapBolt {
+    private static final Logger LOG = LoggerFactory.getLogger(forward.class);
+    private static final long serialVersionUID = 6210764513372903817L;
+
+    public forward() {
+        super(LOG);
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields(spout.NAME, spout.TIME));
+    }
+
+    @Override
+    public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
+
+    }
+
+    @Override
+    public void execute(Tuple in) throws InterruptedException {
+        collector.emit(in.getBID(), in.getCharArray(0), in.getLong(1));
+    }
+
+    @Override
+    public void execute(TransferTuple in) throws InterruptedException {
+        final int bound = in.length;
+        for (int i = 0; i < bound; i++) {
+            collector.emit(in.getBID(), in.getCharArray(0, i), in.getLong(1, i));
+        }
+    }
+}
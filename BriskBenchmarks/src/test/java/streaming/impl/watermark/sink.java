@@ -0,0 +1,61 @@
+package streaming.impl.watermark;
+
+import brisk.components.operators.base.MapBolt;
+import brisk.execution.ExecutionGraph;
+import brisk.execution.runtime.tuple.TransferTuple;
+import brisk.execution.runtime.tuple.impl.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the windows fired, as "[start, end) count", and the timestamps of the late tuples, in arrival order.
+ */
+public class sink extends MapBolt {
+    public static final List<String> windows = new CopyOnWriteArrayList<>();
+    public static final List<Long> late = new CopyOnWriteArrayList<>();
+    private static final Logger LOG = LoggerFactory.getLogger(sink.class);
+    private static final long serialVersionUID = 7408101581932356530L;
+
+    public sink() {
+        super(LOG);
+    }
+
+    public static void reset() {
+        windows.clear();
+        late.clear();
+    }
+
+    public static String window(long start, long end, long count) {
+        return "[" + start + ", " + end + ") " + count;
+    }
+
+    @Override
+    public void initialize(int thread_Id, int thisTaskId, ExecutionGraph graph) {
+
+    }
+
+    private static void receive(Object value) {
+        if (value instanceof long[]) {
+            final long[] window = (long[]) value;
+            windows.add(window(window[0], window[1], window[2]));
+        } else {
+            late.add(((Tuple) value).getLongByField(spout.TIME));
+        }
+    }
+
+    @Override
+    public void execute(Tuple in) {
+        receive(in.getValue(0));
+    }
+
+    @Override
+    public void execute(TransferTuple in) {
+        final int bound = in.length;
+        for (int i = 0; i < bound; i++) {
+            receive(in.getValue(0, i));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package streaming.impl.watermark;
+
+import brisk.components.operators.api.AbstractSpout;
+import brisk.execution.runtime.tuple.impl.Fields;
+import brisk.execution.runtime.tuple.impl.OutputFieldsDeclarer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Emits tuples (name, timestamp) with the timestamps of a script, as far as the test lets it (see {@link #allow(int)}),
+ * so that the watermarks it sends in between are known.
+ */
+public class spout extends AbstractSpout {
+    public static final String NAME = "name";
+    public static final String TIME = "time";
+    private static final Logger LOG = LoggerFactory.getLogger(spout.class);
+    private static final long serialVersionUID = 2980526512316427329L;
+    private static volatile long[] script = new long[0];
+    private static volatile int allowed;
+    private static volatile int emitted;
+    private final boolean event_time;
+
+    /**
+     * @param event_time if the spout reports the timestamps of its tuples, its watermarks do not advance otherwise.
+     */
+    public spout(boolean event_time) {
+        super(LOG);
+        this.event_time = event_time;
+    }
+
+    public static void play(long[] timestamps) {
+        script = timestamps;
+        allowed = 0;
+        emitted = 0;
+    }
+
+    public static void allow(int tuples) {
+        allowed = tuples;
+    }
+
+    public static int emitted() {
+        return emitted;
+    }
+
+    @Override
+    public boolean isEventTime() {
+        return event_time;
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(new Fields(NAME, TIME));
+    }
+
+    @Override
+    public void cleanup() {
+
+    }
+
+    @Override
+    public void nextTuple() throws InterruptedException {
+        final int n = emitted;
+        if (n >= allowed) {
+            LockSupport.parkNanos(100_000);
+            return;
+        }
+        final long timestamp = script[n];
+        if (event_time) {
+            event_time(timestamp);
+        }
+        collector.emit(0, ("t" + n).toCharArray(), timestamp);
+        emitted = n + 1;
+    }
+}
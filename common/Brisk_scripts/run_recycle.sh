@@ -0,0 +1,27 @@
+#!/bin/bash
+# GC allocation comparison of batch recycling (--recycle) on WordCount and LinearRoad.
+JAR_PATH="$HOME/briskstream/BriskBenchmarks/target/BriskBenchmarks-1.2.0-jar-with-dependencies.jar"
+timestamp=$(date +%Y%m%d-%H%M)
+outputPath=$HOME/briskstream/recycle-$timestamp
+mkdir -p $outputPath
+
+gc_flag="-Xms50g -Xmx50g -XX:+UseParallelGC -XX:+PrintGCDetails -XX:+PrintGCApplicationStoppedTime"
+arg_benchmark="-st 1 -sit 1 -tt 20 --num_socket 1 --THz 500000 --runtime 100 --loop 100000 -bt 100 --native"
+
+for app in WordCount LinearRoad
+do
+	for mode in baseline recycle
+	do
+		if [ $mode == "recycle" ]; then
+			arg_recycle="--recycle"
+		else
+			arg_recycle=""
+		fi
+		echo "=============== $app $mode ==================="
+		java $gc_flag -Xloggc:$outputPath/gc\_$app\_$mode.log -jar $JAR_PATH $arg_benchmark $arg_recycle -mp $outputPath -a $app >> $outputPath/$app\_$mode.txt
+		cat $outputPath/$app\_$mode.txt | grep "finished measurement"
+		#total young collections and accumulated pause time.
+		echo "GC count: $(grep -c "GC (Allocation Failure)" $outputPath/gc\_$app\_$mode.log)"
+		echo "GC pause (s): $(grep -o "real=[0-9.]*" $outputPath/gc\_$app\_$mode.log | cut -d= -f2 | paste -sd+ | bc)"
+	done
+done
@@ -37,9 +37,27 @@ public abstract class abstractRunner {
     public boolean measure = false;
 
 
-    @Parameter(names = {"--checkpoint"}, description = "checkpoint interval")
+    @Parameter(names = {"--checkpoint"}, description = "s between two checkpoints started by each spout, with --Fault_tolerance")
     public double checkpoint = 1;// default checkpoint interval.
 
+    @Parameter(names = {"--async_checkpoint"}, description = "persist checkpoints on background writers, incrementally for keyed states")
+    public boolean async_checkpoint = false;
+
+    @Parameter(names = {"--checkpoint_compaction"}, description = "take a full checkpoint every n checkpoints, deltas in between")
+    public int checkpoint_compaction = 10;
+
+    @Parameter(names = {"--recover"}, description = "restore operators and rewind spouts from the latest complete checkpoint")
+    public boolean recover = false;
+
+    @Parameter(names = {"--clean_checkpoints"}, description = "delete the checkpoints of previous runs instead of archiving them, when not recovering")
+    public boolean clean_checkpoints = false;
+
+    @Parameter(names = {"--state_offheap"}, description = "keep primitive keyed state in direct (off-heap) buffers")
+    public boolean state_offheap = false;
+
+    @Parameter(names = {"--state_capacity"}, description = "expected number of keys per primitive keyed state map and executor")
+    public int state_capacity = 1024;
+
     @Parameter(names = {"--NUM_ACCESS"}, description = "NUM_ACCESS per transaction")
     public int NUM_ACCESS = 10;//
 
@@ -58,6 +76,15 @@ public abstract class abstractRunner {
     @Parameter(names = {"--linked"}, description = "linked")
     public boolean linked = false;
 
+    @Parameter(names = {"--recycle"}, description = "recycle drained batches from consumers back to producers")
+    public boolean recycle = false;
+
+    @Parameter(names = {"--columnar"}, description = "ship streams declared with a typed schema as primitive columns")
+    public boolean columnar = false;
+
+    @Parameter(names = {"--wait_strategy"}, description = "default channel wait strategy: spin, yield, park, block or sleep (override per operator with <operator id>.wait_strategy)")
+    public String wait_strategy = "spin";
+
     @Parameter(names = {"--shared"}, description = "shared by multi producers")
     public boolean shared = true;
 
@@ -81,6 +108,8 @@ public abstract class abstractRunner {
 
     @Parameter(names = {"--machine"}, description = "which machine to use? 0:NUS machine, 1: HPI machine, you may add more..")
     public int machine = 0;
+    @Parameter(names = {"--platform"}, description = "profile of this machine, overrides --machine: calibrated and saved to this file first if it does not exist")
+    public String platform = "";
 
     @Parameter(names = {"--plan"}, description = "benchmarking the corresponding plan")
     public int plan = 0;
@@ -105,6 +134,44 @@ public abstract class abstractRunner {
     public boolean manual = false;
     @Parameter(names = {"--DO"}, description = "dynamic optimization")
     public boolean DO = false;
+    @Parameter(names = {"--reopt_interval"}, description = "dynamic optimization: sampling and re-planning interval (ms)")
+    public int reopt_interval = 10000;
+    @Parameter(names = {"--reopt_threshold"}, description = "dynamic optimization: minimum predicted relative gain to migrate executors")
+    public double reopt_threshold = 0.1;
+    @Parameter(names = {"--key_groups"}, description = "route fields groupings by this many key groups, so that parallelism can change at runtime (0: hash modulo parallelism)")
+    public int key_groups = 0;
+    @Parameter(names = {"--elastic"}, description = "with --DO and --key_groups: start key-grouped operators with half of their executors and rescale them with the load")
+    public boolean elastic = false;
+    @Parameter(names = {"--skew"}, description = "skew-aware grouping: split hot keys over several executors and merge their partial results")
+    public boolean skew = false;
+    @Parameter(names = {"--skew_choices"}, description = "number of executors a hot key is split over with --skew")
+    public int skew_choices = 4;
+    @Parameter(names = {"--placement"}, description = "NUMA node of the initial pages of inter-executor queues and batches: local, producer, consumer, interleaved (round-robin across the queues of an edge) or plan (override per edge with <producer id>.<consumer id>.placement)")
+    public String placement = "local";
+    @Parameter(names = {"--latency_histograms"}, description = "per-executor histograms of the queue residence of batches, reported with the end-to-end latency")
+    public boolean latency_histograms = false;
+    @Parameter(names = {"--latency_report"}, description = "seconds between two reports of the latency histograms")
+    public int latency_report = 10;
+    @Parameter(names = {"--latency_sample"}, description = "the sinks record the end-to-end latency of one tuple out of every N (each record costs a System.nanoTime and a bucket update)")
+    public int latency_sample = 1;
+    @Parameter(names = {"--metrics"}, description = "runtime metrics of executors and edges, exported as JMX MBeans and to metrics.csv")
+    public boolean metrics = false;
+    @Parameter(names = {"--metrics_interval"}, description = "ms between two samples of the runtime metrics")
+    public int metrics_interval = 1000;
+    @Parameter(names = {"--metrics_rows"}, description = "samples per metrics.csv before it is rolled to metrics.1.csv")
+    public int metrics_rows = 3600;
+    @Parameter(names = {"--chain"}, description = "run the consumer of a 1:1 edge in the thread of its producer (per edge: producer.consumer.chain)")
+    public boolean chain = false;
+    @Parameter(names = {"--chain_auto"}, description = "keep a chained edge only if the model predicts it beats pipelining")
+    public boolean chain_auto = false;
+    @Parameter(names = {"--ordered"}, description = "consume the input of each bolt in BID order, merged across its producers (per operator: operator.ordered)")
+    public boolean ordered = false;
+    @Parameter(names = {"--shared_broadcast"}, description = "publish each broadcast batch once into a ring read by all consumers (per edge: producer.consumer.shared_broadcast)")
+    public boolean shared_broadcast = false;
+    @Parameter(names = {"--watermark_interval"}, description = "ms between two event time watermarks sent by the spouts, 0 for none")
+    public int watermark_interval = 0;
+    @Parameter(names = {"--watermark_lag"}, description = "ms the event time of the spout tuples may be out of order by")
+    public int watermark_lag = 0;
     @Parameter(names = {"--native"}, description = "native execution")
     public boolean NAV = false;
     @Parameter(names = {"--random"}, description = "random plan")
@@ -218,6 +285,12 @@ public abstract class abstractRunner {
 
     @Parameter(names = {"--compressRatio"}, description = "compressRatio")
     public int compressRatio = 1;
+    @Parameter(names = {"--parallel_bnb"}, description = "parallel branch and bound placement search")
+    public boolean parallel_bnb = false;
+    @Parameter(names = {"--bnb_threads"}, description = "workers of the parallel branch and bound, 0 for all cores")
+    public int bnb_threads = 0;
+    @Parameter(names = {"--bnb_compare"}, description = "run both the parallel and the sequential branch and bound, report their time and plan quality")
+    public boolean bnb_compare = false;
 
 
     /**
@@ -258,6 +331,9 @@ public abstract class abstractRunner {
         config.put("ratio_of_multi_partition", ratio_of_multi_partition);
         config.put("number_partitions", number_partitions);
         config.put("compressRatio", compressRatio);
+        config.put("parallel_bnb", parallel_bnb);
+        config.put("bnb_threads", bnb_threads);
+        config.put("bnb_compare", bnb_compare);
         config.put("parallelism", parallelism);
         config.put("load", load);
         config.put("toff", toff);
@@ -265,6 +341,7 @@ public abstract class abstractRunner {
         config.put("microbenchmark", microbenchmark);
         config.put("percentile", percentile);
         config.put("machine", machine);
+        config.put("platform", platform);
         config.put("random", random);
         config.put("parallelism_tune", parallelism_tune);
         config.put("input", input);
@@ -303,6 +380,12 @@ public abstract class abstractRunner {
 
         config.put("measure", measure);
         config.put("checkpoint", checkpoint);
+        config.put("async_checkpoint", async_checkpoint);
+        config.put("checkpoint_compaction", checkpoint_compaction);
+        config.put("recover", recover);
+        config.put("clean_checkpoints", clean_checkpoints);
+        config.put("state_offheap", state_offheap);
+        config.put("state_capacity", state_capacity);
         config.put("TP", TP);
         config.put("NUM_ACCESS", NUM_ACCESS);
         config.put("NUM_ITEMS", NUM_ITEMS);
@@ -310,6 +393,9 @@ public abstract class abstractRunner {
         config.put("backPressure", backPressure);
         config.put("common", common);
         config.put("linked", linked);
+        config.put("recycle", recycle);
+        config.put("wait_strategy", wait_strategy);
+        config.put("columnar", columnar);
         config.put("shared", shared);
         config.put("scale_factor", scale_factor);
         config.put("ratio_of_read", ratio_of_read);
@@ -317,6 +403,25 @@ public abstract class abstractRunner {
         config.put("relax", relax);
         config.put("monte", monte);
         config.put("DO", DO);
+        config.put("reopt_interval", reopt_interval);
+        config.put("reopt_threshold", reopt_threshold);
+        config.put("key_groups", key_groups);
+        config.put("elastic", elastic);
+        config.put("skew", skew);
+        config.put("skew_choices", skew_choices);
+        config.put("placement", placement);
+        config.put("latency_histograms", latency_histograms);
+        config.put("latency_report", latency_report);
+        config.put("latency_sample", latency_sample);
+        config.put("metrics", metrics);
+        config.put("metrics_interval", metrics_interval);
+        config.put("metrics_rows", metrics_rows);
+        config.put("chain", chain);
+        config.put("chain_auto", chain_auto);
+        config.put("ordered", ordered);
+        config.put("shared_broadcast", shared_broadcast);
+        config.put("watermark_interval", watermark_interval);
+        config.put("watermark_lag", watermark_lag);
         config.put("NAV", NAV);
         config.put("routing", routing);
         config.put("simulation", simulation);
@@ -66,6 +66,7 @@ public interface BaseConstants {
 
         String GEOIP_INSTANCE = "geoip.instance";
         String GEOIP2_DB = "geoip2.db";
+        String GEOIP_CACHE_SIZE = "geoip.cache.size";
 
         String GENERATOR_COUNT = "%s.generator.count";
         String State_Size = "%s.Brisk.execution.runtime.tuple.fieldSize";
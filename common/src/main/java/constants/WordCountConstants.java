@@ -13,6 +13,7 @@ public interface WordCountConstants extends BaseConstants {
     interface Conf extends BaseConf {
         String SPLITTER_THREADS = "wc.splitter.threads";
         String COUNTER_THREADS = "wc.counter.threads";
+        String AGG_THREADS = "wc.aggregator.threads";
     }
 
     interface Component extends BaseComponent {
@@ -0,0 +1,171 @@
+package helper.parser;
+
+/**
+ * Parse primitives straight from a range of a char[], without the String that Integer.parseInt and co. need.
+ * Malformed input throws a {@link NumberFormatException}, as they do.
+ */
+public final class CharNumbers {
+    private static final int MAX_EXACT_DIGITS = 15;//any integer of 15 digits is exact in a double.
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private CharNumbers() {
+    }
+
+    /**
+     * @param s
+     * @param from inclusive.
+     * @param to   exclusive.
+     * @return
+     */
+    public static long parseLong(char[] s, int from, int to) {
+        if (from >= to) {
+            throw error(s, from, to);
+        }
+        boolean negative = false;
+        int i = from;
+        if (s[i] == '-' || s[i] == '+') {
+            negative = s[i] == '-';
+            if (++i == to) {
+                throw error(s, from, to);
+            }
+        }
+        //accumulated negatively, as Long.parseLong does, so that Long.MIN_VALUE fits.
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multmin = limit / 10;
+        long result = 0;
+        for (; i < to; i++) {
+            final int digit = s[i] - '0';
+            if (digit < 0 || digit > 9) {
+                if (s[i] > 0x7f) {
+                    return Long.parseLong(new String(s, from, to - from));//digits of other scripts, which it accepts.
+                }
+                throw error(s, from, to);
+            }
+            if (result < multmin) {
+                throw error(s, from, to);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw error(s, from, to);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    public static int parseInt(char[] s, int from, int to) {
+        final long value = parseLong(s, from, to);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error(s, from, to);
+        }
+        return (int) value;
+    }
+
+    public static short parseShort(char[] s, int from, int to) {
+        final long value = parseLong(s, from, to);
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw error(s, from, to);
+        }
+        return (short) value;
+    }
+
+    /**
+     * Decimal and scientific notations. A value of up to 15 significant digits and a decimal exponent of up to 22 is
+     * computed exactly with one multiplication or division; anything else falls back to Double.parseDouble.
+     *
+     * @param s
+     * @param from inclusive.
+     * @param to   exclusive.
+     * @return the closest double, as Double.parseDouble.
+     */
+    public static double parseDouble(char[] s, int from, int to) {
+        if (from >= to) {
+            throw error(s, from, to);
+        }
+        int i = from;
+        boolean negative = false;
+        if (s[i] == '-' || s[i] == '+') {
+            negative = s[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;//significant digits in the mantissa.
+        int exponent = 0;
+        boolean seen = false;//any digit.
+        boolean point = false;
+        for (; i < to; i++) {
+            final char c = s[i];
+            if (c >= '0' && c <= '9') {
+                seen = true;
+                if (mantissa == 0 && c == '0') {
+                    if (point) {
+                        exponent--;
+                    }
+                    continue;//leading zero.
+                }
+                if (++digits > MAX_EXACT_DIGITS) {
+                    return fallback(s, from, to);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (point) {
+                    exponent--;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!seen) {
+            return fallback(s, from, to);//NaN, Infinity, or malformed.
+        }
+        if (i < to) {
+            if (s[i] != 'e' && s[i] != 'E' || i + 1 == to) {
+                return fallback(s, from, to);//type suffix, or malformed.
+            }
+            final long e;
+            try {
+                e = parseLong(s, i + 1, to);
+            } catch (NumberFormatException ex) {
+                return fallback(s, from, to);//type suffix, or malformed.
+            }
+            if (e < -POWERS_OF_TEN.length || e > POWERS_OF_TEN.length) {
+                return fallback(s, from, to);
+            }
+            exponent += (int) e;
+        }
+        final double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent == 0) {
+            value = mantissa;
+        } else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return fallback(s, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return true for "true" in any case, false otherwise, as Boolean.parseBoolean.
+     */
+    public static boolean parseBoolean(char[] s, int from, int to) {
+        return to - from == 4
+                && (s[from] | 0x20) == 't' && (s[from + 1] | 0x20) == 'r'
+                && (s[from + 2] | 0x20) == 'u' && (s[from + 3] | 0x20) == 'e';
+    }
+
+    private static double fallback(char[] s, int from, int to) {
+        return Double.parseDouble(new String(s, from, to - from));
+    }
+
+    private static NumberFormatException error(char[] s, int from, int to) {
+        return new NumberFormatException("For input string: \"" + new String(s, from, to - from) + "\"");
+    }
+}
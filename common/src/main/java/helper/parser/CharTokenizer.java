@@ -0,0 +1,259 @@
+package helper.parser;
+
+import java.io.Serializable;
+import java.util.NoSuchElementException;
+
+/**
+ * A cursor over the delimited tokens of a char[] line, reused from one line to the next.
+ * A token is only a range of the line: it is not copied unless asked for, and numbers are parsed from it in place.
+ * Not thread safe, each parser owns its tokenizer.
+ */
+public final class CharTokenizer implements Serializable {
+    private static final long serialVersionUID = 1949342251761304683L;
+    private final char delimiter;
+    private final boolean collapse;//consecutive delimiters as one, and no empty token, as split("\\s+").
+    private transient char[] line;
+    private int position;//start of the next token, limit + 1 once the line is done.
+    private int limit;
+    private int start;//of the current token.
+    private int end;
+
+    public CharTokenizer(char delimiter) {
+        this(delimiter, false);
+    }
+
+    /**
+     * @param delimiter
+     * @param collapse  if a run of delimiters separates two tokens, rather than empty tokens.
+     */
+    public CharTokenizer(char delimiter, boolean collapse) {
+        this.delimiter = delimiter;
+        this.collapse = collapse;
+    }
+
+    public CharTokenizer reset(char[] line) {
+        return reset(line, 0, line.length);
+    }
+
+    /**
+     * @param line
+     * @param from inclusive.
+     * @param to   exclusive.
+     * @return this.
+     */
+    public CharTokenizer reset(char[] line, int from, int to) {
+        this.line = line;
+        this.position = from;
+        this.limit = to;
+        this.start = from;
+        this.end = from;
+        return this;
+    }
+
+    /**
+     * Advance to the next token.
+     *
+     * @return false if there is none left.
+     */
+    public boolean next() {
+        int p = position;
+        if (collapse) {
+            while (p < limit && line[p] == delimiter) {
+                p++;
+            }
+            if (p >= limit) {
+                position = limit + 1;
+                return false;
+            }
+        } else if (p > limit) {
+            return false;
+        }
+        int e = p;
+        while (e < limit && line[e] != delimiter) {
+            e++;
+        }
+        start = p;
+        end = e;
+        position = e + 1;
+        return true;
+    }
+
+    /**
+     * Advance to the next token enclosed by open and close, such as a quoted string, which may contain the delimiter.
+     * The token is what lies between them, a delimiter right after close is skipped.
+     *
+     * @return false if there is no token left, it does not start with open, or close is missing. Nothing is consumed then.
+     */
+    public boolean nextEnclosed(char open, char close) {
+        int p = position;
+        if (collapse) {
+            while (p < limit && line[p] == delimiter) {
+                p++;
+            }
+        }
+        if (p >= limit || line[p] != open) {
+            return false;
+        }
+        int e = p + 1;
+        while (e < limit && line[e] != close) {
+            e++;
+        }
+        if (e >= limit) {
+            return false;
+        }
+        start = p + 1;
+        end = e;
+        position = e + 1;
+        if (position == limit) {
+            position = limit + 1;
+        } else if (line[position] == delimiter) {
+            position++;
+        }
+        return true;
+    }
+
+    /**
+     * Skip tokens.
+     *
+     * @param tokens
+     * @throws NoSuchElementException if the line has fewer tokens left.
+     */
+    public void skip(int tokens) {
+        for (int i = 0; i < tokens; i++) {
+            require();
+        }
+    }
+
+    private void require() {
+        if (!next()) {
+            throw new NoSuchElementException("No token left in: " + new String(line));
+        }
+    }
+
+    /**
+     * Trim the spaces around the current token.
+     *
+     * @return this.
+     */
+    public CharTokenizer trim() {
+        while (start < end && line[start] == ' ') {
+            start++;
+        }
+        while (end > start && line[end - 1] == ' ') {
+            end--;
+        }
+        return this;
+    }
+
+    public char[] line() {
+        return line;
+    }
+
+    /**
+     * @return index of the current token in the line.
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return index after the current token in the line.
+     */
+    public int end() {
+        return end;
+    }
+
+    public int length() {
+        return end - start;
+    }
+
+    /**
+     * @return if the current token is this text.
+     */
+    public boolean is(String text) {
+        if (text.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (line[i] != text.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public short getShort() {
+        return CharNumbers.parseShort(line, start, end);
+    }
+
+    public int getInt() {
+        return CharNumbers.parseInt(line, start, end);
+    }
+
+    public long getLong() {
+        return CharNumbers.parseLong(line, start, end);
+    }
+
+    public double getDouble() {
+        return CharNumbers.parseDouble(line, start, end);
+    }
+
+    public boolean getBoolean() {
+        return CharNumbers.parseBoolean(line, start, end);
+    }
+
+    /**
+     * @return a copy of the current token.
+     */
+    public char[] getChars() {
+        final char[] token = new char[end - start];
+        System.arraycopy(line, start, token, 0, token.length);
+        return token;
+    }
+
+    public String getString() {
+        return new String(line, start, end - start);
+    }
+
+    public short nextShort() {
+        require();
+        return getShort();
+    }
+
+    public int nextInt() {
+        require();
+        return getInt();
+    }
+
+    public long nextLong() {
+        require();
+        return getLong();
+    }
+
+    public double nextDouble() {
+        require();
+        return getDouble();
+    }
+
+    public char[] nextChars() {
+        require();
+        return getChars();
+    }
+
+    public String nextString() {
+        require();
+        return getString();
+    }
+
+    /**
+     * @return a copy of the rest of the line after the current token, delimiters included, as split(delimiter, n) does
+     * for its last token.
+     */
+    public char[] rest() {
+        final int from = Math.min(position, limit);
+        final char[] rest = new char[limit - from];
+        System.arraycopy(line, from, rest, 0, rest.length);
+        position = limit + 1;
+        return rest;
+    }
+}
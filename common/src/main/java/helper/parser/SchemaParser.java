@@ -0,0 +1,210 @@
+package helper.parser;
+
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.datatypes.StreamValues;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Parse delimited char[] lines into typed fields, as declared by a schema of one {@link Type} per column.
+ * {@link #parse(char[], Row)} fills a reused {@link Row} of primitives and does not allocate;
+ * {@link #parse(char[])} returns the fields boxed, as the other parsers do.
+ * Columns after the last declared one are ignored.
+ */
+public class SchemaParser extends Parser<Object[]> {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaParser.class);
+    private static final long serialVersionUID = -3317810586044419735L;
+    private final Type[] types;//by column.
+    private final int width;//output fields, the columns not skipped.
+    private final CharTokenizer tokenizer;
+    private final Row row;//reused by parse(char[]).
+
+    /**
+     * @param delimiter
+     * @param collapse  if a run of delimiters separates two columns, as for whitespace.
+     * @param types     of the columns in order.
+     */
+    public SchemaParser(char delimiter, boolean collapse, Type... types) {
+        this.types = types;
+        int width = 0;
+        for (Type type : types) {
+            if (type != Type.SKIP) {
+                width++;
+            }
+        }
+        this.width = width;
+        this.tokenizer = new CharTokenizer(delimiter, collapse);
+        this.row = newRow();
+    }
+
+    /**
+     * @return a row to parse into, each consumer of rows needs its own.
+     */
+    public Row newRow() {
+        return new Row(width);
+    }
+
+    /**
+     * @param line
+     * @param row  filled with the output fields, valid until the next parse into it.
+     * @return false if the line is malformed, the row is then partially filled.
+     */
+    public boolean parse(char[] line, Row row) {
+        tokenizer.reset(line);
+        row.line = line;
+        int field = 0;
+        try {
+            for (Type type : types) {
+                if (!tokenizer.next()) {
+                    return false;
+                }
+                switch (type) {
+                    case SKIP:
+                        continue;
+                    case SHORT:
+                        row.longs[field] = tokenizer.getShort();
+                        break;
+                    case INT:
+                        row.longs[field] = tokenizer.getInt();
+                        break;
+                    case LONG:
+                        row.longs[field] = tokenizer.getLong();
+                        break;
+                    case DOUBLE:
+                        row.doubles[field] = tokenizer.getDouble();
+                        break;
+                    default:
+                        break;
+                }
+                row.starts[field] = tokenizer.start();
+                row.ends[field] = tokenizer.end();
+                field++;
+            }
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Object[] parse(char[] line) {
+        if (!parse(line, row)) {
+            LOG.warn("Unable to parse: {}", new String(line));
+            return null;
+        }
+        final Object[] values = new Object[width];
+        int field = 0;
+        for (Type type : types) {
+            switch (type) {
+                case SKIP:
+                    continue;
+                case SHORT:
+                    values[field] = row.getShort(field);
+                    break;
+                case INT:
+                    values[field] = row.getInt(field);
+                    break;
+                case LONG:
+                    values[field] = row.getLong(field);
+                    break;
+                case DOUBLE:
+                    values[field] = row.getDouble(field);
+                    break;
+                case CHARS:
+                    values[field] = row.getChars(field);
+                    break;
+                case STRING:
+                    values[field] = row.getString(field);
+                    break;
+            }
+            field++;
+        }
+        return values;
+    }
+
+    @Override
+    public List<StreamValues> parse(String value) {
+        final Object[] values = parse(value.toCharArray());
+        return values == null ? null : ImmutableList.of(new StreamValues(values));
+    }
+
+    public enum Type {
+        SHORT, INT, LONG, DOUBLE,
+        /**
+         * A copy of the column.
+         */
+        CHARS,
+        STRING,
+        /**
+         * Not an output field.
+         */
+        SKIP
+    }
+
+    /**
+     * The output fields of a line, by index among the fields not skipped. Numbers are kept as primitives, text as
+     * ranges of the line.
+     */
+    public static final class Row implements Serializable {
+        private static final long serialVersionUID = 6281904433157061290L;
+        private final long[] longs;
+        private final double[] doubles;
+        private final int[] starts;
+        private final int[] ends;
+        private char[] line;
+
+        private Row(int width) {
+            longs = new long[width];
+            doubles = new double[width];
+            starts = new int[width];
+            ends = new int[width];
+        }
+
+        public short getShort(int field) {
+            return (short) longs[field];
+        }
+
+        public int getInt(int field) {
+            return (int) longs[field];
+        }
+
+        public long getLong(int field) {
+            return longs[field];
+        }
+
+        public double getDouble(int field) {
+            return doubles[field];
+        }
+
+        /**
+         * @return the line the field is a range of, see {@link #start(int)} and {@link #end(int)}.
+         */
+        public char[] line() {
+            return line;
+        }
+
+        public int start(int field) {
+            return starts[field];
+        }
+
+        public int end(int field) {
+            return ends[field];
+        }
+
+        /**
+         * @return a copy of the field.
+         */
+        public char[] getChars(int field) {
+            final char[] chars = new char[ends[field] - starts[field]];
+            System.arraycopy(line, starts[field], chars, 0, chars.length);
+            return chars;
+        }
+
+        public String getString(int field) {
+            return new String(line, starts[field], ends[field] - starts[field]);
+        }
+    }
+}
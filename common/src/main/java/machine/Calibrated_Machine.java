@@ -0,0 +1,60 @@
+package machine;
+
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+/**
+ * Profile of the machine we run on, discovered and measured by {@link Calibration} instead of hard-coded.
+ */
+public class Calibrated_Machine extends Platform {
+    private static final long serialVersionUID = -3185741253960880137L;
+    /**
+     * CPUs of each socket, one per physical core first, then their SMT siblings.
+     */
+    ArrayList[] nodes;
+    int[] node_ids;//NUMA node of each socket: memory-only nodes have no socket, so the two may differ.
+    int threads_per_core;
+    final TreeMap<Integer, Long> caches = new TreeMap<>();//level, size of its data cache in bytes.
+
+    @Override
+    public ArrayList[] nodes(int machine) {
+        return nodes;
+    }
+
+    @Override
+    public int node(int socket) {
+        return node_ids == null ? socket : node_ids[socket];//profiles saved before node ids were kept.
+    }
+
+    public long cache_size(int level) {
+        return caches.getOrDefault(level, 0L);
+    }
+
+    public int getThreads_per_core() {
+        return threads_per_core;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("sockets:").append(num_socket).append(" cores:").append(num_cores)
+                .append(" threads per core:").append(threads_per_core)
+                .append(" clock:").append(CLOCK_RATE).append("GHz caches:").append(caches)
+                .append(" latency L2:").append(latency_L2).append("ns LLC:").append(latency_LLC)
+                .append("ns memory:").append(latency_LOCAL_MEM).append("ns");
+        for (int i = 0; i < num_socket; i++) {
+            sb.append("\n").append(i).append(" node:").append(node(i)).append(" cpus:").append(nodes[i]);
+        }
+        for (int i = 0; i < num_socket; i++) {
+            sb.append("\n").append(i).append(" bandwidth(MB/s):");
+            for (int j = 0; j < num_socket; j++) {
+                sb.append(String.format(" %.1f", bandwidth_map[i][j]));
+            }
+            sb.append(" latency(ns):");
+            for (int j = 0; j < num_socket; j++) {
+                sb.append(String.format(" %.1f", latency_map[i][j]));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,428 @@
+package machine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.OsUtils;
+import util.STREAM;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static xerial.jnuma.Numa.*;
+
+/**
+ * Builds the {@link Platform} profile of the machine we run on, so that the optimizer does not depend on the
+ * constants of HP_Machine, HUAWEI_Machine or RTM_Machine.
+ * <p>
+ * Sockets, cores, SMT siblings, caches and clock rate are discovered from /sys/devices/system.
+ * Latencies are measured by chasing a random cycle of cache lines, larger than the LLC for memory, from a thread on
+ * one socket through memory on another; bandwidths by running the STREAM Triad kernel from all cores of one socket
+ * on memory of another. A calibration takes a while, so the profile is persisted and reused.
+ * <p>
+ * Run standalone with: java machine.Calibration &lt;profile file&gt;
+ */
+public final class Calibration {
+    private static final Logger LOG = LoggerFactory.getLogger(Calibration.class);
+    private static final String SYS_NODE = "/sys/devices/system/node/";
+    private static final String SYS_CPU = "/sys/devices/system/cpu/";
+    private static final long CHASE_BYTES = 256L << 20;//well beyond any LLC.
+    private static final int CHASE_STEPS = 1 << 24;
+    private static final int STREAM_DOUBLES = 2 << 20;//16MB per array and thread.
+    private static final int STREAM_TIMES = 5;
+    private static final long START_TIMEOUT = 60;//s the Triad threads wait for each other, in case one of them fails.
+    private static volatile int sink;//keeps the chase from being optimized away.
+
+    private Calibration() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        final String path = args.length > 0 ? args[0] : "platform.profile";
+        final Calibrated_Machine p = calibrate();
+        save(p, path);
+        System.out.println(p);
+    }
+
+    /**
+     * @param path    profile file.
+     * @param sockets configured number of sockets.
+     * @return the profile stored in path, calibrated and stored first if there is none, restricted to sockets.
+     * @throws IOException
+     */
+    public static Platform profile(String path, int sockets) throws IOException {
+        final Platform p;
+        if (new File(path).exists()) {
+            p = load(path);
+            LOG.info("Platform profile loaded from " + path + "\n" + p);
+        } else {
+            LOG.info("No platform profile at " + path + ", calibrating the machine..");
+            p = calibrate();
+            save(p, path);
+            LOG.info("Platform profile saved to " + path + "\n" + p);
+        }
+        restrict(p, sockets);
+        return p;
+    }
+
+    /**
+     * Use no more sockets than configured, nor than detected: the profile keeps all it detected, so that it can be
+     * reused with another configuration.
+     *
+     * @param sockets configured number of sockets, ignored if not positive.
+     */
+    static void restrict(Platform p, int sockets) {
+        if (sockets > 0 && sockets < p.num_socket) {
+            p.num_cores = (int) Math.round(p.num_cores * sockets / (double) p.num_socket);
+            p.num_socket = sockets;
+            LOG.info("Platform restricted to the " + sockets + " configured sockets, " + p.num_cores + " cores.");
+        }
+    }
+
+    public static Platform load(String path) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            return (Platform) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Not a platform profile: " + path, e);
+        }
+    }
+
+    public static void save(Platform p, String path) throws IOException {
+        final File file = new File(path);
+        if (file.getParentFile() != null && !file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Can not create " + file.getParent());
+        }
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(p);
+        }
+    }
+
+    public static Calibrated_Machine calibrate() {
+        final Calibrated_Machine p = new Calibrated_Machine();
+        discover(p);
+        measure(p);
+        return p;
+    }
+
+    /**
+     * Topology, caches and clock rate from sysfs, or a single socket of all processors if there is none.
+     *
+     * @param p
+     */
+    static void discover(Calibrated_Machine p) {
+        final ArrayList<ArrayList<Integer>> sockets = new ArrayList<>();
+        final ArrayList<Integer> ids = new ArrayList<>();
+        final File[] dirs = new File(SYS_NODE).listFiles((dir, name) -> name.matches("node\\d+"));
+        if (dirs != null && dirs.length > 0) {
+            Arrays.sort(dirs, Comparator.comparingInt(f -> Integer.parseInt(f.getName().substring(4))));
+            for (File dir : dirs) {
+                final ArrayList<Integer> cpus = cpulist(read(p, dir.getPath() + "/cpulist"));
+                if (!cpus.isEmpty()) {//memory-only nodes have no CPU.
+                    sockets.add(cpus);
+                    ids.add(Integer.parseInt(dir.getName().substring(4)));
+                }
+            }
+        }
+        if (sockets.isEmpty()) {
+            final ArrayList<Integer> cpus = new ArrayList<>();
+            for (int c = 0; c < Runtime.getRuntime().availableProcessors(); c++) {
+                cpus.add(c);
+            }
+            sockets.add(cpus);
+            ids.add(0);
+        }
+        p.num_socket = sockets.size();
+        p.node_ids = new int[p.num_socket];
+        for (int s = 0; s < p.num_socket; s++) {
+            p.node_ids[s] = ids.get(s);
+        }
+        p.nodes = new ArrayList[p.num_socket];
+        int cores = 0;
+        int threads = 1;
+        for (int s = 0; s < p.num_socket; s++) {
+            final ArrayList<Integer> first = new ArrayList<>();//one CPU per physical core.
+            final ArrayList<Integer> siblings = new ArrayList<>();
+            for (int cpu : sockets.get(s)) {
+                final ArrayList<Integer> smt = cpulist(read(p, SYS_CPU + "cpu" + cpu + "/topology/thread_siblings_list"));
+                threads = Math.max(threads, smt.size());
+                if (smt.isEmpty() || Collections.min(smt) == cpu) {
+                    first.add(cpu);
+                } else {
+                    siblings.add(cpu);
+                }
+            }
+            cores += first.size();
+            first.addAll(siblings);
+            p.nodes[s] = first;
+        }
+        p.num_cores = cores;
+        p.threads_per_core = threads;
+        p.CoresPerSocket = cores / (double) p.num_socket;
+
+        final File[] indexes = new File(SYS_CPU + "cpu0/cache").listFiles((dir, name) -> name.startsWith("index"));
+        p.cache_line = 64.0;
+        if (indexes != null) {
+            for (File index : indexes) {
+                if (read(p, index.getPath() + "/type").equals("Instruction")) {
+                    continue;
+                }
+                final String level = read(p, index.getPath() + "/level");
+                final String size = read(p, index.getPath() + "/size");
+                if (!level.isEmpty() && !size.isEmpty()) {
+                    p.caches.put(Integer.parseInt(level), bytes(size));
+                }
+                final String line = read(p, index.getPath() + "/coherency_line_size");
+                if (!line.isEmpty()) {
+                    p.cache_line = Double.parseDouble(line);
+                }
+            }
+        }
+
+        final String khz = read(p, SYS_CPU + "cpu0/cpufreq/cpuinfo_max_freq");
+        if (!khz.isEmpty()) {
+            p.CLOCK_RATE = Long.parseLong(khz) / 1E6;
+        } else {
+            p.CLOCK_RATE = cpuinfo_ghz();
+        }
+    }
+
+    /**
+     * Latency and bandwidth of each pair of sockets, and cache latencies on socket 0.
+     *
+     * @param p
+     */
+    static void measure(Calibrated_Machine p) {
+        final int n = p.num_socket;
+        p.latency_map = new double[n][n];
+        p.bandwidth_map = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                final int from = i;
+                final int to = j;
+                p.latency_map[i][j] = on(p.node(from), () -> chase(CHASE_BYTES, p.node(to), n));
+                p.bandwidth_map[i][j] = triad(p.node(from), p.node(to), n, p.nodes[i].size() / p.threads_per_core);
+                LOG.info("socket " + i + " -> memory of " + j + ": " + String.format("%.1f", p.latency_map[i][j]) + "ns, "
+                        + String.format("%.1f", p.bandwidth_map[i][j]) + "MB/s");
+            }
+        }
+        double local = 0;
+        for (int i = 0; i < n; i++) {
+            local += p.latency_map[i][i];
+        }
+        p.latency_LOCAL_MEM = local / n;
+        final long l2 = p.cache_size(2);
+        final long llc = p.caches.isEmpty() ? 0 : p.caches.lastEntry().getValue();
+        final int node = p.node(0);
+        p.latency_L2 = l2 > 0 ? on(node, () -> chase(l2 / 2, node, n)) : p.latency_L2;
+        p.latency_LLC = llc > 0 ? on(node, () -> chase(llc / 2, node, n)) : p.latency_LLC;
+    }
+
+    private interface Measure {
+        double run();
+    }
+
+    /**
+     * Run the measure in a fresh thread bound to the NUMA node, so that the caller keeps its binding.
+     */
+    private static double on(int node, Measure measure) {
+        final double[] result = new double[1];
+        final Thread thread = new Thread(() -> {
+            bind(node);
+            result[0] = measure.run();
+        }, "calibration");
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result[0];
+    }
+
+    private static boolean numa(int sockets) {
+        return sockets > 1 && OsUtils.isUnix() && numNodes() > 1;
+    }
+
+    private static void bind(int node) {
+        if (OsUtils.isUnix() && numNodes() > 1) {
+            runOnNode(node);
+        }
+    }
+
+    private static ByteBuffer allocate(int bytes, int node, int sockets) {
+        final ByteBuffer buffer = numa(sockets) ? allocOnNode(bytes, node) : ByteBuffer.allocateDirect(bytes);
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    private static void release(ByteBuffer buffer, int sockets) {
+        if (numa(sockets)) {
+            free(buffer);
+        }
+    }
+
+    /**
+     * @return ns per dependent load over a random cycle of the cache lines of bytes of memory on the NUMA node.
+     */
+    static double chase(long bytes, int node, int sockets) {
+        final int line = 64;
+        final int lines = (int) Math.max(2, Math.min(bytes, Integer.MAX_VALUE) / line);
+        final ByteBuffer buffer = allocate(lines * line, node, sockets);
+        try {
+            final int[] cycle = new int[lines];
+            for (int i = 0; i < lines; i++) {
+                cycle[i] = i;
+            }
+            final Random random = new Random(lines);
+            for (int i = lines - 1; i > 0; i--) {//Sattolo: a single cycle through all lines.
+                final int j = random.nextInt(i);
+                final int t = cycle[i];
+                cycle[i] = cycle[j];
+                cycle[j] = t;
+            }
+            for (int i = 0; i < lines; i++) {
+                buffer.putInt(i * line, cycle[i] * line);
+            }
+            int pointer = 0;
+            for (int s = 0; s < lines; s++) {//warm up the TLB and caches.
+                pointer = buffer.getInt(pointer);
+            }
+            final long start = System.nanoTime();
+            for (int s = 0; s < CHASE_STEPS; s++) {
+                pointer = buffer.getInt(pointer);
+            }
+            final long elapsed = System.nanoTime() - start;
+            sink = pointer;
+            return elapsed / (double) CHASE_STEPS;
+        } finally {
+            release(buffer, sockets);
+        }
+    }
+
+    /**
+     * @return MB/s of the Triad kernel run by threads on NUMA node from, over arrays on NUMA node to.
+     */
+    static double triad(int from, int to, int sockets, int threads) {
+        threads = Math.max(1, threads);
+        final double[] bandwidth = new double[threads];
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(() -> {
+                final ByteBuffer[] arrays = new ByteBuffer[3];
+                try {
+                    bind(from);
+                    for (int i = 0; i < arrays.length; i++) {
+                        arrays[i] = allocate(STREAM_DOUBLES * 8, to, sockets);
+                    }
+                    final DoubleBuffer da = arrays[0].asDoubleBuffer();
+                    final DoubleBuffer db = arrays[1].asDoubleBuffer();
+                    final DoubleBuffer dc = arrays[2].asDoubleBuffer();
+                    for (int i = 0; i < STREAM_DOUBLES; i++) {
+                        da.put(i, 1.0);
+                        db.put(i, 2.0);
+                        dc.put(i, 0.0);
+                    }
+                    barrier.await(START_TIMEOUT, TimeUnit.SECONDS);
+                    bandwidth[id] = STREAM.triad(da, db, dc, STREAM_TIMES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (BrokenBarrierException | TimeoutException e) {
+                    LOG.warn("Triad from node " + from + " to " + to + " did not start on all threads, its bandwidth is underestimated.");
+                } finally {
+                    barrier.reset();//if this thread failed before the barrier, the others stop waiting for it.
+                    for (ByteBuffer array : arrays) {
+                        if (array != null) {
+                            release(array, sockets);
+                        }
+                    }
+                }
+            }, "calibration-" + t);
+            workers[t].start();
+        }
+        double sum = 0;
+        for (int t = 0; t < threads; t++) {
+            try {
+                workers[t].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sum += bandwidth[t];
+        }
+        return sum;
+    }
+
+    /**
+     * Read a sysfs attribute through the cache of the platform.
+     *
+     * @return its trimmed content, empty if it does not exist.
+     */
+    private static String read(Platform p, String path) {
+        if (!p.cachedInformation.isEmpty(path)) {
+            return p.cachedInformation.Info(path);
+        }
+        String value;
+        try {
+            value = new String(Files.readAllBytes(Paths.get(path))).trim();
+        } catch (IOException e) {
+            value = "";
+        }
+        p.cachedInformation.updateInfo(path, value);
+        return value;
+    }
+
+    /**
+     * @param list e.g. "0-17,144-161".
+     */
+    static ArrayList<Integer> cpulist(String list) {
+        final ArrayList<Integer> cpus = new ArrayList<>();
+        if (list.isEmpty()) {
+            return cpus;
+        }
+        for (String range : list.split(",")) {
+            final String[] bounds = range.trim().split("-");
+            final int first = Integer.parseInt(bounds[0]);
+            final int last = bounds.length > 1 ? Integer.parseInt(bounds[1]) : first;
+            for (int c = first; c <= last; c++) {
+                cpus.add(c);
+            }
+        }
+        return cpus;
+    }
+
+    /**
+     * @param size e.g. "32K", "25600K" or "1M".
+     */
+    static long bytes(String size) {
+        final char unit = Character.toUpperCase(size.charAt(size.length() - 1));
+        switch (unit) {
+            case 'K':
+                return Long.parseLong(size.substring(0, size.length() - 1)) << 10;
+            case 'M':
+                return Long.parseLong(size.substring(0, size.length() - 1)) << 20;
+            case 'G':
+                return Long.parseLong(size.substring(0, size.length() - 1)) << 30;
+            default:
+                return Long.parseLong(size);
+        }
+    }
+
+    private static double cpuinfo_ghz() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/cpuinfo"))) {
+                if (line.startsWith("cpu MHz")) {
+                    return Double.parseDouble(line.substring(line.indexOf(':') + 1).trim()) / 1E3;
+                }
+            }
+        } catch (IOException | NumberFormatException ignored) {
+        }
+        return 2.0;
+    }
+}
@@ -34,6 +34,22 @@ public class Platform implements Serializable {
     double CoresPerSocket = numCPUs() / (numNodes() > 2 ? numNodes() : 1);//8 cores per socket
 
 
+    /**
+     * @param machine
+     * @return CPUs of each socket of this platform, those of the given machine unless it was calibrated.
+     */
+    public ArrayList[] nodes(int machine) {
+        return getNodes(machine);
+    }
+
+    /**
+     * @param socket index of the socket in {@link #nodes(int)}.
+     * @return id of its NUMA node, as taken by runOnNode and allocOnNode.
+     */
+    public int node(int socket) {
+        return socket;
+    }
+
     /**
      * @param machine
      * @return
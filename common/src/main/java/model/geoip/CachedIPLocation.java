@@ -0,0 +1,138 @@
+package model.geoip;
+
+/**
+ * Bounded, per-executor cache of resolved locations in front of a shared {@link GeoIP2Location}.
+ * Real access logs are heavy-tailed, so most lookups hit a small set of addresses.
+ * <p>
+ * Entries are keyed by the 32-bit IPv4 address and kept in 8-way sets, each evicting with CLOCK
+ * (a referenced entry gets a second chance), so there is no allocation on a hit and no global structure to maintain.
+ * The same cached Location is returned on every hit, so it is a read-only copy: its setters throw.
+ * Not thread-safe: give each executor its own instance, only the hit and miss counts may be read by another thread.
+ */
+public class CachedIPLocation implements IPLocation {
+    private static final int WAYS = 8;
+    private static final Location UNKNOWN = new Frozen(new Location());//cached miss of the database.
+    private final GeoIP2Location resolver;
+    private final int mask;
+    private final int[] keys;
+    private final Location[] values;
+    private final boolean[] referenced;
+    private final byte[] hands;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param resolver
+     * @param capacity number of cached addresses, rounded up to a power of two (at least one set).
+     */
+    public CachedIPLocation(GeoIP2Location resolver, int capacity) {
+        this.resolver = resolver;
+        int sets = 1;
+        while (sets * WAYS < capacity) {
+            sets <<= 1;
+        }
+        this.mask = sets - 1;
+        this.keys = new int[sets * WAYS];
+        this.values = new Location[sets * WAYS];
+        this.referenced = new boolean[sets * WAYS];
+        this.hands = new byte[sets];
+    }
+
+    private static int hash(int address) {
+        final int h = address * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public Location resolve(String ip) {
+        final long address = IPv4.parse(ip);
+        if (address < 0) {
+            misses++;
+            return resolver.resolve(ip);
+        }
+        final int key = (int) address;
+        final int set = hash(key) & mask;
+        final int base = set * WAYS;
+        for (int w = base; w < base + WAYS; w++) {
+            if (values[w] != null && keys[w] == key) {
+                referenced[w] = true;
+                hits++;
+                return values[w] == UNKNOWN ? null : values[w];
+            }
+        }
+        misses++;
+        final Location location = resolver.resolve(key, ip);
+        final int w = victim(set);
+        keys[w] = key;
+        values[w] = location == null ? UNKNOWN : new Frozen(location);
+        referenced[w] = false;
+        return location == null ? null : values[w];
+    }
+
+    private int victim(int set) {
+        final int base = set * WAYS;
+        for (int w = base; w < base + WAYS; w++) {
+            if (values[w] == null) {
+                return w;
+            }
+        }
+        int hand = hands[set];
+        while (referenced[base + hand]) {
+            referenced[base + hand] = false;
+            hand = (hand + 1) % WAYS;
+        }
+        hands[set] = (byte) ((hand + 1) % WAYS);
+        return base + hand;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        final long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedIPLocation{capacity=" + keys.length + ", hits=" + hits + ", misses=" + misses
+                + ", hitRate=" + String.format("%.3f", getHitRate()) + '}';
+    }
+
+    /**
+     * Read-only copy of a resolved location, shared by all the hits on its address.
+     */
+    private static final class Frozen extends Location {
+        Frozen(Location location) {
+            super.setCountryName(location.getCountryName());
+            super.setCountryCode(location.getCountryCode());
+            super.setCity(location.getCity());
+            super.setIp(location.getIp());
+        }
+
+        @Override
+        public void setCountryName(String countryName) {
+            throw new UnsupportedOperationException("cached location");
+        }
+
+        @Override
+        public void setCountryCode(String countryCode) {
+            throw new UnsupportedOperationException("cached location");
+        }
+
+        @Override
+        public void setCity(String city) {
+            throw new UnsupportedOperationException("cached location");
+        }
+
+        @Override
+        public void setIp(String ip) {
+            throw new UnsupportedOperationException("cached location");
+        }
+    }
+}
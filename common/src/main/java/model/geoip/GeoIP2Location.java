@@ -1,5 +1,6 @@
 package model.geoip;
 
+import com.maxmind.db.Reader;
 import com.maxmind.geoip2.DatabaseReader;
 import com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.maxmind.geoip2.model.CityResponse;
@@ -9,29 +10,68 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.HashMap;
 
 /**
+ * The database is memory-mapped read-only; the reader is thread-safe, so one instance per database file
+ * is shared by all executors of the process (see {@link #shared(String)}).
+ *
  * @author mayconbordin
  */
 public class GeoIP2Location implements IPLocation {
     private static final Logger LOG = LoggerFactory.getLogger(GeoIP2Location.class);
+    private static final HashMap<String, GeoIP2Location> opened = new HashMap<>();
 
     private DatabaseReader reader;
 
     public GeoIP2Location(String dbPath) {
         try {
             File database = new File(System.getProperty("user.home").concat("/Documents/data/app/").concat(dbPath));
-            reader = new DatabaseReader.Builder(database).build();
+            reader = new DatabaseReader.Builder(database).fileMode(Reader.FileMode.MEMORY_MAPPED).build();
         } catch (IOException ex) {
             LOG.error("Unable to load MaxMind database", ex);
             throw new RuntimeException("Unable to load MaxMind database");
         }
     }
 
+    public static synchronized GeoIP2Location shared(String dbPath) {
+        GeoIP2Location location = opened.get(dbPath);
+        if (location == null) {
+            location = new GeoIP2Location(dbPath);
+            opened.put(dbPath, location);
+        }
+        return location;
+    }
+
     @Override
     public Location resolve(String ip) {
+        final long address = IPv4.parse(ip);
+        if (address < 0) {
+            try {
+                return resolve(InetAddress.getByName(ip), ip);//not a dotted IPv4 literal, e.g., IPv6.
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+        return resolve((int) address, ip);
+    }
+
+    /**
+     * @param address an IPv4 address, as parsed by {@link IPv4#parse}.
+     * @param ip      its literal, kept in the result.
+     * @return
+     */
+    public Location resolve(int address, String ip) {
+        try {
+            return resolve(InetAddress.getByAddress(IPv4.toBytes(address)), ip);//no name service lookup or parsing.
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private Location resolve(InetAddress address, String ip) {
         try {
-            CityResponse response = reader.city(InetAddress.getByName(ip));
+            CityResponse response = reader.city(address);
 
             Location location = new Location();
             location.setCity(response.getCity().getName());
@@ -16,7 +16,12 @@ public class IPLocationFactory {
             } else {
                 OS_prefix = "unix.";
             }
-            return new GeoIP2Location(config.getString(OS_prefix.concat(BaseConstants.BaseConf.GEOIP2_DB)));
+            GeoIP2Location shared = GeoIP2Location.shared(config.getString(OS_prefix.concat(BaseConstants.BaseConf.GEOIP2_DB)));
+            int cache_size = config.getInt(BaseConstants.BaseConf.GEOIP_CACHE_SIZE, 4096);
+            if (cache_size > 0) {
+                return new CachedIPLocation(shared, cache_size);//one per caller.
+            }
+            return shared;
         } else {
             throw new IllegalArgumentException(name + " is not a valid IP locator name");
         }
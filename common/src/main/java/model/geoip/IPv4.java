@@ -0,0 +1,47 @@
+package model.geoip;
+
+/**
+ * Dotted-quad IPv4 parsing into a 32-bit address, without going through {@link java.net.InetAddress}.
+ */
+public final class IPv4 {
+
+    private IPv4() {
+    }
+
+    /**
+     * @param ip
+     * @return the address as an unsigned 32-bit value, -1 if ip is not a dotted-quad IPv4 literal.
+     */
+    public static long parse(CharSequence ip) {
+        if (ip == null) {
+            return -1;
+        }
+        final int length = ip.length();
+        long address = 0;
+        int octet = -1;//-1: no digit yet.
+        int octets = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet < 0 ? c - '0' : octet * 10 + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && octets < 3) {
+                address = (address << 8) | octet;
+                octets++;
+                octet = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (octet < 0 || octets != 3) {
+            return -1;
+        }
+        return (address << 8) | octet;
+    }
+
+    public static byte[] toBytes(int address) {
+        return new byte[]{(byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address};
+    }
+}
@@ -17,37 +17,51 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 public class RoadGridList {
-    private HashMap<String, RoadList> gridList;//hashmap to store all states.
-    private String idKey;
-    private String widthKey;
+    private static final HashMap<List<String>, RoadGridList> loaded = new HashMap<>();//one per shapefile and feature keys, shared by all executors.
+    private final HashMap<String, RoadList> gridList = new HashMap<>();//hashmap to store all states.
+    private final String idKey;
+    private final String widthKey;
+    private final RoadIndex index;
 
     public RoadGridList(Configuration config, String path) throws SQLException, IOException {
-        gridList = read(path);
-
         idKey = config.getString(Conf.ROAD_FEATURE_ID_KEY);
         widthKey = config.getString(Conf.ROAD_FEATURE_WIDTH_KEY, null);
+
+        index = read(path);
     }
 
-    public RoadList getGridByID(String mapId) {
-        for (Map.Entry<String, RoadList> g : gridList.entrySet()) {
-            if (g.getKey().equals(mapId)) {
-                return g.getValue();
-            }
+    /**
+     * The grid list of a shapefile is read-only once built, so executors of the same JVM share it.
+     * It depends on the feature id and width keys too, so a configuration naming other keys gets its own.
+     *
+     * @param config
+     * @param path
+     * @return
+     * @throws SQLException
+     * @throws IOException
+     */
+    public static synchronized RoadGridList shared(Configuration config, String path) throws SQLException, IOException {
+        final List<String> key = Arrays.asList(path, config.getString(Conf.ROAD_FEATURE_ID_KEY),
+                config.getString(Conf.ROAD_FEATURE_WIDTH_KEY, null));
+        RoadGridList list = loaded.get(key);
+        if (list == null) {
+            list = new RoadGridList(config, path);
+            loaded.put(key, list);
         }
-        return null;
+        return list;
+    }
+
+    public RoadList getGridByID(String mapId) {
+        return gridList.get(mapId);
     }
 
     public Boolean isExits(HashMap<String, RoadList> gridList, String mapId) {
-        for (Map.Entry<String, RoadList> g : gridList.entrySet()) {
-            if (g.getKey().equals(mapId)) {
-                return true;
-            }
-        }
-        return false;
+        return gridList.containsKey(mapId);
     }
 
     /**
@@ -56,7 +70,7 @@ public class RoadGridList {
      * @throws IOException
      * @throws SQLException
      */
-    private HashMap<String, RoadList> read(String path) throws IOException, SQLException {
+    private RoadIndex read(String path) throws IOException, SQLException {
         File file = new File(System.getProperty("user.home").concat("/Documents/data/app/").concat(path));
 
         ShapefileDataStore shpDataStore = new ShapefileDataStore(file.toURL());
@@ -67,6 +81,7 @@ public class RoadGridList {
         FeatureSource<SimpleFeatureType, SimpleFeature> featureSource = shpDataStore.getFeatureSource(typeName);
         FeatureCollection<SimpleFeatureType, SimpleFeature> result = featureSource.getFeatures();
         FeatureIterator<SimpleFeature> iterator = result.features();
+        RoadIndex.Builder builder = new RoadIndex.Builder();
 
         while (iterator.hasNext()) {
             //Data Reader
@@ -85,94 +100,79 @@ public class RoadGridList {
                 mapID = (centerY.toString()).substring(0, 3) + "_" + (centerX.toString()).substring(0, 4);
             }
 
-            if (!isExits(gridList, mapID)) {
-                RoadList roadList = new RoadList();
-                roadList.add(feature);
+            RoadList roadList = gridList.get(mapID);
+            if (roadList == null) {
+                roadList = new RoadList();
                 gridList.put(mapID, roadList);
-            } else {
-                RoadList roadList = getGridByID(mapID);
-                roadList.add(feature);
             }
+            roadList.add(feature);
+
+            index(builder, mapID, feature, linearRing);
         }
 
         iterator.close();
         shpDataStore.dispose();
 
-        return gridList;
+        return builder.build();
     }
 
     /**
-     * Iterate through the hashmap is very costly.
-     * Its computation is highly dependent on input tuple.
-     * Can we turn it into constant and small look up time?
-     * This application is actually simple because only look up no alert.
-     * Map look up. R-index is required.
+     * Parse the road once into the index. Grids whose id is not "lat_lon" (as built by fetchRoadID) can never be looked up.
+     */
+    private void index(RoadIndex.Builder builder, String mapID, SimpleFeature feature, MultiLineString linearRing) {
+        String[] cell = mapID.split("_");
+        if (cell.length != 2) {
+            return;
+        }
+        int lat, lon;
+        try {
+            lat = Integer.parseInt(cell[0]);
+            lon = Integer.parseInt(cell[1]);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (!String.valueOf(lat).equals(cell[0]) || !String.valueOf(lon).equals(cell[1])) {
+            return;
+        }
+
+        int roadID = Integer.parseInt(feature.getAttribute(idKey).toString());
+        int width;
+        if (widthKey != null) {
+            width = Integer.parseInt(feature.getAttribute(widthKey).toString());
+        } else {
+            width = 5;
+        }
+        if (width <= 0) width = 5;
+
+        int n = linearRing.getLine(0).numPoints();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int idx = 0; idx < n; idx++) {
+            xs[idx] = linearRing.getLine(0).getPoint(idx).x;
+            ys[idx] = linearRing.getLine(0).getPoint(idx).y;
+        }
+        builder.add(lat, lon, roadID, width, xs, ys);
+    }
+
+    /**
+     * Looks the grid of the point up in the precomputed {@link RoadIndex},
+     * and matches against its road segments. Nothing is parsed or allocated per call.
      *
      * @param point
      * @return
      * @throws SQLException
      */
     public int fetchRoadID(Point point) throws SQLException {
-        int lastMiniRoadID = -2;
-
-        Integer mapID_lon = (int) (point.getX() * 10);
-        Integer mapID_lan = (int) (point.getY() * 10);
-        String mapID = mapID_lan.toString() + "_" + mapID_lon.toString();
-        double minD = Double.MAX_VALUE;
-        int width = 0;
-
-        int gridCount = 0;
-        int roadCount = 0;
-
-        for (Map.Entry<String, RoadList> grid : gridList.entrySet()) {
-            gridCount++;
-            String s = grid.getKey();
-
-            if (mapID.equals(s)) {
-                for (SimpleFeature feature : grid.getValue()) {
-                    roadCount++;
-                    int returnRoadID = Integer.parseInt(feature.getAttribute(idKey).toString());
-
-                    if (widthKey != null) {
-                        width = Integer.parseInt(feature.getAttribute(widthKey).toString());
-                    } else {
-                        width = 5;
-                    }
-
-                    if (width <= 0) width = 5;
-                    String geoStr = feature.getDefaultGeometry().toString();
-                    MultiLineString linearRing = new MultiLineString(geoStr);
-                    ArrayList<Point> ps = new ArrayList<>();
-
-                    for (int idx = 0; idx < linearRing.getLine(0).numPoints(); idx++) {
-                        Point pt = new Point(linearRing.getLine(0).getPoint(idx).x, linearRing.getLine(0).getPoint(idx).y);
-                        ps.add(pt);
-                    }
-
-                    int n = ps.size();
-                    for (int i = 0; i < n - 1; i++) {
-                        double distance = Polygon.pointToLine(ps.get(i).getX(), ps.get(i).getY(), ps.get(i + 1).getX(), ps.get(i + 1).getY(), point.getX(), point.getY()) * 111.2 * 1000;
-
-                        if (distance < width) {
-                            //System.out.printf("\ngridCount:%2d  roadCount:%5d  LessWidth,dist=%7.3f ",gridCount,roadCount,distance);
-                            return returnRoadID;
-                        } else if (distance < minD) {
-                            minD = distance;
-                            lastMiniRoadID = returnRoadID;
-                        }
-                    }
-                }
-
-                //System.out.printf("\ngridCount:%2d  roadCount:%5d  Minimum   dist=%7.3f ",gridCount,roadCount,minD);
-
-                if (minD < Math.sqrt(Math.pow(width, 2) + Math.pow(10, 2))) {
-                    return lastMiniRoadID;
-                } else
-                    return -1;
-            }
-        }
+        return fetchRoadID(point.getX(), point.getY());
+    }
 
-        return -1;
+    /**
+     * @param x longitude
+     * @param y latitude
+     * @return
+     */
+    public int fetchRoadID(double x, double y) {
+        return index.nearest(x, y);
     }
 
     public class RoadList extends ArrayList<SimpleFeature> {
@@ -0,0 +1,163 @@
+package model.gis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable uniform grid over the road segments, using the same 0.1 degree cells as {@link RoadGridList}.
+ * Geometries are parsed once into primitive coordinate arrays, so a lookup neither parses nor allocates,
+ * and one index can be shared read-only by all executors.
+ */
+public final class RoadIndex {
+    private static final double METERS_PER_DEGREE = 111.2 * 1000;
+    private static final double MARGIN = 1;//meters, covers the rounding of Polygon.pointToLine when pruning by bounding box.
+    private final long[] keys;//sorted cell keys.
+    private final Cell[] cells;
+
+    private RoadIndex(long[] keys, Cell[] cells) {
+        this.keys = keys;
+        this.cells = cells;
+    }
+
+    static long key(int lat, int lon) {
+        return ((long) lat << 32) | (lon & 0xffffffffL);
+    }
+
+    /**
+     * Same matching as the original scan of a cell: the first road (in shapefile order) with a segment closer than its width,
+     * otherwise the nearest road if it is close enough.
+     *
+     * @param x longitude
+     * @param y latitude
+     * @return the road id, -1 if there is no road nearby.
+     */
+    public int nearest(double x, double y) {
+        final int c = Arrays.binarySearch(keys, key((int) (y * 10), (int) (x * 10)));
+        if (c < 0) {
+            return -1;
+        }
+        return cells[c].nearest(x, y);
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    private static final class Cell {
+        private final int[] ids;
+        private final int[] widths;
+        private final int[] start;//first point of each road, start[roads] is the total.
+        private final double[] xs;
+        private final double[] ys;
+        private final double[] bounds;//minX, minY, maxX, maxY of each road.
+        private final double accept;//distance under which the nearest road is accepted, from the width of the last road.
+
+        private Cell(ArrayList<Road> roads) {
+            final int n = roads.size();
+            ids = new int[n];
+            widths = new int[n];
+            start = new int[n + 1];
+            bounds = new double[n * 4];
+            int points = 0;
+            for (Road road : roads) {
+                points += road.xs.length;
+            }
+            xs = new double[points];
+            ys = new double[points];
+            for (int r = 0, p = 0; r < n; r++) {
+                final Road road = roads.get(r);
+                ids[r] = road.id;
+                widths[r] = road.width;
+                start[r] = p;
+                double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+                for (int i = 0; i < road.xs.length; i++, p++) {
+                    xs[p] = road.xs[i];
+                    ys[p] = road.ys[i];
+                    minX = Math.min(minX, xs[p]);
+                    minY = Math.min(minY, ys[p]);
+                    maxX = Math.max(maxX, xs[p]);
+                    maxY = Math.max(maxY, ys[p]);
+                }
+                bounds[r * 4] = minX;
+                bounds[r * 4 + 1] = minY;
+                bounds[r * 4 + 2] = maxX;
+                bounds[r * 4 + 3] = maxY;
+                start[r + 1] = p;
+            }
+            final int width = n == 0 ? 0 : widths[n - 1];
+            accept = Math.sqrt(width * width + 100);
+        }
+
+        private double distance_to_bounds(int r, double x, double y) {
+            final double dx = Math.max(0, Math.max(bounds[r * 4] - x, x - bounds[r * 4 + 2]));
+            final double dy = Math.max(0, Math.max(bounds[r * 4 + 1] - y, y - bounds[r * 4 + 3]));
+            return Math.sqrt(dx * dx + dy * dy) * METERS_PER_DEGREE;
+        }
+
+        private int nearest(double x, double y) {
+            int lastMiniRoadID = -2;
+            double minD = Double.MAX_VALUE;
+            for (int r = 0; r < ids.length; r++) {
+                //no segment of this road can be within its width or closer than the nearest so far.
+                if (distance_to_bounds(r, x, y) - MARGIN >= Math.max(widths[r], minD)) {
+                    continue;
+                }
+                for (int i = start[r]; i < start[r + 1] - 1; i++) {
+                    final double distance = Polygon.pointToLine(xs[i], ys[i], xs[i + 1], ys[i + 1], x, y) * METERS_PER_DEGREE;
+                    if (distance < widths[r]) {
+                        return ids[r];
+                    } else if (distance < minD) {
+                        minD = distance;
+                        lastMiniRoadID = ids[r];
+                    }
+                }
+            }
+            return minD < accept ? lastMiniRoadID : -1;
+        }
+    }
+
+    private static final class Road {
+        final int id;
+        final int width;
+        final double[] xs;
+        final double[] ys;
+
+        Road(int id, int width, double[] xs, double[] ys) {
+            this.id = id;
+            this.width = width;
+            this.xs = xs;
+            this.ys = ys;
+        }
+    }
+
+    public static final class Builder {
+        private final TreeMap<Long, ArrayList<Road>> cells = new TreeMap<>();
+
+        /**
+         * @param lat   cell row, the latitude * 10
+         * @param lon   cell column, the longitude * 10
+         * @param id    road id
+         * @param width road width in meters
+         * @param xs    longitudes of the road's polyline
+         * @param ys    latitudes of the road's polyline
+         */
+        public Builder add(int lat, int lon, int id, int width, double[] xs, double[] ys) {
+            cells.computeIfAbsent(key(lat, lon), k -> new ArrayList<>()).add(new Road(id, width, xs, ys));
+            return this;
+        }
+
+        public RoadIndex build() {
+            final long[] keys = new long[cells.size()];
+            final Cell[] built = new Cell[cells.size()];
+            int c = 0;
+            for (Map.Entry<Long, ArrayList<Road>> cell : cells.entrySet()) {
+                keys[c] = cell.getKey();
+                built[c] = new Cell(cell.getValue());
+                c++;
+            }
+            return new RoadIndex(keys, built);
+        }
+    }
+}
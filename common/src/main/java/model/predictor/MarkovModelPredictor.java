@@ -18,6 +18,7 @@
 package model.predictor;
 
 import constants.FraudDetectionConstants;
+import helper.parser.CharTokenizer;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +38,8 @@ public class MarkovModelPredictor extends ModelBasedPredictor {
     private static final Logger LOG = LoggerFactory.getLogger(MarkovModelPredictor.class);
     private MarkovModel markovModel;
 
-    private Map<Integer, List<String>> records = new HashMap<>();
+    private Map<Integer, List<String>> records = new HashMap<>();//state of the last records of each entity.
+    private CharTokenizer tokenizer;//of a record, for its state.
     private boolean localPredictor;
     private int stateSeqWindowSize;
     private int stateOrdinal;
@@ -77,6 +79,7 @@ public class MarkovModelPredictor extends ModelBasedPredictor {
 
         //state value ordinal within record
         stateOrdinal = conf.getInt(FraudDetectionConstants.Conf.STATE_ORDINAL);
+        tokenizer = new CharTokenizer(localPredictor ? ',' : '\t');
 
         //detection algoritm
         String algorithm = conf.getString(FraudDetectionConstants.Conf.DETECTION_ALGO);
@@ -128,7 +131,7 @@ public class MarkovModelPredictor extends ModelBasedPredictor {
         double score = 0;
 
         int entityID = Arrays.hashCode(_entityID);
-        String record = new String(_record);
+        String record = state(_record);
 
         List<String> recordSeq = records.get(entityID);
         if (null == recordSeq) {
@@ -150,7 +153,7 @@ public class MarkovModelPredictor extends ModelBasedPredictor {
             if (recordSeq.size() == stateSeqWindowSize) {
                 stateSeq = new String[stateSeqWindowSize];
                 for (int i = 0; i < stateSeqWindowSize; ++i) {
-                    stateSeq[i] = recordSeq.get(i).split(",")[stateOrdinal];
+                    stateSeq[i] = recordSeq.get(i);
                 }
                 score = getLocalMetric(stateSeq);
             }
@@ -162,7 +165,7 @@ public class MarkovModelPredictor extends ModelBasedPredictor {
                 stateSeq = new String[2];
 
                 for (int i = stateSeqWindowSize - 2, j = 0; i < stateSeqWindowSize; ++i) {
-                    stateSeq[j++] = recordSeq.get(i).split("\t")[stateOrdinal];
+                    stateSeq[j++] = recordSeq.get(i);
                 }
 
                 Pair<Double, Double> params = globalParams.get(entityID);
@@ -203,6 +206,7 @@ public class MarkovModelPredictor extends ModelBasedPredictor {
     @Override
     public Prediction execute(String entityID, String record) {
         double score = 0;
+        record = record.split(localPredictor ? "," : "\t")[stateOrdinal];
 
 
         List<String> recordSeq = records.get(entityID.hashCode());
@@ -225,7 +229,7 @@ public class MarkovModelPredictor extends ModelBasedPredictor {
             if (recordSeq.size() == stateSeqWindowSize) {
                 stateSeq = new String[stateSeqWindowSize];
                 for (int i = 0; i < stateSeqWindowSize; ++i) {
-                    stateSeq[i] = recordSeq.get(i).split(",")[stateOrdinal];
+                    stateSeq[i] = recordSeq.get(i);
                 }
                 score = getLocalMetric(stateSeq);
             }
@@ -237,7 +241,7 @@ public class MarkovModelPredictor extends ModelBasedPredictor {
                 stateSeq = new String[2];
 
                 for (int i = stateSeqWindowSize - 2, j = 0; i < stateSeqWindowSize; ++i) {
-                    stateSeq[j++] = recordSeq.get(i).split("\t")[stateOrdinal];
+                    stateSeq[j++] = recordSeq.get(i);
                 }
 
                 Pair<Double, Double> params = globalParams.get(entityID.hashCode());
@@ -275,6 +279,23 @@ public class MarkovModelPredictor extends ModelBasedPredictor {
         return prediction;
     }
 
+    /**
+     * Only the state of a record is kept in the window: it is read once, rather than split from the record at every
+     * prediction the record takes part in.
+     *
+     * @param record
+     * @return the state of the record, the instance of the model if it is one of its states.
+     */
+    private String state(char[] record) {
+        tokenizer.reset(record).skip(stateOrdinal + 1);
+        for (String state : markovModel.getStates()) {
+            if (tokenizer.is(state)) {
+                return state;
+            }
+        }
+        return tokenizer.getString();
+    }
+
     /**
      * @param stateSeq
      * @return
@@ -1,5 +1,7 @@
 package parser;
 
+import helper.parser.CharNumbers;
+import helper.parser.CharTokenizer;
 import helper.parser.Parser;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
@@ -11,6 +13,7 @@ import util.datatypes.StreamValues;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,14 +30,15 @@ public class CommonLogParser extends Parser {
     private static final DateTimeFormatter dtFormatter = DateTimeFormat.forPattern("dd/MMM/yyyy:HH:mm:ss Z");
     private static final int NUM_FIELDS = 8;
     private static final long serialVersionUID = -1399317502251028592L;
+    private static final Pattern logEntryPattern = Pattern.compile("^(\\S+) (\\S+) (\\S+) \\[([\\w:/]+\\s[+\\-]\\d{4})\\] \"(.+?)\" (\\d{3}) (\\S+)(.*?)");
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+    private static final int[] MONTH_DAYS = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final int TIMESTAMP_LENGTH = 26;//dd/MMM/yyyy:HH:mm:ss +hhmm
+    private final CharTokenizer tokenizer = new CharTokenizer(' ');
 
     public static Map<String, Object> parseLine(String logLine) {
         Map<String, Object> entry = new HashMap<>();
-        String logEntryPattern = "^(\\S+) (\\S+) (\\S+) \\[([\\w:/]+\\s[+\\-]\\d{4})\\] \"(.+?)\" (\\d{3}) (\\S+)(.*?)";
-
-
-        Pattern p = Pattern.compile(logEntryPattern);
-        Matcher matcher = p.matcher(logLine);
+        Matcher matcher = logEntryPattern.matcher(logLine);
 
         if (!matcher.matches() || NUM_FIELDS != matcher.groupCount()) {
             return null;
@@ -54,25 +58,82 @@ public class CommonLogParser extends Parser {
         return entry;
     }
 
-    @Override
-    public Object[] parse(char[] str) {
-        String s = new String(str);
-        Map<String, Object> entry = parseLine(new String(str));
-
-        if (entry == null) {
-            LOG.warn("Unable to parse log: {}", s);
-            return null;
+    /**
+     * Parse "dd/MMM/yyyy:HH:mm:ss Z" in place. Any other layout, a month name that is not English for instance,
+     * is left to the formatter.
+     *
+     * @return ms since the epoch.
+     */
+    private static long parseTimestamp(char[] s, int from, int to) {
+        final int month = to - from == TIMESTAMP_LENGTH && s[from + 2] == '/' && s[from + 6] == '/' && s[from + 11] == ':'
+                && s[from + 14] == ':' && s[from + 17] == ':' && s[from + 20] == ' ' ? month(s, from + 3) : -1;
+        if (month < 0) {
+            return dtFormatter.parseDateTime(new String(s, from, to - from)).getMillis();
         }
+        final int day = CharNumbers.parseInt(s, from, from + 2);
+        final int year = CharNumbers.parseInt(s, from + 7, from + 11);
+        final int hour = CharNumbers.parseInt(s, from + 12, from + 14);
+        final int minute = CharNumbers.parseInt(s, from + 15, from + 17);
+        final int second = CharNumbers.parseInt(s, from + 18, from + 20);
+        final int offset = CharNumbers.parseInt(s, from + 22, from + 24) * 60 + CharNumbers.parseInt(s, from + 24, from + 26);
+        final boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+        if (day < 1 || day > (month == 1 && !leap ? 28 : MONTH_DAYS[month]) || hour > 23 || minute > 59 || second > 59
+                || (s[from + 21] != '+' && s[from + 21] != '-')) {
+            return dtFormatter.parseDateTime(new String(s, from, to - from)).getMillis();//throws the formatter's error.
+        }
+        final long seconds = ((epochDay(year, month + 1, day) * 24 + hour) * 60 + minute) * 60 + second;
+        return (seconds - (s[from + 21] == '-' ? -offset : offset) * 60L) * 1000;
+    }
 
-        long minute = DateUtils.getMinuteForTime((Date) entry.get(TIMESTAMP));
-        int msgId = String.format("%s:%s", entry.get(IP), entry.get(TIMESTAMP)).hashCode();
+    /**
+     * @return 0 for January, -1 if not an English month.
+     */
+    private static int month(char[] s, int from) {
+        for (int m = 0; m < MONTHS.length; m++) {
+            final String name = MONTHS[m];
+            if (s[from] == name.charAt(0) && s[from + 1] == name.charAt(1) && s[from + 2] == name.charAt(2)) {
+                return m;
+            }
+        }
+        return -1;
+    }
 
-        Object[] items = new Object[]{entry.get(IP), entry.get(TIMESTAMP),
-                minute, entry.get(REQUEST), entry.get(RESPONSE), entry.get(BYTE_SIZE)};
-//		values.setMessageId(msgId);
+    /**
+     * Days from 1970-01-01 of a date of the proleptic Gregorian calendar.
+     */
+    private static long epochDay(long year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        final long era = Math.floorDiv(year, 400);
+        final long yoe = year - era * 400;
+        final long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
 
-//      return ImmutableList.of(values);
-        return items;
+    @Override
+    public Object[] parse(char[] str) {
+        try {
+            tokenizer.reset(str);
+            final String ip = tokenizer.nextString();
+            tokenizer.skip(2);//identity, user.
+            if (tokenizer.nextEnclosed('[', ']')) {
+                final Date timestamp = new Date(parseTimestamp(str, tokenizer.start(), tokenizer.end()));
+                if (tokenizer.nextEnclosed('"', '"') && tokenizer.length() > 0) {
+                    final String request = tokenizer.getString();
+                    if (tokenizer.next() && tokenizer.length() == 3) {
+                        final int response = tokenizer.getInt();
+                        tokenizer.skip(1);
+                        final int bytes = tokenizer.is("-") ? 0 : tokenizer.getInt();
+                        long minute = DateUtils.getMinuteForTime(timestamp);
+                        return new Object[]{ip, timestamp, minute, request, response, bytes};
+                    }
+                }
+            }
+        } catch (IllegalArgumentException | NoSuchElementException ex) {
+            //malformed number or timestamp.
+        }
+        LOG.warn("Unable to parse log: {}", new String(str));
+        return null;
     }
 
     @Override
@@ -5,6 +5,7 @@ package parser;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import constants.SpikeDetectionConstants.Conf;
+import helper.parser.CharTokenizer;
 import helper.parser.Parser;
 import org.joda.time.LocalDateTime;
 import org.joda.time.format.DateTimeFormat;
@@ -48,6 +49,7 @@ public class SensorParser extends Parser {
             .build();
     private static final long serialVersionUID = 7401525897300325924L;
     private static final DateTimeFormatter formatter = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
+    private final CharTokenizer tokenizer = new CharTokenizer(' ', true);//fields are separated by runs of spaces.
     int deviceId = 0;
     LocalDateTime bkdate = formatterMillis.parseLocalDateTime("2004-02-28 01:54:46.362044");
     private String valueField;
@@ -63,31 +65,6 @@ public class SensorParser extends Parser {
 
     @Override
     public Object[] parse(char[] input) {
-//		String[] fields = new String(input).split("\\s+");
-//		ArrayList<char[]> fields = new ArrayList<>();
-        char[][] fields = new char[8][];
-        int cnt = 0;
-        int index = 0;
-        int length = input.length;
-        int extra_space = 0;
-        for (int c = 0; c < length; c++) {
-            if (input[c] == ' ' || c == length - 1) {
-                if (c + 1 < length && input[c + 1] == ' ') {
-                    extra_space++;
-                    continue;
-                }
-                int len = c - index - extra_space;
-                extra_space = 0;
-                char[] word = new char[len];
-                System.arraycopy(input, index, word, 0, len);
-//				collector.emit(word);
-//					ll.add(word);
-                fields[cnt++] = word;
-                index = c + 1;
-            }
-        }
-
-
         /**
          * 	 0 = "2004-03-31"
          1 = "03:38:15.757551"
@@ -98,22 +75,9 @@ public class SensorParser extends Parser {
          6 = "11.04"
          7 = "2.03397"
          */
-
-//		String dateStr = String.format("%s %s", new String(fields[DATE_FIELD]), new String(fields[TIME_FIELD]));
-//		LocalDateTime date = null;
-
-//		try {
-//			date = formatterMillis.parseLocalDateTime(dateStr);
-//		} catch (IllegalArgumentException ex) {
-//            LOG.warn("Error parsing record date/time field, input record: " + input, ex);
-//			System.exit(-1);
-//			date = bkdate;
-//		}
-
         try {
-            Object[] values = new Object[]{deviceId++, Double.parseDouble(String.valueOf(fields[valueFieldKey]))};
-
-            return values;
+            tokenizer.reset(input).skip(valueFieldKey);
+            return new Object[]{deviceId++, tokenizer.nextDouble()};
         } catch (NumberFormatException ex) {
             System.out.println("Error parsing record numeric field, input record: " + Arrays.toString(input) + ex);
         } catch (Exception anyEx) {
@@ -1,10 +1,10 @@
 package parser;
 
 import com.google.common.collect.ImmutableList;
+import helper.parser.CharTokenizer;
 import helper.parser.Parser;
 import util.datatypes.StreamValues;
 
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -13,32 +13,15 @@ import java.util.List;
 public class TransactionParser extends Parser {
 
     private static final long serialVersionUID = -4929179496810491167L;
+    private final CharTokenizer tokenizer = new CharTokenizer(',');
 
     @Override
     public Object[] parse(char[] value) {
-        LinkedList<char[]> ll = new LinkedList<>();
-        int index = 0;
-        int length = value.length;
-        int cnt = 0;
-        for (int c = 0; c < length; c++) {
-            if (value[c] == ',') {
-                if (cnt == 1) {
-                    int len = length - index;
-                    char[] word = new char[len];
-                    System.arraycopy(value, index, word, 0, len);
-                    ll.add(word);
-                    break;
-                } else {
-                    int len = c - index;
-                    char[] word = new char[len];
-                    System.arraycopy(value, index, word, 0, len);
-                    ll.add(word);
-                    cnt++;
-                    index = c + 1;
-                }
-            }
+        tokenizer.reset(value).next();
+        if (tokenizer.end() == value.length) {
+            return new Object[0];//no comma.
         }
-        return ll.toArray();
+        return new Object[]{tokenizer.getChars(), tokenizer.rest()};
 //		String[] items = new String(value).split(",", 2);//return ImmutableList.of(new StreamValues(items[0], items[1]));
 //		return new Object[]{items[0].toCharArray(), items[1].toCharArray()};
     }
@@ -1,8 +1,9 @@
 package parser;
 
+import helper.parser.CharNumbers;
+import helper.parser.CharTokenizer;
 import helper.parser.Parser;
 import model.cdr.CallDetailRecord;
-import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
@@ -16,6 +17,8 @@ import util.datatypes.StreamValues;
 public class voipParser extends Parser {
     private static final Logger LOG = LoggerFactory.getLogger(voipParser.class);
     private static final long serialVersionUID = -7710218185325696134L;
+    private static final DateTimeFormatter formatter = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    private final CharTokenizer tokenizer = new CharTokenizer(',');
 
     public voipParser() {
 
@@ -23,13 +26,17 @@ public class voipParser extends Parser {
 
     @Override
     public Object[] parse(char[] input) {
-        String str = new String(input);
-        if (StringUtils.isBlank(str)) {
+        if (blank(input)) {
             return null;
         }
-        CallDetailRecord cdr = buildcdr(str);
+        CallDetailRecord cdr;
+        try {
+            cdr = buildcdr(input);
+        } catch (IllegalArgumentException ex) {
+            cdr = null;//malformed number or date.
+        }
         if (cdr == null) {
-            LOG.info("Failed to construct cdr:" + str);
+            LOG.info("Failed to construct cdr:" + new String(input));
             return null;
         }
         return new Object[]{cdr.getCallingNumber(), cdr.getCalledNumber(), cdr.getAnswerTime(), cdr};
@@ -40,26 +47,67 @@ public class voipParser extends Parser {
         return null;
     }
 
+    private static boolean blank(char[] input) {
+        for (char c : input) {
+            if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-    private CallDetailRecord buildcdr(String str) {
-        String[] psb = str.substring(1, str.length() - 1)
-                .split(",");
-        if (psb.length != 8) {
+    /**
+     * The record without its enclosing braces is 8 comma separated fields, the last two are "name=value".
+     */
+    private CallDetailRecord buildcdr(char[] input) {
+        if (input.length < 2) {
             return null;
         }
+        tokenizer.reset(input, 1, input.length - 1);
         CallDetailRecord cdr = new CallDetailRecord();
+        int fields = 0;
+        while (tokenizer.next()) {
+            switch (fields++) {
+                case 0:
+                    cdr.setCallingNumber(tokenizer.trim().getString());
+                    break;
+                case 1:
+                    cdr.setCalledNumber(tokenizer.trim().getString());
+                    break;
+                case 2:
+                    cdr.setAnswerTime(DateTime.parse(tokenizer.trim().getString(), formatter));
+                    break;
+                case 6:
+                    tokenizer.trim();
+                    cdr.setCallDuration(CharNumbers.parseInt(input, value(input), tokenizer.end()));
+                    break;
+                case 7:
+                    tokenizer.trim();
+                    final int end = input[tokenizer.end() - 1] == '}' ? tokenizer.end() - 1 : tokenizer.end();
+                    cdr.setCallEstablished(CharNumbers.parseBoolean(input, value(input), end));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return fields == 8 ? cdr : null;
+    }
 
-        cdr.setCallingNumber(psb[0].replaceAll(" ", ""));
-        cdr.setCalledNumber(psb[1].replaceAll(" ", ""));
-
-        String dateTime = psb[2].replaceAll(" ", "");
-
-        DateTimeFormatter formatter = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
-        DateTime dt = DateTime.parse(dateTime, formatter);
-
-        cdr.setAnswerTime(dt);
-        cdr.setCallDuration(Integer.parseInt(psb[6].split("=")[1].replaceAll(" ", "")));
-        cdr.setCallEstablished(Boolean.parseBoolean(psb[7].split("=")[1].replaceAll("}", "")));
-        return cdr;
+    /**
+     * @return index of the value of the current "name=value" field.
+     */
+    private int value(char[] input) {
+        int i = tokenizer.start();
+        while (i < tokenizer.end() && input[i] != '=') {
+            i++;
+        }
+        if (i == tokenizer.end()) {
+            throw new IllegalArgumentException("No value in: " + tokenizer.getString());
+        }
+        i++;
+        while (i < tokenizer.end() && input[i] == ' ') {
+            i++;
+        }
+        return i;
     }
 }
\ No newline at end of file
@@ -28,7 +28,9 @@ public class Configuration extends HashMap {
     /**
      * Bolt-specific configuration for windowed bolts to specify the maximum time lag of the tuple timestamp
      * in milliseconds. It means that the tuple timestamps cannot be out of order by more than this amount.
-     * This config will be effective only if {@link TimestampExtractor} is specified.
+     * This config will be effective only if {@link TimestampExtractor} is specified. When the spouts send watermarks,
+     * it is the allowed lateness: a window is fired once the watermark passes its end by this amount, and tuples
+     * older than the watermark minus this amount are late.
      */
 
     public static final String TOPOLOGY_BOLTS_TUPLE_TIMESTAMP_MAX_LAG_MS = "topology.bolts.tuple.timestamp.max.lag.ms";
@@ -1,5 +1,7 @@
 package util;
 
+import java.nio.DoubleBuffer;
+
 public class STREAM {
 
     static final Object lock2 = new Object();
@@ -86,6 +88,29 @@ public class STREAM {
 
     }
 
+    /**
+     * The Triad kernel (a = b + scalar * c) over buffers that may live off-heap, e.g. on a chosen NUMA node.
+     *
+     * @param a
+     * @param b
+     * @param c
+     * @param times repetitions, the best one is kept.
+     * @return bandwidth in MB/s.
+     */
+    public static double triad(DoubleBuffer a, DoubleBuffer b, DoubleBuffer c, int times) {
+        final int n = Math.min(a.capacity(), Math.min(b.capacity(), c.capacity()));
+        final double scalar = 3.0;
+        long best = Long.MAX_VALUE;
+        for (int k = 0; k < times; k++) {
+            final long start = System.nanoTime();
+            for (int j = 0; j < n; j++) {
+                a.put(j, b.get(j) + scalar * c.get(j));
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return 1.0E-06 * 3 * 8 * n / (best / 1E9);
+    }
+
     long pr(long ticks, int pid, String msg) {
         long t = System.currentTimeMillis();
         System.out.println("PID " + pid + msg + " (" + ((t - ticks) / 1000) + " secs since last report)");
@@ -0,0 +1,176 @@
+package helper.parser;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CharNumbers} against the JDK parsers: the same value, bit for bit for doubles, or a NumberFormatException
+ * where they throw one.
+ */
+public class CharNumbersTest {
+    private static final int RANDOM = 200000;
+    private static final String[] MALFORMED = {
+            "", "+", "-", "--1", "+-1", "1-", "1a", "a1", " 1", "1 ", "1.0", "0x10", "1_000", "\u0661\u0662",
+    };
+
+    /**
+     * The text is parsed from the middle of a larger array, so that the range is honoured.
+     */
+    private static char[] padded(String text) {
+        return ("9." + text + ".9").toCharArray();
+    }
+
+    private static String longOf(String text) {
+        try {
+            return String.valueOf(Long.parseLong(text));
+        } catch (NumberFormatException ex) {
+            return "error";
+        }
+    }
+
+    private static String charLongOf(String text) {
+        try {
+            return String.valueOf(CharNumbers.parseLong(padded(text), 2, 2 + text.length()));
+        } catch (NumberFormatException ex) {
+            return "error";
+        }
+    }
+
+    private static String intOf(String text) {
+        try {
+            return String.valueOf(Integer.parseInt(text));
+        } catch (NumberFormatException ex) {
+            return "error";
+        }
+    }
+
+    private static String charIntOf(String text) {
+        try {
+            return String.valueOf(CharNumbers.parseInt(padded(text), 2, 2 + text.length()));
+        } catch (NumberFormatException ex) {
+            return "error";
+        }
+    }
+
+    private static String shortOf(String text) {
+        try {
+            return String.valueOf(Short.parseShort(text));
+        } catch (NumberFormatException ex) {
+            return "error";
+        }
+    }
+
+    private static String charShortOf(String text) {
+        try {
+            return String.valueOf(CharNumbers.parseShort(padded(text), 2, 2 + text.length()));
+        } catch (NumberFormatException ex) {
+            return "error";
+        }
+    }
+
+    private static String doubleOf(String text) {
+        try {
+            return Long.toHexString(Double.doubleToRawLongBits(Double.parseDouble(text)));
+        } catch (NumberFormatException ex) {
+            return "error";
+        }
+    }
+
+    private static String charDoubleOf(String text) {
+        try {
+            return Long.toHexString(Double.doubleToRawLongBits(CharNumbers.parseDouble(padded(text), 2, 2 + text.length())));
+        } catch (NumberFormatException ex) {
+            return "error";
+        }
+    }
+
+    private static void checkIntegers(String text) {
+        assertEquals(text, longOf(text), charLongOf(text));
+        assertEquals(text, intOf(text), charIntOf(text));
+        assertEquals(text, shortOf(text), charShortOf(text));
+    }
+
+    private static void checkDouble(String text) {
+        assertEquals(text, doubleOf(text), charDoubleOf(text));
+    }
+
+    private static String digits(Random random, int length) {
+        final StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        return digits.toString();
+    }
+
+    @Test
+    public void TestIntegerBounds() {
+        for (long bound : new long[]{Long.MIN_VALUE, Long.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Short.MIN_VALUE, Short.MAX_VALUE, 0}) {
+            for (long delta = -2; delta <= 2; delta++) {
+                checkIntegers(String.valueOf(bound + delta));//wraps around the long bounds, which is fine.
+            }
+        }
+        checkIntegers("9223372036854775808");
+        checkIntegers("-9223372036854775809");
+        checkIntegers("99999999999999999999");
+        checkIntegers("+0");
+        checkIntegers("-0");
+        checkIntegers("000000000000000000000000042");
+        for (String text : MALFORMED) {
+            checkIntegers(text);
+        }
+    }
+
+    @Test
+    public void TestRandomIntegers() {
+        final Random random = new Random(25);
+        for (int i = 0; i < RANDOM; i++) {
+            final String sign = random.nextInt(4) == 0 ? "-" : random.nextInt(8) == 0 ? "+" : "";
+            checkIntegers(sign + digits(random, 1 + random.nextInt(20)));
+            checkIntegers(String.valueOf(random.nextLong() >> random.nextInt(64)));
+        }
+    }
+
+    @Test
+    public void TestDoubleEdges() {
+        for (String text : new String[]{
+                "0", "-0", "+0", "0.0", "-0.0", ".5", "5.", ".", "-.", "1e", "1e+", "1e-", "e5", "1e5", "1E5", "1e+5",
+                "1e-5", "1e22", "1e23", "1e-22", "1e-23", "123456789012345e22", "1234567890123456", "0.1", "0.3",
+                "9007199254740993", "2.2250738585072014E-308", "4.9e-324", "1.7976931348623157e308", "1e400",
+                "-1e-400", "1e0", "1e-0", "1e00000000000000000001", "NaN", "-NaN", "Infinity", "-Infinity",
+                "1d", "1f", "1.5D", "1e5f", "0x1p3", "1..2", "1.2.3", "--1", "1e5.5", " 1.5", "1.5 ", "", "+", "-",
+                "000000000000000000000.5", "0.000000000000000000001", "1.000000000000000000000",
+        }) {
+            checkDouble(text);
+        }
+        for (String text : MALFORMED) {
+            checkDouble(text);
+        }
+    }
+
+    @Test
+    public void TestRandomDoubles() {
+        final Random random = new Random(52);
+        for (int i = 0; i < RANDOM; i++) {
+            final String sign = random.nextInt(4) == 0 ? "-" : "";
+            final int length = 1 + random.nextInt(18);
+            final int point = random.nextInt(length + 1);
+            final String mantissa = digits(random, length);
+            final String decimal = sign + mantissa.substring(0, point) + "." + mantissa.substring(point);
+            checkDouble(decimal);
+            checkDouble(decimal + "e" + (random.nextInt(60) - 30));
+            checkDouble(String.valueOf(Double.longBitsToDouble(random.nextLong())));
+            checkDouble(String.valueOf(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+        }
+    }
+
+    @Test
+    public void TestBoolean() {
+        for (String text : new String[]{"true", "TRUE", "True", "tRuE", "false", "", "t", "tru", "truee", "yes", "1", "trUe "}) {
+            assertEquals(text, Boolean.parseBoolean(text), CharNumbers.parseBoolean(padded(text), 2, 2 + text.length()));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package helper.parser;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tokens of {@link CharTokenizer} against String.split: split(",", -1) when delimiters are not collapsed,
+ * split(" +") without the empty tokens when they are.
+ */
+public class CharTokenizerTest {
+    private static final int RANDOM = 100000;
+
+    private static List<String> tokens(CharTokenizer tokenizer) {
+        final List<String> tokens = new ArrayList<>();
+        while (tokenizer.next()) {
+            tokens.add(tokenizer.getString());
+        }
+        assertFalse("done once done", tokenizer.next());
+        return tokens;
+    }
+
+    private static List<String> split(String line, char delimiter, boolean collapse) {
+        if (!collapse) {
+            return Arrays.asList(line.split(String.valueOf(delimiter), -1));
+        }
+        final List<String> tokens = new ArrayList<>();
+        for (String token : line.split(delimiter + "+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String line(Random random, String alphabet, int length) {
+        final StringBuilder line = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return line.toString();
+    }
+
+    @Test
+    public void TestRandomLines() {
+        final Random random = new Random(25);
+        final CharTokenizer comma = new CharTokenizer(',');
+        final CharTokenizer spaces = new CharTokenizer(' ', true);
+        for (int i = 0; i < RANDOM; i++) {
+            final String line = line(random, "ab1,, ", random.nextInt(20));
+            assertEquals(line, split(line, ',', false), tokens(comma.reset(line.toCharArray())));
+            assertEquals(line, split(line, ' ', true), tokens(spaces.reset(line.toCharArray())));
+        }
+    }
+
+    /**
+     * A range of the line is tokenized as the substring would be.
+     */
+    @Test
+    public void TestRange() {
+        final Random random = new Random(52);
+        final CharTokenizer comma = new CharTokenizer(',');
+        final CharTokenizer spaces = new CharTokenizer(' ', true);
+        for (int i = 0; i < RANDOM; i++) {
+            final String line = line(random, "ab,, ", 1 + random.nextInt(20));
+            final int from = random.nextInt(line.length());
+            final int to = from + random.nextInt(line.length() - from + 1);
+            final String range = line.substring(from, to);
+            assertEquals(range, split(range, ',', false), tokens(comma.reset(line.toCharArray(), from, to)));
+            assertEquals(range, split(range, ' ', true), tokens(spaces.reset(line.toCharArray(), from, to)));
+        }
+    }
+
+    /**
+     * The rest of the line after n - 1 tokens is the last token of split(delimiter, n).
+     */
+    @Test
+    public void TestRest() {
+        final Random random = new Random(7);
+        final CharTokenizer comma = new CharTokenizer(',');
+        for (int i = 0; i < RANDOM; i++) {
+            final String line = line(random, "ab,", random.nextInt(12));
+            final String[] split = line.split(",", -1);
+            final int n = 1 + random.nextInt(split.length);
+            comma.reset(line.toCharArray()).skip(n - 1);
+            assertEquals(line + " " + n, line.split(",", n)[n - 1], new String(comma.rest()));
+            assertFalse(comma.next());
+        }
+    }
+
+    @Test
+    public void TestEnclosed() {
+        final CharTokenizer tokenizer = new CharTokenizer(' ');
+        tokenizer.reset("1.2.3.4 - - [10/Oct/2000:13:55:36 -0700] \"GET /a b.gif HTTP/1.0\" 200 -".toCharArray());
+        assertEquals("1.2.3.4", tokenizer.nextString());
+        assertFalse("not enclosed", tokenizer.nextEnclosed('[', ']'));
+        tokenizer.skip(2);
+        assertTrue(tokenizer.nextEnclosed('[', ']'));
+        assertEquals("10/Oct/2000:13:55:36 -0700", tokenizer.getString());
+        assertTrue(tokenizer.nextEnclosed('"', '"'));
+        assertEquals("GET /a b.gif HTTP/1.0", tokenizer.getString());
+        assertEquals(200, tokenizer.nextInt());
+        assertTrue(tokenizer.next());
+        assertTrue(tokenizer.is("-"));
+        assertFalse(tokenizer.next());
+
+        tokenizer.reset("[open".toCharArray());
+        assertFalse("close missing", tokenizer.nextEnclosed('[', ']'));
+        assertEquals("[open", tokenizer.nextString());
+
+        tokenizer.reset("\"\"".toCharArray());
+        assertTrue(tokenizer.nextEnclosed('"', '"'));
+        assertEquals(0, tokenizer.length());
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    public void TestTypedTokens() {
+        final CharTokenizer tokenizer = new CharTokenizer(';');
+        tokenizer.reset("  7 ;-12;9000000000;2.5e3;TRUE;abc;x".toCharArray());
+        assertTrue(tokenizer.next());
+        assertEquals(7, tokenizer.trim().getShort());
+        assertEquals(-12, tokenizer.nextInt());
+        assertEquals(9000000000L, tokenizer.nextLong());
+        assertEquals(2500.0, tokenizer.nextDouble(), 0);
+        assertTrue(tokenizer.next());
+        assertTrue(tokenizer.getBoolean());
+        assertArrayEquals("abc".toCharArray(), tokenizer.nextChars());
+        assertTrue(tokenizer.next());
+        assertTrue(tokenizer.is("x"));
+        assertFalse(tokenizer.is("xy"));
+        assertEquals(tokenizer.line().length - 1, tokenizer.start());
+        assertEquals(tokenizer.line().length, tokenizer.end());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void TestSkipPastEnd() {
+        new CharTokenizer(',').reset("a,b".toCharArray()).skip(3);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void TestMalformedNumber() {
+        final CharTokenizer tokenizer = new CharTokenizer(',').reset("1,x".toCharArray());
+        assertEquals(1, tokenizer.nextInt());
+        tokenizer.nextInt();
+    }
+}
@@ -0,0 +1,152 @@
+package helper.parser;
+
+import constants.SpikeDetectionConstants.Conf;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import parser.CommonLogParser;
+import parser.SensorParser;
+import util.Configuration;
+import util.datatypes.DateUtils;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static helper.parser.SchemaParser.Type.INT;
+import static helper.parser.SchemaParser.Type.SHORT;
+
+/**
+ * Parser-stage throughput on synthetic lines in the format of each input: LinearRoad dispatch, the SpikeDetection
+ * sensor parser and the LogProcessing common log parser, each before (String and regex based, as the parsers were)
+ * and after (char[] based). Each figure is the best of the measured passes, on one thread.
+ * It is a main run by hand rather than part of the unit tests; the *Test classes of this package check the results.
+ */
+public class ParserBenchmark {
+    private final static Logger LOG = LoggerFactory.getLogger(ParserBenchmark.class);
+    private static final int LINES = 100000;
+    private static final int WARMUP = 8;
+    private static final int PASSES = 8;
+    private static final String LOG_PATTERN = "^(\\S+) (\\S+) (\\S+) \\[([\\w:/]+\\s[+\\-]\\d{4})\\] \"(.+?)\" (\\d{3}) (\\S+)(.*?)";
+    private static final DateTimeFormatter LOG_DATE = DateTimeFormat.forPattern("dd/MMM/yyyy:HH:mm:ss Z");
+
+    private final Random random = new Random(25);
+    private long sink;//consumes results so that the parsing is not optimized away.
+
+    public static void main(String[] args) {
+        new ParserBenchmark().run();
+    }
+
+    private char[][] lines(Supplier<String> line) {
+        final char[][] lines = new char[LINES][];
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = line.get().toCharArray();
+        }
+        return lines;
+    }
+
+    private String linearRoad() {
+        return random.nextInt(4) + " " + random.nextInt(10800) + " " + random.nextInt(200000) + " " + random.nextInt(100)
+                + " " + random.nextInt(10) + " " + random.nextInt(5) + " " + random.nextInt(2) + " " + random.nextInt(100)
+                + " " + random.nextInt(528000) + " " + random.nextInt(100) + " -1 -1 -1 -1 -1";
+    }
+
+    private String sensor() {
+        return "2004-03-31 03:38:15.757551 " + random.nextInt(65000) + " " + random.nextInt(60) + "  "
+                + random.nextInt(1000000) / 1000.0 + " " + random.nextInt(100000) / 1000.0 + " "
+                + random.nextInt(10000) / 100.0 + " " + random.nextInt(300000) / 100000.0;
+    }
+
+    private String commonLog() {
+        return random.nextInt(256) + "." + random.nextInt(256) + ".0." + random.nextInt(256) + " - - ["
+                + (10 + random.nextInt(18)) + "/Oct/2000:13:" + (10 + random.nextInt(50)) + ":36 -0700] \"GET /page"
+                + random.nextInt(1000) + ".html HTTP/1.0\" 200 " + random.nextInt(100000);
+    }
+
+    /**
+     * @return lines per second, the best of the passes.
+     */
+    private double measure(String name, char[][] lines, ToLongFunction<char[]> parse) {
+        double best = 0;
+        for (int pass = 0; pass < WARMUP + PASSES; pass++) {
+            final long start = System.nanoTime();
+            for (char[] line : lines) {
+                sink += parse.applyAsLong(line);
+            }
+            final double rate = lines.length * 1e9 / (System.nanoTime() - start);
+            if (pass >= WARMUP) {
+                best = Math.max(best, rate);
+            }
+        }
+        LOG.info(name + ": " + String.format("%.2f", best / 1e6) + "M lines/s");
+        return best;
+    }
+
+    private void run() {
+        final char[][] lr = lines(this::linearRoad);
+        measure("LinearRoad dispatch, split", lr, line -> {
+            final String[] token = new String(line).split(" ");
+            final Integer time = Integer.parseInt(token[1]);
+            final Integer vid = Integer.parseInt(token[2]);
+            return Short.parseShort(token[0]) + time + vid + Integer.parseInt(token[3]) + Integer.parseInt(token[4])
+                    + Short.parseShort(token[5]) + Short.parseShort(token[6]) + Short.parseShort(token[7])
+                    + Integer.parseInt(token[8]) + Integer.parseInt(token[9]);
+        });
+        final SchemaParser dispatch = new SchemaParser(' ', false, SHORT, INT, INT, INT, INT, SHORT, SHORT, SHORT, INT, INT);
+        final SchemaParser.Row row = dispatch.newRow();
+        measure("LinearRoad dispatch, schema", lr, line -> {
+            dispatch.parse(line, row);
+            long sum = 0;
+            for (int field = 0; field < 10; field++) {
+                sum += row.getLong(field);
+            }
+            return sum;
+        });
+
+        final char[][] sd = lines(this::sensor);
+        measure("SpikeDetection parser, copies", sd, line -> {
+            //as SensorParser did: a copy of every field, then a String of the value field.
+            final char[][] fields = new char[8][];
+            int cnt = 0;
+            int index = 0;
+            int extra_space = 0;
+            for (int c = 0; c < line.length; c++) {
+                if (line[c] == ' ' || c == line.length - 1) {
+                    if (c + 1 < line.length && line[c + 1] == ' ') {
+                        extra_space++;
+                        continue;
+                    }
+                    final char[] word = new char[c - index - extra_space];
+                    System.arraycopy(line, index, word, 0, word.length);
+                    extra_space = 0;
+                    fields[cnt++] = word;
+                    index = c + 1;
+                }
+            }
+            return (long) Double.parseDouble(String.valueOf(fields[4]));
+        });
+        final Configuration config = new Configuration();
+        config.put(Conf.PARSER_VALUE_FIELD, "temp");
+        final SensorParser sensor = new SensorParser();
+        sensor.initialize(config);
+        measure("SpikeDetection parser, tokenizer", sd, line -> (long) (double) (Double) sensor.parse(line)[1]);
+
+        final char[][] lp = lines(this::commonLog);
+        measure("LogProcessing parser, regex", lp, line -> {
+            final Matcher matcher = Pattern.compile(LOG_PATTERN).matcher(new String(line));
+            if (!matcher.matches()) {
+                return 0;
+            }
+            final Date timestamp = LOG_DATE.parseDateTime(matcher.group(4)).toDate();
+            return DateUtils.getMinuteForTime(timestamp) + matcher.group(1).length() + matcher.group(5).length()
+                    + Integer.parseInt(matcher.group(6)) + Integer.parseInt(matcher.group(7));
+        });
+        final CommonLogParser log = new CommonLogParser();
+        measure("LogProcessing parser, tokenizer", lp, line -> (Long) log.parse(line)[2]);
+        LOG.info("sink:" + sink);
+    }
+}
@@ -0,0 +1,108 @@
+package helper.parser;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static helper.parser.SchemaParser.Type.*;
+import static org.junit.Assert.*;
+
+/**
+ * {@link SchemaParser} against split and the JDK parsers, on lines shaped as the LinearRoad input, and on
+ * malformed ones.
+ */
+public class SchemaParserTest {
+    private static final int RANDOM = 50000;
+    private static final SchemaParser.Type[] SCHEMA = {SHORT, INT, LONG, SKIP, DOUBLE, CHARS, STRING};
+
+    private static String line(Random random, String delimiter) {
+        final StringBuilder line = new StringBuilder();
+        line.append(random.nextInt(Short.MAX_VALUE * 2) - Short.MAX_VALUE).append(delimiter);
+        line.append(random.nextInt()).append(delimiter);
+        line.append(random.nextLong()).append(delimiter);
+        line.append("skipped").append(delimiter);
+        line.append(random.nextInt(100000) / 100.0).append(delimiter);
+        line.append("c").append(random.nextInt(10)).append(delimiter);
+        line.append("s").append(random.nextInt(10));
+        if (random.nextBoolean()) {
+            line.append(delimiter).append("ignored");
+        }
+        return line.toString();
+    }
+
+    private static void check(String line, String[] columns, Object[] values, SchemaParser.Row row) {
+        assertEquals(line, 6, values.length);
+        assertEquals(line, Short.parseShort(columns[0]), values[0]);
+        assertEquals(line, Integer.parseInt(columns[1]), values[1]);
+        assertEquals(line, Long.parseLong(columns[2]), values[2]);
+        assertEquals(line, Double.parseDouble(columns[4]), values[3]);
+        assertArrayEquals(line, columns[5].toCharArray(), (char[]) values[4]);
+        assertEquals(line, columns[6], values[5]);
+
+        assertEquals(line, Short.parseShort(columns[0]), row.getShort(0));
+        assertEquals(line, Integer.parseInt(columns[1]), row.getInt(1));
+        assertEquals(line, Long.parseLong(columns[2]), row.getLong(2));
+        assertEquals(line, Double.doubleToLongBits(Double.parseDouble(columns[4])), Double.doubleToLongBits(row.getDouble(3)));
+        assertArrayEquals(line, columns[5].toCharArray(), row.getChars(4));
+        assertEquals(line, columns[6], row.getString(5));
+        assertEquals(line, columns[6], new String(row.line(), row.start(5), row.end(5) - row.start(5)));
+    }
+
+    @Test
+    public void TestRandomLines() {
+        final Random random = new Random(25);
+        final SchemaParser parser = new SchemaParser(',', false, SCHEMA);
+        final SchemaParser.Row row = parser.newRow();
+        for (int i = 0; i < RANDOM; i++) {
+            final String line = line(random, ",");
+            assertTrue(line, parser.parse(line.toCharArray(), row));
+            check(line, line.split(","), parser.parse(line.toCharArray()), row);
+        }
+    }
+
+    @Test
+    public void TestCollapsedDelimiters() {
+        final Random random = new Random(52);
+        final SchemaParser parser = new SchemaParser(' ', true, SCHEMA);
+        final SchemaParser.Row row = parser.newRow();
+        for (int i = 0; i < RANDOM; i++) {
+            final String line = "  " + line(random, random.nextBoolean() ? " " : "   ") + " ";
+            assertTrue(line, parser.parse(line.toCharArray(), row));
+            check(line, line.trim().split(" +"), parser.parse(line.toCharArray()), row);
+        }
+    }
+
+    @Test
+    public void TestMalformedLines() {
+        final SchemaParser parser = new SchemaParser(',', false, SCHEMA);
+        final SchemaParser.Row row = parser.newRow();
+        for (String line : new String[]{
+                "",
+                "1,2,3,x,4.5,c",//a column missing.
+                "40000,2,3,x,4.5,c,s",//short overflow.
+                "1,2147483648,3,x,4.5,c,s",
+                "1,2,3.0,x,4.5,c,s",
+                "1,2,3,x,4.5.1,c,s",
+                "1,,3,x,4.5,c,s",
+        }) {
+            assertFalse(line, parser.parse(line.toCharArray(), row));
+            assertNull(line, parser.parse(line.toCharArray()));
+        }
+    }
+
+    /**
+     * Each consumer has its own row: parsing into one leaves the other as it was.
+     */
+    @Test
+    public void TestRowsAreIndependent() {
+        final SchemaParser parser = new SchemaParser(' ', false, INT, STRING);
+        final SchemaParser.Row first = parser.newRow();
+        final SchemaParser.Row second = parser.newRow();
+        assertTrue(parser.parse("1 a".toCharArray(), first));
+        assertTrue(parser.parse("2 b".toCharArray(), second));
+        assertEquals(1, first.getInt(0));
+        assertEquals("a", first.getString(1));
+        assertEquals(2, second.getInt(0));
+        assertEquals("b", second.getString(1));
+    }
+}
@@ -0,0 +1,60 @@
+package machine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * The sysfs parsers of {@link Calibration}, and the restriction of a profile to the configured sockets.
+ */
+public class CalibrationTest {
+
+    @Test
+    public void TestCpulist() {
+        assertEquals(Collections.emptyList(), Calibration.cpulist(""));
+        assertEquals(Collections.singletonList(5), Calibration.cpulist("5"));
+        assertEquals(Arrays.asList(0, 1, 2, 3), Calibration.cpulist("0-3"));
+        assertEquals(Arrays.asList(0, 1, 2, 8, 10, 11), Calibration.cpulist("0-2,8,10-11"));
+        assertEquals(Arrays.asList(0, 1, 4), Calibration.cpulist("0-1, 4"));
+        assertEquals(36, Calibration.cpulist("0-17,144-161").size());
+        assertEquals(161, (int) Calibration.cpulist("0-17,144-161").get(35));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void TestCpulistMalformed() {
+        Calibration.cpulist("0-a");
+    }
+
+    @Test
+    public void TestBytes() {
+        assertEquals(32L << 10, Calibration.bytes("32K"));
+        assertEquals(32L << 10, Calibration.bytes("32k"));
+        assertEquals(25600L << 10, Calibration.bytes("25600K"));
+        assertEquals(1L << 20, Calibration.bytes("1M"));
+        assertEquals(2L << 30, Calibration.bytes("2G"));
+        assertEquals(512, Calibration.bytes("512"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void TestBytesMalformed() {
+        Calibration.bytes("K");
+    }
+
+    @Test
+    public void TestRestrict() {
+        final Calibrated_Machine p = new Calibrated_Machine();
+        p.num_socket = 4;
+        p.num_cores = 72;
+        Calibration.restrict(p, 8);//more than detected.
+        assertEquals(4, p.num_socket);
+        assertEquals(72, p.num_cores);
+        Calibration.restrict(p, 0);//not configured.
+        assertEquals(4, p.num_socket);
+        Calibration.restrict(p, 2);
+        assertEquals(2, p.num_socket);
+        assertEquals(36, p.num_cores);
+    }
+}